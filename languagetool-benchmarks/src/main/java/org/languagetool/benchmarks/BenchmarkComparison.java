@@ -0,0 +1,89 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Compares two JMH result files written with {@code -rf json}, e.g. of two commits, and prints
+ * the change of every benchmark's score. Changes that are larger than the scores' errors combined
+ * are marked with {@code *}.
+ * @since 6.4
+ */
+public final class BenchmarkComparison {
+
+  private BenchmarkComparison() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Usage: " + BenchmarkComparison.class.getSimpleName() + " <baseline.json> <results.json>");
+      System.out.println("  both files as written by: java -jar target/benchmarks.jar -rf json -rff <file>");
+      System.exit(1);
+    }
+    Map<String, JsonNode> baseline = readResults(new File(args[0]));
+    Map<String, JsonNode> results = readResults(new File(args[1]));
+    for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+      JsonNode metric = entry.getValue();
+      JsonNode baseMetric = baseline.get(entry.getKey());
+      if (baseMetric == null) {
+        System.out.printf(Locale.ENGLISH, "%-70s %12s %12.3f %s%n", entry.getKey(), "-", metric.get("score").asDouble(),
+          metric.get("scoreUnit").asText());
+        continue;
+      }
+      double baseScore = baseMetric.get("score").asDouble();
+      double score = metric.get("score").asDouble();
+      double change = (score - baseScore) / baseScore * 100;
+      boolean significant = Math.abs(score - baseScore) > errorOf(baseMetric) + errorOf(metric);
+      System.out.printf(Locale.ENGLISH, "%-70s %12.3f %12.3f %s %+7.1f%%%s%n", entry.getKey(), baseScore, score,
+        metric.get("scoreUnit").asText(), change, significant ? " *" : "");
+    }
+  }
+
+  private static double errorOf(JsonNode metric) {
+    double error = metric.get("scoreError").asDouble();
+    return Double.isNaN(error) ? 0 : error;
+  }
+
+  /**
+   * @return the primary metric of each benchmark and parameter combination
+   */
+  private static Map<String, JsonNode> readResults(File file) throws IOException {
+    Map<String, JsonNode> results = new LinkedHashMap<>();
+    for (JsonNode result : new ObjectMapper().readTree(file)) {
+      StringBuilder key = new StringBuilder(result.get("benchmark").asText().replace(BenchmarkComparison.class.getPackage().getName() + ".", ""));
+      JsonNode params = result.get("params");
+      if (params != null) {
+        Iterator<Map.Entry<String, JsonNode>> it = params.fields();
+        while (it.hasNext()) {
+          Map.Entry<String, JsonNode> param = it.next();
+          key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+        }
+      }
+      results.put(key.toString(), result.get("primaryMetric"));
+    }
+    return results;
+  }
+
+}
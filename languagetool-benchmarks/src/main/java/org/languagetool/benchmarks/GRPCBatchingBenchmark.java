@@ -0,0 +1,128 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.languagetool.rules.MatchRequestBatcher;
+import org.languagetool.rules.ml.MLServerGrpc;
+import org.languagetool.rules.ml.MLServerProto.MatchList;
+import org.languagetool.rules.ml.MLServerProto.MatchRequest;
+import org.languagetool.rules.ml.MLServerProto.MatchResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends small {@link MatchRequest}s from many threads to an in-process stand-in for an ML server,
+ * either directly or combined by a {@link MatchRequestBatcher}. The stand-in handles one call at a
+ * time, like a model on a single accelerator, and every call costs {@code callMicros} plus
+ * {@code sentenceMicros} per sentence, so combining calls increases the throughput at the cost of
+ * waiting up to {@code batchWindowMilliseconds}. The sample-time mode reports the latency percentiles.
+ * {@code batchWindowMilliseconds=0} sends the requests directly.
+ * @since 6.4
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class GRPCBatchingBenchmark {
+
+  @Param({"0", "1", "5"})
+  public long batchWindowMilliseconds;
+
+  @Param({"64"})
+  public int maxBatchSize;
+
+  @Param({"1"})
+  public int sentencesPerRequest;
+
+  @Param({"2000"})
+  public long callMicros;
+
+  @Param({"20"})
+  public long sentenceMicros;
+
+  Server server;
+  ExecutorService serverExecutor;
+  ManagedChannel channel;
+  MLServerGrpc.MLServerFutureStub stub;
+  MatchRequestBatcher batcher;
+  MatchRequest request;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    serverExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("ml-server-%d").setDaemon(true).build());
+    String name = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(name).executor(serverExecutor).addService(new MLServerGrpc.MLServerImplBase() {
+      @Override
+      public void match(MatchRequest request, StreamObserver<MatchResponse> responseObserver) {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(callMicros + sentenceMicros * request.getSentencesCount()));
+        MatchResponse.Builder response = MatchResponse.newBuilder();
+        for (int i = 0; i < request.getSentencesCount(); i++) {
+          response.addSentenceMatches(MatchList.getDefaultInstance());
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+      }
+    }).build().start();
+    channel = InProcessChannelBuilder.forName(name).build();
+    stub = MLServerGrpc.newFutureStub(channel);
+    if (batchWindowMilliseconds > 0) {
+      batcher = new MatchRequestBatcher(stub, maxBatchSize, batchWindowMilliseconds);
+    }
+    MatchRequest.Builder builder = MatchRequest.newBuilder();
+    for (int i = 0; i < sentencesPerRequest; i++) {
+      builder.addSentences("This is sentence number " + i + ".");
+    }
+    request = builder.build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (batcher != null) {
+      System.out.println();
+      System.out.println("Batcher: " + batcher.getRequestCount() + " requests in " + batcher.getCallCount() + " calls");
+    }
+    channel.shutdownNow();
+    server.shutdownNow();
+    serverExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public MatchResponse match() throws ExecutionException, InterruptedException {
+    if (batcher != null) {
+      return batcher.match(request, 0).get();
+    }
+    return stub.match(request).get();
+  }
+
+}
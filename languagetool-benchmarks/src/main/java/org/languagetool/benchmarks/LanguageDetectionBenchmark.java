@@ -0,0 +1,78 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.language.identifier.detector.NGramDetector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Language detection with the {@link NGramDetector} for the sentences of all corpora, i.e. what is done
+ * for every request without a fixed language. The ngram model isn't part of LanguageTool, so its path
+ * needs to be given, e.g. {@code LanguageDetectionBenchmark -p modelZip=/path/to/ngram-lang-id.zip}.
+ * @since 6.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LanguageDetectionBenchmark {
+
+  // the maximum text length used by DefaultLanguageIdentifier:
+  private static final int MAX_LENGTH = 50;
+
+  @Param({""})
+  public String modelZip;
+
+  NGramDetector detector;
+  List<String> sentences = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    if (modelZip.isEmpty()) {
+      throw new IllegalArgumentException("Set the path of the ngram model with '-p modelZip=...'");
+    }
+    detector = new NGramDetector(new File(modelZip), MAX_LENGTH);
+    for (String shortCode : Arrays.asList("en", "de", "fr", "es", "pt")) {
+      for (String line : LanguageState.loadCorpus(shortCode).split("\n")) {
+        if (!line.trim().isEmpty()) {
+          sentences.add(line.trim());
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void detectLanguages(Blackhole blackhole) {
+    for (String sentence : sentences) {
+      blackhole.consume(detector.detectLanguages(sentence, Collections.emptyList()));
+    }
+  }
+
+}
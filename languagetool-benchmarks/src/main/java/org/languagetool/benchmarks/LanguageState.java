@@ -0,0 +1,82 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.Languages;
+import org.languagetool.rules.Rule;
+import org.languagetool.tools.StringTools;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A language, a {@link JLanguageTool} for it and its fixed benchmark corpus ({@code corpus-<code>.txt})
+ * in all the stages of analysis, so that each benchmark only measures its own stage.
+ * @since 6.4
+ */
+@State(Scope.Benchmark)
+public class LanguageState {
+
+  @Param({"en-US", "de-DE", "fr", "es", "pt-PT"})
+  public String languageCode;
+
+  Language language;
+  JLanguageTool lt;
+  String text;
+  List<String> sentences;
+  List<List<String>> tokenizedSentences;
+  List<AnalyzedSentence> rawAnalyzedSentences;
+  List<AnalyzedSentence> analyzedSentences;
+  List<Rule> activeRules;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    language = Languages.getLanguageForShortCode(languageCode);
+    lt = new JLanguageTool(language);
+    text = loadCorpus(language.getShortCode());
+    sentences = lt.sentenceTokenize(text);
+    tokenizedSentences = new ArrayList<>();
+    rawAnalyzedSentences = new ArrayList<>();
+    for (String sentence : sentences) {
+      tokenizedSentences.add(language.getWordTokenizer().tokenize(sentence));
+      rawAnalyzedSentences.add(lt.getRawAnalyzedSentence(sentence));
+    }
+    analyzedSentences = lt.analyzeText(text);
+    activeRules = lt.getAllActiveRules();
+    // load everything that's loaded lazily, like spelling dictionaries:
+    lt.check(text);
+  }
+
+  static String loadCorpus(String shortCode) throws IOException {
+    String file = "corpus-" + shortCode + ".txt";
+    try (InputStream stream = LanguageState.class.getResourceAsStream(file)) {
+      if (stream == null) {
+        throw new IOException("No benchmark corpus found for " + shortCode + ": " + file);
+      }
+      return StringTools.readStream(stream, "utf-8");
+    }
+  }
+
+}
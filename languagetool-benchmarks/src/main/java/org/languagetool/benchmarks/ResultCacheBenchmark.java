@@ -0,0 +1,126 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.Languages;
+import org.languagetool.OffHeapResultStore;
+import org.languagetool.ResultCache;
+import org.languagetool.rules.RuleMatch;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks with a {@link ResultCache} that is filled with many sentences, either all kept on the heap or
+ * with a small cache on the heap and the rest in an {@link OffHeapResultStore}. Most sentences are found in
+ * the cache, some are new. Besides the time per check, the time the JVM spent in garbage collection
+ * is reported as {@code gcMillis}, which should grow with the size of the cache on the heap.
+ * Filling the cache checks {@code cachedSentences} sentences, so the setup takes a few minutes. Run it
+ * with a fixed heap to get comparable results, e.g. {@code ResultCacheBenchmark -jvmArgs -Xmx4g}.
+ * @since 6.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultCacheBenchmark {
+
+  private static final int HEAP_CACHE_SIZE_WITH_OFF_HEAP_STORE = 1000;
+  private static final int NEW_SENTENCES_PERCENT = 10;
+
+  @Param({"heap", "off-heap"})
+  public String storage;
+
+  @Param({"100000"})
+  public int cachedSentences;
+
+  ResultCache cache;
+  OffHeapResultStore offHeapStore;
+  JLanguageTool lt;
+  List<String> sentences;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    Language language = Languages.getLanguageForShortCode("en-US");
+    if (storage.equals("heap")) {
+      cache = new ResultCache(cachedSentences, 1, TimeUnit.DAYS);
+    } else {
+      cache = new ResultCache(HEAP_CACHE_SIZE_WITH_OFF_HEAP_STORE, 1, TimeUnit.DAYS);
+      offHeapStore = new OffHeapResultStore(cachedSentences * 2048L);
+      cache.setSecondLevelCache(offHeapStore, "");
+    }
+    lt = new JLanguageTool(language, null, cache);
+    sentences = lt.sentenceTokenize(LanguageState.loadCorpus(language.getShortCode()));
+    for (int i = 0; i < cachedSentences; i++) {
+      lt.check(getSentence(i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.println();
+    System.out.println("Result cache: " + cache.getMatchesCache().size() + " sentences on the heap, hit rate " + cache.hitRate());
+    if (offHeapStore != null) {
+      System.out.println("Off-heap store: " + offHeapStore.getEntryCount() + " sentences, " +
+        offHeapStore.getUsedBytes() / 1024 / 1024 + "MB used, " + offHeapStore.getEvictionCount() + " evictions, " +
+        cache.getSecondLevelHitCount() + " hits, " + cache.getSecondLevelMissCount() + " misses, " +
+        cache.getSecondLevelDeserializationNanos() / Math.max(1, cache.getSecondLevelHitCount()) + "ns per deserialization");
+    }
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class GarbageCollection {
+    public long gcMillis;
+
+    long getTotalMillis() {
+      long millis = 0;
+      for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+        millis += Math.max(0, bean.getCollectionTime());
+      }
+      return millis;
+    }
+  }
+
+  @Benchmark
+  public List<RuleMatch> check(GarbageCollection gc) throws IOException {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int i = random.nextInt(100) < NEW_SENTENCES_PERCENT ? cachedSentences + random.nextInt(Integer.MAX_VALUE - cachedSentences)
+                                                        : random.nextInt(cachedSentences);
+    long startMillis = gc.getTotalMillis();
+    List<RuleMatch> matches = lt.check(getSentence(i));
+    gc.gcMillis += gc.getTotalMillis() - startMillis;
+    return matches;
+  }
+
+  // a different sentence for every i, but similar to a real one:
+  private String getSentence(int i) {
+    return sentences.get(i % sentences.size()).trim() + " (" + i + ")";
+  }
+
+}
@@ -0,0 +1,94 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.patterns.LazyPatternRule;
+import org.languagetool.rules.patterns.PatternRule;
+import org.languagetool.rules.patterns.PatternRuleMatcher;
+import org.languagetool.rules.patterns.RuleSet;
+import org.languagetool.rules.spelling.hunspell.HunspellRule;
+import org.languagetool.rules.spelling.morfologik.MorfologikSpellerRule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Running the rules on the analyzed sentences of the corpus: the XML pattern rules (i.e. the
+ * {@link PatternRuleMatcher}), the spell checker ({@link MorfologikSpellerRule} or {@link HunspellRule},
+ * depending on the language) and selecting the rules that can match a sentence.
+ * @since 6.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleMatchingBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Rules {
+    List<Rule> patternRules = new ArrayList<>();
+    List<Rule> spellingRules = new ArrayList<>();
+    RuleSet ruleSet;
+
+    @Setup(Level.Trial)
+    public void setUp(LanguageState state) {
+      for (Rule rule : state.activeRules) {
+        if (rule instanceof PatternRule || rule instanceof LazyPatternRule) {
+          patternRules.add(rule);
+        } else if (rule instanceof MorfologikSpellerRule || rule instanceof HunspellRule) {
+          spellingRules.add(rule);
+        }
+      }
+      ruleSet = RuleSet.textLemmaHinted(state.activeRules);
+    }
+  }
+
+  @Benchmark
+  public void patternRules(LanguageState state, Rules rules, Blackhole blackhole) throws IOException {
+    for (AnalyzedSentence sentence : state.analyzedSentences) {
+      for (Rule rule : rules.patternRules) {
+        blackhole.consume(rule.match(sentence));
+      }
+    }
+  }
+
+  @Benchmark
+  public void spelling(LanguageState state, Rules rules, Blackhole blackhole) throws IOException {
+    for (AnalyzedSentence sentence : state.analyzedSentences) {
+      for (Rule rule : rules.spellingRules) {
+        blackhole.consume(rule.match(sentence));
+      }
+    }
+  }
+
+  @Benchmark
+  public void rulesForSentence(LanguageState state, Rules rules, Blackhole blackhole) {
+    for (AnalyzedSentence sentence : state.analyzedSentences) {
+      blackhole.consume(rules.ruleSet.rulesForSentence(sentence));
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.tagging.BaseTagger;
+import org.languagetool.tagging.disambiguation.rules.XmlRuleDisambiguator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tagging the words of the corpus (usually with a {@link BaseTagger}) and disambiguating
+ * the tagged sentences (usually with an {@link XmlRuleDisambiguator}).
+ * @since 6.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaggingBenchmark {
+
+  @Benchmark
+  public void tagging(LanguageState state, Blackhole blackhole) throws IOException {
+    for (List<String> tokens : state.tokenizedSentences) {
+      blackhole.consume(state.language.getTagger().tag(tokens));
+    }
+  }
+
+  @Benchmark
+  public void disambiguation(LanguageState state, Blackhole blackhole) throws IOException {
+    for (AnalyzedSentence sentence : state.rawAnalyzedSentences) {
+      // disambiguation may modify the tokens, so each run works on a fresh copy:
+      AnalyzedSentence copy = sentence.copy(sentence);
+      blackhole.consume(state.language.getDisambiguator().disambiguate(copy));
+    }
+  }
+
+}
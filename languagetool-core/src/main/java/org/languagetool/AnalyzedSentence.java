@@ -32,14 +32,28 @@ import java.util.*;
  */
 public final class AnalyzedSentence {
 
+  // for getEstimatedRetainedBytes():
+  private static final int OBJECT_HEADER_BYTES = 12;
+  private static final int ARRAY_HEADER_BYTES = 16;
+  private static final int REFERENCE_BYTES = 4;
+  private static final int STRING_BYTES = 24;
+  private static final int TOKEN_READINGS_BYTES = 72;
+  private static final int TOKEN_BYTES = 32;
+  private static final int LIST_BYTES = 24;
+
   // objects of this type are cached, so everything needs to be immutable
   private final AnalyzedTokenReadings[] tokens;
   private final AnalyzedTokenReadings[] preDisambigTokens;
   private final AnalyzedTokenReadings[] nonBlankTokens;
   private final AnalyzedTokenReadings[] nonBlankPreDisambigTokens;
   private final int[] whPositions;  // maps positions without whitespace to positions that include whitespaces
-  private final Map<String, List<Integer>> tokenOffsets;
-  private final Map<String, List<Integer>> lemmaOffsets;
+  // built lazily, as many sentences are only checked by rules that don't need them:
+  private TokenOffsetIndex tokenOffsets;
+  private TokenOffsetIndex lemmaOffsets;
+  // the indexes of the sentence this one was derived from by disambiguation, re-used if still valid:
+  private TokenOffsetIndex inheritedTokenOffsets;
+  private TokenOffsetIndex inheritedLemmaOffsets;
+  private int estimatedRetainedBytes;  // computed lazily, like String.hashCode()
 
   /**
    * Creates an AnalyzedSentence from the given {@link AnalyzedTokenReadings}. Whitespace is also a token.
@@ -57,15 +71,13 @@ public final class AnalyzedSentence {
     this.whPositions = mapping;
     this.nonBlankTokens = getNonBlankReadings(tokens, whCounter, nonWhCounter, mapping).toArray(new AnalyzedTokenReadings[0]);
     this.nonBlankPreDisambigTokens = getNonBlankReadings(preDisambigTokens, whCounter, nonWhCounter, mapping).toArray(new AnalyzedTokenReadings[0]);
-    tokenOffsets = indexTokens(nonBlankTokens);
-    lemmaOffsets = indexLemmas(nonBlankTokens);
   }
 
   @NotNull
   private List<AnalyzedTokenReadings> getNonBlankReadings(AnalyzedTokenReadings[] tokens, int whCounter, int nonWhCounter, int[] mapping) {
     List<AnalyzedTokenReadings> l = new ArrayList<>();
     for (AnalyzedTokenReadings token : tokens) {
-      if (!token.isWhitespace() || token.isSentenceStart() || token.isSentenceEnd() || token.isParagraphEnd()) {
+      if (isNonBlank(token)) {
         l.add(token);
         mapping[nonWhCounter] = whCounter;
         nonWhCounter++;
@@ -75,47 +87,86 @@ public final class AnalyzedSentence {
     return l;
   }
 
-  private AnalyzedSentence(AnalyzedTokenReadings[] tokens, int[] mapping, AnalyzedTokenReadings[] nonBlankTokens, AnalyzedTokenReadings[] nonBlankPreDisambigTokens) {
+  private static boolean isNonBlank(AnalyzedTokenReadings token) {
+    return !token.isWhitespace() || token.isSentenceStart() || token.isSentenceEnd() || token.isParagraphEnd();
+  }
+
+  private AnalyzedSentence(AnalyzedTokenReadings[] tokens, AnalyzedTokenReadings[] preDisambigTokens, int[] mapping,
+                           AnalyzedTokenReadings[] nonBlankTokens, AnalyzedTokenReadings[] nonBlankPreDisambigTokens) {
     this.tokens = tokens;
-    this.preDisambigTokens = tokens;
+    this.preDisambigTokens = preDisambigTokens;
     this.whPositions = mapping;
     this.nonBlankTokens = nonBlankTokens;
     this.nonBlankPreDisambigTokens = nonBlankPreDisambigTokens;
-    tokenOffsets = indexTokens(nonBlankTokens);
-    lemmaOffsets = indexLemmas(nonBlankTokens);
   }
 
-  private static Map<String, List<Integer>> indexTokens(AnalyzedTokenReadings[] tokens) {
-    Map<String, List<Integer>> result = new HashMap<>(tokens.length);
-    for (int i = 0; i < tokens.length; i++) {
-      result.computeIfAbsent(tokens[i].getToken().toLowerCase(), __ -> new ArrayList<>(1)).add(i);
+  /**
+   * Creates the sentence that results from a disambiguation step, the same as
+   * {@code new AnalyzedSentence(newTokens, getTokens())}. As disambiguation rules usually change the readings
+   * of a few tokens only, the new sentence shares with this one what the step didn't change: the mapping
+   * of whitespace positions, the tokens without whitespace before disambiguation, and the token and lemma
+   * indexes, which are re-used instead of re-built if the tokens they were built from are still the same.
+   * @param newTokens the tokens after the disambiguation step, including whitespace; must not be modified afterwards
+   * @since 6.4
+   */
+  @ApiStatus.Internal
+  public AnalyzedSentence withDisambiguatedTokens(AnalyzedTokenReadings[] newTokens) {
+    if (newTokens.length != tokens.length || !whitespaceMatchesPreDisambig()) {
+      return new AnalyzedSentence(newTokens, tokens);
+    }
+    AnalyzedTokenReadings[] newNonBlankTokens = new AnalyzedTokenReadings[nonBlankTokens.length];
+    int nonBlankCount = 0;
+    for (int i = 0; i < newTokens.length; i++) {
+      if (isNonBlank(newTokens[i])) {
+        if (nonBlankCount == newNonBlankTokens.length || whPositions[nonBlankCount] != i) {
+          return new AnalyzedSentence(newTokens, tokens);  // the whitespace has changed
+        }
+        newNonBlankTokens[nonBlankCount++] = newTokens[i];
+      }
+    }
+    if (nonBlankCount != newNonBlankTokens.length) {
+      return new AnalyzedSentence(newTokens, tokens);
     }
-    return makeUnmodifiable(result);
+    AnalyzedSentence result = new AnalyzedSentence(newTokens, tokens, whPositions, newNonBlankTokens, nonBlankTokens);
+    result.inheritedTokenOffsets = tokenOffsets != null ? tokenOffsets : inheritedTokenOffsets;
+    result.inheritedLemmaOffsets = lemmaOffsets != null ? lemmaOffsets : inheritedLemmaOffsets;
+    return result;
   }
 
-  private static Map<String, List<Integer>> indexLemmas(AnalyzedTokenReadings[] tokens) {
-    Map<String, List<Integer>> result = new HashMap<>(tokens.length);
-    for (int i = 0; i < tokens.length; i++) {
-      AnalyzedTokenReadings tr = tokens[i];
-      int readingsLength = tr.getReadingsLength();
-      for (int j = 0; j < readingsLength; j++) {
-        AnalyzedToken token = tr.getAnalyzedToken(j);
-        String lemma = token.getLemma();
-        String key = (lemma != null ? lemma : token.getToken()).toLowerCase();
-        List<Integer> list = result.computeIfAbsent(key, __ -> new ArrayList<>(1));
-        if (list.isEmpty() || list.get(list.size() - 1) != i) {
-          list.add(i);
-        }
+  // whPositions is computed from the tokens before disambiguation, this checks it also fits the tokens:
+  private boolean whitespaceMatchesPreDisambig() {
+    if (nonBlankTokens.length != nonBlankPreDisambigTokens.length) {
+      return false;
+    }
+    for (int i = 0; i < nonBlankTokens.length; i++) {
+      if (tokens[whPositions[i]] != nonBlankTokens[i]) {
+        return false;
       }
     }
-    return makeUnmodifiable(result);
+    return true;
+  }
+
+  private TokenOffsetIndex getTokenIndex() {
+    TokenOffsetIndex result = tokenOffsets;
+    if (result == null) {
+      // the index is immutable, so a race only means it's built (or validated) twice:
+      TokenOffsetIndex inherited = inheritedTokenOffsets;
+      result = inherited != null && inherited.isValidFor(nonBlankTokens) ? inherited : TokenOffsetIndex.ofTokens(nonBlankTokens);
+      tokenOffsets = result;
+      inheritedTokenOffsets = null;
+    }
+    return result;
   }
 
-  private static Map<String, List<Integer>> makeUnmodifiable(Map<String, List<Integer>> result) {
-    for (Map.Entry<String, List<Integer>> entry : result.entrySet()) {
-      entry.setValue(Collections.unmodifiableList(entry.getValue()));
+  private TokenOffsetIndex getLemmaIndex() {
+    TokenOffsetIndex result = lemmaOffsets;
+    if (result == null) {
+      TokenOffsetIndex inherited = inheritedLemmaOffsets;
+      result = inherited != null && inherited.isValidFor(nonBlankTokens) ? inherited : TokenOffsetIndex.ofLemmas(nonBlankTokens);
+      lemmaOffsets = result;
+      inheritedLemmaOffsets = null;
     }
-    return Collections.unmodifiableMap(result);
+    return result;
   }
 
   /**
@@ -132,7 +183,7 @@ public final class AnalyzedSentence {
       AnalyzedTokenReadings analyzedTokens = sentence.getTokens()[i];
       copyTokens[i] = new AnalyzedTokenReadings(analyzedTokens, analyzedTokens.getReadings(), "");
     }
-    return new AnalyzedSentence(copyTokens, sentence.whPositions, sentence.getTokensWithoutWhitespace(), sentence.getPreDisambigTokensWithoutWhitespace());
+    return new AnalyzedSentence(copyTokens, copyTokens, sentence.whPositions, sentence.getTokensWithoutWhitespace(), sentence.getPreDisambigTokensWithoutWhitespace());
   }
 
   /**
@@ -314,7 +365,7 @@ public final class AnalyzedSentence {
    * @since 2.4
    */
   public Set<String> getTokenSet() {
-    return tokenOffsets.keySet();
+    return getTokenIndex().keySet();
   }
 
   /**
@@ -323,7 +374,7 @@ public final class AnalyzedSentence {
    * @since 2.5
    */
   public Set<String> getLemmaSet() {
-    return lemmaOffsets.keySet();
+    return getLemmaIndex().keySet();
   }
 
   /**
@@ -334,7 +385,7 @@ public final class AnalyzedSentence {
   @Nullable
   @ApiStatus.Internal
   public List<Integer> getTokenOffsets(String token) {
-    return tokenOffsets.get(token);
+    return getTokenIndex().getOffsets(token);
   }
 
   /**
@@ -345,7 +396,76 @@ public final class AnalyzedSentence {
   @Nullable
   @ApiStatus.Internal
   public List<Integer> getLemmaOffsets(String token) {
-    return lemmaOffsets.get(token);
+    return getLemmaIndex().getOffsets(token);
+  }
+
+  /**
+   * A rough estimate of the heap memory used by this sentence and its tokens, assuming a 64 bit JVM
+   * with compressed references. Objects shared by several tokens (and by the tokens before and after
+   * disambiguation) are counted once, the interned POS tags not at all. Used by {@link ResultCache}.
+   */
+  int getEstimatedRetainedBytes() {
+    int result = estimatedRetainedBytes;
+    if (result == 0) {
+      Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+      long bytes = align(OBJECT_HEADER_BYTES + 10 * REFERENCE_BYTES);
+      for (Object[] array : Arrays.asList(tokens, preDisambigTokens, nonBlankTokens, nonBlankPreDisambigTokens)) {
+        bytes += seen.add(array) ? arrayBytes(array.length) : 0;
+      }
+      bytes += arrayBytes(whPositions.length);
+      for (AnalyzedTokenReadings[] readings : Arrays.asList(tokens, preDisambigTokens)) {
+        for (AnalyzedTokenReadings reading : readings) {
+          bytes += readingsBytes(reading, seen);
+        }
+      }
+      // the indexes are estimated from the token counts, as they're built lazily and maybe never:
+      int readingsCount = 0;
+      for (AnalyzedTokenReadings reading : nonBlankTokens) {
+        readingsCount += reading.getReadingsLength();
+      }
+      bytes += TokenOffsetIndex.getEstimatedBytes(nonBlankTokens.length, nonBlankTokens.length);
+      bytes += TokenOffsetIndex.getEstimatedBytes(readingsCount, nonBlankTokens.length);
+      result = (int) Math.min(Integer.MAX_VALUE, bytes);
+      estimatedRetainedBytes = result;
+    }
+    return result;
+  }
+
+  private static long readingsBytes(AnalyzedTokenReadings tokenReadings, Set<Object> seen) {
+    if (!seen.add(tokenReadings)) {
+      return 0;
+    }
+    long bytes = TOKEN_READINGS_BYTES + arrayBytes(tokenReadings.getReadingsLength());
+    bytes += stringBytes(tokenReadings.getToken(), seen);
+    bytes += stringBytes(tokenReadings.getCleanToken(), seen);
+    bytes += stringBytes(tokenReadings.getHistoricalAnnotations(), seen);
+    if (!tokenReadings.getChunkTags().isEmpty() && seen.add(tokenReadings.getChunkTags())) {
+      bytes += LIST_BYTES + arrayBytes(tokenReadings.getChunkTags().size());
+    }
+    for (int i = 0; i < tokenReadings.getReadingsLength(); i++) {
+      AnalyzedToken token = tokenReadings.getAnalyzedToken(i);
+      if (seen.add(token)) {
+        // POS tags are interned, see AnalyzedToken
+        bytes += TOKEN_BYTES + stringBytes(token.getToken(), seen) + stringBytes(token.getLemma(), seen);
+      }
+    }
+    return bytes;
+  }
+
+  private static long stringBytes(String s, Set<Object> seen) {
+    if (s == null || s.isEmpty() || !seen.add(s)) {
+      return 0;
+    }
+    return STRING_BYTES + align(ARRAY_HEADER_BYTES + 2L * s.length());
+  }
+
+  // arrays of references and of ints have the same element size with compressed references:
+  private static long arrayBytes(int length) {
+    return align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * length);
+  }
+
+  private static long align(long bytes) {
+    return (bytes + 7) & ~7L;
   }
 
   @SuppressWarnings("ControlFlowStatementWithoutBraces")
@@ -18,6 +18,8 @@
  */
 package org.languagetool;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -30,6 +32,10 @@ import java.util.Objects;
  */
 public final class AnalyzedToken {
 
+  // there are only a few thousand distinct tags per language, but millions of readings
+  // may be kept in the sentence cache, so share the strings:
+  private static final Interner<String> POS_TAGS = Interners.newWeakInterner();
+
   private final String token;
   private final String posTag;
   private final String lemma;
@@ -40,12 +46,12 @@ public final class AnalyzedToken {
 
   public AnalyzedToken(String token, String posTag, String lemma) {
     this.token = Objects.requireNonNull(token, "token cannot be null");
-    this.posTag = posTag != null ? posTag.trim() : null;
-    this.lemma = lemma;    
+    this.posTag = posTag != null ? POS_TAGS.intern(posTag.trim()) : null;
+    this.lemma = lemma != null && lemma.equals(token) ? this.token : lemma;
     if (lemma == null) {
       lemmaOrToken = token;
     } else {
-      lemmaOrToken = lemma;
+      lemmaOrToken = this.lemma;
     }
     hasNoPOSTag = (posTag == null 
         || JLanguageTool.SENTENCE_END_TAGNAME.equals(posTag)
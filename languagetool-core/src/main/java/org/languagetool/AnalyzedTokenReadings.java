@@ -134,6 +134,11 @@ public final class AnalyzedTokenReadings implements Iterable<AnalyzedToken> {
     return Arrays.asList(anTokReadings);
   }
 
+  // the array is replaced, not modified, when the readings change, so its identity tells whether they have changed:
+  AnalyzedToken[] getReadingsArray() {
+    return anTokReadings;
+  }
+
   /**
    * Get a token reading.
    * @see #getReadingsLength() getReadingsLength() for how many token readings there are
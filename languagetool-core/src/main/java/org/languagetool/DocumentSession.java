@@ -0,0 +1,261 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.TextLevelRule;
+import org.languagetool.tools.Tools;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The state of a document that gets checked again and again while it's being edited, e.g. on
+ * every keystroke. When passed to {@link JLanguageTool#check2(org.languagetool.markup.AnnotatedText, boolean,
+ * JLanguageTool.ParagraphHandling, RuleMatchListener, JLanguageTool.Mode, JLanguageTool.Level, Set, Long, DocumentSession)},
+ * the check re-uses the analysis and the sentence-level matches of all sentences that were also part of
+ * the previous version of the document. Text-level rules are only run on the paragraphs that have
+ * changed plus the paragraphs they need as context (see {@link TextLevelRule#minToCheckParagraph()}),
+ * rules that need the complete text are run again only if anything has changed.
+ * <p>
+ * Like {@link JLanguageTool}, a session must not be used by more than one check at a time.
+ * Only use it with {@link JLanguageTool} objects that use the same rules and settings.
+ * @since 6.4
+ */
+public class DocumentSession {
+
+  // settings of the previous check, the state is dropped when they change:
+  private Language language;
+  private JLanguageTool.Mode mode;
+  private JLanguageTool.Level level;
+  private Set<ToneTag> toneTags;
+
+  // state of the previous version of the document:
+  private Map<String, AnalyzedSentence> analyzedSentences = Collections.emptyMap();
+  private Map<String, List<RuleMatch>> sentenceMatches = Collections.emptyMap();
+  private List<String> paragraphs = Collections.emptyList();
+  // matches per paragraph, with positions relative to the start of the paragraph:
+  private Map<String, List<List<RuleMatch>>> textLevelMatches = Collections.emptyMap();
+
+  // state of the version being checked, sentences may get checked in parallel:
+  private Map<String, AnalyzedSentence> newAnalyzedSentences = new ConcurrentHashMap<>();
+  private Map<String, List<RuleMatch>> newSentenceMatches = new ConcurrentHashMap<>();
+  private Map<String, List<List<RuleMatch>>> newTextLevelMatches = new HashMap<>();
+  private List<String> newParagraphs;
+  private int[] paragraphStartSentence;  // one more element than there are paragraphs
+  private int[] paragraphStartPos;       // one more element than there are paragraphs
+  private int unchangedBefore;  // number of unchanged paragraphs at the beginning of the document
+  private int unchangedAfter;   // number of unchanged paragraphs at the end of the document
+
+  private int reusedSentences;
+  private int reusedParagraphs;
+
+  void startCheck(Language language, JLanguageTool.Mode mode, JLanguageTool.Level level, Set<ToneTag> toneTags) {
+    if (!language.equals(this.language) || mode != this.mode || level != this.level || !toneTags.equals(this.toneTags)) {
+      this.language = language;
+      this.mode = mode;
+      this.level = level;
+      this.toneTags = new HashSet<>(toneTags);
+      analyzedSentences = Collections.emptyMap();
+      sentenceMatches = Collections.emptyMap();
+      paragraphs = Collections.emptyList();
+      textLevelMatches = Collections.emptyMap();
+    }
+    newAnalyzedSentences = new ConcurrentHashMap<>();
+    newSentenceMatches = new ConcurrentHashMap<>();
+    newTextLevelMatches = new HashMap<>();
+    newParagraphs = null;
+    reusedSentences = 0;
+    reusedParagraphs = 0;
+  }
+
+  /**
+   * Make the state of the version that has just been checked the state for the next check.
+   */
+  void finishCheck() {
+    analyzedSentences = newAnalyzedSentences;
+    sentenceMatches = newSentenceMatches;
+    if (newParagraphs != null) {
+      paragraphs = newParagraphs;
+      textLevelMatches = newTextLevelMatches;
+    } else {
+      // no text-level rule has been run:
+      paragraphs = Collections.emptyList();
+      textLevelMatches = Collections.emptyMap();
+    }
+  }
+
+  @Nullable
+  AnalyzedSentence getAnalyzedSentence(String sentence) {
+    AnalyzedSentence analyzedSentence = analyzedSentences.get(sentence);
+    if (analyzedSentence != null) {
+      newAnalyzedSentences.put(sentence, analyzedSentence);
+    }
+    return analyzedSentence;
+  }
+
+  void putAnalyzedSentence(String sentence, AnalyzedSentence analyzedSentence) {
+    newAnalyzedSentences.put(sentence, analyzedSentence);
+  }
+
+  @Nullable
+  List<RuleMatch> getSentenceMatches(String sentence) {
+    List<RuleMatch> matches = sentenceMatches.get(sentence);
+    if (matches != null) {
+      newSentenceMatches.put(sentence, matches);
+      synchronized (this) {
+        reusedSentences++;
+      }
+    }
+    return matches;
+  }
+
+  void putSentenceMatches(String sentence, List<RuleMatch> matches) {
+    newSentenceMatches.put(sentence, matches);
+  }
+
+  /**
+   * Like {@link TextLevelRule#match(List, AnnotatedText)}, but only runs the rule on the parts of the
+   * document that have changed since the previous check, if the rule permits that.
+   */
+  RuleMatch[] matchTextLevelRule(TextLevelRule rule, List<AnalyzedSentence> sentences, AnnotatedText annotatedText) throws IOException {
+    if (newParagraphs == null) {
+      splitIntoParagraphs(sentences);
+    }
+    int paragraphCount = newParagraphs.size();
+    int contextSize = rule.minToCheckParagraph();
+    List<List<RuleMatch>> previousMatches = textLevelMatches.get(rule.getFullId());
+    boolean unchanged = unchangedBefore == paragraphCount && paragraphs.size() == paragraphCount;
+    if (previousMatches == null || contextSize < 0 && !unchanged) {
+      RuleMatch[] matches = rule.match(sentences, annotatedText);
+      newTextLevelMatches.put(rule.getFullId(), splitMatches(matches, 0, paragraphCount));
+      return matches;
+    }
+    List<List<RuleMatch>> matchesByParagraph = new ArrayList<>(paragraphCount);
+    int context = Math.max(contextSize, 0);
+    // paragraphs whose matches can be affected by the changes, and the paragraphs needed to find them:
+    int affectedFrom = unchanged ? paragraphCount : Math.max(0, unchangedBefore - context);
+    int affectedTo = unchanged ? paragraphCount : Math.min(paragraphCount, paragraphCount - unchangedAfter + context);
+    if (affectedFrom < affectedTo) {
+      int checkFrom = Math.max(0, affectedFrom - context);
+      int checkTo = Math.min(paragraphCount, affectedTo + context);
+      RuleMatch[] matches = rule.match(sentences.subList(paragraphStartSentence[checkFrom], paragraphStartSentence[checkTo]), annotatedText);
+      List<List<RuleMatch>> newMatches = splitMatches(matches, checkFrom, checkTo);
+      for (int i = 0; i < affectedFrom; i++) {
+        matchesByParagraph.add(previousMatches.get(i));
+      }
+      matchesByParagraph.addAll(newMatches.subList(affectedFrom - checkFrom, affectedTo - checkFrom));
+    } else {
+      matchesByParagraph.addAll(previousMatches.subList(0, affectedFrom));
+    }
+    int shift = paragraphs.size() - paragraphCount;
+    for (int i = affectedTo; i < paragraphCount; i++) {
+      matchesByParagraph.add(previousMatches.get(i + shift));
+    }
+    newTextLevelMatches.put(rule.getFullId(), matchesByParagraph);
+    reusedParagraphs += paragraphCount - (affectedTo - affectedFrom);
+    List<RuleMatch> result = new ArrayList<>();
+    for (int i = 0; i < paragraphCount; i++) {
+      for (RuleMatch match : matchesByParagraph.get(i)) {
+        result.add(moveMatch(match, paragraphStartPos[i]));
+      }
+    }
+    return result.toArray(RuleMatch.EMPTY_ARRAY);
+  }
+
+  private void splitIntoParagraphs(List<AnalyzedSentence> sentences) {
+    List<String> result = new ArrayList<>();
+    List<Integer> startSentences = new ArrayList<>();
+    List<Integer> startPositions = new ArrayList<>();
+    StringBuilder paragraph = new StringBuilder();
+    int pos = 0;
+    for (int i = 0; i < sentences.size(); i++) {
+      if (paragraph.length() == 0) {
+        startSentences.add(i);
+        startPositions.add(pos);
+      }
+      String text = sentences.get(i).getText();
+      paragraph.append(text);
+      pos += text.length();
+      if (Tools.isParagraphEnd(sentences, i, language)) {
+        result.add(paragraph.toString());
+        paragraph.setLength(0);
+      }
+    }
+    startSentences.add(sentences.size());
+    startPositions.add(pos);
+    newParagraphs = result;
+    paragraphStartSentence = startSentences.stream().mapToInt(Integer::intValue).toArray();
+    paragraphStartPos = startPositions.stream().mapToInt(Integer::intValue).toArray();
+    int maxUnchanged = Math.min(paragraphs.size(), result.size());
+    unchangedBefore = 0;
+    while (unchangedBefore < maxUnchanged && paragraphs.get(unchangedBefore).equals(result.get(unchangedBefore))) {
+      unchangedBefore++;
+    }
+    unchangedAfter = 0;
+    while (unchangedAfter < maxUnchanged - unchangedBefore &&
+           paragraphs.get(paragraphs.size() - 1 - unchangedAfter).equals(result.get(result.size() - 1 - unchangedAfter))) {
+      unchangedAfter++;
+    }
+  }
+
+  /**
+   * @param matches matches with positions relative to the start of paragraph {@code fromParagraph}
+   * @return the matches of each paragraph from {@code fromParagraph} (inclusive) to {@code toParagraph} (exclusive),
+   *   with positions relative to the start of their paragraph
+   */
+  private List<List<RuleMatch>> splitMatches(RuleMatch[] matches, int fromParagraph, int toParagraph) {
+    List<List<RuleMatch>> result = new ArrayList<>(toParagraph - fromParagraph);
+    for (int i = fromParagraph; i < toParagraph; i++) {
+      result.add(new ArrayList<>(0));
+    }
+    int offset = paragraphStartPos[fromParagraph];
+    for (RuleMatch match : matches) {
+      int index = Arrays.binarySearch(paragraphStartPos, fromParagraph, toParagraph, match.getFromPos() + offset);
+      int paragraph = index >= 0 ? index : -index - 2;
+      result.get(paragraph - fromParagraph).add(moveMatch(match, offset - paragraphStartPos[paragraph]));
+    }
+    return result;
+  }
+
+  private static RuleMatch moveMatch(RuleMatch match, int distance) {
+    RuleMatch moved = new RuleMatch(match);
+    moved.setOffsetPosition(match.getFromPos() + distance, match.getToPos() + distance);
+    return moved;
+  }
+
+  /**
+   * Number of sentences whose matches were taken from the previous check in the latest check.
+   */
+  int getReusedSentenceCount() {
+    return reusedSentences;
+  }
+
+  /**
+   * Number of paragraphs whose text-level rule matches were taken from the previous check in the latest check,
+   * summed up over all text-level rules.
+   */
+  int getReusedParagraphCount() {
+    return reusedParagraphs;
+  }
+
+}
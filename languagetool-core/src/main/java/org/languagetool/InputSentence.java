@@ -18,12 +18,13 @@
  */
 package org.languagetool;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.languagetool.rules.CategoryId;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * For internal use only. Used as a key for caching check results.
@@ -44,6 +45,7 @@ class InputSentence {
   private final JLanguageTool.Level level;
   private final Long textSessionID;
   private final Set<ToneTag> toneTags;
+  private String stableKey;
 
   InputSentence(String text, Language lang, Language motherTongue,
                 Set<String> disabledRules, Set<CategoryId> disabledRuleCategories,
@@ -87,6 +89,48 @@ class InputSentence {
     return text;
   }
   
+  /**
+   * A key that is equal for sentences that are {@link #equals(Object) equal}. Unlike {@link #hashCode()}, it
+   * is the same in every JVM, so it can be used for caches that are shared between processes.
+   * @since 6.4
+   */
+  String getStableKey() {
+    if (stableKey == null) {
+      stableKey = computeStableKey();
+    }
+    return stableKey;
+  }
+
+  private String computeStableKey() {
+    Hasher hasher = Hashing.sha256().newHasher();
+    putString(hasher, text);
+    putString(hasher, lang.getShortCodeWithCountryAndVariant());
+    putString(hasher, motherTongue != null ? motherTongue.getShortCodeWithCountryAndVariant() : "");
+    putStrings(hasher, disabledRules);
+    putStrings(hasher, disabledRuleCategories);
+    putStrings(hasher, enabledRules);
+    putStrings(hasher, enabledRuleCategories);
+    putString(hasher, userConfig != null ? userConfig.getStableHash() : "");
+    putString(hasher, String.valueOf(textSessionID));
+    putString(hasher, altLanguages != null ? altLanguages.stream().map(Language::getShortCodeWithCountryAndVariant).collect(Collectors.joining(",")) : "");
+    putString(hasher, mode.name());
+    putString(hasher, level.name());
+    putStrings(hasher, toneTags);
+    return hasher.hash().toString();
+  }
+
+  private static void putStrings(Hasher hasher, Collection<?> values) {
+    if (values == null) {
+      hasher.putInt(-1);
+    } else {
+      putString(hasher, values.stream().map(Object::toString).sorted().collect(Collectors.joining(",")));
+    }
+  }
+
+  private static void putString(Hasher hasher, String s) {
+    hasher.putInt(s.length()).putString(s, StandardCharsets.UTF_8);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (o == null) return false;
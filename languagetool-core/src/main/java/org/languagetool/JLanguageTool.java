@@ -34,8 +34,11 @@ import org.languagetool.markup.TextPart;
 import org.languagetool.rules.*;
 import org.languagetool.rules.patterns.*;
 import org.languagetool.rules.spelling.SpellingCheckRule;
+import org.languagetool.tools.CheckDeadline;
 import org.languagetool.tools.LoggingTools;
 import org.languagetool.tools.LtThreadPoolFactory;
+import org.languagetool.tools.CheckDeadlineExceededException;
+import org.languagetool.tools.RegexTimeoutException;
 import org.languagetool.tools.TelemetryProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,10 +49,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
@@ -133,6 +138,8 @@ public class JLanguageTool {
   private final ShortDescriptionProvider descProvider;
 
   private float maxErrorsPerWordRate;
+  @Nullable
+  private ForkJoinPool sentenceCheckPool;
 
   /**
    * Returns the build date or {@code null} if not run from JAR.
@@ -185,6 +192,7 @@ public class JLanguageTool {
   private final List<Rule> userRules = new ArrayList<>(); // rules added via addRule() method
   // rules fetched via getRelevantLanguageModelCapableRules()
   private final Set<String> optionalLanguageModelRules = new HashSet<>();
+  private volatile RuleMatchListSerializer.Rules serializableRules;  // created on first use
   private final Set<String> disabledRules = new HashSet<>();
   private final Set<CategoryId> disabledRuleCategories = new HashSet<>();
   private final Set<String> enabledRules = new HashSet<>();
@@ -203,6 +211,8 @@ public class JLanguageTool {
   private boolean listUnknownWords;
   private Set<String> unknownWords = new HashSet<>();
   private boolean cleanOverlappingMatches;
+  @Nullable
+  private DocumentSession documentSession;  // only set while a text of that session is being checked
 
   /**
    * Constants for correct paragraph-rule handling.
@@ -481,6 +491,22 @@ public class JLanguageTool {
     this.maxErrorsPerWordRate = maxErrorsPerWordRate;
   }
 
+  /**
+   * Analyze the sentences of a single text in parallel on the given pool, and match the rules that can be used
+   * by several threads at the same time (see {@link #isThreadSafe(Rule)}) in parallel, too. The other
+   * rules are matched sentence by sentence by the thread that runs the check, and text-level rules still run once
+   * over the whole text. The resulting matches and the order in which the {@link RuleMatchListener} is called are
+   * the same as without a pool. If the {@link CheckDeadline} of the check passes, the check is aborted with a
+   * {@link CheckDeadlineExceededException}.
+   *
+   * @param pool a work-stealing pool, usually shared by all instances, e.g. from
+   *             {@link LtThreadPoolFactory#getForkJoinPool}, or {@code null} to check sentence by sentence (the default)
+   * @since 6.4
+   */
+  public void setSentenceCheckPool(@Nullable ForkJoinPool pool) {
+    this.sentenceCheckPool = pool;
+  }
+
   /**
    * Callback to determine if result of executing {@link #check(String)} is still needed.
    */
@@ -587,7 +613,7 @@ public class JLanguageTool {
     } catch (Exception e) {
       throw new RuntimeException("Could not load language model capable rules.", e);
     }
-    ruleSetCache.clear();
+    rulesChanged();
   }
 
   /**
@@ -641,7 +667,27 @@ public class JLanguageTool {
     Function<Rule, Rule> enhanced = language.getRemoteEnhancedRules(getMessageBundle(language), configs, userConfig, motherTongue, altLanguages, inputLogging);
     transformRules(enhanced, builtinRules);
     transformRules(enhanced, userRules);
+    rulesChanged();
+  }
+
+  private void rulesChanged() {
     ruleSetCache.clear();
+    serializableRules = null;
+  }
+
+  /**
+   * @return all rules of this instance, including the user-specific ones, to store rule matches
+   * with {@link RuleMatchListSerializer}
+   */
+  private RuleMatchListSerializer.Rules getSerializableRules() {
+    RuleMatchListSerializer.Rules rules = serializableRules;
+    if (rules == null) {
+      List<Rule> allRules = getAllRules();
+      allRules.addAll(userConfig.getRules());
+      rules = new RuleMatchListSerializer.Rules(allRules);
+      serializableRules = rules;
+    }
+    return rules;
   }
 
   /**
@@ -688,7 +734,7 @@ public class JLanguageTool {
     throws ParserConfigurationException, SAXException, IOException {
     String falseFriendRulesFilename = JLanguageTool.getDataBroker().getRulesDir() + "/" + FALSE_FRIEND_FILE;
     userRules.addAll(loadFalseFriendRules(falseFriendRulesFilename));
-    ruleSetCache.clear();
+    rulesChanged();
   }
 
   /**
@@ -707,7 +753,7 @@ public class JLanguageTool {
    */
   public void addRule(Rule rule) {
     userRules.add(rule);
-    ruleSetCache.clear();
+    rulesChanged();
   }
 
   /**
@@ -926,6 +972,36 @@ public class JLanguageTool {
   
   public CheckResults check2(AnnotatedText annotatedText, boolean tokenizeText, ParagraphHandling paraMode, RuleMatchListener listener,
                              Mode mode, Level level, @NotNull Set<ToneTag> toneTags, @Nullable Long textSessionID) throws IOException {
+    return check2(annotatedText, tokenizeText, paraMode, listener, mode, level, toneTags, textSessionID, null);
+  }
+
+  /**
+   * Like {@link #check2(AnnotatedText, boolean, ParagraphHandling, RuleMatchListener, Mode, Level, Set, Long)},
+   * but re-uses the results of the previous check of the same document where the text hasn't changed.
+   * @param documentSession the session of the document the text is a version of, {@code null} to check without session
+   * @since 6.4
+   */
+  public CheckResults check2(AnnotatedText annotatedText, boolean tokenizeText, ParagraphHandling paraMode, RuleMatchListener listener,
+                             Mode mode, Level level, @NotNull Set<ToneTag> toneTags, @Nullable Long textSessionID,
+                             @Nullable DocumentSession documentSession) throws IOException {
+    if (documentSession == null) {
+      return check2WithoutSession(annotatedText, tokenizeText, paraMode, listener, mode, level, toneTags, textSessionID);
+    }
+    documentSession.startCheck(language, mode, level, toneTags);
+    this.documentSession = documentSession;
+    try {
+      CheckResults checkResults = check2WithoutSession(annotatedText, tokenizeText, paraMode, listener, mode, level, toneTags, textSessionID);
+      if (checkCancelledCallback == null || !checkCancelledCallback.checkCancelled()) {
+        documentSession.finishCheck();
+      }
+      return checkResults;
+    } finally {
+      this.documentSession = null;
+    }
+  }
+
+  private CheckResults check2WithoutSession(AnnotatedText annotatedText, boolean tokenizeText, ParagraphHandling paraMode, RuleMatchListener listener,
+                                            Mode mode, Level level, @NotNull Set<ToneTag> toneTags, @Nullable Long textSessionID) throws IOException {
     annotatedText = cleanText(annotatedText);
     List<String> sentences = getSentences(annotatedText, tokenizeText);
     List<AnalyzedSentence> analyzedSentences = analyzeSentences(sentences);
@@ -1033,6 +1109,7 @@ public class JLanguageTool {
       RemoteRuleMetrics.wait(language.getShortCode(), wait);
     }
 
+    streamMatches(listener, annotatedText, rules, remoteMatches);
     List<RuleMatch> ruleMatches = res.getRuleMatches();
 
     ruleMatches.addAll(remoteMatches);
@@ -1062,6 +1139,18 @@ public class JLanguageTool {
     return new CheckResults(ruleMatches, res.getIgnoredRanges(), res.getExtendedSentenceRanges());
   }
 
+  /**
+   * Pass the filtered matches to the listener if it's a {@link StreamingRuleMatchListener}.
+   */
+  private void streamMatches(@Nullable RuleMatchListener listener, AnnotatedText annotatedText, RuleSet rules, List<RuleMatch> ruleMatches) {
+    if (listener instanceof StreamingRuleMatchListener && !ruleMatches.isEmpty()) {
+      List<RuleMatch> filtered = filterMatches(annotatedText, rules, new ArrayList<>(ruleMatches));
+      if (!filtered.isEmpty()) {
+        ((StreamingRuleMatchListener) listener).matchesFound(filtered);
+      }
+    }
+  }
+
   private List<RuleMatch> filterMatches(AnnotatedText annotatedText, RuleSet rules, List<RuleMatch> ruleMatches) {
     // rules can create matches with rule IDs different from the original rule (see e.g. RemoteRules)
     // so while we can't avoid execution of these rules, we still want disabling them to work
@@ -1084,35 +1173,40 @@ public class JLanguageTool {
   private RuleSet getActiveRulesForLevelAndToneTags(Level level, Set<ToneTag> toneTags) {
     LevelToneTagCacheKey key = new LevelToneTagCacheKey(level, toneTags);
     return ruleSetCache.computeIfAbsent(key, levelToneTagCacheKey -> {
-      List<Rule> allRules = new ArrayList<>(getAllActiveRules());
-      List<ToneTag> enabledToneTags;
-      if (toneTags.contains(ToneTag.ALL_TONE_RULES)) {
-        enabledToneTags = ToneTag.REAL_TONE_TAGS;
-      } else if (toneTags.contains(ToneTag.NO_TONE_RULE)) {
-        enabledToneTags = Collections.emptyList(); //Even clarity rules will be disabled.
-      } else if (toneTags.isEmpty() || toneTags.contains(ToneTag.ALL_WITHOUT_GOAL_SPECIFIC)){
-        enabledToneTags = Collections.singletonList(ToneTag.ALL_WITHOUT_GOAL_SPECIFIC);
-      } else {
-        enabledToneTags = new ArrayList<>(toneTags);
+      return createRuleSet(getAllActiveRules(), levelToneTagCacheKey);
+    });
+  }
+
+  private static RuleSet createRuleSet(List<Rule> activeRules, LevelToneTagCacheKey levelToneTagCacheKey) {
+    Set<ToneTag> toneTags = levelToneTagCacheKey.getToneTags();
+    List<Rule> allRules = new ArrayList<>(activeRules);
+    List<ToneTag> enabledToneTags;
+    if (toneTags.contains(ToneTag.ALL_TONE_RULES)) {
+      enabledToneTags = ToneTag.REAL_TONE_TAGS;
+    } else if (toneTags.contains(ToneTag.NO_TONE_RULE)) {
+      enabledToneTags = Collections.emptyList(); //Even clarity rules will be disabled.
+    } else if (toneTags.isEmpty() || toneTags.contains(ToneTag.ALL_WITHOUT_GOAL_SPECIFIC)){
+      enabledToneTags = Collections.singletonList(ToneTag.ALL_WITHOUT_GOAL_SPECIFIC);
+    } else {
+      enabledToneTags = new ArrayList<>(toneTags);
+    }
+    allRules.removeIf(rule -> {
+      if (rule.getToneTags().isEmpty()) {
+        return false;
       }
-      allRules.removeIf(rule -> {
-        if (rule.getToneTags().isEmpty()) {
-          return false;
-        }
-        if (enabledToneTags.contains(ToneTag.ALL_WITHOUT_GOAL_SPECIFIC)) {
-          return rule.isGoalSpecific();
-        }
-        boolean removeRule = true;
-        for (ToneTag toneTag : enabledToneTags) {
-          if (rule.hasToneTag(toneTag)) {
-            removeRule = false;
-            break;
-          }
+      if (enabledToneTags.contains(ToneTag.ALL_WITHOUT_GOAL_SPECIFIC)) {
+        return rule.isGoalSpecific();
+      }
+      boolean removeRule = true;
+      for (ToneTag toneTag : enabledToneTags) {
+        if (rule.hasToneTag(toneTag)) {
+          removeRule = false;
+          break;
         }
-        return removeRule;
-      });
-      return RuleSet.textLemmaHinted(levelToneTagCacheKey.getLevel() == Level.DEFAULT ? allRules.stream().filter(rule -> !rule.hasTag(Tag.picky)).collect(Collectors.toList()) : allRules);
+      }
+      return removeRule;
     });
+    return RuleSet.textLemmaHinted(levelToneTagCacheKey.getLevel() == Level.DEFAULT ? allRules.stream().filter(rule -> !rule.hasTag(Tag.picky)).collect(Collectors.toList()) : allRules);
   }
 
   protected void fetchRemoteRuleResults(long deadlineStartNanos, Mode mode, Level level, List<AnalyzedSentence> analyzedSentences, List<RuleMatch> remoteMatches,
@@ -1202,7 +1296,9 @@ public class JLanguageTool {
           sentence.getText(), language, motherTongue, disabledRules, disabledRuleCategories,
           enabledRules, enabledRuleCategories, userConfig, altLanguages, mode, level, textSessionID, toneTags);
         Map<String, List<RuleMatch>> cacheEntry = cache.getRemoteMatchesCache().get(cacheKey, HashMap::new);
-        cacheEntry.put(ruleKey, matches);
+        if (cacheEntry.put(ruleKey, matches) == null) {
+          cache.putRemoteMatchesToSecondLevel(cacheKey, ruleKey, matches, this::getSerializableRules);
+        }
       }
       // adjust rule match position
       // rules check all sentences batched, but should keep position adjustment logic out of rule
@@ -1268,6 +1364,12 @@ public class JLanguageTool {
             throw new RuntimeException("Couldn't access remote matches cache.");
           }
           List<RuleMatch> cachedMatches = cacheEntry.get(ruleKey);
+          if (cachedMatches == null) {
+            cachedMatches = cache.getRemoteMatchesFromSecondLevel(cacheKey, ruleKey, sentence, this::getSerializableRules);
+            if (cachedMatches != null) {
+              cacheEntry.put(ruleKey, cachedMatches);
+            }
+          }
           // mark for check or retrieve from cache
           if (cachedMatches == null) {
             nonCachedSentences.add(sentence);
@@ -1320,13 +1422,16 @@ public class JLanguageTool {
 
   protected List<AnalyzedSentence> analyzeSentences(List<String> sentences) throws IOException {
     unknownWords = new HashSet<>();
+    if (sentenceCheckPool != null && sentences.size() > 1) {
+      return analyzeSentencesInParallel(sentences);
+    }
     List<AnalyzedSentence> analyzedSentences = new ArrayList<>();
     int j = 0;
     for (String sentence : sentences) {
       if (checkCancelledCallback != null && checkCancelledCallback.checkCancelled()) {
         break;
       }
-      AnalyzedSentence analyzedSentence = getAnalyzedSentence(sentence);
+      AnalyzedSentence analyzedSentence = getAnalyzedSentenceOfDocument(sentence);
       rememberUnknownWords(analyzedSentence);
       if (++j == sentences.size()) {
         analyzedSentence = markAsParagraphEnd(analyzedSentence);
@@ -1337,6 +1442,130 @@ public class JLanguageTool {
     return analyzedSentences;
   }
 
+  private List<AnalyzedSentence> analyzeSentencesInParallel(List<String> sentences) throws IOException {
+    AnalyzedSentence[] result = new AnalyzedSentence[sentences.size()];
+    try {
+      invokeOnSentenceCheckPool(i -> {
+        if (checkCancelledCallback == null || !checkCancelledCallback.checkCancelled()) {
+          result[i] = getAnalyzedSentenceOfDocument(sentences.get(i));
+        }
+      }, sentences.size());
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    List<AnalyzedSentence> analyzedSentences = new ArrayList<>(result.length);
+    for (int i = 0; i < result.length; i++) {
+      AnalyzedSentence analyzedSentence = result[i];
+      if (analyzedSentence == null) {
+        break;  // cancelled
+      }
+      rememberUnknownWords(analyzedSentence);
+      if (i == result.length - 1) {
+        analyzedSentence = markAsParagraphEnd(analyzedSentence);
+      }
+      analyzedSentences.add(analyzedSentence);
+      printSentenceInfo(analyzedSentence);
+    }
+    return analyzedSentences;
+  }
+
+  private AnalyzedSentence getAnalyzedSentenceOfDocument(String sentence) throws IOException {
+    DocumentSession session = documentSession;
+    if (session == null) {
+      return getAnalyzedSentence(sentence);
+    }
+    AnalyzedSentence analyzedSentence = session.getAnalyzedSentence(sentence);
+    if (analyzedSentence == null) {
+      analyzedSentence = getAnalyzedSentence(sentence);
+      session.putAnalyzedSentence(sentence, analyzedSentence);
+    }
+    return analyzedSentence;
+  }
+
+  /**
+   * Runs the action for all sentence indices on {@link #sentenceCheckPool} and waits for it to finish.
+   * Unlike {@link ForkJoinPool#invoke}, the waiting can be interrupted, e.g. by the server cancelling a check
+   * that took too long. The sentences that haven't been started then are skipped, as are those that would
+   * start after the {@link CheckDeadline} of the check has passed.
+   * @throws CheckDeadlineExceededException if sentences have been skipped because the deadline has passed
+   */
+  private void invokeOnSentenceCheckPool(SentenceAction action, int sentenceCount) {
+    AtomicBoolean cancelled = new AtomicBoolean();
+    ForkJoinTask<Void> task = sentenceCheckPool.submit(new SentenceRangeTask(action, 0, sentenceCount, CheckDeadline.getCurrent(), cancelled));
+    try {
+      task.get();
+      if (cancelled.get()) {
+        throw new CheckDeadlineExceededException("Sentence check aborted because the check deadline has passed, " + sentenceCount + " sentences");
+      }
+    } catch (InterruptedException e) {
+      cancelled.set(true);
+      task.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+  @FunctionalInterface
+  private interface SentenceAction {
+    void run(int sentenceIndex) throws IOException;
+  }
+
+  /**
+   * Runs a {@link SentenceAction} for a range of sentence indices, splitting the range
+   * so that idle threads of the pool can steal parts of it.
+   */
+  private static class SentenceRangeTask extends RecursiveAction {
+    private final SentenceAction action;
+    private final int from;
+    private final int to;
+    // the pool's threads need to know the deadline of the check they're working for:
+    @Nullable
+    private final CheckDeadline deadline;
+    private final AtomicBoolean cancelled;
+
+    SentenceRangeTask(SentenceAction action, int from, int to, @Nullable CheckDeadline deadline, AtomicBoolean cancelled) {
+      this.action = action;
+      this.from = from;
+      this.to = to;
+      this.deadline = deadline;
+      this.cancelled = cancelled;
+    }
+
+    @Override
+    protected void compute() {
+      if (cancelled.get()) {
+        return;
+      }
+      if (deadline != null && deadline.isExceeded()) {
+        cancelled.set(true);
+        return;
+      }
+      if (to - from == 1) {
+        CheckDeadline previous = CheckDeadline.getCurrent();
+        CheckDeadline.setCurrent(deadline);
+        try {
+          action.run(from);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        } finally {
+          CheckDeadline.setCurrent(previous);
+        }
+      } else {
+        int mid = (from + to) >>> 1;
+        invokeAll(new SentenceRangeTask(action, from, mid, deadline, cancelled), new SentenceRangeTask(action, mid, to, deadline, cancelled));
+      }
+    }
+  }
+
   @NotNull
   static AnalyzedSentence markAsParagraphEnd(AnalyzedSentence analyzedSentence) {
     AnalyzedTokenReadings[] anTokens = analyzedSentence.getTokens();
@@ -1374,7 +1603,8 @@ public class JLanguageTool {
     int lineCount = 0;
     int columnCount = 1;
     List<SentenceData> result = new ArrayList<>(texts.size());
-    for (int i = 0; i < texts.size(); i++) {
+    // there are fewer analyzed sentences than texts if the analysis was cancelled:
+    for (int i = 0; i < analyzedSentences.size(); i++) {
       String sentence = texts.get(i);
       result.add(new SentenceData(analyzedSentences.get(i), sentence, charCount, lineCount, columnCount));
 
@@ -1423,12 +1653,22 @@ public class JLanguageTool {
   }
 
   private List<RuleMatch> checkAnalyzedSentence(ParagraphHandling paraMode, List<Rule> rules, AnalyzedSentence analyzedSentence, boolean checkRemoteRules, int wordCounter) throws IOException {
+    return checkAnalyzedSentence(paraMode, rules, null, analyzedSentence, checkRemoteRules, wordCounter);
+  }
+
+  /**
+   * @param precomputedMatches the matches of the rules at the same indexes that have already been
+   *                           matched, see {@link #matchThreadSafeRules}
+   */
+  private List<RuleMatch> checkAnalyzedSentence(ParagraphHandling paraMode, List<Rule> rules, @Nullable RuleMatch[][] precomputedMatches,
+                                                AnalyzedSentence analyzedSentence, boolean checkRemoteRules, int wordCounter) throws IOException {
     if (paraMode == ParagraphHandling.ONLYPARA) {
       return Collections.emptyList();
     }
     List<RuleMatch> sentenceMatches = new ArrayList<>();
     List<String> errorRateLog = new ArrayList<>();
     float tmpErrorsPerWord = 0.0f;
+    boolean profile = RuleProfiler.sampleSentence();
     for (int i = 0, rulesSize = rules.size(); i < rulesSize; i++) {
       Rule rule = rules.get(i);
       if (rule instanceof TextLevelRule || !checkRemoteRules && rule instanceof RemoteRule) {
@@ -1437,7 +1677,8 @@ public class JLanguageTool {
       if (checkCancelledCallback != null && checkCancelledCallback.checkCancelled()) {
         break;
       }
-      RuleMatch[] thisMatches = rule.match(analyzedSentence);
+      RuleMatch[] thisMatches = precomputedMatches != null && precomputedMatches[i] != null ?
+        precomputedMatches[i] : matchRule(rule, analyzedSentence, profile);
       Collections.addAll(sentenceMatches, thisMatches);
       if (wordCounter > 0) {
         //check if the maxErrorsPerWordRate is already reached for the full text with this sentence and rule  
@@ -1470,6 +1711,56 @@ public class JLanguageTool {
     return applyCustomFilters(new SameRuleGroupFilter().filter(sentenceMatches), text);
   }
 
+  /**
+   * Match the rules that can be used by several threads at the same time, see {@link #isThreadSafe(Rule)},
+   * so that only the other ones need to be matched by {@link #checkAnalyzedSentence(ParagraphHandling, List, RuleMatch[][], AnalyzedSentence, boolean, int)}.
+   * @return the matches of those rules at their indexes, {@code null} for the other rules
+   */
+  private RuleMatch[][] matchThreadSafeRules(ParagraphHandling paraMode, List<Rule> rules, AnalyzedSentence analyzedSentence, boolean checkRemoteRules) throws IOException {
+    RuleMatch[][] result = new RuleMatch[rules.size()][];
+    if (paraMode == ParagraphHandling.ONLYPARA) {
+      return result;
+    }
+    boolean profile = RuleProfiler.sampleSentence();
+    for (int i = 0, rulesSize = rules.size(); i < rulesSize; i++) {
+      Rule rule = rules.get(i);
+      if (rule instanceof TextLevelRule || !checkRemoteRules && rule instanceof RemoteRule || !isThreadSafe(rule)) {
+        continue;
+      }
+      if (checkCancelledCallback != null && checkCancelledCallback.checkCancelled()) {
+        break;
+      }
+      result[i] = matchRule(rule, analyzedSentence, profile);
+    }
+    return result;
+  }
+
+  private RuleMatch[] matchRule(Rule rule, AnalyzedSentence analyzedSentence, boolean profile) throws IOException {
+    long startNanos = profile ? System.nanoTime() : 0;
+    RuleMatch[] matches;
+    try {
+      matches = rule.match(analyzedSentence);
+    } catch (RegexTimeoutException e) {
+      RuleProfiler.recordTimeout(language, rule);
+      throw e;
+    }
+    if (profile) {
+      RuleProfiler.record(language, rule, System.nanoTime() - startNanos, matches.length);
+    }
+    return matches;
+  }
+
+  /**
+   * @return whether the rule can be used by several threads at the same time: pattern rules,
+   * which are shared by all instances of a language anyway, and the rules created from them
+   * by the pattern rule transformers
+   */
+  static boolean isThreadSafe(Rule rule) {
+    return rule instanceof AbstractPatternRule
+      || rule instanceof RepeatedPatternRuleTransformer.RepeatedPatternRule
+      || rule instanceof ConsistencyPatternRuleTransformer.ConsistencyPatternRule;
+  }
+
   private boolean ignoreRule(Rule rule) {
     Category ruleCategory = rule.getCategory();
     boolean isCategoryDisabled = (disabledRuleCategories.contains(ruleCategory.getId()) || rule.getCategory().isDefaultOff())
@@ -1920,6 +2211,9 @@ public class JLanguageTool {
     private final Mode mode;
     private final Level level;
     private final Set<ToneTag> toneTags;
+    // per sentence, set by lookUpKnownMatches():
+    private InputSentence[] cacheKeys;
+    private List<RuleMatch>[] knownMatches;
 
     TextCheckCallable(RuleSet rules, List<SentenceData> sentences,
                       ParagraphHandling paraMode, AnnotatedText annotatedText,
@@ -1941,8 +2235,15 @@ public class JLanguageTool {
       List<Range> ignoreRanges = new ArrayList<>();
       List<ExtendedSentenceRange> extendedSentenceRanges = new ArrayList<>();
       if (mode == Mode.ALL) {
-        ruleMatches.addAll(getTextLevelRuleMatches());
-        CheckResults otherRuleMatches = getOtherRuleMatches(toneTags);
+        CheckResults otherRuleMatches;
+        if (listener instanceof StreamingRuleMatchListener) {
+          // stream the sentence matches first, as text-level rules need to wait for the whole text:
+          otherRuleMatches = getOtherRuleMatches(toneTags);
+          ruleMatches.addAll(getTextLevelRuleMatches());
+        } else {
+          ruleMatches.addAll(getTextLevelRuleMatches());
+          otherRuleMatches = getOtherRuleMatches(toneTags);
+        }
         ruleMatches.addAll(otherRuleMatches.getRuleMatches());
         ignoreRanges.addAll(otherRuleMatches.getIgnoredRanges());
         extendedSentenceRanges.addAll(otherRuleMatches.getExtendedSentenceRanges());
@@ -1972,7 +2273,15 @@ public class JLanguageTool {
           if (analyzedSentences == null) {
             analyzedSentences = sentences.stream().map(s -> s.analyzed).collect(Collectors.toList());
           }
-          RuleMatch[] matches = ((TextLevelRule) rule).match(analyzedSentences, annotatedText);
+          RuleMatch[] matches;
+          try {
+            matches = documentSession != null ?
+              documentSession.matchTextLevelRule((TextLevelRule) rule, analyzedSentences, annotatedText) :
+              ((TextLevelRule) rule).match(analyzedSentences, annotatedText);
+          } catch (RegexTimeoutException e) {
+            RuleProfiler.recordTimeout(language, rule);
+            throw e;
+          }
           List<RuleMatch> adaptedMatches = new ArrayList<>();
           for (RuleMatch match : matches) {
             LineColumnPosition from;
@@ -2008,6 +2317,7 @@ public class JLanguageTool {
           }
         }
       }
+      streamMatches(listener, annotatedText, rules, ruleMatches);
       return ruleMatches;
     }
 
@@ -2017,9 +2327,13 @@ public class JLanguageTool {
       List<ExtendedSentenceRange> extendedSentenceRanges = new ArrayList<>();
 
       int textWordCounter = sentences.stream().map(sentenceData -> sentenceData.wordCount).reduce(0, Integer::sum);
+      lookUpKnownMatches(toneTags);
+      List<RuleMatch>[] parallelResults = sentenceCheckPool != null && sentences.size() > 1 ?
+        checkSentencesInParallel(textWordCounter) : null;
       int wordCounter = 0;
       float tmpErrorsPerWord = 0.0f;
       List<String> errorRateLog = new ArrayList<>();
+      List<RuleMatch> paragraphMatches = new ArrayList<>();
       for (int i = 0, sentencesSize = sentences.size(); i < sentencesSize; i++) {
         SentenceData sentence = sentences.get(i);
         wordCounter += sentence.wordCount;
@@ -2030,21 +2344,14 @@ public class JLanguageTool {
           //if (analyzedSentence.getText().contains("fakecrash")) {
           //  throw new RuntimeException("fake crash");
           //}
-          List<RuleMatch> sentenceMatches = null;
-          InputSentence cacheKey = null;
-          if (cache != null) {
-            cacheKey = new InputSentence(sentence.text, language, motherTongue,
-                    disabledRules, disabledRuleCategories,
-                    enabledRules, enabledRuleCategories, userConfig, altLanguages, mode, level, toneTags);
-            sentenceMatches = cache.getIfPresent(cacheKey);
-          }
-          if (sentenceMatches == null) {
-            List<Rule> rules = new ArrayList<>(this.rules.rulesForSentence(sentence.analyzed));
-            rules.addAll(userConfig.getRules());
-            sentenceMatches = checkAnalyzedSentence(paraMode, rules, sentence.analyzed, checkRemoteRules, textWordCounter);
-          }
-          if (cache != null) {
-            cache.put(cacheKey, sentenceMatches);
+          List<RuleMatch> sentenceMatches;
+          if (parallelResults != null) {
+            sentenceMatches = parallelResults[i];
+            if (sentenceMatches == null) {  // cancelled via checkCancelledCallback, as in the sequential case
+              break;
+            }
+          } else {
+            sentenceMatches = checkSentence(i, textWordCounter);
           }
           if (!sentenceMatches.isEmpty()) {
             if (checkCancelledCallback != null && checkCancelledCallback.checkCancelled()) {
@@ -2061,11 +2368,16 @@ public class JLanguageTool {
                 extendedSentenceRange.updateLanguageConfidenceRates(elem.getNewLanguageMatches());
               }
               ruleMatches.add(thisMatch);
+              paragraphMatches.add(thisMatch);
               if (listener != null) {
                 listener.matchFound(thisMatch);
               }
             }
           }
+          if (endsParagraph(i)) {
+            streamMatches(listener, annotatedText, rules, paragraphMatches);
+            paragraphMatches.clear();
+          }
           float errorsPerWord = ruleMatches.size() / (float) wordCounter;
           if (tmpErrorsPerWord < errorsPerWord) {
             errorRateLog.add("With sentence: " + (i + 1) + " (of " + sentencesSize + ") the text error rate increased by: " + (errorsPerWord - tmpErrorsPerWord) + " from: " + tmpErrorsPerWord  + " to total: " + errorsPerWord);
@@ -2085,13 +2397,189 @@ public class JLanguageTool {
                   + StringUtils.abbreviate(sentence.analyzed.toTextString(), 10_000) + "</sentcontent>");
           throw e;
         } catch (Exception e) {
-          throw new RuntimeException("Could not check sentence (language: " + language + "): <sentcontent>"
-                  + StringUtils.abbreviate(sentence.analyzed.toTextString(), 500) + "</sentcontent>", e);
+          throw sentenceCheckFailure(sentence, e);
         }
       }
       return new CheckResults(ruleMatches, ignoreRanges, extendedSentenceRanges);
     }
 
+    /**
+     * Like {@link org.languagetool.tools.Tools#isParagraphEnd(List, int, Language)}, but on the sentences of this check.
+     */
+    private boolean endsParagraph(int i) {
+      if (i >= sentences.size() - 1) {
+        return true;
+      }
+      String text = sentences.get(i).text;
+      if (language.getSentenceTokenizer().singleLineBreaksMarksPara()) {
+        if (text.endsWith("\n") || text.endsWith("\n\r")) {
+          return true;
+        }
+      } else if (text.endsWith("\n\n") || text.endsWith("\n\r\n\r") || text.endsWith("\r\n\r\n")) {
+        return true;
+      }
+      String nextText = sentences.get(i + 1).text;
+      return nextText.startsWith("\n") || nextText.startsWith("\r\n");
+    }
+
+    /**
+     * Looks up the matches of all sentences in the document session and the cache. The cache is asked for
+     * all sentences at once, so that a second-level cache on another server gets only one request per check.
+     */
+    @SuppressWarnings("unchecked")
+    private void lookUpKnownMatches(Set<ToneTag> toneTags) {
+      cacheKeys = new InputSentence[sentences.size()];
+      knownMatches = new List[sentences.size()];
+      DocumentSession session = documentSession;
+      List<Integer> uncached = new ArrayList<>();
+      List<InputSentence> keys = new ArrayList<>();
+      List<AnalyzedSentence> analyzedSentences = new ArrayList<>();
+      for (int i = 0; i < sentences.size(); i++) {
+        SentenceData sentence = sentences.get(i);
+        knownMatches[i] = session != null ? session.getSentenceMatches(sentence.text) : null;
+        if (knownMatches[i] == null && cache != null) {
+          cacheKeys[i] = new InputSentence(sentence.text, language, motherTongue,
+                  disabledRules, disabledRuleCategories,
+                  enabledRules, enabledRuleCategories, userConfig, altLanguages, mode, level, toneTags);
+          uncached.add(i);
+          keys.add(cacheKeys[i]);
+          analyzedSentences.add(sentence.analyzed);
+        }
+      }
+      if (keys.isEmpty()) {
+        return;
+      }
+      List<List<RuleMatch>> cachedMatches = cache.getAllIfPresent(keys, analyzedSentences, JLanguageTool.this::getSerializableRules);
+      for (int j = 0; j < uncached.size(); j++) {
+        List<RuleMatch> matches = cachedMatches.get(j);
+        if (matches != null) {
+          int i = uncached.get(j);
+          cache.put(cacheKeys[i], matches);
+          if (session != null) {
+            session.putSentenceMatches(sentences.get(i).text, matches);
+          }
+          knownMatches[i] = matches;
+        }
+      }
+    }
+
+    private List<RuleMatch> checkSentence(int i, int textWordCounter) throws IOException {
+      SentenceCheck check = new SentenceCheck(i);
+      return check.isDone() ? check.matches : check.finish(textWordCounter);
+    }
+
+    /**
+     * Checks all sentences: the rules that can be used by several threads at the same time on {@link #sentenceCheckPool},
+     * the others sentence by sentence on this thread. Matches are collected per sentence, so that the listener, the error
+     * rate limit and the result order are handled exactly as in the sequential case.
+     * @return the matches per sentence, {@code null} for sentences skipped because the check was cancelled
+     */
+    @SuppressWarnings("unchecked")
+    private List<RuleMatch>[] checkSentencesInParallel(int textWordCounter) {
+      SentenceCheck[] checks = new SentenceCheck[sentences.size()];
+      invokeOnSentenceCheckPool(i -> {
+        if (checkCancelledCallback != null && checkCancelledCallback.checkCancelled()) {
+          return;
+        }
+        SentenceData sentence = sentences.get(i);
+        try {
+          SentenceCheck check = new SentenceCheck(i);
+          check.matchThreadSafeRules();
+          checks[i] = check;
+        } catch (Exception e) {
+          throw sentenceCheckFailure(sentence, e);
+        }
+      }, sentences.size());
+      List<RuleMatch>[] result = new List[sentences.size()];
+      for (int i = 0; i < checks.length && checks[i] != null; i++) {
+        try {
+          result[i] = checks[i].isDone() ? checks[i].matches : checks[i].finish(textWordCounter);
+        } catch (ErrorRateTooHighException e) {
+          throw e;
+        } catch (Exception e) {
+          throw sentenceCheckFailure(sentences.get(i), e);
+        }
+      }
+      return result;
+    }
+
+    /**
+     * The check of a single sentence, whose matches are taken from the document session or the cache if
+     * {@link #lookUpKnownMatches(Set)} found them.
+     */
+    private class SentenceCheck {
+      private final SentenceData sentence;
+      @Nullable
+      private final InputSentence cacheKey;
+      @Nullable
+      private List<RuleMatch> matches;
+      private List<Rule> sentenceRules;
+      private AntiPatternMatcher.Immunizations immunizations;
+      @Nullable
+      private RuleMatch[][] precomputedMatches;
+
+      SentenceCheck(int i) {
+        this.sentence = sentences.get(i);
+        cacheKey = cacheKeys[i];
+        matches = knownMatches[i];
+        if (matches != null) {
+          return;
+        }
+        sentenceRules = new ArrayList<>(rules.rulesForSentence(sentence.analyzed));
+        sentenceRules.addAll(userConfig.getRules());
+        immunizations = rules.getAntiPatternMatcher().forSentence(sentence.analyzed, sentenceRules);
+      }
+
+      /**
+       * @return whether the matches have been found in the document session or the cache
+       */
+      boolean isDone() {
+        return sentenceRules == null;
+      }
+
+      /**
+       * Match the rules that can be used by several threads at the same time, can be called by any thread.
+       */
+      void matchThreadSafeRules() throws IOException {
+        if (isDone()) {
+          return;
+        }
+        AntiPatternMatcher.Immunizations previousImmunizations = AntiPatternMatcher.getCurrent();
+        AntiPatternMatcher.setCurrent(immunizations);
+        try {
+          precomputedMatches = JLanguageTool.this.matchThreadSafeRules(paraMode, sentenceRules, sentence.analyzed, checkRemoteRules);
+        } finally {
+          AntiPatternMatcher.setCurrent(previousImmunizations);
+        }
+      }
+
+      /**
+       * Match the other rules, on the thread that runs the check.
+       */
+      List<RuleMatch> finish(int textWordCounter) throws IOException {
+        AntiPatternMatcher.Immunizations previousImmunizations = AntiPatternMatcher.getCurrent();
+        AntiPatternMatcher.setCurrent(immunizations);
+        try {
+          matches = checkAnalyzedSentence(paraMode, sentenceRules, precomputedMatches, sentence.analyzed, checkRemoteRules, textWordCounter);
+        } finally {
+          AntiPatternMatcher.setCurrent(previousImmunizations);
+        }
+        if (cache != null) {
+          cache.put(cacheKey, matches, JLanguageTool.this::getSerializableRules);
+        }
+        DocumentSession session = documentSession;
+        if (session != null) {
+          session.putSentenceMatches(sentence.text, matches);
+        }
+        return matches;
+      }
+    }
+
+    private RuntimeException sentenceCheckFailure(SentenceData sentence, Exception e) {
+      return new RuntimeException("Could not check sentence (language: " + language + "): <sentcontent>"
+              + StringUtils.abbreviate(sentence.analyzed.toTextString(), 500) + "</sentcontent>", e);
+    }
+
     private LineColumnPosition findLineColumn(int offset) {
       if (sentences.isEmpty()) return new LineColumnPosition(0, 0);
 
@@ -25,6 +25,7 @@ import org.languagetool.chunking.Chunker;
 import org.languagetool.language.Contributor;
 import org.languagetool.languagemodel.LanguageModel;
 import org.languagetool.languagemodel.LuceneLanguageModel;
+import org.languagetool.languagemodel.MappedLanguageModel;
 import org.languagetool.markup.AnnotatedText;
 import org.languagetool.rules.*;
 import org.languagetool.rules.patterns.AbstractPatternRule;
@@ -194,7 +195,8 @@ public abstract class Language {
   }
 
   /**
-   * @param indexDir directory with a '3grams' sub directory which contains a Lucene index with 3gram occurrence counts
+   * @param indexDir directory with a '3grams' sub directory which contains a Lucene index with 3gram occurrence counts,
+   *                 or with a file {@value MappedLanguageModel#FILE_NAME} (since 6.4)
    * @return a LanguageModel or {@code null} if this language doesn't support one
    * @since 2.7
    */
@@ -206,7 +208,9 @@ public abstract class Language {
   protected LanguageModel initLanguageModel(File indexDir, LanguageModel languageModel) {
     if (languageModel == null) {
       File topIndexDir = new File(indexDir, getShortCode());
-      if (topIndexDir.exists()) {
+      if (MappedLanguageModel.existsIn(topIndexDir)) {
+        languageModel = new MappedLanguageModel(topIndexDir);
+      } else if (topIndexDir.exists()) {
         languageModel = new LuceneLanguageModel(topIndexDir);
       } else if (noLmWarningPrinted.compareAndSet(false, true)) {
         System.err.println("WARN: ngram index dir " + topIndexDir + " not found for " + getName());
@@ -0,0 +1,156 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import java.util.Arrays;
+
+/**
+ * A map from any {@code long} to a non-negative {@code long}, stored in primitive arrays with open addressing
+ * and linear probing, so that neither lookups nor updates allocate anything. Not thread-safe.
+ */
+final class LongLongMap {
+
+  static final long NO_VALUE = -1;  // also marks the empty slots, as values are >= 0
+
+  private long[] keys;
+  private long[] values;
+  private int mask;
+  private int size;
+
+  LongLongMap() {
+    this(16);
+  }
+
+  LongLongMap(int expectedSize) {
+    allocate(tableSize(expectedSize));
+  }
+
+  /**
+   * @return the value for the key, or {@link #NO_VALUE}
+   */
+  long get(long key) {
+    int slot = slot(key);
+    long slotValue;
+    while ((slotValue = values[slot]) != NO_VALUE) {
+      if (keys[slot] == key) {
+        return slotValue;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * @return the previous value for the key, or {@link #NO_VALUE}
+   */
+  long put(long key, long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Value must be >= 0: " + value);
+    }
+    int slot = slot(key);
+    while (values[slot] != NO_VALUE) {
+      if (keys[slot] == key) {
+        long oldValue = values[slot];
+        values[slot] = value;
+        return oldValue;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    // keep the table at most half full so that probe sequences stay short:
+    if (++size > keys.length / 2) {
+      rehash(keys.length * 2);
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * @return the removed value for the key, or {@link #NO_VALUE}
+   */
+  long remove(long key) {
+    int slot = slot(key);
+    long slotValue;
+    while ((slotValue = values[slot]) != NO_VALUE) {
+      if (keys[slot] == key) {
+        deleteSlot(slot);
+        size--;
+        return slotValue;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NO_VALUE;
+  }
+
+  int size() {
+    return size;
+  }
+
+  // moves the following entries of the probe sequence back, as an empty slot would end their search:
+  private void deleteSlot(int free) {
+    int slot = free;
+    while (true) {
+      slot = (slot + 1) & mask;
+      if (values[slot] == NO_VALUE) {
+        break;
+      }
+      int home = slot(keys[slot]);
+      // the entry can be moved if its home slot is not between the free slot and its current slot:
+      if (((slot - home) & mask) >= ((slot - free) & mask)) {
+        keys[free] = keys[slot];
+        values[free] = values[slot];
+        free = slot;
+      }
+    }
+    values[free] = NO_VALUE;
+  }
+
+  private void rehash(int tableSize) {
+    long[] oldKeys = keys;
+    long[] oldValues = values;
+    allocate(tableSize);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != NO_VALUE) {
+        int slot = slot(oldKeys[i]);
+        while (values[slot] != NO_VALUE) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int tableSize) {
+    keys = new long[tableSize];
+    values = new long[tableSize];
+    mask = tableSize - 1;
+    Arrays.fill(values, NO_VALUE);
+  }
+
+  private static int tableSize(int expectedSize) {
+    return Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+  }
+
+  private int slot(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ hash >>> 32) & mask;
+  }
+
+}
@@ -0,0 +1,337 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link SecondLevelResultCache} that keeps the serialized results outside of the Java heap, in direct
+ * {@link ByteBuffer}s. Used as the second-level cache of a {@link ResultCache} with a small first-level
+ * cache, it can keep many more results than the first-level cache without making garbage collection
+ * slower, at the cost of deserializing a result for every hit.
+ * <p>
+ * The memory is split into segments that are written one after the other, like a ring buffer. When the
+ * last segment is full, the oldest one is cleared and its entries are evicted. Entries found in the older
+ * half of the segments are written again to the current segment, so that frequently used entries survive,
+ * which approximates an LRU eviction. The index on the heap is a primitive hash table that only keeps
+ * two {@code long}s per entry.
+ * <p>
+ * Large stores are split by key hash into partitions with their own segments, index and lock, so that
+ * concurrent checks don't all wait for the same lock.
+ * @since 6.4
+ */
+public final class OffHeapResultStore implements SecondLevelResultCache {
+
+  private static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+  private static final int MAX_PARTITIONS = 16;
+  private static final int MIN_PARTITION_SIZE = 4 * 1024 * 1024;
+  // key hash, key length, value length:
+  private static final int HEADER_SIZE = 8 + 4 + 4;
+
+  private final Partition[] partitions;
+
+  /**
+   * @param capacityBytes the maximum memory used for the results, in bytes
+   */
+  public OffHeapResultStore(long capacityBytes) {
+    this(capacityBytes, (int) Math.min(MAX_SEGMENT_SIZE, Math.max(1, capacityBytes / partitionCount(capacityBytes) / 4)),
+      partitionCount(capacityBytes));
+  }
+
+  OffHeapResultStore(long capacityBytes, int segmentSize) {
+    this(capacityBytes, segmentSize, 1);
+  }
+
+  /**
+   * @param partitionCount a power of 2
+   */
+  OffHeapResultStore(long capacityBytes, int segmentSize, int partitionCount) {
+    if (capacityBytes <= 0) {
+      throw new IllegalArgumentException("Capacity must be > 0: " + capacityBytes);
+    }
+    if (partitionCount <= 0 || Integer.bitCount(partitionCount) != 1) {
+      throw new IllegalArgumentException("Partition count must be a power of 2: " + partitionCount);
+    }
+    long partitionCapacity = (capacityBytes + partitionCount - 1) / partitionCount;
+    long segmentCount = Math.max(2, (partitionCapacity + segmentSize - 1) / segmentSize);
+    if (segmentCount > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Capacity too large for segment size " + segmentSize + ": " + capacityBytes);
+    }
+    partitions = new Partition[partitionCount];
+    for (int i = 0; i < partitionCount; i++) {
+      partitions[i] = new Partition(segmentSize, (int) segmentCount);
+    }
+  }
+
+  private static int partitionCount(long capacityBytes) {
+    return Integer.highestOneBit((int) Math.max(1, Math.min(MAX_PARTITIONS, capacityBytes / MIN_PARTITION_SIZE)));
+  }
+
+  @Nullable
+  @Override
+  public byte[] get(String key) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    long hash = hash(keyBytes);
+    return partition(hash).get(hash, keyBytes);
+  }
+
+  @Override
+  public void put(String key, byte[] value) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    long hash = hash(keyBytes);
+    partition(hash).put(hash, keyBytes, value);
+  }
+
+  private Partition partition(long hash) {
+    // the index of a partition mixes all bits of the hash, so these bits being the same for all its keys doesn't matter:
+    return partitions[(int) (hash >>> 32) & (partitions.length - 1)];
+  }
+
+  private static boolean keyEquals(ByteBuffer buffer, byte[] keyBytes, int keyLength) {
+    if (keyLength != keyBytes.length) {
+      return false;
+    }
+    for (byte b : keyBytes) {
+      if (buffer.get() != b) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long hash(byte[] keyBytes) {
+    return Hashing.murmur3_128().hashBytes(keyBytes).asLong();
+  }
+
+  /**
+   * @return the maximum memory used for the results, in bytes
+   */
+  public long getCapacityBytes() {
+    long result = 0;
+    for (Partition partition : partitions) {
+      result += (long) partition.segments.length * partition.segmentSize;
+    }
+    return result;
+  }
+
+  /**
+   * @return the memory allocated so far, in bytes, which grows up to {@link #getCapacityBytes()}
+   */
+  public long getAllocatedBytes() {
+    long result = 0;
+    for (Partition partition : partitions) {
+      synchronized (partition) {
+        result += partition.allocatedBytes;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the memory used by the entries that can still be found, in bytes
+   */
+  public long getUsedBytes() {
+    long result = 0;
+    for (Partition partition : partitions) {
+      synchronized (partition) {
+        result += partition.usedBytes;
+      }
+    }
+    return result;
+  }
+
+  public int getEntryCount() {
+    int result = 0;
+    for (Partition partition : partitions) {
+      synchronized (partition) {
+        result += partition.index.size();
+      }
+    }
+    return result;
+  }
+
+  public long getHitCount() {
+    long result = 0;
+    for (Partition partition : partitions) {
+      synchronized (partition) {
+        result += partition.hits;
+      }
+    }
+    return result;
+  }
+
+  public long getMissCount() {
+    long result = 0;
+    for (Partition partition : partitions) {
+      synchronized (partition) {
+        result += partition.misses;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of entries removed to make room for new ones
+   */
+  public long getEvictionCount() {
+    long result = 0;
+    for (Partition partition : partitions) {
+      synchronized (partition) {
+        result += partition.evictions;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of entries not stored because they were larger than a segment
+   */
+  public long getRejectedCount() {
+    long result = 0;
+    for (Partition partition : partitions) {
+      synchronized (partition) {
+        result += partition.rejections;
+      }
+    }
+    return result;
+  }
+
+  int getPartitionCount() {
+    return partitions.length;
+  }
+
+  /**
+   * The segments of the keys with the same partition bits in their hash, guarded by the partition's lock.
+   */
+  private static final class Partition {
+
+    private final int segmentSize;
+    private final ByteBuffer[] segments;
+    private final int[] segmentLimits;
+    // key hash -> segment index << 32 | offset in segment:
+    private final LongLongMap index = new LongLongMap();
+
+    private int currentSegment;
+    private long allocatedBytes;
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    Partition(int segmentSize, int segmentCount) {
+      this.segmentSize = segmentSize;
+      this.segments = new ByteBuffer[segmentCount];
+      this.segmentLimits = new int[segmentCount];
+    }
+
+    @Nullable
+    synchronized byte[] get(long hash, byte[] keyBytes) {
+      long address = index.get(hash);
+      if (address == LongLongMap.NO_VALUE) {
+        misses++;
+        return null;
+      }
+      int segment = (int) (address >>> 32);
+      int offset = (int) address;
+      ByteBuffer buffer = segments[segment].duplicate();
+      buffer.position(offset + 8);
+      int keyLength = buffer.getInt();
+      int valueLength = buffer.getInt();
+      if (!keyEquals(buffer, keyBytes, keyLength)) {
+        // a different key with the same hash
+        misses++;
+        return null;
+      }
+      byte[] value = new byte[valueLength];
+      buffer.get(value);
+      hits++;
+      int age = (currentSegment - segment + segments.length) % segments.length;
+      if (age >= segments.length / 2) {
+        write(hash, keyBytes, value);
+      }
+      return value;
+    }
+
+    synchronized void put(long hash, byte[] keyBytes, byte[] value) {
+      if (HEADER_SIZE + keyBytes.length + value.length > segmentSize) {
+        rejections++;
+        return;
+      }
+      write(hash, keyBytes, value);
+    }
+
+    private void write(long hash, byte[] keyBytes, byte[] value) {
+      int size = HEADER_SIZE + keyBytes.length + value.length;
+      if (segments[currentSegment] == null || segmentLimits[currentSegment] + size > segmentSize) {
+        nextSegment();
+      }
+      ByteBuffer buffer = segments[currentSegment];
+      int offset = segmentLimits[currentSegment];
+      buffer.position(offset);
+      buffer.putLong(hash);
+      buffer.putInt(keyBytes.length);
+      buffer.putInt(value.length);
+      buffer.put(keyBytes);
+      buffer.put(value);
+      segmentLimits[currentSegment] = offset + size;
+      usedBytes += size;
+      long oldAddress = index.put(hash, (long) currentSegment << 32 | offset);
+      if (oldAddress != LongLongMap.NO_VALUE) {
+        // the old entry stays in its segment until that gets cleared, but isn't counted anymore:
+        usedBytes -= entrySize((int) (oldAddress >>> 32), (int) oldAddress);
+      }
+    }
+
+    private void nextSegment() {
+      if (segments[currentSegment] != null) {
+        currentSegment = (currentSegment + 1) % segments.length;
+      }
+      ByteBuffer buffer = segments[currentSegment];
+      if (buffer == null) {
+        segments[currentSegment] = ByteBuffer.allocateDirect(segmentSize);
+        allocatedBytes += segmentSize;
+        return;
+      }
+      int offset = 0;
+      while (offset < segmentLimits[currentSegment]) {
+        long hash = buffer.getLong(offset);
+        int size = entrySize(currentSegment, offset);
+        if (index.get(hash) == ((long) currentSegment << 32 | offset)) {
+          index.remove(hash);
+          usedBytes -= size;
+          evictions++;
+        }
+        offset += size;
+      }
+      segmentLimits[currentSegment] = 0;
+    }
+
+    private int entrySize(int segment, int offset) {
+      ByteBuffer buffer = segments[segment];
+      return HEADER_SIZE + buffer.getInt(offset + 8) + buffer.getInt(offset + 12);
+    }
+
+  }
+
+}
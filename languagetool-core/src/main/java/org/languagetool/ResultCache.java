@@ -20,13 +20,23 @@ package org.languagetool;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
 import com.google.common.cache.Weigher;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.tools.LtThreadPoolFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * A cache to speed up text checking for use cases where sentences are checked more than once. This
@@ -41,6 +51,11 @@ import java.util.concurrent.TimeUnit;
  */
 public class ResultCache {
 
+  private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+  // writes to the second-level cache that wait longer are dropped:
+  private static final int MAX_PENDING_WRITES = 1000;
+
   /**
    * rules can fail individually, results can be partial ->
    * store list if success (can be empty), null -> failure/not checked
@@ -48,6 +63,14 @@ public class ResultCache {
   private final Cache<InputSentence, Map<String, List<RuleMatch>>> remoteMatchesCache;
   private final Cache<InputSentence, List<RuleMatch>> matchesCache;
   private final Cache<SimpleInputSentence, AnalyzedSentence> sentenceCache;
+  private final LongAdder sentenceCacheBytes = new LongAdder();
+
+  private volatile SecondLevelCache secondLevelCache;
+  private final LongAdder secondLevelHits = new LongAdder();
+  private final LongAdder secondLevelMisses = new LongAdder();
+  private final LongAdder secondLevelWrites = new LongAdder();
+  private final LongAdder secondLevelDroppedWrites = new LongAdder();
+  private final LongAdder secondLevelDeserializationNanos = new LongAdder();
 
   /**
    * Create a cache that expires items 5 minutes after the latest read access.
@@ -76,7 +99,9 @@ public class ResultCache {
             expireAfterAccess(expireAfter, timeUnit).
             build();
     sentenceCache = CacheBuilder.newBuilder().
-            maximumWeight(maxSize/2).weigher(new SentenceWeigher()).
+            maximumWeight(maxSize/2).weigher(new SentenceWeigher(sentenceCacheBytes)).
+            removalListener((RemovalListener<SimpleInputSentence, AnalyzedSentence>)
+              notification -> sentenceCacheBytes.add(-notification.getValue().getEstimatedRetainedBytes())).
             recordStats().
             expireAfterAccess(expireAfter, timeUnit).
             build();
@@ -101,12 +126,230 @@ public class ResultCache {
   }
 
   static class SentenceWeigher implements Weigher<SimpleInputSentence, AnalyzedSentence> {
+    // the estimated size of an average sentence with about 75 characters, so that the
+    // cacheSize given by the user is still roughly the number of sentences the cache can keep:
+    static final int BYTES_PER_WEIGHT = 8 * 1024;
+
+    private final LongAdder bytes;
+
+    SentenceWeigher(LongAdder bytes) {
+      this.bytes = bytes;
+    }
+
     @Override
     public int weigh(SimpleInputSentence sentence, @NotNull AnalyzedSentence analyzedSentence) {
-      return sentence.getText().length() / 75;
+      int sentenceBytes = analyzedSentence.getEstimatedRetainedBytes();
+      bytes.add(sentenceBytes);
+      return Math.max(1, sentenceBytes / BYTES_PER_WEIGHT);
     }
   }
   
+  /**
+   * Also use the given cache for the results of sentences, e.g. one that is shared by all servers of a
+   * cluster. Results that are not in this cache are looked up there before the sentence gets checked,
+   * and new results are written there asynchronously. Only sentence-level results are shared, not
+   * analyzed sentences. Only results whose rules are all known to the checking {@link JLanguageTool}
+   * are shared, so e.g. results of remote rules that create their rule objects on the fly aren't.
+   * An {@link OffHeapResultStore} can be used to keep many results in memory without making garbage
+   * collection slower, with a small {@code maxSize} for this cache.
+   * @param cache the second-level cache, or {@code null} to stop using one
+   * @param namespace must be different for processes that might get different results for the same
+   * input, e.g. because they have different rules or configuration. The version of LanguageTool
+   * doesn't need to be part of it, as it is added automatically.
+   * @since 6.4
+   */
+  public void setSecondLevelCache(@Nullable SecondLevelResultCache cache, String namespace) {
+    SecondLevelCache oldCache = secondLevelCache;
+    secondLevelCache = cache == null ? null : new SecondLevelCache(cache, namespace + ":" + JLanguageTool.VERSION + ":" + JLanguageTool.BUILD_DATE);
+    if (oldCache != null) {
+      oldCache.writer.shutdown();
+    }
+  }
+
+  /**
+   * Like {@link #getIfPresent(InputSentence)}, but also looks up the results of all sentences of a check that
+   * this cache doesn't have in the second-level cache, with a single request.
+   * @param sentences the sentences of the keys
+   * @param rules the rules of the checking {@link JLanguageTool} instance
+   * @return the matches in the order of the keys, with {@code null} elements for sentences without a result
+   */
+  List<List<RuleMatch>> getAllIfPresent(List<InputSentence> keys, List<AnalyzedSentence> sentences, Supplier<RuleMatchListSerializer.Rules> rules) {
+    List<List<RuleMatch>> result = new ArrayList<>(keys.size());
+    List<Integer> missing = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i++) {
+      List<RuleMatch> matches = matchesCache.getIfPresent(keys.get(i));
+      result.add(matches);
+      if (matches == null) {
+        missing.add(i);
+      }
+    }
+    SecondLevelCache secondLevel = secondLevelCache;
+    if (secondLevel != null && !missing.isEmpty()) {
+      List<String> secondLevelKeys = new ArrayList<>(missing.size());
+      List<AnalyzedSentence> missingSentences = new ArrayList<>(missing.size());
+      for (int i : missing) {
+        secondLevelKeys.add("m:" + keys.get(i).getStableKey());
+        missingSentences.add(sentences.get(i));
+      }
+      List<List<RuleMatch>> found = secondLevel.getAll(secondLevelKeys, missingSentences, rules);
+      for (int j = 0; j < missing.size(); j++) {
+        List<RuleMatch> matches = found.get(j);
+        if (matches != null) {
+          int i = missing.get(j);
+          matchesCache.put(keys.get(i), matches);
+          result.set(i, matches);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Like {@link #put(InputSentence, List)}, but also stores the result in the second-level cache.
+   * @param rules the rules of the checking {@link JLanguageTool} instance
+   */
+  void put(InputSentence key, List<RuleMatch> sentenceMatches, Supplier<RuleMatchListSerializer.Rules> rules) {
+    matchesCache.put(key, sentenceMatches);
+    SecondLevelCache secondLevel = secondLevelCache;
+    if (secondLevel != null) {
+      secondLevel.put("m:" + key.getStableKey(), sentenceMatches, rules);
+    }
+  }
+
+  /**
+   * Look up the result of a remote rule in the second-level cache.
+   * @param ruleKey the key used for the rule in {@link #getRemoteMatchesCache()}
+   * @return the matches, or {@code null} if there's no second-level cache or no result for the sentence
+   */
+  @Nullable
+  List<RuleMatch> getRemoteMatchesFromSecondLevel(InputSentence key, String ruleKey, AnalyzedSentence sentence, Supplier<RuleMatchListSerializer.Rules> rules) {
+    SecondLevelCache secondLevel = secondLevelCache;
+    return secondLevel == null ? null : secondLevel.get("r:" + ruleKey + ":" + key.getStableKey(), sentence, rules);
+  }
+
+  /**
+   * Store the result of a remote rule in the second-level cache, if there is one.
+   * @param ruleKey the key used for the rule in {@link #getRemoteMatchesCache()}
+   */
+  void putRemoteMatchesToSecondLevel(InputSentence key, String ruleKey, List<RuleMatch> matches, Supplier<RuleMatchListSerializer.Rules> rules) {
+    SecondLevelCache secondLevel = secondLevelCache;
+    if (secondLevel != null) {
+      secondLevel.put("r:" + ruleKey + ":" + key.getStableKey(), matches, rules);
+    }
+  }
+
+  /**
+   * @return the number of results found in the second-level cache
+   * @since 6.4
+   */
+  public long getSecondLevelHitCount() {
+    return secondLevelHits.sum();
+  }
+
+  /**
+   * @return the number of results not found in the second-level cache
+   * @since 6.4
+   */
+  public long getSecondLevelMissCount() {
+    return secondLevelMisses.sum();
+  }
+
+  /**
+   * @return the number of results written to the second-level cache
+   * @since 6.4
+   */
+  public long getSecondLevelWriteCount() {
+    return secondLevelWrites.sum();
+  }
+
+  /**
+   * @return the number of results not written to the second-level cache because too many writes were pending
+   * @since 6.4
+   */
+  public long getSecondLevelDroppedWriteCount() {
+    return secondLevelDroppedWrites.sum();
+  }
+
+  /**
+   * @return the total time spent deserializing results found in the second-level cache, in nanoseconds
+   * @since 6.4
+   */
+  public long getSecondLevelDeserializationNanos() {
+    return secondLevelDeserializationNanos.sum();
+  }
+
+  private class SecondLevelCache {
+    private final SecondLevelResultCache cache;
+    private final String keyPrefix;
+    private final ThreadPoolExecutor writer = LtThreadPoolFactory.createFixedThreadPoolExecutor("lt-result-cache-writer",
+      1, 1, MAX_PENDING_WRITES, 60, true, (thread, e) -> logger.warn("Writing to second-level cache failed", e), false);
+
+    SecondLevelCache(SecondLevelResultCache cache, String keyPrefix) {
+      this.cache = cache;
+      this.keyPrefix = keyPrefix + ":";
+    }
+
+    @Nullable
+    List<RuleMatch> get(String key, AnalyzedSentence sentence, Supplier<RuleMatchListSerializer.Rules> rules) {
+      return deserialize(cache.get(keyPrefix + key), sentence, rules);
+    }
+
+    List<List<RuleMatch>> getAll(List<String> keys, List<AnalyzedSentence> sentences, Supplier<RuleMatchListSerializer.Rules> rules) {
+      List<String> prefixedKeys = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        prefixedKeys.add(keyPrefix + key);
+      }
+      List<byte[]> values = cache.getAll(prefixedKeys);
+      List<List<RuleMatch>> result = new ArrayList<>(keys.size());
+      for (int i = 0; i < keys.size(); i++) {
+        result.add(deserialize(values.get(i), sentences.get(i), rules));
+      }
+      return result;
+    }
+
+    @Nullable
+    private List<RuleMatch> deserialize(@Nullable byte[] data, AnalyzedSentence sentence, Supplier<RuleMatchListSerializer.Rules> rules) {
+      List<RuleMatch> matches = null;
+      if (data != null) {
+        RuleMatchListSerializer.Rules allRules = rules.get();
+        long startTime = System.nanoTime();
+        matches = RuleMatchListSerializer.deserialize(data, sentence, allRules);
+        secondLevelDeserializationNanos.add(System.nanoTime() - startTime);
+      }
+      if (matches != null) {
+        secondLevelHits.increment();
+      } else {
+        secondLevelMisses.increment();
+      }
+      return matches;
+    }
+
+    void put(String key, List<RuleMatch> matches, Supplier<RuleMatchListSerializer.Rules> rules) {
+      RuleMatchListSerializer.Rules allRules = rules.get();
+      if (!RuleMatchListSerializer.canSerialize(matches, allRules)) {
+        return;
+      }
+      if (writer.getQueue().remainingCapacity() == 0) {
+        secondLevelDroppedWrites.increment();
+        return;
+      }
+      // serialize here, as it computes lazy suggestions, which the rules only support in the checking thread:
+      byte[] data = RuleMatchListSerializer.serialize(matches, allRules);
+      try {
+        writer.execute(() -> {
+          try {
+            cache.put(keyPrefix + key, data);
+            secondLevelWrites.increment();
+          } catch (RuntimeException e) {
+            logger.warn("Could not write to second-level cache", e);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        secondLevelDroppedWrites.increment();
+      }
+    }
+  }
+
   public double hitRate() {
     return (matchesCache.stats().hitRate() + sentenceCache.stats().hitRate()) / 2.0;
   }
@@ -149,4 +392,12 @@ public class ResultCache {
   public Cache<SimpleInputSentence, AnalyzedSentence> getSentenceCache() {
     return sentenceCache;
   }
+
+  /**
+   * @return the estimated heap memory used by the sentences in {@link #getSentenceCache()}, in bytes
+   * @since 6.4
+   */
+  public long getSentenceCacheBytes() {
+    return sentenceCacheBytes.sum();
+  }
 }
@@ -0,0 +1,265 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SuggestedReplacement;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A compact binary form of the matches of a sentence, used to store them outside the heap of
+ * the JVM that created them. Rules are stored by a key based on their {@link Rule#getFullId() full id}
+ * (see {@link Rules}), so the matches can only be restored by a process with the same rules.
+ * The sentence of the matches isn't stored either, it's passed to {@link #deserialize(byte[], AnalyzedSentence, Rules)}.
+ * Neither are line and column, as the matches are cached before {@link JLanguageTool#adjustRuleMatchPos} sets them.
+ * @since 6.4
+ */
+final class RuleMatchListSerializer {
+
+  // increase when the format changes, so that entries written by older versions are ignored:
+  private static final int FORMAT_VERSION = 2;
+
+  private RuleMatchListSerializer() {
+  }
+
+  /**
+   * @return whether the matches can be serialized, i.e. whether their rules are part of {@code rules}
+   */
+  static boolean canSerialize(List<RuleMatch> matches, Rules rules) {
+    for (RuleMatch match : matches) {
+      if (rules.getKey(match.getRule()) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Note that this computes suggestions that have been set with {@link RuleMatch#setLazySuggestedReplacements}.
+   * @throws IllegalArgumentException if a rule isn't part of {@code rules}, see {@link #canSerialize(List, Rules)}
+   */
+  static byte[] serialize(List<RuleMatch> matches, Rules rules) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + matches.size() * 128);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writeVarInt(out, FORMAT_VERSION);
+      writeVarInt(out, matches.size());
+      for (RuleMatch match : matches) {
+        String ruleKey = rules.getKey(match.getRule());
+        if (ruleKey == null) {
+          throw new IllegalArgumentException("Unknown rule: " + match.getRule().getFullId());
+        }
+        writeString(out, ruleKey);
+        String specificRuleId = match.getSpecificRuleId();
+        writeString(out, specificRuleId.equals(match.getRule().getId()) ? null : specificRuleId);
+        writeString(out, match.getMessage());
+        writeString(out, match.getShortMessage());
+        writeVarInt(out, match.getFromPos());
+        writeVarInt(out, match.getToPos());
+        // these can be -1 if not set:
+        writeVarInt(out, match.getPatternFromPos() + 1);
+        writeVarInt(out, match.getPatternToPos() + 1);
+        writeVarInt(out, match.getFromPosSentence() + 1);
+        writeVarInt(out, match.getToPosSentence() + 1);
+        writeString(out, match.getUrl() != null ? match.getUrl().toString() : null);
+        out.writeByte(match.getType().ordinal());
+        out.writeBoolean(match.isAutoCorrect());
+        writeString(out, match.getOriginalErrorStr());
+        writeFloatMap(out, match.getFeatures());
+        writeFloatMap(out, match.getNewLanguageMatches());
+        List<SuggestedReplacement> suggestions = match.getSuggestedReplacementObjects();
+        writeVarInt(out, suggestions.size());
+        for (SuggestedReplacement suggestion : suggestions) {
+          writeString(out, suggestion.getReplacement());
+          writeString(out, suggestion.getShortDescription());
+          writeString(out, suggestion.getSuffix());
+          out.writeByte(suggestion.getType().ordinal());
+          Float confidence = suggestion.getConfidence();
+          out.writeBoolean(confidence != null);
+          if (confidence != null) {
+            out.writeFloat(confidence);
+          }
+          writeFloatMap(out, suggestion.getFeatures());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);  // not expected when writing to memory
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @param sentence the sentence the matches are for
+   * @return the matches, or {@code null} if they could not be restored, e.g. because a rule
+   * is unknown or because the data was written in an older format
+   */
+  @Nullable
+  static List<RuleMatch> deserialize(byte[] data, @Nullable AnalyzedSentence sentence, Rules rules) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+      if (readVarInt(in) != FORMAT_VERSION) {
+        return null;
+      }
+      int size = readVarInt(in);
+      List<RuleMatch> matches = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        Rule rule = rules.getRule(readString(in));
+        if (rule == null) {
+          return null;
+        }
+        String specificRuleId = readString(in);
+        String message = readString(in);
+        String shortMessage = readString(in);
+        int fromPos = readVarInt(in);
+        int toPos = readVarInt(in);
+        int patternFromPos = readVarInt(in) - 1;
+        int patternToPos = readVarInt(in) - 1;
+        RuleMatch match = new RuleMatch(rule, sentence, fromPos, toPos, patternFromPos, patternToPos, message, shortMessage);
+        if (specificRuleId != null) {
+          match.setSpecificRuleId(specificRuleId);
+        }
+        match.setSentencePosition(readVarInt(in) - 1, readVarInt(in) - 1);
+        String url = readString(in);
+        if (url != null) {
+          match.setUrl(new URL(url));
+        }
+        match.setType(RuleMatch.Type.values()[in.readByte()]);
+        match.setAutoCorrect(in.readBoolean());
+        match.setOriginalErrorStr(readString(in));
+        match.setFeatures(readFloatMap(in, new TreeMap<>()));
+        match.setNewLanguageMatches(readFloatMap(in, new LinkedHashMap<>()));
+        int suggestionCount = readVarInt(in);
+        List<SuggestedReplacement> suggestions = new ArrayList<>(suggestionCount);
+        for (int j = 0; j < suggestionCount; j++) {
+          SuggestedReplacement suggestion = new SuggestedReplacement(readString(in), readString(in), readString(in));
+          suggestion.setType(SuggestedReplacement.SuggestionType.values()[in.readByte()]);
+          if (in.readBoolean()) {
+            suggestion.setConfidence(in.readFloat());
+          }
+          suggestion.setFeatures(readFloatMap(in, new TreeMap<>()));
+          suggestions.add(suggestion);
+        }
+        match.setSuggestedReplacementObjects(suggestions);
+        matches.add(match);
+      }
+      return matches;
+    } catch (IOException | RuntimeException e) {
+      return null;  // corrupt data, treat it like a cache miss
+    }
+  }
+
+  /**
+   * Finds rules by a key that is the same in every process with the same rules: the rule's full id,
+   * plus the rule's position among the rules with the same full id, as e.g. the pattern rules created
+   * for the phrases of a rule share its id.
+   */
+  static final class Rules {
+
+    private final Map<String, Rule> rulesByKey = new HashMap<>();
+    private final Map<Rule, String> keysByRule = new IdentityHashMap<>();
+
+    Rules(Iterable<Rule> rules) {
+      Map<String, Integer> fullIdCounts = new HashMap<>();
+      for (Rule rule : rules) {
+        if (!keysByRule.containsKey(rule)) {
+          String fullId = rule.getFullId();
+          int count = fullIdCounts.merge(fullId, 1, Integer::sum);
+          String key = count == 1 ? fullId : fullId + "#" + count;
+          rulesByKey.put(key, rule);
+          keysByRule.put(rule, key);
+        }
+      }
+    }
+
+    @Nullable
+    String getKey(Rule rule) {
+      return keysByRule.get(rule);
+    }
+
+    @Nullable
+    Rule getRule(String key) {
+      return rulesByKey.get(key);
+    }
+  }
+
+  private static void writeFloatMap(DataOutputStream out, Map<String, Float> map) throws IOException {
+    writeVarInt(out, map.size());
+    for (Map.Entry<String, Float> entry : map.entrySet()) {
+      writeString(out, entry.getKey());
+      out.writeFloat(entry.getValue());
+    }
+  }
+
+  private static <M extends Map<String, Float>> M readFloatMap(DataInputStream in, M map) throws IOException {
+    int size = readVarInt(in);
+    for (int i = 0; i < size; i++) {
+      map.put(readString(in), in.readFloat());
+    }
+    return map;
+  }
+
+  private static void writeString(DataOutputStream out, @Nullable String s) throws IOException {
+    if (s == null) {
+      writeVarInt(out, 0);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(out, bytes.length + 1);
+      out.write(bytes);
+    }
+  }
+
+  @Nullable
+  private static String readString(DataInputStream in) throws IOException {
+    int length = readVarInt(in) - 1;
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    if (value < 0) {
+      throw new IllegalArgumentException("Negative value: " + value);
+    }
+    while (value >= 0x80) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarInt(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if (b < 0x80) {
+        return value;
+      }
+    }
+    throw new IOException("Invalid variable-length integer");
+  }
+
+}
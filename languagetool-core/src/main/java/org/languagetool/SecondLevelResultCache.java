@@ -0,0 +1,62 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cache for serialized check results that is asked by {@link ResultCache} when it doesn't have the
+ * result of a sentence itself. Unlike the {@code ResultCache}, it can be shared by several processes,
+ * e.g. all servers behind a load balancer, so that a sentence checked by one server doesn't need to
+ * be checked again by another one. See {@link ResultCache#setSecondLevelCache(SecondLevelResultCache, String)}.
+ * <p>
+ * Implementations need to be thread-safe. As the cache is only an optimization, they should not throw
+ * exceptions but treat errors like a cache miss, and they should give up quickly if the storage is slow.
+ * @since 6.4
+ */
+public interface SecondLevelResultCache {
+
+  /**
+   * @return the value stored for the key, or {@code null} if there is none or it couldn't be read
+   */
+  @Nullable
+  byte[] get(String key);
+
+  /**
+   * Like {@link #get(String)} for the keys of all sentences of a check. Implementations that ask
+   * another server should override this to fetch all values with a single request.
+   * @return the values in the order of the keys, with {@code null} elements for keys without a value
+   */
+  default List<byte[]> getAll(List<String> keys) {
+    List<byte[]> values = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      values.add(get(key));
+    }
+    return values;
+  }
+
+  /**
+   * Store the value for the key. This is called asynchronously, not by the threads that check the text.
+   */
+  void put(String key, byte[] value);
+
+}
@@ -0,0 +1,45 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.languagetool.rules.RuleMatch;
+
+import java.util.List;
+
+/**
+ * A {@link RuleMatchListener} that also gets the matches in batches that have been filtered like the
+ * result of a check (matches of disabled rules, overlapping matches, custom filters), so they can be
+ * shown to the user before the whole text has been checked. The batches come in this order: the matches
+ * of each paragraph, in text order, then the matches of text-level rules, then the matches of remote rules.
+ * As the filters only see one batch at a time, the final result of the check can still be different,
+ * e.g. if matches from different batches overlap.
+ * @since 6.4
+ */
+public interface StreamingRuleMatchListener extends RuleMatchListener {
+
+  @Override
+  default void matchFound(RuleMatch ruleMatch) {
+  }
+
+  /**
+   * Called for every batch of filtered matches that isn't empty.
+   */
+  void matchesFound(List<RuleMatch> ruleMatches);
+
+}
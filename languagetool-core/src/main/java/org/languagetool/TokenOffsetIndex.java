@@ -0,0 +1,258 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Maps the lowercase tokens (or lemmas) of a sentence to the positions where they occur in
+ * {@link AnalyzedSentence#getTokensWithoutWhitespace()}. Uses an open-addressing hash table and
+ * a single int array for all positions, so building it allocates a handful of arrays instead of
+ * a {@code HashMap} with a list of boxed integers per entry. Immutable.
+ * <p>
+ * The index remembers what it was built from (the token strings, or the reading arrays for lemmas,
+ * both of which are replaced rather than modified when a token changes), so that a sentence created
+ * by a disambiguation step can check with {@link #isValidFor(AnalyzedTokenReadings[])} whether it can
+ * re-use the index of the sentence before that step.
+ * @since 6.4
+ */
+final class TokenOffsetIndex {
+
+  private static final Object[] NO_SOURCES = new Object[0];
+  private static final TokenOffsetIndex EMPTY = new TokenOffsetIndex(new String[1], new int[2], new int[0], 0, false, NO_SOURCES);
+
+  private final String[] keys;  // hash table, null for empty slots
+  private final int[] slotStart;  // positions of the key in slot i are offsets[slotStart[i]] .. offsets[slotStart[i+1]-1]
+  private final int[] offsets;
+  private final int size;
+  private final boolean lemmas;
+  private final Object[] sources;  // per token: the token string, or the readings array for lemmas
+  private final Set<String> keySet = new KeySet();
+
+  private TokenOffsetIndex(String[] keys, int[] slotStart, int[] offsets, int size, boolean lemmas, Object[] sources) {
+    this.keys = keys;
+    this.slotStart = slotStart;
+    this.offsets = offsets;
+    this.size = size;
+    this.lemmas = lemmas;
+    this.sources = sources;
+  }
+
+  static TokenOffsetIndex ofTokens(AnalyzedTokenReadings[] tokens) {
+    String[] occurrences = new String[tokens.length];
+    int[] positions = new int[tokens.length];
+    Object[] sources = new Object[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      sources[i] = tokens[i].getToken();
+      occurrences[i] = tokens[i].getToken().toLowerCase();
+      positions[i] = i;
+    }
+    return build(occurrences, positions, tokens.length, false, sources);
+  }
+
+  static TokenOffsetIndex ofLemmas(AnalyzedTokenReadings[] tokens) {
+    int count = 0;
+    for (AnalyzedTokenReadings token : tokens) {
+      count += token.getReadingsLength();
+    }
+    String[] occurrences = new String[count];
+    int[] positions = new int[count];
+    Object[] sources = new Object[tokens.length];
+    int n = 0;
+    for (int i = 0; i < tokens.length; i++) {
+      AnalyzedTokenReadings tr = tokens[i];
+      sources[i] = tr.getReadingsArray();
+      int readingsLength = tr.getReadingsLength();
+      for (int j = 0; j < readingsLength; j++) {
+        AnalyzedToken token = tr.getAnalyzedToken(j);
+        String lemma = token.getLemma();
+        occurrences[n] = (lemma != null ? lemma : token.getToken()).toLowerCase();
+        positions[n] = i;
+        n++;
+      }
+    }
+    return build(occurrences, positions, n, true, sources);
+  }
+
+  // positions must be in ascending order; the same key at the same position is stored only once
+  private static TokenOffsetIndex build(String[] occurrences, int[] positions, int count, boolean lemmas, Object[] sources) {
+    if (count == 0) {
+      return sources.length == 0 ? EMPTY : new TokenOffsetIndex(new String[1], new int[2], new int[0], 0, lemmas, sources);
+    }
+    int capacity = Integer.highestOneBit(count * 2 - 1) << 1;
+    String[] keys = new String[capacity];
+    int[] slotStart = new int[capacity + 1];  // used for counting first, then turned into start positions
+    int[] lastPosition = new int[capacity];
+    int[] slots = new int[count];
+    int size = 0;
+    int offsetCount = 0;
+    for (int i = 0; i < count; i++) {
+      String key = occurrences[i];
+      int slot = findSlot(keys, key);
+      if (keys[slot] == null) {
+        keys[slot] = key;
+        size++;
+      } else if (lastPosition[slot] == positions[i]) {
+        slots[i] = -1;
+        continue;
+      }
+      lastPosition[slot] = positions[i];
+      slots[i] = slot;
+      slotStart[slot + 1]++;
+      offsetCount++;
+    }
+    for (int i = 0; i < capacity; i++) {
+      slotStart[i + 1] += slotStart[i];
+    }
+    int[] offsets = new int[offsetCount];
+    int[] fill = lastPosition;  // not needed anymore, re-used as the number of positions filled per slot
+    Arrays.fill(fill, 0);
+    for (int i = 0; i < count; i++) {
+      int slot = slots[i];
+      if (slot >= 0) {
+        offsets[slotStart[slot] + fill[slot]++] = positions[i];
+      }
+    }
+    return new TokenOffsetIndex(keys, slotStart, offsets, size, lemmas, sources);
+  }
+
+  /**
+   * @return whether this index is the same as the one that {@link #ofTokens(AnalyzedTokenReadings[])} (or
+   * {@link #ofLemmas(AnalyzedTokenReadings[])}, for a lemma index) would build for the given tokens
+   */
+  boolean isValidFor(AnalyzedTokenReadings[] tokens) {
+    if (tokens.length != sources.length) {
+      return false;
+    }
+    for (int i = 0; i < tokens.length; i++) {
+      Object source = lemmas ? tokens[i].getReadingsArray() : tokens[i].getToken();
+      if (source != sources[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int findSlot(String[] keys, String key) {
+    int mask = keys.length - 1;
+    int h = key.hashCode();
+    int slot = (h ^ (h >>> 16)) & mask;
+    while (keys[slot] != null && !keys[slot].equals(key)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  boolean contains(String key) {
+    return keys[findSlot(keys, key)] != null;
+  }
+
+  /**
+   * @return the positions of the key in ascending order, or {@code null} if the key doesn't occur
+   */
+  @Nullable
+  List<Integer> getOffsets(String key) {
+    int slot = findSlot(keys, key);
+    if (keys[slot] == null) {
+      return null;
+    }
+    return new OffsetList(slotStart[slot], slotStart[slot + 1]);
+  }
+
+  Set<String> keySet() {
+    return keySet;
+  }
+
+  /**
+   * A rough estimate of the heap memory that an index of the given number of occurrences (tokens, or
+   * readings for a lemma index) uses, not including the keys, without building it. Each occurrence
+   * is assumed to have its own key.
+   */
+  static long getEstimatedBytes(int occurrences, int sourceCount) {
+    int capacity = occurrences == 0 ? 1 : Integer.highestOneBit(occurrences * 2 - 1) << 1;
+    return 16 + 4L * capacity + 16 + 4L * (capacity + 1) + 16 + 4L * occurrences + 16 + 4L * sourceCount + 56;
+  }
+
+  private final class OffsetList extends AbstractList<Integer> implements RandomAccess {
+    private final int from;
+    private final int to;
+
+    OffsetList(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public Integer get(int index) {
+      if (index < 0 || index >= to - from) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + (to - from));
+      }
+      return offsets[from + index];
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+  }
+
+  private final class KeySet extends AbstractSet<String> {
+    @Override
+    public boolean contains(Object o) {
+      return o instanceof String && TokenOffsetIndex.this.contains((String) o);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<String>() {
+        private int slot = nextSlot(0);
+
+        private int nextSlot(int from) {
+          while (from < keys.length && keys[from] == null) {
+            from++;
+          }
+          return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return slot < keys.length;
+        }
+
+        @Override
+        public String next() {
+          if (slot >= keys.length) {
+            throw new NoSuchElementException();
+          }
+          String key = keys[slot];
+          slot = nextSlot(slot + 1);
+          return key;
+        }
+      };
+    }
+  }
+
+}
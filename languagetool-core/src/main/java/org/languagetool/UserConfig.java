@@ -18,13 +18,17 @@
  */
 package org.languagetool;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.languagetool.rules.Rule;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * User-specific configuration. So far, this contains a list of words and a settings map.
@@ -59,6 +63,7 @@ public class UserConfig {
   private final Long textSessionId;
   private final List<String> abTest;
   private final String preferredLanguages;
+  private volatile String stableHash;
 
   public UserConfig() {
     this(new ArrayList<>(), new HashMap<>());
@@ -165,6 +170,7 @@ public class UserConfig {
     for (Map.Entry<String, Integer> entry : ruleValues.entrySet()) {
       this.configurableRuleValues.put(entry.getKey(), entry.getValue());
     }
+    stableHash = null;
   }
   
   public int getConfigValueByID(String ruleID) {
@@ -205,6 +211,38 @@ public class UserConfig {
     return premiumUid;
   }
 
+  /**
+   * A hash of the settings compared by {@link #equals(Object)}. Unlike {@link #hashCode()}, it is the
+   * same in every JVM, so it can be used to share check results between servers.
+   * @since 6.4
+   */
+  public String getStableHash() {
+    String hash = stableHash;
+    if (hash == null) {
+      Hasher hasher = Hashing.sha256().newHasher();
+      putString(hasher, new TreeMap<>(configurableRuleValues).toString());
+      putString(hasher, userSpecificRules.stream().map(Rule::getId).sorted().collect(Collectors.joining(",")));
+      putString(hasher, String.valueOf(premiumUid));
+      putString(hasher, userDictName);
+      hasher.putInt(userSpecificSpellerWords.size());
+      for (String word : userSpecificSpellerWords) {
+        putString(hasher, word);
+      }
+      hasher.putBoolean(filterDictionaryMatches);
+      putString(hasher, String.valueOf(abTest));
+      hasher.putBoolean(hidePremiumMatches);
+      putString(hasher, String.valueOf(preferredLanguages));
+      hasher.putInt(maxSpellingSuggestions);
+      hash = hasher.hash().toString();
+      stableHash = hash;
+    }
+    return hash;
+  }
+
+  private static void putString(Hasher hasher, String s) {
+    hasher.putInt(s.length()).putString(s, StandardCharsets.UTF_8);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -0,0 +1,96 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.language.identifier.detector;
+
+import java.util.Arrays;
+
+/**
+ * A map from a bigram of token ids to a {@code double}, stored in primitive arrays with open addressing,
+ * so that lookups don't allocate anything.
+ */
+final class BigramTable {
+
+  private static final long EMPTY = -1;  // no valid key, as token ids are >= 0
+
+  private final long[] keys;
+  private final double[] values;
+  private final int mask;
+  private final double defaultValue;
+  private int size;
+
+  /**
+   * @param maxSize the maximum number of entries
+   * @param defaultValue the value returned for bigrams that are not in the table
+   */
+  BigramTable(int maxSize, double defaultValue) {
+    // keep the table at most half full so that probe sequences stay short:
+    int capacity = Integer.highestOneBit(Math.max(2, maxSize) * 2 - 1) << 1;
+    keys = new long[capacity];
+    values = new double[capacity];
+    mask = capacity - 1;
+    this.defaultValue = defaultValue;
+    Arrays.fill(keys, EMPTY);
+  }
+
+  void put(int first, int second, double value) {
+    if (first < 0 || second < 0) {
+      throw new IllegalArgumentException("Invalid token ids: " + first + ", " + second);
+    }
+    long key = key(first, second);
+    int slot = slot(key);
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    if (keys[slot] == EMPTY) {
+      if (size >= keys.length / 2) {
+        throw new IllegalStateException("Table is full: " + size + " entries");
+      }
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+  }
+
+  double get(int first, int second) {
+    long key = key(first, second);
+    int slot = slot(key);
+    long slotKey;
+    while ((slotKey = keys[slot]) != EMPTY) {
+      if (slotKey == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return defaultValue;
+  }
+
+  int size() {
+    return size;
+  }
+
+  private static long key(int first, int second) {
+    return (long) first << 32 | second;
+  }
+
+  private int slot(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ hash >>> 32) & mask;
+  }
+
+}
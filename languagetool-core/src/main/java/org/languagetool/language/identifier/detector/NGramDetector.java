@@ -26,7 +26,6 @@ import java.nio.charset.StandardCharsets;
 import java.text.Normalizer;
 import java.util.*;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.zip.ZipFile;
 
 import static java.lang.StrictMath.log;
@@ -48,9 +47,11 @@ public class NGramDetector {
   private static final Pattern WHITESPACE = compile("\\s+");
 
   private final Map<String, Integer> vocab;
+  private final int maxTokenLength;
   private final List<String[]> codes; // Elem format = {Name, 2-code (or "NULL"), 3-code}
 
-  private final List<Map<String, Double>> knpBigramProbs;
+  // the log probabilities of the bigrams, per language:
+  private final BigramTable[] knpBigramLogProbs;
   private final int thresholdsStart;
   private final List<double[]> thresholds;
 
@@ -78,10 +79,14 @@ public class NGramDetector {
     try (BufferedReader br = getReader("vocab.txt")) {
       String line;
       int i = 0;
+      int longestToken = 0;
       while ((line = br.readLine()) != null) {
-        vocab.put(line.split("\t")[0].trim(), i);
+        String token = line.split("\t")[0].trim();
+        vocab.put(token, i);
+        longestToken = Math.max(longestToken, token.length());
         i++;
       }
+      maxTokenLength = longestToken;
     }
 
     //Load thresholds
@@ -97,45 +102,47 @@ public class NGramDetector {
     }
 
     //Load transition matrices - Line format = {i} {j} {val}
-    knpBigramProbs = expectedFiles().stream().map(this::readLines).parallel().map(NGramDetector::loadDict).collect(Collectors.toList());
+    knpBigramLogProbs = expectedFiles().stream().map(this::readLines).parallel().map(NGramDetector::loadDict).toArray(BigramTable[]::new);
   }
 
   public Map<String, Double> detectLanguages(String text, List<String> additionalLanguageCodes) {
-    List<Integer> enc = encode(text);
-    List<Double> finalProbs = new ArrayList<>();
-    List<int[]> keys = keys(enc);
+    int[] enc = encode(text);
+    double[] finalProbs = new double[codes.size()];
 
-    for (int i = 0; i < codes.size(); i++) {
+    //For now just bigrams
+    for (int i = 0; i < finalProbs.length; i++) {
+      BigramTable logProbs = knpBigramLogProbs[i];
       double val = 0;
-      for (int[] key: keys) {
-        double prob = knpBigramProbs.get(i).getOrDefault(key[0] + "_" + key[1], EPSILON);
-        val += log(prob);
+      for (int j = 1; j < enc.length; j++) {
+        val += logProbs.get(enc[j-1], enc[j]);
       }
-      finalProbs.add(val);
+      finalProbs[i] = val;
     }
 
     Map<String, Double> result = new HashMap<>();
 
     if (text.length() >= this.thresholdsStart) {
       int argMax = 0;
-      for (int i = 1; i < finalProbs.size(); i++) {
-        if (finalProbs.get(i) > finalProbs.get(argMax)) {
+      for (int i = 1; i < finalProbs.length; i++) {
+        if (finalProbs[i] > finalProbs[argMax]) {
           argMax = i;
         }
       }
       int thresholdIndex = min(text.length(), maxLength) - this.thresholdsStart;
-      if (finalProbs.get(argMax) < thresholds.get(thresholdIndex)[argMax]) {
+      if (finalProbs[argMax] < thresholds.get(thresholdIndex)[argMax]) {
         result.put(NoopLanguage.SHORT_CODE, 100.0);
         return result;
       }
     }
 
-    finalProbs = finalProbs.stream().map(StrictMath::exp).collect(Collectors.toList());
-    finalProbs = normalize(finalProbs);
+    for (int i = 0; i < finalProbs.length; i++) {
+      finalProbs[i] = StrictMath.exp(finalProbs[i]);
+    }
+    normalize(finalProbs);
     for (int i = 0; i < codes.size(); i++) {
       String langCode = codes.get(i)[1].equals("NULL") ? codes.get(i)[2] : codes.get(i)[1]; //2-character code if possible
       if (LanguageIdentifierService.INSTANCE.canLanguageBeDetected(langCode, additionalLanguageCodes)) {
-        result.put(langCode, finalProbs.get(i));
+        result.put(langCode, finalProbs[i]);
       }
     }
 
@@ -161,12 +168,15 @@ public class NGramDetector {
     return result;
   }
 
-  private static Map<String, Double> loadDict(List<String> lines)  {
-    Map<String, Double> tm = new HashMap<>();
+  private static BigramTable loadDict(List<String> lines)  {
+    // the log is taken here once instead of for every lookup:
+    BigramTable tm = new BigramTable(lines.size(), log(EPSILON));
     for (String line : lines) {
       String[] parts = line.trim().split(" ");
-      String key = String.join("_", Arrays.copyOfRange(parts, 0, parts.length-1));
-      tm.put(key, Double.parseDouble(parts[parts.length-1]));
+      if (parts.length != 3) {
+        continue;  // only bigrams are used
+      }
+      tm.put(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), log(Double.parseDouble(parts[2])));
     }
     return tm;
   }
@@ -180,12 +190,13 @@ public class NGramDetector {
     return result;
   }
 
-  private List<Integer> encode(String text) {
-    List<Integer> result = new ArrayList<>();
-    result.add(1); //Start of sentence token
+  private int[] encode(String text) {
     if (text.length() > maxLength) {
       text = text.substring(0, maxLength);
     }
+    int[] result = new int[text.length() + 2];
+    int size = 0;
+    result[size++] = 1; //Start of sentence token
     text = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
     text = DIGITS.matcher(text).replaceAll("<NUM>");
     text = KOREAN.matcher(text).replaceAll("<KO>");
@@ -198,14 +209,15 @@ public class NGramDetector {
     text = TAMIL.matcher(text).replaceAll("<TA>");
     text = WHITESPACE.matcher(text).replaceAll("▁");
     if (text.length() == 0) {
-      return result;
+      return Arrays.copyOf(result, size);
     }
     text = "▁" + text;
     int cur = 0;
     while (cur < text.length()) {
       int tok = 0;
       int ci = 1;
-      for (int i = cur + 1; i <= text.length(); i++) {
+      int end = min(text.length(), cur + maxTokenLength);
+      for (int i = cur + 1; i <= end; i++) {
         int maybeTok = vocab.getOrDefault(text.substring(cur, i), -1);
         if (maybeTok > -1) {
           tok = maybeTok;
@@ -213,22 +225,18 @@ public class NGramDetector {
         }
       }
       cur += ci;
-      result.add(tok);
+      if (size == result.length) {
+        result = Arrays.copyOf(result, size * 2);
+      }
+      result[size++] = tok;
     }
-    return result;
+    return Arrays.copyOf(result, size);
   }
 
-  private List<int[]> keys(List<Integer> enc) {
-    //For now just bigrams
-    List<int[]> result = new ArrayList<>();
-    for (int i = 1; i < enc.size(); i++) {
-      result.add(new int[]{enc.get(i-1), enc.get(i)});
+  private static void normalize(double[] vals) {
+    double tot = Arrays.stream(vals).sum();
+    for (int i = 0; i < vals.length; i++) {
+      vals[i] = vals[i] / tot;
     }
-    return result;
-  }
-
-  private List<Double> normalize(List<Double> vals) {
-    double tot = vals.stream().mapToDouble(f -> f).sum();
-    return vals.stream().map(n -> n/tot).collect(Collectors.toList());
   }
 }
@@ -20,8 +20,8 @@ package org.languagetool.languagemodel;
 
 import org.languagetool.rules.ngrams.Probability;
 
-import java.util.List;
-import java.util.Locale;
+import java.util.*;
+import java.util.function.ToLongFunction;
 
 /**
  * The algorithm of a language model, independent of the way data
@@ -70,13 +70,42 @@ public abstract class BaseLanguageModel implements LanguageModel {
 
   @Override
   public Probability getPseudoProbability(List<String> context) {
+    return getPseudoProbability(context, this::getCountOf);
+  }
+
+  /**
+   * Looks up the counts of all ngrams the contexts need with a single {@link #getCounts(List)} call.
+   * @since 6.4
+   */
+  @Override
+  public List<Probability> getPseudoProbabilities(List<List<String>> contexts) {
+    Map<List<String>, Integer> ngramToIndex = new HashMap<>();
+    List<List<String>> ngrams = new ArrayList<>();
+    for (List<String> context : contexts) {
+      for (int i = 1; i <= context.size(); i++) {
+        List<String> ngram = context.subList(0, i);
+        if (!ngramToIndex.containsKey(ngram)) {
+          ngramToIndex.put(ngram, ngrams.size());
+          ngrams.add(ngram);
+        }
+      }
+    }
+    long[] counts = getCounts(ngrams);
+    List<Probability> result = new ArrayList<>(contexts.size());
+    for (List<String> context : contexts) {
+      result.add(getPseudoProbability(context, ngram -> counts[ngramToIndex.get(ngram)]));
+    }
+    return result;
+  }
+
+  private Probability getPseudoProbability(List<String> context, ToLongFunction<List<String>> counts) {
     if (this.totalTokenCount == null) {
       this.totalTokenCount = getTotalTokenCount();
     }
     int maxCoverage = 0;
     int coverage = 0;
     // TODO: lm.getCount("_START_") returns 0 for Google data -- see getCount(String) in LuceneLanguageModel
-    long firstWordCount = getCount(context.get(0));
+    long firstWordCount = counts.applyAsLong(context.subList(0, 1));
     maxCoverage++;
     if (firstWordCount > 0) {
       coverage++;
@@ -88,7 +117,7 @@ public abstract class BaseLanguageModel implements LanguageModel {
     long totalCount = 0;
     for (int i = 2; i <= context.size(); i++) {
       List<String> subList = context.subList(0, i);
-      long phraseCount = getCount(subList);
+      long phraseCount = counts.applyAsLong(subList);
       //System.out.println(subList + " -> " +phraseCount);
       if (subList.size() == 3) {
         totalCount = phraseCount;
@@ -109,6 +138,24 @@ public abstract class BaseLanguageModel implements LanguageModel {
     return new Probability(p, (float)coverage/maxCoverage, totalCount);
   }
 
+  /**
+   * Get the occurrence counts for the given token sequences. The default implementation calls
+   * {@link #getCount(List)} for each of them, subclasses can look them up more efficiently.
+   * @return the counts in the same order as {@code ngrams}
+   * @since 6.4
+   */
+  public long[] getCounts(List<List<String>> ngrams) {
+    long[] result = new long[ngrams.size()];
+    for (int i = 0; i < ngrams.size(); i++) {
+      result[i] = getCountOf(ngrams.get(i));
+    }
+    return result;
+  }
+
+  private long getCountOf(List<String> ngram) {
+    return ngram.size() == 1 ? getCount(ngram.get(0)) : getCount(ngram);
+  }
+
   /**
    * Get the occurrence count for {@code token}.
    */
@@ -20,6 +20,7 @@ package org.languagetool.languagemodel;
 
 import org.languagetool.rules.ngrams.Probability;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -41,6 +42,20 @@ public interface LanguageModel extends AutoCloseable {
    */
   Probability getPseudoProbability(List<String> context);
 
+  /**
+   * Like {@link #getPseudoProbability(List)}, but for all contexts a caller needs at once (e.g. for a whole sentence),
+   * so implementations can avoid duplicate lookups and access their index in sorted order.
+   * @return the probabilities in the same order as {@code contexts}
+   * @since 6.4
+   */
+  default List<Probability> getPseudoProbabilities(List<List<String>> contexts) {
+    List<Probability> result = new ArrayList<>(contexts.size());
+    for (List<String> context : contexts) {
+      result.add(getPseudoProbability(context));
+    }
+    return result;
+  }
+
   @Override
   void close();
   
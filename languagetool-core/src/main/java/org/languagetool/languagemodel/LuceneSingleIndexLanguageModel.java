@@ -18,11 +18,11 @@
  */
 package org.languagetool.languagemodel;
 
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.Term;
+import org.apache.lucene.index.*;
 import org.apache.lucene.search.*;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.languagetool.Experimental;
 
 import java.io.File;
@@ -130,6 +130,65 @@ public class LuceneSingleIndexLanguageModel extends BaseLanguageModel {
     return getCount(term, getLuceneSearcher(tokens.size()));
   }
 
+  /**
+   * Looks up the ngrams of each size sorted by term, with one sequential pass over the terms of each index segment.
+   * @since 6.4
+   */
+  @Override
+  public long[] getCounts(List<List<String>> ngrams) {
+    if (luceneSearcherMap.isEmpty()) {
+      // created with LuceneSingleIndexLanguageModel(int), i.e. a subclass provides the counts via getCount()
+      return super.getCounts(ngrams);
+    }
+    Map<Integer, List<Integer>> sizeToIndices = new TreeMap<>();
+    for (int i = 0; i < ngrams.size(); i++) {
+      List<String> tokens = ngrams.get(i);
+      if (tokens.size() > maxNgram) {
+        throw new RuntimeException("Requested " + tokens.size() + "gram but index has only up to " + maxNgram + "gram: " + tokens);
+      }
+      sizeToIndices.computeIfAbsent(tokens.size(), k -> new ArrayList<>()).add(i);
+    }
+    long[] result = new long[ngrams.size()];
+    for (Map.Entry<Integer, List<Integer>> entry : sizeToIndices.entrySet()) {
+      List<Integer> indices = entry.getValue();
+      BytesRef[] terms = new BytesRef[ngrams.size()];
+      for (int i : indices) {
+        terms[i] = new BytesRef(String.join(" ", ngrams.get(i)));
+      }
+      indices.sort(Comparator.comparing(i -> terms[i]));
+      try {
+        addCounts(getLuceneSearcher(entry.getKey()), indices, terms, result);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return result;
+  }
+
+  private void addCounts(LuceneSearcher luceneSearcher, List<Integer> sortedIndices, BytesRef[] terms, long[] result) throws IOException {
+    for (LeafReaderContext leaf : luceneSearcher.reader.leaves()) {
+      LeafReader reader = leaf.reader();
+      Terms leafTerms = reader.terms("ngram");
+      if (leafTerms == null) {
+        continue;
+      }
+      TermsEnum termsEnum = leafTerms.iterator();
+      Bits liveDocs = reader.getLiveDocs();
+      PostingsEnum postings = null;
+      for (int i : sortedIndices) {
+        if (termsEnum.seekExact(terms[i])) {
+          postings = termsEnum.postings(postings, PostingsEnum.NONE);
+          int doc;
+          while ((doc = postings.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+            if (liveDocs == null || liveDocs.get(doc)) {
+              result[i] += Long.parseLong(reader.document(doc).get("count"));
+            }
+          }
+        }
+      }
+    }
+  }
+
   @Override
   public long getCount(String token1) {
     Objects.requireNonNull(token1);
@@ -0,0 +1,248 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A language model that reads ngram occurrence counts from a single compact file which is memory-mapped,
+ * so the data is kept in the operating system's page cache instead of the Java heap and no Lucene query is
+ * needed per lookup. Files are created with {@link MappedLanguageModelWriter}, existing Lucene indexes can be
+ * converted with {@code org.languagetool.dev.bigdata.LuceneToMappedLanguageModel}.
+ * <p>
+ * The file doesn't contain the ngrams, only a 64 bit hash of each ngram (see {@link #hash(List)}). The hashes are
+ * sorted, and a directory maps the top bits of a hash to the range of hashes starting with these bits, so a lookup
+ * is a binary search over a handful of entries. Counts are quantized to 16 bits (see {@link #encodeCount(long)}):
+ * they are exact up to 2047, larger counts have a relative error of less than 0.05%.
+ * Different ngrams that happen to have the same hash cannot be told apart, which is very unlikely with 64 bits.
+ * @since 6.4
+ */
+public class MappedLanguageModel extends BaseLanguageModel {
+
+  /** The name of the file in the ngram directory of a language (e.g. {@code en/}). */
+  public static final String FILE_NAME = "ngram-counts.bin";
+
+  static final int MAGIC = 0x4c544e47;  // "LTNG"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 32;
+
+  // a single MappedByteBuffer is limited to 2GB, so larger regions are mapped in segments:
+  private static final int SEGMENT_BITS = 30;
+  private static final long SEGMENT_BYTES = 1L << SEGMENT_BITS;
+  private static final int LONG_SEGMENT_BITS = SEGMENT_BITS - 3;
+  private static final int SHORT_SEGMENT_BITS = SEGMENT_BITS - 1;
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final File file;
+  private final int maxNgram;
+  private final int directoryBits;
+  private final long entryCount;
+  private final long totalTokenCount;
+  private final LongBuffer directory;
+  private final LongBuffer[] hashes;
+  private final ShortBuffer[] counts;
+
+  /**
+   * @return whether {@code topIndexDir} contains a file created by {@link MappedLanguageModelWriter}
+   */
+  public static boolean existsIn(File topIndexDir) {
+    return new File(topIndexDir, FILE_NAME).isFile();
+  }
+
+  /**
+   * @param topIndexDir a directory which contains a file {@value #FILE_NAME} as created by {@link MappedLanguageModelWriter}
+   */
+  public MappedLanguageModel(File topIndexDir) {
+    file = new File(topIndexDir, FILE_NAME);
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+      if (header.getInt() != MAGIC) {
+        throw new RuntimeException("Not an ngram count file: " + file);
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new RuntimeException("Unsupported version " + version + " of ngram count file " + file + ", expected " + VERSION);
+      }
+      maxNgram = header.getInt();
+      directoryBits = header.getInt();
+      entryCount = header.getLong();
+      totalTokenCount = header.getLong();
+      long directoryBytes = ((1L << directoryBits) + 1) * Long.BYTES;
+      long hashStart = HEADER_BYTES + directoryBytes;
+      long countStart = hashStart + entryCount * Long.BYTES;
+      long expectedSize = countStart + entryCount * Short.BYTES;
+      if (channel.size() != expectedSize) {
+        throw new RuntimeException("Unexpected size of ngram count file " + file + ": " + channel.size() + " bytes, expected " + expectedSize);
+      }
+      directory = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, directoryBytes).asLongBuffer();
+      MappedByteBuffer[] hashBuffers = map(channel, hashStart, entryCount * Long.BYTES);
+      hashes = new LongBuffer[hashBuffers.length];
+      for (int i = 0; i < hashBuffers.length; i++) {
+        hashes[i] = hashBuffers[i].asLongBuffer();
+      }
+      MappedByteBuffer[] countBuffers = map(channel, countStart, entryCount * Short.BYTES);
+      counts = new ShortBuffer[countBuffers.length];
+      for (int i = 0; i < countBuffers.length; i++) {
+        counts[i] = countBuffers[i].asShortBuffer();
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Could not load ngram counts from " + file, e);
+    }
+  }
+
+  private static MappedByteBuffer[] map(FileChannel channel, long start, long bytes) throws IOException {
+    int segments = (int) ((bytes + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+    MappedByteBuffer[] result = new MappedByteBuffer[segments];
+    for (int i = 0; i < segments; i++) {
+      long offset = i * SEGMENT_BYTES;
+      result[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + offset, Math.min(SEGMENT_BYTES, bytes - offset));
+    }
+    return result;
+  }
+
+  @Override
+  public long getCount(List<String> tokens) {
+    Objects.requireNonNull(tokens);
+    if (tokens.size() > maxNgram) {
+      throw new RuntimeException("Requested " + tokens.size() + "gram but index has only up to " + maxNgram + "gram: " + tokens);
+    }
+    long index = indexOf(hash(tokens));
+    return index < 0 ? 0 : decodeCount(countAt(index));
+  }
+
+  @Override
+  public long getCount(String token1) {
+    Objects.requireNonNull(token1);
+    return getCount(Arrays.asList(token1));
+  }
+
+  @Override
+  public long getTotalTokenCount() {
+    return totalTokenCount;
+  }
+
+  int getMaxNgram() {
+    return maxNgram;
+  }
+
+  long getEntryCount() {
+    return entryCount;
+  }
+
+  private long indexOf(long hash) {
+    int bucket = (int) (hash >>> (Long.SIZE - directoryBits));
+    long low = directory.get(bucket);
+    long high = directory.get(bucket + 1) - 1;
+    while (low <= high) {
+      long mid = (low + high) >>> 1;
+      int cmp = Long.compareUnsigned(hashAt(mid), hash);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private long hashAt(long index) {
+    return hashes[(int) (index >>> LONG_SEGMENT_BITS)].get((int) (index & ((1L << LONG_SEGMENT_BITS) - 1)));
+  }
+
+  private int countAt(long index) {
+    return counts[(int) (index >>> SHORT_SEGMENT_BITS)].get((int) (index & ((1L << SHORT_SEGMENT_BITS) - 1))) & 0xffff;
+  }
+
+  /**
+   * The mappings are released by the garbage collector, as Java 8 offers no way to unmap a file explicitly.
+   */
+  @Override
+  public void close() {
+  }
+
+  @Override
+  public String toString() {
+    return file.toString();
+  }
+
+  /**
+   * 64 bit hash of the tokens joined by a space, as in the terms of a Lucene ngram index, and of the number of tokens.
+   * FNV-1a with a final avalanche step, as the top bits are used to address the directory.
+   */
+  static long hash(List<String> tokens) {
+    long h = FNV_OFFSET;
+    for (int i = 0; i < tokens.size(); i++) {
+      if (i > 0) {
+        h = (h ^ ' ') * FNV_PRIME;
+      }
+      String token = tokens.get(i);
+      for (int j = 0; j < token.length(); j++) {
+        h = (h ^ token.charAt(j)) * FNV_PRIME;
+      }
+    }
+    h = (h ^ tokens.size()) * FNV_PRIME;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * Encode a count into 16 bits: counts up to 1023 are stored as they are, for larger counts the top 6 bits
+   * store the exponent and the lower 10 bits the mantissa (without its leading 1 bit), rounded to the nearest value.
+   */
+  static int encodeCount(long count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("count must be >= 0: " + count);
+    }
+    if (count < 1024) {
+      return (int) count;
+    }
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(count) - 11;
+    long mantissa = shift == 0 ? count : (count + (1L << (shift - 1))) >>> shift;
+    if (mantissa == 2048) {
+      mantissa = 1024;
+      shift++;
+    }
+    return (shift + 1) << 10 | (int) (mantissa - 1024);
+  }
+
+  static long decodeCount(int code) {
+    int exponent = code >>> 10;
+    long mantissa = code & 0x3ff;
+    return exponent == 0 ? mantissa : (1024 + mantissa) << (exponent - 1);
+  }
+
+}
@@ -0,0 +1,171 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates the file read by {@link MappedLanguageModel}. All ngrams are kept in memory until
+ * {@link #write(File)} is called (16 bytes per distinct ngram). Adding the same ngram more than
+ * once sums up its counts.
+ * @since 6.4
+ */
+public class MappedLanguageModelWriter {
+
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private long[] hashes = new long[1024];
+  private long[] counts = new long[1024];
+  private int size;
+  private int maxNgram;
+  private long totalTokenCount;
+
+  public void add(List<String> ngram, long count) {
+    if (ngram.isEmpty()) {
+      throw new IllegalArgumentException("ngram must not be empty");
+    }
+    if (count < 0) {
+      throw new IllegalArgumentException("count must be >= 0: " + count + " for " + ngram);
+    }
+    if (size == hashes.length) {
+      int newLength = (int) Math.min(Integer.MAX_VALUE - 8, hashes.length * 2L);
+      if (newLength == size) {
+        throw new IllegalStateException("Too many ngrams: " + size);
+      }
+      hashes = Arrays.copyOf(hashes, newLength);
+      counts = Arrays.copyOf(counts, newLength);
+    }
+    hashes[size] = MappedLanguageModel.hash(ngram);
+    counts[size] = count;
+    size++;
+    maxNgram = Math.max(maxNgram, ngram.size());
+  }
+
+  /**
+   * @param totalTokenCount the number of tokens in the corpus, as returned by {@link BaseLanguageModel#getTotalTokenCount()}
+   */
+  public void setTotalTokenCount(long totalTokenCount) {
+    this.totalTokenCount = totalTokenCount;
+  }
+
+  /**
+   * Writes the ngrams added so far to a file {@value MappedLanguageModel#FILE_NAME} in {@code topIndexDir}.
+   */
+  public void write(File topIndexDir) throws IOException {
+    if (size == 0) {
+      throw new IllegalStateException("No ngrams have been added");
+    }
+    sort(0, size - 1);
+    int distinct = mergeDuplicates();
+    int directoryBits = directoryBits(distinct);
+    File file = new File(topIndexDir, MappedLanguageModel.FILE_NAME);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1024 * 1024))) {
+      out.writeInt(MappedLanguageModel.MAGIC);
+      out.writeInt(MappedLanguageModel.VERSION);
+      out.writeInt(maxNgram);
+      out.writeInt(directoryBits);
+      out.writeLong(distinct);
+      out.writeLong(totalTokenCount);
+      int pos = 0;
+      for (long bucket = 0; bucket <= 1L << directoryBits; bucket++) {
+        while (pos < distinct && hashes[pos] >>> (Long.SIZE - directoryBits) < bucket) {
+          pos++;
+        }
+        out.writeLong(pos);
+      }
+      for (int i = 0; i < distinct; i++) {
+        out.writeLong(hashes[i]);
+      }
+      for (int i = 0; i < distinct; i++) {
+        out.writeShort(MappedLanguageModel.encodeCount(counts[i]));
+      }
+    }
+  }
+
+  // about 8 entries per directory bucket, i.e. 1 byte of directory per entry:
+  private static int directoryBits(int entries) {
+    int bits = Integer.SIZE - Integer.numberOfLeadingZeros(entries / 8);
+    return Math.max(1, Math.min(24, bits));
+  }
+
+  private int mergeDuplicates() {
+    int distinct = 0;
+    for (int i = 0; i < size; i++) {
+      if (distinct > 0 && hashes[distinct - 1] == hashes[i]) {
+        counts[distinct - 1] += counts[i];
+      } else {
+        hashes[distinct] = hashes[i];
+        counts[distinct] = counts[i];
+        distinct++;
+      }
+    }
+    return distinct;
+  }
+
+  // quicksort of both arrays by unsigned hash, as there's no JDK method to sort parallel primitive arrays
+  private void sort(int low, int high) {
+    while (high - low > INSERTION_SORT_THRESHOLD) {
+      int mid = (low + high) >>> 1;
+      if (less(mid, low)) swap(mid, low);
+      if (less(high, low)) swap(high, low);
+      if (less(high, mid)) swap(high, mid);
+      long pivot = hashes[mid];
+      int i = low;
+      int j = high;
+      while (i <= j) {
+        while (Long.compareUnsigned(hashes[i], pivot) < 0) i++;
+        while (Long.compareUnsigned(hashes[j], pivot) > 0) j--;
+        if (i <= j) {
+          swap(i, j);
+          i++;
+          j--;
+        }
+      }
+      // recurse into the smaller part to keep the stack small:
+      if (j - low < high - i) {
+        sort(low, j);
+        low = i;
+      } else {
+        sort(i, high);
+        high = j;
+      }
+    }
+    for (int i = low + 1; i <= high; i++) {
+      for (int j = i; j > low && less(j, j - 1); j--) {
+        swap(j, j - 1);
+      }
+    }
+  }
+
+  private boolean less(int i, int j) {
+    return Long.compareUnsigned(hashes[i], hashes[j]) < 0;
+  }
+
+  private void swap(int i, int j) {
+    long tmpHash = hashes[i];
+    hashes[i] = hashes[j];
+    hashes[j] = tmpHash;
+    long tmpCount = counts[i];
+    counts[i] = counts[j];
+    counts[j] = tmpCount;
+  }
+
+}
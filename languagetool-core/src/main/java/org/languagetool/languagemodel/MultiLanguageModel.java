@@ -20,6 +20,7 @@ package org.languagetool.languagemodel;
 
 import org.languagetool.rules.ngrams.Probability;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -53,6 +54,27 @@ public class MultiLanguageModel implements LanguageModel {
     return new Probability(prob, coverage/lms.size(), occurrences);
   }
 
+  @Override
+  public List<Probability> getPseudoProbabilities(List<List<String>> contexts) {
+    double[] prob = new double[contexts.size()];
+    float[] coverage = new float[contexts.size()];
+    long[] occurrences = new long[contexts.size()];
+    for (LanguageModel lm : lms) {
+      List<Probability> pProbs = lm.getPseudoProbabilities(contexts);
+      for (int i = 0; i < contexts.size(); i++) {
+        Probability pProb = pProbs.get(i);
+        prob[i] += pProb.getProb();
+        coverage[i] += pProb.getCoverage();
+        occurrences[i] += pProb.getOccurrences();
+      }
+    }
+    List<Probability> result = new ArrayList<>(contexts.size());
+    for (int i = 0; i < contexts.size(); i++) {
+      result.add(new Probability(prob[i], coverage[i]/lms.size(), occurrences[i]));
+    }
+    return result;
+  }
+
   @Override
   public void close() {
     lms.stream().forEach(LanguageModel::close);
@@ -93,6 +93,7 @@ public abstract class GRPCRule extends RemoteRule {
 
   private static final Logger logger = LoggerFactory.getLogger(GRPCRule.class);
   private static final int DEFAULT_BATCH_SIZE = 8;
+  private static final int DEFAULT_MAX_BATCH_SIZE = 64;
   public static final Pattern WHITESPACE_REGEX = Pattern.compile("[\u00a0\u202f\ufeff\ufffd]");
   private static final String DEFAULT_DESCRIPTION = "INTERNAL - dynamically loaded rule supported by remote server";
   /*TODO Delete this temporal fix as this is for speeding up execution for too long sentences*/
@@ -136,6 +137,8 @@ public abstract class GRPCRule extends RemoteRule {
   public static class Connection {
     final ManagedChannel channel;
     final MLServerFutureStub stub;
+    @Nullable
+    final MatchRequestBatcher batcher;
 
     public static ManagedChannel getManagedChannel(String host, int port, boolean useSSL, @Nullable String clientPrivateKey, @Nullable String clientCertificate, @Nullable String rootCertificate) throws SSLException {
       NettyChannelBuilder channelBuilder;
@@ -170,6 +173,21 @@ public abstract class GRPCRule extends RemoteRule {
       String ca = serviceConfiguration.getOptions().get("rootCertificate");
       this.channel = getManagedChannel(host, port, ssl, key, cert, ca);
       this.stub = MLServerGrpc.newFutureStub(channel);
+      // combine the requests of concurrent checks, off by default:
+      long batchWindow = Long.parseLong(serviceConfiguration.getOptions().getOrDefault("batchWindowMilliseconds", "0"));
+      int maxBatchSize = Integer.parseInt(serviceConfiguration.getOptions().getOrDefault("maxBatchSize",
+                                                                                         String.valueOf(DEFAULT_MAX_BATCH_SIZE)));
+      this.batcher = batchWindow > 0 ? new MatchRequestBatcher(stub, maxBatchSize, batchWindow) : null;
+    }
+
+    ListenableFuture<MatchResponse> match(MLServerProto.MatchRequest req, long timeoutMilliseconds) {
+      if (batcher != null) {
+        return batcher.match(req, timeoutMilliseconds);
+      }
+      if (timeoutMilliseconds > 0) {
+        return stub.withDeadlineAfter(timeoutMilliseconds, TimeUnit.MILLISECONDS).match(req);
+      }
+      return stub.match(req);
     }
 
     private void shutdown() {
@@ -196,6 +214,8 @@ public abstract class GRPCRule extends RemoteRule {
   }
 
   private final Connection conn;
+  @Nullable
+  private final Connection hedgeConn;
   private final int batchSize;
   private final boolean sendAnalyzedData;
   private int maxSentenceLength;
@@ -217,6 +237,15 @@ public abstract class GRPCRule extends RemoteRule {
           logger.error("Could not connect to remote service at " + serviceConfiguration, e);
         }
       this.conn = conn;
+      Connection hedgeConn = null;
+      if (serviceConfiguration.getHedgeUrl() != null) {
+        try {
+          hedgeConn = servers.get(serviceConfiguration.getHedgeConfiguration());
+        } catch (Exception e) {
+          logger.error("Could not connect to second endpoint of remote service at " + serviceConfiguration, e);
+        }
+      }
+      this.hedgeConn = hedgeConn;
     }
   }
 
@@ -308,6 +337,16 @@ public abstract class GRPCRule extends RemoteRule {
 
   @Override
   protected Callable<RemoteRuleResult> executeRequest(RemoteRequest requestArg, long timeoutMilliseconds) throws TimeoutException {
+    return executeRequest(requestArg, timeoutMilliseconds, conn);
+  }
+
+  @Nullable
+  @Override
+  protected Callable<RemoteRuleResult> executeHedgedRequest(RemoteRequest requestArg, long timeoutMilliseconds) throws TimeoutException {
+    return hedgeConn != null ? executeRequest(requestArg, timeoutMilliseconds, hedgeConn) : null;
+  }
+
+  private Callable<RemoteRuleResult> executeRequest(RemoteRequest requestArg, long timeoutMilliseconds, Connection conn) {
     return () -> {
       MLRuleRequest reqArgs = (MLRuleRequest) requestArg;
       // NOTE: disabled for now, don't want to run this in the nightly diff
@@ -341,12 +380,8 @@ public abstract class GRPCRule extends RemoteRule {
           for (MLServerProto.MatchRequest req : reqData.requests) {
             if (timeoutMilliseconds > 0) {
               logger.debug("Deadline for rule {}: {}ms", getId(), timeoutMilliseconds);
-              futures.add(conn.stub
-                .withDeadlineAfter(timeoutMilliseconds, TimeUnit.MILLISECONDS)
-                .match(req));
-            } else {
-              futures.add(conn.stub.match(req));
             }
+            futures.add(conn.match(req, timeoutMilliseconds));
           }
         }
         // TODO: handle partial failures
@@ -359,8 +394,17 @@ public abstract class GRPCRule extends RemoteRule {
         } else {
           throw e;
         }
-      } catch (InterruptedException | ExecutionException e) {
-        throw new TimeoutException(e + Objects.toString(e.getMessage()));
+      } catch (ExecutionException e) {
+        // only a deadline is a timeout, other failures must not count as slow responses:
+        if (Status.fromThrowable(e.getCause()).getCode() == Status.DEADLINE_EXCEEDED.getCode()) {
+          throw new TimeoutException(e + Objects.toString(e.getMessage()));
+        }
+        throw e;
+      } finally {
+        // stop the remaining calls if one failed or the check was interrupted, e.g. as the other endpoint was faster:
+        for (ListenableFuture<?> future : futures) {
+          future.cancel(true);
+        }
       }
 
       List<RuleMatch> matches = getRuleMatches(sentences, responses);
@@ -0,0 +1,238 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import com.google.common.util.concurrent.*;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.ml.MLServerGrpc.MLServerFutureStub;
+import org.languagetool.rules.ml.MLServerProto.MatchRequest;
+import org.languagetool.rules.ml.MLServerProto.MatchResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Combines the {@link MatchRequest}s that concurrent checks send to the same ML server into fewer,
+ * larger calls, so the server can make use of its batch capacity even if every single check only
+ * has a sentence or two. A request waits at most {@code windowMilliseconds} for other requests to
+ * join it; the combined call is sent earlier once it has {@code maxBatchSize} sentences. The response
+ * is split up again, so every caller gets the matches for its own sentences.
+ * <p>
+ * Requests only get combined if they agree on {@code inputLogging} and on whether they have text
+ * session IDs. The combined call uses the shortest deadline of the requests in it.
+ * Used by {@link GRPCRule} if the {@code batchWindowMilliseconds} option of its {@link RemoteRuleConfig} is set.
+ * @since 6.4
+ */
+public final class MatchRequestBatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(MatchRequestBatcher.class);
+
+  private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setNameFormat("lt-grpc-batcher-%d").setDaemon(true).build());
+
+  private final MLServerFutureStub stub;
+  private final int maxBatchSize;
+  private final long windowMilliseconds;
+  private final LongAdder requestCount = new LongAdder();
+  private final LongAdder callCount = new LongAdder();
+
+  @Nullable
+  private Batch pending;  // guarded by this
+
+  /**
+   * @param maxBatchSize the number of sentences after which a combined call is sent without waiting any longer
+   * @param windowMilliseconds how long a request waits for other requests to join it
+   */
+  public MatchRequestBatcher(MLServerFutureStub stub, int maxBatchSize, long windowMilliseconds) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be at least 1: " + maxBatchSize);
+    }
+    if (windowMilliseconds < 0) {
+      throw new IllegalArgumentException("windowMilliseconds must not be negative: " + windowMilliseconds);
+    }
+    this.stub = stub;
+    this.maxBatchSize = maxBatchSize;
+    this.windowMilliseconds = windowMilliseconds;
+  }
+
+  /**
+   * @param timeoutMilliseconds the deadline for the call, or {@code 0} for no deadline
+   * @return the response for the sentences of this request
+   */
+  public ListenableFuture<MatchResponse> match(MatchRequest request, long timeoutMilliseconds) {
+    requestCount.increment();
+    long deadline = timeoutMilliseconds > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMilliseconds) : 0;
+    if (request.getSentencesCount() >= maxBatchSize) {
+      Batch single = new Batch(request);
+      SettableFuture<MatchResponse> result = single.add(request, deadline);
+      send(single);
+      return result;
+    }
+    Batch incompatible = null;
+    Batch full = null;
+    SettableFuture<MatchResponse> result;
+    synchronized (this) {
+      if (pending != null && !pending.accepts(request)) {
+        incompatible = pending;
+        pending = null;
+      }
+      if (pending == null) {
+        Batch batch = new Batch(request);
+        batch.flushTask = scheduler.schedule(() -> flush(batch), windowMilliseconds, TimeUnit.MILLISECONDS);
+        pending = batch;
+      }
+      result = pending.add(request, deadline);
+      if (pending.sentenceCount >= maxBatchSize) {
+        full = pending;
+        pending = null;
+      }
+    }
+    if (incompatible != null) {
+      send(incompatible);
+    }
+    if (full != null) {
+      send(full);
+    }
+    return result;
+  }
+
+  private void flush(Batch batch) {
+    synchronized (this) {
+      if (pending != batch) {
+        return;  // already sent because it was full
+      }
+      pending = null;
+    }
+    send(batch);
+  }
+
+  private void send(Batch batch) {
+    if (batch.flushTask != null) {
+      batch.flushTask.cancel(false);
+    }
+    callCount.increment();
+    MatchRequest.Builder combined = MatchRequest.newBuilder().setInputLogging(batch.inputLogging);
+    long deadline = 0;
+    for (Entry entry : batch.entries) {
+      combined.addAllSentences(entry.request.getSentencesList());
+      combined.addAllTextSessionID(entry.request.getTextSessionIDList());
+      if (entry.deadline != 0 && (deadline == 0 || entry.deadline - deadline < 0)) {
+        deadline = entry.deadline;
+      }
+    }
+    ListenableFuture<MatchResponse> response;
+    try {
+      if (deadline != 0) {
+        response = stub.withDeadlineAfter(deadline - System.nanoTime(), TimeUnit.NANOSECONDS).match(combined.build());
+      } else {
+        response = stub.match(combined.build());
+      }
+    } catch (RuntimeException e) {
+      batch.fail(e);
+      return;
+    }
+    Futures.addCallback(response, new FutureCallback<MatchResponse>() {
+      @Override
+      public void onSuccess(MatchResponse result) {
+        if (result.getSentenceMatchesCount() != batch.sentenceCount) {
+          logger.warn("Got matches for {} sentences from ML server, expected {}", result.getSentenceMatchesCount(), batch.sentenceCount);
+          batch.fail(new IllegalStateException("Got matches for " + result.getSentenceMatchesCount() +
+            " sentences, expected " + batch.sentenceCount));
+          return;
+        }
+        int offset = 0;
+        for (Entry entry : batch.entries) {
+          int count = entry.request.getSentencesCount();
+          entry.result.set(MatchResponse.newBuilder()
+            .addAllSentenceMatches(result.getSentenceMatchesList().subList(offset, offset + count))
+            .build());
+          offset += count;
+        }
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        batch.fail(t);
+      }
+    }, MoreExecutors.directExecutor());
+  }
+
+  /**
+   * @return the number of requests passed to {@link #match(MatchRequest, long)}
+   */
+  public long getRequestCount() {
+    return requestCount.sum();
+  }
+
+  /**
+   * @return the number of calls sent to the server
+   */
+  public long getCallCount() {
+    return callCount.sum();
+  }
+
+  private static final class Entry {
+    private final MatchRequest request;
+    private final long deadline;
+    private final SettableFuture<MatchResponse> result = SettableFuture.create();
+
+    private Entry(MatchRequest request, long deadline) {
+      this.request = request;
+      this.deadline = deadline;
+    }
+  }
+
+  private static final class Batch {
+    private final boolean inputLogging;
+    private final boolean withSessionIds;
+    private final List<Entry> entries = new ArrayList<>();
+    private int sentenceCount;
+    private ScheduledFuture<?> flushTask;
+
+    private Batch(MatchRequest first) {
+      this.inputLogging = first.getInputLogging();
+      this.withSessionIds = first.getTextSessionIDCount() > 0;
+    }
+
+    private boolean accepts(MatchRequest request) {
+      return request.getInputLogging() == inputLogging && request.getTextSessionIDCount() > 0 == withSessionIds;
+    }
+
+    private SettableFuture<MatchResponse> add(MatchRequest request, long deadline) {
+      Entry entry = new Entry(request, deadline);
+      entries.add(entry);
+      sentenceCount += request.getSentencesCount();
+      return entry.result;
+    }
+
+    private void fail(Throwable t) {
+      for (Entry entry : entries) {
+        entry.result.setException(t);
+      }
+    }
+  }
+
+}
@@ -21,6 +21,7 @@
 
 package org.languagetool.rules;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import org.jetbrains.annotations.NotNull;
@@ -53,6 +54,14 @@ public abstract class RemoteRule extends Rule {
 
   protected static final List<Runnable> shutdownRoutines = new LinkedList<>();
   protected static final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+  // per rule and endpoint:
+  private static final ConcurrentMap<String, RollingLatencyHistogram> latencies = new ConcurrentHashMap<>();
+  private static final ExecutorService hedgingExecutor = Executors.newCachedThreadPool(
+    new ThreadFactoryBuilder().setNameFormat("lt-remote-rule-hedging-%d").setDaemon(true).build());
+
+  static {
+    shutdownRoutines.add(hedgingExecutor::shutdownNow);
+  }
 
   protected final RemoteRuleConfig serviceConfiguration;
   protected final boolean premium;
@@ -123,7 +132,8 @@ public abstract class RemoteRule extends Rule {
   /**
    * @param request returned by prepareRequest
    * @param timeoutMilliseconds timeout for this operation, &lt;=0 -&gt; unlimited
-   * @return callable that sends request, parses and returns result for this remote rule
+   * @return callable that sends request, parses and returns result for this remote rule; it should only throw a
+   * {@link TimeoutException} if the timeout was exceeded, as its latency is then used for the adaptive timeout
    * @throws TimeoutException if timeout was exceeded
    */
   protected abstract Callable<RemoteRuleResult> executeRequest(RemoteRequest request, long timeoutMilliseconds) throws TimeoutException;
@@ -135,6 +145,17 @@ public abstract class RemoteRule extends Rule {
    */
   protected abstract RemoteRuleResult fallbackResults(RemoteRequest request);
 
+  /**
+   * Like {@link #executeRequest(RemoteRequest, long)}, but for the second endpoint of the service (see
+   * {@link RemoteRuleConfig#getHedgeUrl()}), which gets the request if the first endpoint is slow.
+   * @return {@code null} if this rule doesn't support a second endpoint
+   * @since 6.4
+   */
+  @Nullable
+  protected Callable<RemoteRuleResult> executeHedgedRequest(RemoteRequest request, long timeoutMilliseconds) throws TimeoutException {
+    return null;
+  }
+
   protected CircuitBreaker createCircuitBreaker(String id) {
     CircuitBreakerConfig config = getCircuitBreakerConfig(serviceConfiguration, id);
     return CircuitBreakers.registry().circuitBreaker("remote-rule-" + id, config);
@@ -186,7 +207,7 @@ public abstract class RemoteRule extends Rule {
       RemoteRequest req = prepareRequest(sentences, textSessionId);
       RemoteRuleResult result;
 
-      result = executeRequest(req, timeout).call();
+      result = execute(req, timeout);
 
       if (fixOffsets) {
         for (AnalyzedSentence sentence : sentences) {
@@ -229,8 +250,115 @@ public abstract class RemoteRule extends Rule {
     return timeout;
   }
 
+  /**
+   * @return the timeout for a request with the given number of characters: the configured one or,
+   * if {@link RemoteRuleConfig#getAdaptiveTimeoutPercentile()} is set, a shorter one derived from the observed latencies
+   */
   public long getTimeout(long characters) {
-    return getTimeout(serviceConfiguration, characters);
+    long timeout = getTimeout(serviceConfiguration, characters);
+    float percentile = serviceConfiguration.getAdaptiveTimeoutPercentile();
+    if (timeout <= 0 || percentile <= 0) {
+      return timeout;
+    }
+    long latency = getLatencies(false).getPercentile(percentile);
+    if (latency < 0) {
+      return timeout;  // not enough requests yet
+    }
+    long adaptiveTimeout = Math.max(serviceConfiguration.getMinimumTimeoutMilliseconds(),
+      Math.round(latency * serviceConfiguration.getAdaptiveTimeoutFactor()));
+    RemoteRuleMetrics.adaptiveTimeout(getId(), adaptiveTimeout);
+    return Math.min(timeout, adaptiveTimeout);
+  }
+
+  private RollingLatencyHistogram getLatencies(boolean hedgeEndpoint) {
+    String endpoint = hedgeEndpoint ? serviceConfiguration.getHedgeUrl() + ":" + serviceConfiguration.getHedgePort()
+                                    : serviceConfiguration.getUrl() + ":" + serviceConfiguration.getPort();
+    return latencies.computeIfAbsent(getId() + "@" + endpoint, k -> new RollingLatencyHistogram());
+  }
+
+  private RemoteRuleResult execute(RemoteRequest req, long timeout) throws Exception {
+    long hedgeDelay = getHedgeDelay(timeout);
+    if (hedgeDelay < 0) {
+      return measure(executeRequest(req, timeout), false);
+    }
+    CompletionService<RemoteRuleResult> completion = new ExecutorCompletionService<>(hedgingExecutor);
+    Callable<RemoteRuleResult> primaryRequest = executeRequest(req, timeout);
+    Future<RemoteRuleResult> primary = completion.submit(() -> measure(primaryRequest, false));
+    Future<RemoteRuleResult> hedge = null;
+    try {
+      Future<RemoteRuleResult> first = completion.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+      if (first == null) {
+        Callable<RemoteRuleResult> hedgeRequest = executeHedgedRequest(req, timeout > 0 ? Math.max(1, timeout - hedgeDelay) : timeout);
+        if (hedgeRequest != null) {
+          logger.debug("Sending request for {} to second endpoint after {}ms", getId(), hedgeDelay);
+          hedge = completion.submit(() -> measure(hedgeRequest, true));
+        }
+        first = completion.take();
+      }
+      RemoteRuleResult result;
+      try {
+        result = first.get();
+      } catch (ExecutionException e) {
+        if (hedge == null) {
+          throw unwrap(e);
+        }
+        // the other endpoint may still succeed:
+        first = completion.take();
+        try {
+          result = first.get();
+        } catch (ExecutionException e2) {
+          throw unwrap(e2);
+        }
+      }
+      if (hedge != null) {
+        RemoteRuleMetrics.hedgedRequest(getId(), first == hedge);
+      }
+      return result;
+    } finally {
+      primary.cancel(true);
+      if (hedge != null) {
+        hedge.cancel(true);
+      }
+    }
+  }
+
+  // the delay after which a request is also sent to the second endpoint, or -1 for none:
+  private long getHedgeDelay(long timeout) {
+    float percentile = serviceConfiguration.getHedgeDelayPercentile();
+    if (serviceConfiguration.getHedgeUrl() == null || percentile <= 0) {
+      return -1;
+    }
+    long latency = getLatencies(false).getPercentile(percentile);
+    if (latency < 0) {
+      return -1;
+    }
+    return timeout > 0 && latency >= timeout ? -1 : latency;
+  }
+
+  // records the latency of successful requests and of requests that ran into their deadline,
+  // but not of failed requests or of requests that were cancelled as the other endpoint was faster:
+  private RemoteRuleResult measure(Callable<RemoteRuleResult> request, boolean hedgeEndpoint) throws Exception {
+    long startNanos = System.nanoTime();
+    try {
+      RemoteRuleResult result = request.call();
+      if (result.isRemote() && result.isSuccess() && !Thread.currentThread().isInterrupted()) {
+        recordLatency(startNanos, hedgeEndpoint);
+      }
+      return result;
+    } catch (TimeoutException e) {
+      if (!Thread.currentThread().isInterrupted()) {
+        recordLatency(startNanos, hedgeEndpoint);
+      }
+      throw e;
+    }
+  }
+
+  private void recordLatency(long startNanos, boolean hedgeEndpoint) {
+    getLatencies(hedgeEndpoint).record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+  }
+
+  private static Exception unwrap(ExecutionException e) {
+    return e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
   }
 
   public CircuitBreaker circuitBreaker() {
@@ -58,6 +58,9 @@ public class RemoteRuleConfig {
   private static final String DEFAULT_SLIDING_WINDOW_TYPE = CircuitBreakerConfig.SlidingWindowType.TIME_BASED.name();
   private static final int DEFAULT_SLIDING_WINDOW_SIZE = 60;
   private static final int DEFAULT_MINIMUM_NUMBER_OF_CALLS = 10;
+  private static final float DEFAULT_ADAPTIVE_TIMEOUT_FACTOR = 2f;
+  private static final long DEFAULT_MINIMUM_TIMEOUT = 100;
+  private static final float DEFAULT_HEDGE_DELAY_PERCENTILE = 0.95f;
 
 
   private static final LoadingCache<File, List<RemoteRuleConfig>> configCache = CacheBuilder.newBuilder()
@@ -80,6 +83,12 @@ public class RemoteRuleConfig {
   public String slidingWindowType = DEFAULT_SLIDING_WINDOW_TYPE;
   public int slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
   public int minimumNumberOfCalls = DEFAULT_MINIMUM_NUMBER_OF_CALLS;
+  public float adaptiveTimeoutPercentile = 0;
+  public float adaptiveTimeoutFactor = DEFAULT_ADAPTIVE_TIMEOUT_FACTOR;
+  public long minimumTimeoutMilliseconds = DEFAULT_MINIMUM_TIMEOUT;
+  public String hedgeUrl;
+  public Integer hedgePort;
+  public float hedgeDelayPercentile = DEFAULT_HEDGE_DELAY_PERCENTILE;
   public Map<String, String> options = new HashMap<>();
   public String language;
   public String type;
@@ -98,6 +107,12 @@ public class RemoteRuleConfig {
     this.slidingWindowType = copy.slidingWindowType;
     this.slidingWindowSize = copy.slidingWindowSize;
     this.minimumNumberOfCalls = copy.minimumNumberOfCalls;
+    this.adaptiveTimeoutPercentile = copy.adaptiveTimeoutPercentile;
+    this.adaptiveTimeoutFactor = copy.adaptiveTimeoutFactor;
+    this.minimumTimeoutMilliseconds = copy.minimumTimeoutMilliseconds;
+    this.hedgeUrl = copy.hedgeUrl;
+    this.hedgePort = copy.hedgePort;
+    this.hedgeDelayPercentile = copy.hedgeDelayPercentile;
     this.options = new HashMap<>(copy.options);
     this.language = copy.language;
     this.type = copy.type;
@@ -160,6 +175,73 @@ public class RemoteRuleConfig {
     return minimumNumberOfCalls;
   }
 
+  /**
+   * If greater than 0, the timeout is derived from this percentile of the latencies observed in
+   * the last minute (multiplied by {@link #getAdaptiveTimeoutFactor()}), as long as that is shorter
+   * than the timeout from {@link #getBaseTimeoutMilliseconds()} and {@link #getTimeoutPerCharacterMilliseconds()}.
+   * @since 6.4
+   */
+  public float getAdaptiveTimeoutPercentile() {
+    return adaptiveTimeoutPercentile;
+  }
+
+  /**
+   * @since 6.4
+   */
+  public float getAdaptiveTimeoutFactor() {
+    return adaptiveTimeoutFactor;
+  }
+
+  /**
+   * The lower limit for timeouts derived from the observed latencies.
+   * @since 6.4
+   */
+  public long getMinimumTimeoutMilliseconds() {
+    return minimumTimeoutMilliseconds;
+  }
+
+  /**
+   * A second endpoint for the same service: a request that takes longer than
+   * {@link #getHedgeDelayPercentile()} of the observed latencies is also sent there, the first response is used.
+   * Only used by rules that support it, like {@link GRPCRule}.
+   * @return the host of the second endpoint, or {@code null} to not send requests twice
+   * @since 6.4
+   */
+  public String getHedgeUrl() {
+    return hedgeUrl;
+  }
+
+  /**
+   * @return the port of the second endpoint, by default the same as {@link #getPort()}
+   * @since 6.4
+   */
+  public int getHedgePort() {
+    return hedgePort != null ? hedgePort : getPort();
+  }
+
+  /**
+   * @since 6.4
+   */
+  public float getHedgeDelayPercentile() {
+    return hedgeDelayPercentile;
+  }
+
+  /**
+   * @return this configuration with the second endpoint as its endpoint, see {@link #getHedgeUrl()}
+   * @since 6.4
+   */
+  public RemoteRuleConfig getHedgeConfiguration() {
+    if (hedgeUrl == null) {
+      throw new IllegalStateException("No hedgeUrl configured for " + ruleId);
+    }
+    RemoteRuleConfig config = new RemoteRuleConfig(this);
+    config.url = hedgeUrl;
+    config.port = getHedgePort();
+    config.hedgeUrl = null;
+    config.hedgePort = null;
+    return config;
+  }
+
   /**
    *  miscellaneous options for remote rules
    *  allows implementing additional behavior in subclasses
@@ -168,6 +250,9 @@ public class RemoteRuleConfig {
    *  filterMatches: boolean - enable anti-patterns from remote-rule-filters.xml
    *  suppressMisspelledMatch: regex - filter out matches with matching rule IDs that have misspelled suggestions
    *  suppressMisspelledSuggestions: regex - filter out misspelled suggestions from matches with matching rule IDs
+   *  options defined in {@link GRPCRule}:
+   *  batchWindowMilliseconds: long - combine the requests of concurrent checks that arrive within this time, see {@link MatchRequestBatcher}
+   *  maxBatchSize: int - the maximum number of sentences in such a combined request
    *  */
   public Map<String, String> getOptions() {
     return options;
@@ -199,12 +284,12 @@ public class RemoteRuleConfig {
 
     RemoteRuleConfig that = (RemoteRuleConfig) o;
 
-    return new EqualsBuilder().append(baseTimeoutMilliseconds, that.baseTimeoutMilliseconds).append(timeoutPerCharacterMilliseconds, that.timeoutPerCharacterMilliseconds).append(downMilliseconds, that.downMilliseconds).append(failureRateThreshold, that.failureRateThreshold).append(slidingWindowSize, that.slidingWindowSize).append(minimumNumberOfCalls, that.minimumNumberOfCalls).append(ruleId, that.ruleId).append(url, that.url).append(port, that.port).append(slidingWindowType, that.slidingWindowType).append(options, that.options).append(language, that.language).append(type, that.type).isEquals();
+    return new EqualsBuilder().append(baseTimeoutMilliseconds, that.baseTimeoutMilliseconds).append(timeoutPerCharacterMilliseconds, that.timeoutPerCharacterMilliseconds).append(downMilliseconds, that.downMilliseconds).append(failureRateThreshold, that.failureRateThreshold).append(slidingWindowSize, that.slidingWindowSize).append(minimumNumberOfCalls, that.minimumNumberOfCalls).append(adaptiveTimeoutPercentile, that.adaptiveTimeoutPercentile).append(adaptiveTimeoutFactor, that.adaptiveTimeoutFactor).append(minimumTimeoutMilliseconds, that.minimumTimeoutMilliseconds).append(hedgeDelayPercentile, that.hedgeDelayPercentile).append(ruleId, that.ruleId).append(url, that.url).append(port, that.port).append(slidingWindowType, that.slidingWindowType).append(options, that.options).append(language, that.language).append(type, that.type).append(hedgeUrl, that.hedgeUrl).append(hedgePort, that.hedgePort).isEquals();
   }
 
   @Override
   public int hashCode() {
-    return new HashCodeBuilder(17, 37).append(ruleId).append(url).append(port).append(baseTimeoutMilliseconds).append(timeoutPerCharacterMilliseconds).append(downMilliseconds).append(failureRateThreshold).append(slidingWindowType).append(slidingWindowSize).append(minimumNumberOfCalls).append(options).append(language).append(type).toHashCode();
+    return new HashCodeBuilder(17, 37).append(ruleId).append(url).append(port).append(baseTimeoutMilliseconds).append(timeoutPerCharacterMilliseconds).append(downMilliseconds).append(failureRateThreshold).append(slidingWindowType).append(slidingWindowSize).append(minimumNumberOfCalls).append(adaptiveTimeoutPercentile).append(adaptiveTimeoutFactor).append(minimumTimeoutMilliseconds).append(hedgeUrl).append(hedgePort).append(hedgeDelayPercentile).append(options).append(language).append(type).toHashCode();
   }
 
   @Override
@@ -220,6 +305,12 @@ public class RemoteRuleConfig {
       .append("slidingWindowType", slidingWindowType)
       .append("slidingWindowSize", slidingWindowSize)
       .append("minimumNumberOfCalls", minimumNumberOfCalls)
+      .append("adaptiveTimeoutPercentile", adaptiveTimeoutPercentile)
+      .append("adaptiveTimeoutFactor", adaptiveTimeoutFactor)
+      .append("minimumTimeoutMilliseconds", minimumTimeoutMilliseconds)
+      .append("hedgeUrl", hedgeUrl)
+      .append("hedgePort", hedgePort)
+      .append("hedgeDelayPercentile", hedgeDelayPercentile)
       .append("options", options)
       .append("language", language)
       .append("type", type)
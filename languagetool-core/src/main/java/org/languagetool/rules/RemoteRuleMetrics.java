@@ -23,6 +23,8 @@ package org.languagetool.rules;
 
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
 import io.prometheus.client.Histogram;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.jetbrains.annotations.ApiStatus;
@@ -84,6 +86,16 @@ public final class RemoteRuleMetrics {
     .buckets(SIZE_BUCKETS)
     .register();
 
+  private static final Counter hedgedRequests = Counter
+    .build("languagetool_remote_rule_hedged_requests_total", "Requests also sent to the second endpoint because the first one was slow, by the endpoint that answered first")
+    .labelNames("rule_id", "winner")
+    .register();
+
+  private static final Gauge adaptiveTimeout = Gauge
+    .build("languagetool_remote_rule_adaptive_timeout_seconds", "Timeout derived from the observed latencies, without the part per character")
+    .labelNames("rule_id")
+    .register();
+
   public static void request(String rule, long startNanos, long characters, RequestResult result) {
     long delta = System.nanoTime() - startNanos;
     requestLatency.labels(rule, result.name().toLowerCase()).observe((double) delta / 1e9);
@@ -94,6 +106,21 @@ public final class RemoteRuleMetrics {
     wait.labels(langCode).observe(milliseconds / 1000.0);
   }
 
+  /**
+   * @param hedgeWon whether the second endpoint answered first
+   * @since 6.4
+   */
+  public static void hedgedRequest(String rule, boolean hedgeWon) {
+    hedgedRequests.labels(rule, hedgeWon ? "hedge" : "primary").inc();
+  }
+
+  /**
+   * @since 6.4
+   */
+  public static void adaptiveTimeout(String rule, long milliseconds) {
+    adaptiveTimeout.labels(rule).set(milliseconds / 1000.0);
+  }
+
   @ApiStatus.Internal
   @Nullable
   public static <T> T inCircuitBreaker(long deadlineStartNanos, CircuitBreaker circuitBreaker, String ruleKey, long chars, Callable<T> fetchResults) throws InterruptedException {
@@ -0,0 +1,130 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The latencies of the requests to one remote rule backend over the last minute, with a
+ * relative precision of about 10%. Used by {@link RemoteRule} to derive its timeouts and hedge
+ * delays from the observed latency instead of only using the configured timeouts.
+ * <p>
+ * The window is split into slots, the oldest slot is cleared when a new one starts, so the
+ * percentiles are computed from the last 50 to 60 seconds.
+ * @since 6.4
+ */
+final class RollingLatencyHistogram {
+
+  static final int MIN_SAMPLES = 100;
+
+  private static final int SLOTS = 6;
+  private static final long SLOT_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final double BUCKET_BASE = 1.1;
+  private static final int BUCKETS = 130;  // 1.1^129 ms is more than 3 hours
+
+  private final LongSupplier nanoClock;
+  private final long[][] counts = new long[SLOTS][BUCKETS];
+  private final long[] slotEpochs = new long[SLOTS];
+
+  RollingLatencyHistogram() {
+    this(System::nanoTime);
+  }
+
+  RollingLatencyHistogram(LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+    Arrays.fill(slotEpochs, Long.MIN_VALUE);
+  }
+
+  synchronized void record(long milliseconds) {
+    long epoch = Math.floorDiv(nanoClock.getAsLong(), SLOT_NANOS);
+    int slot = (int) Math.floorMod(epoch, SLOTS);
+    if (slotEpochs[slot] != epoch) {
+      Arrays.fill(counts[slot], 0);
+      slotEpochs[slot] = epoch;
+    }
+    counts[slot][bucket(milliseconds)]++;
+  }
+
+  /**
+   * @return the number of latencies recorded in the window
+   */
+  synchronized long getCount() {
+    long count = 0;
+    long epoch = Math.floorDiv(nanoClock.getAsLong(), SLOT_NANOS);
+    for (int slot = 0; slot < SLOTS; slot++) {
+      if (isCurrent(slot, epoch)) {
+        for (long bucketCount : counts[slot]) {
+          count += bucketCount;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @param percentile between 0 and 1, e.g. {@code 0.99}
+   * @return the latency in milliseconds that the given share of the recorded latencies doesn't exceed
+   * (rounded up to the bucket limit), or {@code -1} if fewer than {@link #MIN_SAMPLES} latencies have been recorded
+   */
+  synchronized long getPercentile(double percentile) {
+    long epoch = Math.floorDiv(nanoClock.getAsLong(), SLOT_NANOS);
+    long[] merged = new long[BUCKETS];
+    long total = 0;
+    for (int slot = 0; slot < SLOTS; slot++) {
+      if (isCurrent(slot, epoch)) {
+        for (int i = 0; i < BUCKETS; i++) {
+          merged[i] += counts[slot][i];
+          total += counts[slot][i];
+        }
+      }
+    }
+    if (total < MIN_SAMPLES) {
+      return -1;
+    }
+    long rank = (long) Math.ceil(percentile * total);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += merged[i];
+      if (seen >= rank) {
+        return upperLimit(i);
+      }
+    }
+    return upperLimit(BUCKETS - 1);
+  }
+
+  private boolean isCurrent(int slot, long epoch) {
+    return slotEpochs[slot] > epoch - SLOTS;
+  }
+
+  // bucket 0 is for latencies up to 1ms, bucket i for latencies up to 1.1^i ms:
+  private static int bucket(long milliseconds) {
+    if (milliseconds <= 1) {
+      return 0;
+    }
+    int bucket = (int) Math.ceil(Math.log(milliseconds) / Math.log(BUCKET_BASE));
+    return Math.min(bucket, BUCKETS - 1);
+  }
+
+  private static long upperLimit(int bucket) {
+    return (long) Math.floor(Math.pow(BUCKET_BASE, bucket));
+  }
+
+}
@@ -22,6 +22,7 @@ import com.google.common.base.Suppliers;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.*;
+import org.languagetool.rules.patterns.AntiPatternMatcher;
 import org.languagetool.rules.patterns.PatternToken;
 import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule;
 
@@ -221,6 +222,12 @@ public abstract class Rule {
    */
   protected AnalyzedSentence getSentenceWithImmunization(AnalyzedSentence sentence) {
     if (!getAntiPatterns().isEmpty()) {
+      // the anti-patterns of all rules are usually evaluated together, once per sentence:
+      AntiPatternMatcher.Immunizations immunizations = AntiPatternMatcher.getCurrent();
+      AnalyzedSentence immunized = immunizations != null ? immunizations.getSentenceWithImmunization(this, sentence) : null;
+      if (immunized != null) {
+        return immunized;
+      }
       //we need a copy of the sentence, not reference to the old one
       AnalyzedSentence immunizedSentence = sentence.copy(sentence);
       for (DisambiguationPatternRule patternRule : getAntiPatterns()) {
@@ -25,6 +25,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.ApiCleanupNeeded;
+import org.languagetool.rules.patterns.LazyPatternRule;
 import org.languagetool.rules.patterns.PatternRule;
 import org.languagetool.rules.patterns.PatternRuleMatcher;
 import org.languagetool.tools.StringTools;
@@ -558,7 +559,7 @@ public class RuleMatch implements Comparable<RuleMatch> {
 
   @Override
   public String toString() {
-    if (rule instanceof PatternRule) {
+    if (rule instanceof PatternRule || rule instanceof LazyPatternRule) {
       //String covered = getSentence().getText().substring(getFromPos(), getToPos());
       //return ((PatternRule) rule).getFullId() + ":" + offsetPosition + ":" + message + ":" + covered + " -> " + getSuggestedReplacements();
       return rule.getFullId() + ":" + offsetPosition + ":" + message;
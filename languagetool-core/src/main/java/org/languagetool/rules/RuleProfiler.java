@@ -0,0 +1,227 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.Language;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the time that rules need for {@link Rule#match(org.languagetool.AnalyzedSentence)} and how
+ * often they match, per language. Only a random sample of the checked sentences is measured (see
+ * {@link #setSampleRate(double)}), so the overhead is low enough to keep this enabled on a server.
+ * Sampling is off by default.
+ * @since 6.4
+ */
+public final class RuleProfiler {
+
+  private static final ConcurrentMap<String, ConcurrentMap<String, RuleStats>> statsByLanguage = new ConcurrentHashMap<>();
+
+  private static volatile double sampleRate = 0;
+
+  private RuleProfiler() {
+    throw new IllegalStateException("RuleProfiler should only be used via static methods.");
+  }
+
+  /**
+   * @param rate the share of sentences for which the rules are measured, from 0 (off) to 1 (all sentences)
+   */
+  public static void setSampleRate(double rate) {
+    if (rate < 0 || rate > 1) {
+      throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + rate);
+    }
+    sampleRate = rate;
+  }
+
+  public static double getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * @return whether the rules should be measured for the next sentence
+   */
+  public static boolean sampleSentence() {
+    double rate = sampleRate;
+    return rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+  }
+
+  /**
+   * Record one measured call of {@code rule.match()}.
+   */
+  public static void record(Language language, Rule rule, long nanos, int matchCount) {
+    RuleStats ruleStats = getStats(language, rule);
+    ruleStats.calls.increment();
+    ruleStats.nanos.add(nanos);
+    ruleStats.maxNanos.accumulate(nanos);
+    if (matchCount > 0) {
+      ruleStats.matches.add(matchCount);
+    }
+  }
+
+  /**
+   * Record that a call of {@code rule.match()} was aborted because the evaluation of a regular expression
+   * took longer than the check's deadline allowed. These calls are always counted, not only sampled ones.
+   */
+  public static void recordTimeout(Language language, Rule rule) {
+    getStats(language, rule).timeouts.increment();
+  }
+
+  private static RuleStats getStats(Language language, Rule rule) {
+    ConcurrentMap<String, RuleStats> stats = statsByLanguage.computeIfAbsent(language.getShortCode(), k -> new ConcurrentHashMap<>());
+    String ruleId = rule.getFullId();
+    RuleStats ruleStats = stats.get(ruleId);
+    if (ruleStats == null) {
+      ruleStats = stats.computeIfAbsent(ruleId, k -> new RuleStats(language.getShortCode(), ruleId));
+    }
+    return ruleStats;
+  }
+
+  /**
+   * @return the language codes for which rules have been measured
+   */
+  public static Set<String> getLanguages() {
+    return new TreeSet<>(statsByLanguage.keySet());
+  }
+
+  /**
+   * @param langCode a language code as returned by {@link Language#getShortCode()}, or {@code null} for all languages
+   * @param limit the maximum number of rules to return
+   * @return the rules that took the most time in total, most expensive first
+   */
+  public static List<RuleStats> getTopRules(@Nullable String langCode, int limit) {
+    return getTopRules(langCode, limit, Comparator.comparingLong(RuleStats::getTotalNanos));
+  }
+
+  /**
+   * @param langCode a language code as returned by {@link Language#getShortCode()}, or {@code null} for all languages
+   * @param limit the maximum number of rules to return
+   * @param order the order of the rules, the largest ones are returned
+   */
+  public static List<RuleStats> getTopRules(@Nullable String langCode, int limit, Comparator<RuleStats> order) {
+    Collection<ConcurrentMap<String, RuleStats>> maps = langCode == null ? statsByLanguage.values() :
+      Collections.singletonList(statsByLanguage.getOrDefault(langCode, new ConcurrentHashMap<>()));
+    return maps.stream()
+      .flatMap(m -> m.values().stream())
+      .sorted(order.reversed())
+      .limit(limit)
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * @return the rules that had calls aborted because of regular expression timeouts, for all languages
+   */
+  public static List<RuleStats> getRulesWithTimeouts() {
+    return statsByLanguage.values().stream()
+      .flatMap(m -> m.values().stream())
+      .filter(stats -> stats.getTimeouts() > 0)
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Forget all measurements.
+   */
+  public static void reset() {
+    statsByLanguage.clear();
+  }
+
+  /**
+   * The measurements of one rule.
+   */
+  public static final class RuleStats {
+
+    private final String langCode;
+    private final String ruleId;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private RuleStats(String langCode, String ruleId) {
+      this.langCode = langCode;
+      this.ruleId = ruleId;
+    }
+
+    public String getLanguageCode() {
+      return langCode;
+    }
+
+    /**
+     * @return the rule's full id, see {@link Rule#getFullId()}
+     */
+    public String getRuleId() {
+      return ruleId;
+    }
+
+    /**
+     * @return the number of measured calls
+     */
+    public long getCalls() {
+      return calls.sum();
+    }
+
+    public long getTotalNanos() {
+      return nanos.sum();
+    }
+
+    public long getMaxNanos() {
+      return maxNanos.get();
+    }
+
+    public long getMeanNanos() {
+      long calls = getCalls();
+      return calls > 0 ? getTotalNanos() / calls : 0;
+    }
+
+    /**
+     * @return the number of matches found in the measured calls
+     */
+    public long getMatches() {
+      return matches.sum();
+    }
+
+    /**
+     * @return the average number of matches per call
+     */
+    public double getMatchRate() {
+      long calls = getCalls();
+      return calls > 0 ? (double) getMatches() / calls : 0;
+    }
+
+    /**
+     * @return the number of calls that were aborted because of regular expression timeouts
+     */
+    public long getTimeouts() {
+      return timeouts.sum();
+    }
+
+    @Override
+    public String toString() {
+      return langCode + "/" + ruleId + ": " + getCalls() + " calls, " + getMeanNanos() + "ns mean, " + getMaxNanos() + "ns max";
+    }
+  }
+
+}
@@ -137,6 +137,9 @@ public abstract class ConfusionProbabilityRule extends Rule {
       // 2 tokens: first is always _START_ so there's no "real" context. Ignore these cases.
       return matches.toArray(new RuleMatch[0]);
     }
+    // collect the contexts of all candidates first, so their probabilities can be looked up in one batch:
+    List<Candidate> candidates = new ArrayList<>();
+    List<List<String>> contexts = new ArrayList<>();
     int pos = 0;
     boolean realWordBefore = false;  // more advanced than simple checking for sentence start, as it skips quotes etc.
     for (GoogleToken googleToken : tokens) {
@@ -156,42 +159,50 @@ public abstract class ConfusionProbabilityRule extends Rule {
           boolean isEasilyConfused = confusionPair != null;
           if (isEasilyConfused) {
             List<ConfusionString> pairs = uppercase ? confusionPair.getUppercaseFirstCharTerms() : confusionPair.getTerms();
-            ConfusionString betterAlternative = getBetterAlternativeOrNull(tokens.get(pos), tokens, pairs, confusionPair.getFactor());
-            if (betterAlternative != null && !isException(text, googleToken.startPos, googleToken.endPos)) {
-              if (!confusionPair.isBidirectional() && betterAlternative.getString().equals(pairs.get(0).getString())) {
-                // only direction A -> B is possible, i.e. if A is used incorrectly, B is suggested - not vice versa
-                continue;
-              }
-              ConfusionString stringFromText = getConfusionString(pairs, tokens.get(pos));
-              String message = getMessage(stringFromText, betterAlternative);
-              List<String> suggestions = new ArrayList<>(getSuggestions(message));
-              if (!suggestions.contains(betterAlternative.getString())) {
-                suggestions.add(betterAlternative.getString());
-              }
-              if (pos > 0 && "_START_".equals(tokens.get(pos-1).token) && tokens.size() > pos+1 && tokens.get(pos+1).token != null && !isCommonWord(tokens.get(pos+1).token)) {
-                // Let's assume there is not enough data for this. The original problem was a false alarm for
-                // "Resolves:" (-> "Resolved:")
-                continue;
-              }
-              if (isCoveredByAntiPattern(sentence, googleToken)) {
-                continue;
-              }
-              if (!isLocalException(sentence, googleToken)) {
-                String term1 = confusionPair.getTerms().get(0).getString();
-                String term2 = confusionPair.getTerms().get(1).getString();
-                String id = getId() + "_" + cleanId(term1) +  "_" + cleanId(term2);
-                String desc = getDescription(term1, term2);
-                String shortDesc = Tools.i18n(messages, "statistics_suggest_short_desc");
-                RuleMatch match = new RuleMatch(new SpecificIdRule(id, desc, messages, lm, language), sentence, googleToken.startPos, googleToken.endPos, message, shortDesc);
-                match.setSuggestedReplacements(suggestions);
-                matches.add(match);
-              }
-            }
+            candidates.add(new Candidate(googleToken, pos, confusionPair, pairs, tokens, contexts));
           }
         }
       }
       pos++;
     }
+    List<Probability> probabilities = contexts.isEmpty() ? Collections.emptyList() : lm.getPseudoProbabilities(contexts);
+    for (Candidate candidate : candidates) {
+      GoogleToken googleToken = candidate.googleToken;
+      pos = candidate.pos;
+      ConfusionPair confusionPair = candidate.confusionPair;
+      List<ConfusionString> pairs = candidate.pairs;
+      ConfusionString betterAlternative = candidate.getBetterAlternativeOrNull(probabilities);
+      if (betterAlternative != null && !isException(text, googleToken.startPos, googleToken.endPos)) {
+        if (!confusionPair.isBidirectional() && betterAlternative.getString().equals(pairs.get(0).getString())) {
+          // only direction A -> B is possible, i.e. if A is used incorrectly, B is suggested - not vice versa
+          continue;
+        }
+        ConfusionString stringFromText = getConfusionString(pairs, tokens.get(pos));
+        String message = getMessage(stringFromText, betterAlternative);
+        List<String> suggestions = new ArrayList<>(getSuggestions(message));
+        if (!suggestions.contains(betterAlternative.getString())) {
+          suggestions.add(betterAlternative.getString());
+        }
+        if (pos > 0 && "_START_".equals(tokens.get(pos-1).token) && tokens.size() > pos+1 && tokens.get(pos+1).token != null && !isCommonWord(tokens.get(pos+1).token)) {
+          // Let's assume there is not enough data for this. The original problem was a false alarm for
+          // "Resolves:" (-> "Resolved:")
+          continue;
+        }
+        if (isCoveredByAntiPattern(sentence, googleToken)) {
+          continue;
+        }
+        if (!isLocalException(sentence, googleToken)) {
+          String term1 = confusionPair.getTerms().get(0).getString();
+          String term2 = confusionPair.getTerms().get(1).getString();
+          String id = getId() + "_" + cleanId(term1) +  "_" + cleanId(term2);
+          String desc = getDescription(term1, term2);
+          String shortDesc = Tools.i18n(messages, "statistics_suggest_short_desc");
+          RuleMatch match = new RuleMatch(new SpecificIdRule(id, desc, messages, lm, language), sentence, googleToken.startPos, googleToken.endPos, message, shortDesc);
+          match.setSuggestedReplacements(suggestions);
+          matches.add(match);
+        }
+      }
+    }
     return matches.toArray(new RuleMatch[0]);
   }
 
@@ -291,15 +302,6 @@ public abstract class ConfusionProbabilityRule extends Rule {
     return grams;
   }
 
-  @Nullable
-  private ConfusionString getBetterAlternativeOrNull(GoogleToken token, List<GoogleToken> tokens, List<ConfusionString> confusionSet, long factor) {
-    if (confusionSet.size() != 2) {
-      throw new RuntimeException("Confusion set must be of size 2: " + confusionSet);
-    }
-    ConfusionString other = getAlternativeTerm(confusionSet, token);
-    return getBetterAlternativeOrNull(token, tokens, other, factor);
-  }
-
   private ConfusionString getAlternativeTerm(List<ConfusionString> confusionSet, GoogleToken token) {
     for (ConfusionString s : confusionSet) {
       if (!s.getString().equals(token.token)) {
@@ -318,22 +320,21 @@ public abstract class ConfusionProbabilityRule extends Rule {
     throw new RuntimeException("Not found in set '" + confusionSet + "': " + token);
   }
 
-  private ConfusionString getBetterAlternativeOrNull(GoogleToken token, List<GoogleToken> tokens, ConfusionString otherWord, long factor) {
-    String word = token.token;
-    double p1;
-    double p2;
+  private List<List<String>> getContexts(GoogleToken token, List<GoogleToken> tokens, String term) {
     if (grams == 3) {
-      p1 = LanguageModelUtils.get3gramProbabilityFor(language, lm, token, tokens, word);
-      p2 = LanguageModelUtils.get3gramProbabilityFor(language, lm, token, tokens, otherWord.getString());
+      return LanguageModelUtils.get3gramContexts(language, token, tokens, term);
     } else if (grams == 4) {
-      p1 = LanguageModelUtils.get4gramProbabilityFor(language, lm, token, tokens, word);
-      p2 = LanguageModelUtils.get4gramProbabilityFor(language, lm, token, tokens, otherWord.getString());
+      return LanguageModelUtils.get4gramContexts(language, token, tokens, term);
     } else {
       throw new RuntimeException("Only 3grams and 4grams are supported");
     }
-    debug("%.90f <- P(" + word + ") \n", p1);
-    debug("%.90f <- P(" + otherWord + ")\n", p2);
-    return p2 >= MIN_PROB && p2 > p1 * factor ? otherWord : null;
+  }
+
+  private double getProbability(List<Probability> probabilities) {
+    if (probabilities.isEmpty()) {
+      return 0.0;
+    }
+    return grams == 3 ? LanguageModelUtils.combine3gramProbabilities(probabilities) : LanguageModelUtils.combine4gramProbabilities(probabilities);
   }
 
   private void debug(String message, Object... vars) {
@@ -347,6 +348,43 @@ public abstract class ConfusionProbabilityRule extends Rule {
     return antiPatterns;
   }
 
+  /** A confusion pair found in the sentence, with the positions of its contexts in the batch of ngram lookups. */
+  private class Candidate {
+    private final GoogleToken googleToken;
+    private final int pos;
+    private final ConfusionPair confusionPair;
+    private final List<ConfusionString> pairs;
+    private final ConfusionString otherWord;
+    private final int wordContextStart;
+    private final int otherContextStart;
+    private final int otherContextEnd;
+
+    Candidate(GoogleToken googleToken, int pos, ConfusionPair confusionPair, List<ConfusionString> pairs, List<GoogleToken> tokens, List<List<String>> contexts) {
+      if (pairs.size() != 2) {
+        throw new RuntimeException("Confusion set must be of size 2: " + pairs);
+      }
+      this.googleToken = googleToken;
+      this.pos = pos;
+      this.confusionPair = confusionPair;
+      this.pairs = pairs;
+      this.otherWord = getAlternativeTerm(pairs, googleToken);
+      wordContextStart = contexts.size();
+      contexts.addAll(getContexts(googleToken, tokens, googleToken.token));
+      otherContextStart = contexts.size();
+      contexts.addAll(getContexts(googleToken, tokens, otherWord.getString()));
+      otherContextEnd = contexts.size();
+    }
+
+    @Nullable
+    ConfusionString getBetterAlternativeOrNull(List<Probability> probabilities) {
+      double p1 = getProbability(probabilities.subList(wordContextStart, otherContextStart));
+      double p2 = getProbability(probabilities.subList(otherContextStart, otherContextEnd));
+      debug("%.90f <- P(" + googleToken.token + ") \n", p1);
+      debug("%.90f <- P(" + otherWord + ")\n", p2);
+      return p2 >= MIN_PROB && p2 > p1 * confusionPair.getFactor() ? otherWord : null;
+    }
+  }
+
   private static class PathAndLanguage {
     private final String path;
     private final Language lang;
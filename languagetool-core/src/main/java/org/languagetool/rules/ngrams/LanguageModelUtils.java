@@ -129,30 +129,57 @@ public final class LanguageModelUtils {
 
 
   static double get3gramProbabilityFor(Language lang, LanguageModel lm, GoogleToken token, List<GoogleToken> tokens, String term) {
+    List<List<String>> contexts = get3gramContexts(lang, token, tokens, term);
+    return contexts.isEmpty() ? 0.0 : combine3gramProbabilities(lm.getPseudoProbabilities(contexts));
+  }
+
+  /**
+   * The contexts whose probabilities {@link #combine3gramProbabilities(List)} needs to calculate
+   * the probability of {@code term} at the position of {@code token}.
+   * @return an empty list if {@code term} is not supported
+   * @since 6.4
+   */
+  static List<List<String>> get3gramContexts(Language lang, GoogleToken token, List<GoogleToken> tokens, String term) {
     Tokenizer tokenizer = getGoogleStyleWordTokenizer(lang);
     List<GoogleToken> newTokens = GoogleToken.getGoogleTokens(term, false, tokenizer);
-    Probability ngram3Left;
-    Probability ngram3Middle;
-    Probability ngram3Right;
     if (newTokens.size() == 1) {
-      List<String> leftContext = getContext(token, tokens, term, 0, 2);
-      ngram3Left = lm.getPseudoProbability(leftContext);
-      logger.trace(String.format("Left  : %.90f %s\n", ngram3Left.getProb(), Arrays.asList(leftContext)));
-      List<String> middleContext = getContext(token, tokens, term, 1, 1);
-      ngram3Middle = lm.getPseudoProbability(middleContext);
-      logger.trace(String.format("Middle: %.90f %s\n", ngram3Middle.getProb(), Arrays.asList(middleContext)));
-      List<String> rightContext = getContext(token, tokens, term, 2, 0);
-      ngram3Right = lm.getPseudoProbability(rightContext);
-      logger.trace(String.format("Right : %.90f %s\n", ngram3Right.getProb(), Arrays.asList(rightContext)));
+      return Arrays.asList(
+        getContext(token, tokens, term, 0, 2),
+        getContext(token, tokens, term, 1, 1),
+        getContext(token, tokens, term, 2, 0));
     } else if (newTokens.size() == 2) {
       // e.g. you're -> you 're
-      ngram3Left = lm.getPseudoProbability(getContext(token, tokens, newTokens, 0, 1));
-      ngram3Right = lm.getPseudoProbability(getContext(token, tokens, newTokens, 1, 0));
+      return Arrays.asList(
+        getContext(token, tokens, newTokens, 0, 1),
+        getContext(token, tokens, newTokens, 1, 0));
+    } else {
+      logger.warn("Words that consists of more than 2 tokens (according to Google tokenization) are not supported yet: " + term + " -> " + newTokens);
+      return Collections.emptyList();
+    }
+  }
+
+  /**
+   * @param probabilities the probabilities of the contexts returned by {@link #get3gramContexts}
+   * @since 6.4
+   */
+  static double combine3gramProbabilities(List<Probability> probabilities) {
+    Probability ngram3Left;
+    Probability ngram3Middle;
+    Probability ngram3Right;
+    if (probabilities.size() == 3) {
+      ngram3Left = probabilities.get(0);
+      ngram3Middle = probabilities.get(1);
+      ngram3Right = probabilities.get(2);
+      logger.trace(String.format("Left  : %.90f\n", ngram3Left.getProb()));
+      logger.trace(String.format("Middle: %.90f\n", ngram3Middle.getProb()));
+      logger.trace(String.format("Right : %.90f\n", ngram3Right.getProb()));
+    } else if (probabilities.size() == 2) {
+      ngram3Left = probabilities.get(0);
+      ngram3Right = probabilities.get(1);
       // we cannot just use new Probability(1.0, 1.0f) as that would always produce higher
       // probabilities than in the case of one token (eg. "your"):
       ngram3Middle = new Probability((ngram3Left.getProb() + ngram3Right.getProb()) / 2, 1.0f);
     } else {
-      logger.warn("Words that consists of more than 2 tokens (according to Google tokenization) are not supported yet: " + term + " -> " + newTokens);
       return 0.0;
     }
     if (ngram3Left.getCoverage() < ConfusionProbabilityRule.MIN_COVERAGE && ngram3Middle.getCoverage() < ConfusionProbabilityRule.MIN_COVERAGE && ngram3Right.getCoverage() < ConfusionProbabilityRule.MIN_COVERAGE) {
@@ -166,23 +193,53 @@ public final class LanguageModelUtils {
   }
 
   static double get4gramProbabilityFor(Language lang, LanguageModel lm, GoogleToken token, List<GoogleToken> tokens, String term) {
+    List<List<String>> contexts = get4gramContexts(lang, token, tokens, term);
+    return contexts.isEmpty() ? 0.0 : combine4gramProbabilities(lm.getPseudoProbabilities(contexts));
+  }
+
+  /**
+   * The contexts whose probabilities {@link #combine4gramProbabilities(List)} needs to calculate
+   * the probability of {@code term} at the position of {@code token}.
+   * @return an empty list if {@code term} is not supported
+   * @since 6.4
+   */
+  static List<List<String>> get4gramContexts(Language lang, GoogleToken token, List<GoogleToken> tokens, String term) {
     Tokenizer tokenizer = getGoogleStyleWordTokenizer(lang);
     List<GoogleToken> newTokens = GoogleToken.getGoogleTokens(term, false, tokenizer);
-
-    Probability ngram4Left, ngram4MiddleLeft, ngram4MiddleRight, ngram4Right;
-
     if (newTokens.size() == 1) {
-      ngram4Left = lm.getPseudoProbability(getContext(token, tokens, newTokens, 0, 3));
-      ngram4MiddleLeft = lm.getPseudoProbability(getContext(token, tokens, newTokens, 2, 1));
-      ngram4MiddleRight = lm.getPseudoProbability(getContext(token, tokens, newTokens, 1, 2));
-      ngram4Right = lm.getPseudoProbability(getContext(token, tokens, newTokens, 3, 0));
+      return Arrays.asList(
+        getContext(token, tokens, newTokens, 0, 3),
+        getContext(token, tokens, newTokens, 2, 1),
+        getContext(token, tokens, newTokens, 1, 2),
+        getContext(token, tokens, newTokens, 3, 0));
     } else if (newTokens.size() == 2) {
-      ngram4Left = lm.getPseudoProbability(getContext(token, tokens, newTokens, 0, 2));
-      ngram4MiddleLeft = lm.getPseudoProbability(getContext(token, tokens, newTokens, 1, 1));
-      ngram4MiddleRight = ngram4MiddleLeft; // TODO: is this okay?
-      ngram4Right = lm.getPseudoProbability(getContext(token, tokens, newTokens, 2, 0));
+      return Arrays.asList(
+        getContext(token, tokens, newTokens, 0, 2),
+        getContext(token, tokens, newTokens, 1, 1),
+        getContext(token, tokens, newTokens, 2, 0));
     } else {
       logger.warn("Words that consists of more than 2 tokens (according to Google tokenization) are not supported yet: " + term + " -> " + newTokens);
+      return Collections.emptyList();
+    }
+  }
+
+  /**
+   * @param probabilities the probabilities of the contexts returned by {@link #get4gramContexts}
+   * @since 6.4
+   */
+  static double combine4gramProbabilities(List<Probability> probabilities) {
+    Probability ngram4Left, ngram4MiddleLeft, ngram4MiddleRight, ngram4Right;
+    if (probabilities.size() == 4) {
+      ngram4Left = probabilities.get(0);
+      ngram4MiddleLeft = probabilities.get(1);
+      ngram4MiddleRight = probabilities.get(2);
+      ngram4Right = probabilities.get(3);
+    } else if (probabilities.size() == 3) {
+      ngram4Left = probabilities.get(0);
+      ngram4MiddleLeft = probabilities.get(1);
+      ngram4MiddleRight = ngram4MiddleLeft; // TODO: is this okay?
+      ngram4Right = probabilities.get(2);
+    } else {
       return 0.0;
     }
     if (ngram4Left.getCoverage() < ConfusionProbabilityRule.MIN_COVERAGE &&
@@ -163,7 +163,7 @@ public abstract class AbstractPatternRulePerformer {
   }
 
   protected boolean isInterpretPosTagsPreDisambiguation() {
-    return rule instanceof PatternRule && ((PatternRule) rule).isInterpretPosTagsPreDisambiguation();
+    return rule instanceof AbstractTokenBasedRule && ((AbstractTokenBasedRule) rule).isInterpretPosTagsPreDisambiguation();
   }
 
   protected boolean testAllReadings(AnalyzedTokenReadings[] tokens,
@@ -24,6 +24,7 @@ import org.languagetool.AnalyzedSentence;
 import org.languagetool.Language;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * A base class for {@link PatternToken}-based rules.
@@ -39,15 +40,29 @@ public abstract class AbstractTokenBasedRule extends AbstractPatternRule {
   @Nullable
   final TokenHint anchorHint;
 
+  // POS tags, at least one of each array must occur in a sentence for the rule to be able to match
+  @Nullable
+  final String[][] posHints;
+
   protected AbstractTokenBasedRule(String id, String description, Language language, List<PatternToken> patternTokens, boolean getUnified) {
+    this(id, description, language, patternTokens, patternTokens, getUnified);
+  }
+
+  /**
+   * @param patternTokens the tokens the rule keeps, or {@code null} for a rule that only needs the hints
+   * @param hintTokens the tokens the hints are calculated from
+   */
+  AbstractTokenBasedRule(String id, String description, Language language, @Nullable List<PatternToken> patternTokens,
+                         List<PatternToken> hintTokens, boolean getUnified) {
     super(id, description, language, patternTokens, getUnified);
 
     Set<TokenHint> tokenHints = new HashSet<>();
     TokenHint anchorHint = null;
+    Set<List<String>> posHints = new LinkedHashSet<>();
 
     boolean fixedOffset = true;
-    for (int i = 0; i < patternTokens.size(); i++) {
-      PatternToken token = patternTokens.get(i);
+    for (int i = 0; i < hintTokens.size(); i++) {
+      PatternToken token = hintTokens.get(i);
 
       boolean inflected = false;
       Set<String> hints = token.calcFormHints();
@@ -63,6 +78,11 @@ public abstract class AbstractTokenBasedRule extends AbstractPatternRule {
         }
       }
 
+      Set<String> posTags = token.calcPosHints();
+      if (posTags != null) {
+        posHints.add(posTags.stream().sorted().collect(Collectors.toList()));
+      }
+
       if (fixedOffset && (token.getMinOccurrence() != 1 || token.getSkipNext() != 0 || token.getMaxOccurrence() != 1)) {
         fixedOffset = false;
       }
@@ -74,6 +94,7 @@ public abstract class AbstractTokenBasedRule extends AbstractPatternRule {
         .thenComparing(th -> -Arrays.stream(th.lowerCaseValues).mapToInt(String::length).min().orElse(0))
       ).toArray(TokenHint[]::new);
     this.anchorHint = anchorHint;
+    this.posHints = posHints.isEmpty() ? null : posHints.stream().map(l -> l.toArray(new String[0])).toArray(String[][]::new);
   }
 
   /**
@@ -91,6 +112,14 @@ public abstract class AbstractTokenBasedRule extends AbstractPatternRule {
     return false;
   }
 
+  /**
+   * Whether POS tags of this rule refer to the POS tags of the sentence before disambiguation,
+   * see {@link PatternRule#isInterpretPosTagsPreDisambiguation()}.
+   */
+  boolean isInterpretPosTagsPreDisambiguation() {
+    return false;
+  }
+
   /**
    * Represents possible values of a {@link PatternToken}'s lemma or text.
    */
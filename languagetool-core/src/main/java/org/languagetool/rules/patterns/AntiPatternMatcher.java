@@ -0,0 +1,189 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.AnalyzedTokenReadings;
+import org.languagetool.rules.Rule;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * The anti-patterns (see {@link Rule#getAntiPatterns()}) of all the Java rules of a {@link RuleSet}, indexed
+ * together with a {@link RulePrefilter}. Instead of every rule copying the sentence and trying all of its
+ * anti-patterns in {@link Rule#getSentenceWithImmunization}, the anti-patterns that can match a sentence are
+ * evaluated once for all rules, and a rule only gets a copy of the sentence if some of its tokens are immunized.
+ * <p>
+ * {@link AbstractPatternRule}s aren't included, as they only need their anti-patterns when they have found
+ * a match, and they may be loaded lazily.
+ * @since 6.4
+ */
+@ApiStatus.Internal
+public final class AntiPatternMatcher {
+
+  private static final ThreadLocal<Immunizations> current = new ThreadLocal<>();
+
+  private final Map<Rule, Integer> ruleIndexes = new IdentityHashMap<>();
+  private final List<DisambiguationPatternRule> antiPatterns = new ArrayList<>();
+  private final int[] antiPatternRules;
+  private final RulePrefilter prefilter;
+
+  AntiPatternMatcher(List<? extends Rule> rules) {
+    List<Integer> owners = new ArrayList<>();
+    for (Rule rule : rules) {
+      if (rule instanceof AbstractPatternRule || ruleIndexes.containsKey(rule)) {
+        continue;
+      }
+      List<DisambiguationPatternRule> ruleAntiPatterns = rule.getAntiPatterns();
+      if (ruleAntiPatterns.isEmpty() || ruleAntiPatterns.stream().anyMatch(p -> p.getAction() != DisambiguationPatternRule.DisambiguatorAction.IMMUNIZE)) {
+        continue;
+      }
+      int ruleIndex = ruleIndexes.size();
+      ruleIndexes.put(rule, ruleIndex);
+      for (DisambiguationPatternRule antiPattern : ruleAntiPatterns) {
+        antiPatterns.add(antiPattern);
+        owners.add(ruleIndex);
+      }
+    }
+    antiPatternRules = owners.stream().mapToInt(Integer::intValue).toArray();
+    prefilter = RulePrefilter.compile(antiPatterns, true);
+  }
+
+  /**
+   * @return the number of rules whose anti-patterns are evaluated by this matcher
+   */
+  public int getRuleCount() {
+    return ruleIndexes.size();
+  }
+
+  /**
+   * @param sentence the sentence that's going to be checked
+   * @param rules the rules that are going to be used for the sentence, immunizations are only
+   *              computed for these rules
+   */
+  public Immunizations forSentence(AnalyzedSentence sentence, List<Rule> rules) {
+    return new Immunizations(sentence, rules);
+  }
+
+  /**
+   * The immunized tokens of a sentence for each rule, computed when they are first needed.
+   */
+  public final class Immunizations {
+
+    private final AnalyzedSentence sentence;
+    private final List<Rule> rules;
+    private BitSet checkedRules;
+    private BitSet[] immunizedTokens;
+    private int[][] sourceLines;
+
+    private Immunizations(AnalyzedSentence sentence, List<Rule> rules) {
+      this.sentence = sentence;
+      this.rules = rules;
+    }
+
+    /**
+     * @return the sentence with the tokens immunized by the rule's anti-patterns, the same as
+     * {@link Rule#getSentenceWithImmunization} would return, or {@code null} if the rule or
+     * the sentence isn't covered by this object
+     */
+    @Nullable
+    public AnalyzedSentence getSentenceWithImmunization(Rule rule, AnalyzedSentence sentence) {
+      Integer ruleIndex = ruleIndexes.get(rule);
+      if (sentence != this.sentence || ruleIndex == null) {
+        return null;
+      }
+      if (checkedRules == null) {
+        computeImmunizedTokens();
+      }
+      if (!checkedRules.get(ruleIndex)) {
+        return null;
+      }
+      // always a copy like AnalyzedSentence.copy() makes, as the sentence may be shared, e.g. by the result cache:
+      AnalyzedTokenReadings[] tokens = sentence.getTokens();
+      AnalyzedTokenReadings[] immunized = new AnalyzedTokenReadings[tokens.length];
+      for (int i = 0; i < tokens.length; i++) {
+        immunized[i] = new AnalyzedTokenReadings(tokens[i], tokens[i].getReadings(), "");
+      }
+      BitSet positions = immunizedTokens[ruleIndex];
+      if (positions != null) {
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+          immunized[i].immunize(sourceLines[ruleIndex][i]);
+        }
+      }
+      return new AnalyzedSentence(immunized, sentence.getPreDisambigTokens());
+    }
+
+    private void computeImmunizedTokens() {
+      checkedRules = new BitSet(ruleIndexes.size());
+      for (Rule rule : rules) {
+        Integer ruleIndex = ruleIndexes.get(rule);
+        if (ruleIndex != null) {
+          checkedRules.set(ruleIndex);
+        }
+      }
+      immunizedTokens = new BitSet[ruleIndexes.size()];
+      sourceLines = new int[ruleIndexes.size()][];
+      BitSet candidates = prefilter.getCandidates(sentence);
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+        int ruleIndex = antiPatternRules[i];
+        if (!checkedRules.get(ruleIndex)) {
+          continue;
+        }
+        DisambiguationPatternRule antiPattern = antiPatterns.get(i);
+        try {
+          antiPattern.findImmunizedTokens(sentence, position -> {
+            if (immunizedTokens[ruleIndex] == null) {
+              immunizedTokens[ruleIndex] = new BitSet();
+              sourceLines[ruleIndex] = new int[sentence.getTokens().length];
+            }
+            immunizedTokens[ruleIndex].set(position);
+            // like with Rule.getSentenceWithImmunization(), the last anti-pattern wins:
+            sourceLines[ruleIndex][position] = antiPattern.getXmlLineNumber();
+          });
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the immunizations for the sentence being checked on the current thread, or {@code null} if there are none
+   */
+  @Nullable
+  public static Immunizations getCurrent() {
+    return current.get();
+  }
+
+  /**
+   * Set the immunizations for the sentence being checked on the current thread, {@code null} to remove them.
+   */
+  public static void setCurrent(@Nullable Immunizations immunizations) {
+    if (immunizations == null) {
+      current.remove();
+    } else {
+      current.set(immunizations);
+    }
+  }
+
+}
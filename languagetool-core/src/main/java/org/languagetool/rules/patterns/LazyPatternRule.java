@@ -0,0 +1,303 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.Language;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stand-in for a {@link PatternRule} that only has the rule's metadata and the token hints
+ * needed by {@link org.languagetool.rules.RuleSet} to find the candidate rules for a sentence, but not
+ * its tokens, suggestions, examples, anti-patterns and filter. The complete rule is created on the first
+ * call of {@link #match(AnalyzedSentence)} that isn't ruled out by the hints, by replaying the rule's part of
+ * the rule file from a {@link RulePack}. Matching is then delegated to the complete rule, so the results
+ * are the same. Settings changed on this rule before, like its default or its category, are copied to the
+ * complete rule. As most rules never match on typical texts, this saves memory and loading time.
+ * <p>
+ * Used if the rules are loaded with {@link PatternRuleLoader#setLazyMode(boolean)}. Code that inspects
+ * the rules' examples, anti-patterns etc. (like rule tests) needs to load the rules without lazy mode.
+ * It's public for implementation reasons and should not be used outside LanguageTool.
+ * @since 6.4
+ */
+@ApiStatus.Internal
+public final class LazyPatternRule extends AbstractTokenBasedRule {
+
+  private static final ConcurrentMap<String, Counts> counts = new ConcurrentHashMap<>();
+
+  private final String shortMessage;
+  private final boolean interpretPosTagsPreDisambiguation;
+  private final Unit unit;
+  private final int index;
+
+  private volatile PatternRule rule;
+
+  LazyPatternRule(String id, Language language, List<PatternToken> patternTokens, String description,
+                  String message, String shortMessage, boolean interpretPosTagsPreDisambiguation, Unit unit) {
+    super(id, description, language, null, patternTokens, false);
+    this.message = message;
+    this.shortMessage = shortMessage;
+    this.interpretPosTagsPreDisambiguation = interpretPosTagsPreDisambiguation;
+    this.unit = unit;
+    this.index = unit.ruleCount;
+    unit.source.counts.lazy.incrementAndGet();
+  }
+
+  /**
+   * @return the number of rules of the language that have been loaded lazily
+   */
+  public static int getLazyRuleCount(Language language) {
+    Counts c = counts.get(language.getShortCodeWithCountryAndVariant());
+    return c != null ? c.lazy.get() : 0;
+  }
+
+  /**
+   * @return the number of lazily loaded rules of the language that have been materialized,
+   * i.e. that were candidates for a sentence at least once
+   */
+  public static int getMaterializedRuleCount(Language language) {
+    Counts c = counts.get(language.getShortCodeWithCountryAndVariant());
+    return c != null ? c.materialized.get() : 0;
+  }
+
+  @Override
+  public RuleMatch[] match(AnalyzedSentence sentence) throws IOException {
+    if (canBeIgnoredFor(sentence)) return RuleMatch.EMPTY_ARRAY;
+    return getRule().match(sentence);
+  }
+
+  @Override
+  public int estimateContextForSureMatch() {
+    return getRule().estimateContextForSureMatch();
+  }
+
+  @Override
+  public String getShortMessage() {
+    return shortMessage;
+  }
+
+  @Override
+  boolean isInterpretPosTagsPreDisambiguation() {
+    return interpretPosTagsPreDisambiguation;
+  }
+
+  /**
+   * @return the complete rule for a {@code LazyPatternRule}, the rule itself for other rules, for code
+   * that needs the rule's tokens, examples etc.
+   */
+  public static Rule completeRule(Rule rule) {
+    return rule instanceof LazyPatternRule ? ((LazyPatternRule) rule).getRule() : rule;
+  }
+
+  /**
+   * @return whether the complete rule has been created
+   */
+  public boolean isMaterialized() {
+    return rule != null;
+  }
+
+  /**
+   * @return the complete rule, which is created on the first call
+   */
+  public PatternRule getRule() {
+    PatternRule result = rule;
+    if (result == null) {
+      unit.materialize();
+      result = rule;
+    }
+    return result;
+  }
+
+  /**
+   * Copies the settings that can be changed after loading, as they may have been changed on this rule
+   * before the complete rule was created.
+   */
+  private void copySettingsTo(PatternRule rule) {
+    if (isDefaultTempOff()) {
+      rule.setDefaultTempOff();
+    } else if (isDefaultOff()) {
+      rule.setDefaultOff();
+    } else {
+      rule.setDefaultOn();
+    }
+    if (isOfficeDefaultOn()) {
+      rule.setOfficeDefaultOn();
+    }
+    if (isOfficeDefaultOff()) {
+      rule.setOfficeDefaultOff();
+    }
+    rule.setCategory(getCategory());
+    rule.setUrl(getUrl());
+    rule.setLocQualityIssueType(getLocQualityIssueType());
+    rule.setTags(new ArrayList<>(getTags()));
+    rule.setToneTags(new ArrayList<>(getToneTags()));
+    rule.setPremium(isPremium());
+    rule.setGoalSpecific(isGoalSpecific());
+    rule.setMinPrevMatches(getMinPrevMatches());
+    rule.setDistanceTokens(getDistanceTokens());
+    rule.setMessage(getMessage());
+    rule.setType(type);
+    rule.setAdjustSuggestionCase(isAdjustSuggestionCase());
+    rule.setStartPositionCorrection(getStartPositionCorrection());
+    rule.setEndPositionCorrection(getEndPositionCorrection());
+  }
+
+  @Override
+  public String toString() {
+    PatternRule result = rule;
+    return result != null ? result.toString() : getFullId() + (sourceFile != null ? "@" + sourceFile : "") + ":(lazy):" + getDescription();
+  }
+
+  /**
+   * A rule file that rules are loaded from lazily, and the positions of its general parts (the root element
+   * and elements like {@code <phrases>} and {@code <unification>}) in the file's {@link RulePack}.
+   * Collects the positions while the pack is being replayed to load the rules.
+   */
+  static final class Source {
+
+    private final RulePack pack;
+    private final String filename;
+    private final Language language;
+    private final Counts counts;
+    private final List<int[]> context = new ArrayList<>();
+
+    private int depth;
+    private int[] categoryEvent;
+    private int contextStart;
+    private Unit currentUnit;
+
+    Source(RulePack pack, String filename, Language language) {
+      this.pack = pack;
+      this.filename = filename;
+      this.language = language;
+      this.counts = LazyPatternRule.counts.computeIfAbsent(language.getShortCodeWithCountryAndVariant(), k -> new Counts());
+    }
+
+    void startElement(String qName, RulePack.ReplayLocator locator, int antiPatternCounter) {
+      depth++;
+      int[] event = {locator.getEventStart(), locator.getEventEnd()};
+      if (depth == 1) {
+        context.add(event);
+      } else if (depth == 2) {
+        if ("category".equals(qName)) {
+          categoryEvent = event;
+        } else {
+          contextStart = locator.getEventStart();
+        }
+      } else if (depth == 3 && categoryEvent != null) {
+        currentUnit = new Unit(this, context.size(), categoryEvent, locator.getEventStart(), antiPatternCounter);
+      }
+    }
+
+    void endElement(String qName, RulePack.ReplayLocator locator) {
+      if (depth == 3 && currentUnit != null) {
+        currentUnit.end = locator.getEventEnd();
+        currentUnit = null;
+      } else if (depth == 2) {
+        if ("category".equals(qName)) {
+          categoryEvent = null;
+        } else {
+          context.add(new int[]{contextStart, locator.getEventEnd()});
+        }
+      }
+      depth--;
+    }
+
+    /**
+     * @return the {@code <rule>} or {@code <rulegroup>} element whose rules are being loaded
+     */
+    @Nullable
+    Unit getCurrentUnit() {
+      return currentUnit;
+    }
+  }
+
+  /**
+   * The rules of a {@code <rule>} or {@code <rulegroup>} element, which are materialized together.
+   */
+  static final class Unit {
+
+    private final Source source;
+    private final int contextSize;
+    private final int[] categoryEvent;
+    private final int start;
+    private final int antiPatternCounter;
+    private final List<LazyPatternRule> lazyRules = new ArrayList<>(1);
+    private int end;
+    private int ruleCount;
+
+    private Unit(Source source, int contextSize, int[] categoryEvent, int start, int antiPatternCounter) {
+      this.source = source;
+      this.contextSize = contextSize;
+      this.categoryEvent = categoryEvent;
+      this.start = start;
+      this.antiPatternCounter = antiPatternCounter;
+    }
+
+    void addRule(AbstractPatternRule rule) {
+      if (rule instanceof LazyPatternRule) {
+        lazyRules.add((LazyPatternRule) rule);
+      }
+      ruleCount++;
+    }
+
+    private synchronized void materialize() {
+      if (lazyRules.get(0).rule != null) {
+        return;
+      }
+      List<int[]> events = new ArrayList<>(source.context.subList(0, contextSize));
+      events.add(categoryEvent);
+      events.add(new int[]{start, end});
+      PatternRuleHandler handler = new PatternRuleHandler(source.filename, source.language);
+      handler.setAntiPatternCounter(antiPatternCounter);
+      try {
+        source.pack.replay(handler, events);
+      } catch (SAXException e) {
+        throw new RuntimeException("Could not load rule " + lazyRules.get(0).getFullId() + " from " + source.filename, e);
+      }
+      List<AbstractPatternRule> rules = handler.getRules();
+      for (LazyPatternRule lazyRule : lazyRules) {
+        AbstractPatternRule rule = rules.size() == ruleCount ? rules.get(lazyRule.index) : null;
+        if (!(rule instanceof PatternRule) || !rule.getFullId().equals(lazyRule.getFullId())) {
+          throw new IllegalStateException("Rule " + lazyRule.getFullId() + " from " + source.filename + " could not be materialized, got " + rule);
+        }
+        lazyRule.copySettingsTo((PatternRule) rule);
+        lazyRule.rule = (PatternRule) rule;
+      }
+      source.counts.materialized.addAndGet(lazyRules.size());
+    }
+  }
+
+  private static final class Counts {
+    private final AtomicInteger lazy = new AtomicInteger();
+    private final AtomicInteger materialized = new AtomicInteger();
+  }
+
+}
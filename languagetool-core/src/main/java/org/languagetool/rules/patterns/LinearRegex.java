@@ -0,0 +1,710 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.apache.lucene.util.automaton.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * A regular expression compiled to a deterministic automaton, so that checking whether a string
+ * matches it takes linear time, no matter how the expression is written. Used by {@link StringMatcher}
+ * instead of {@link java.util.regex.Pattern} for expressions that could backtrack catastrophically,
+ * like {@code (a+)+b}.
+ * <p>
+ * Only the part of the {@code java.util.regex} syntax that doesn't depend on backtracking is supported:
+ * literals, {@code .}, character classes (without unions and intersections), {@code \d \s \w} and their
+ * negations, groups, alternatives, greedy and lazy quantifiers, and {@code ^}/{@code $} at the start/end.
+ * Case-insensitive expressions are matched like with {@code CASE_INSENSITIVE | UNICODE_CASE}.
+ * @since 6.4
+ */
+final class LinearRegex {
+
+  private static final int MAX_DETERMINIZED_STATES = 2000;
+  private static final int MAX_REPETITIONS = 100;
+
+  private static final CharSet DIGIT = CharSet.range('0', '9');
+  private static final CharSet SPACE = CharSet.of(Arrays.asList(new int[]{'\t', '\r'}, new int[]{' ', ' '}));
+  private static final CharSet WORD = CharSet.of(Arrays.asList(new int[]{'0', '9'}, new int[]{'A', 'Z'}, new int[]{'_', '_'}, new int[]{'a', 'z'}));
+  private static final CharSet DOT = CharSet.of(Arrays.asList(new int[]{'\n', '\n'}, new int[]{'\r', '\r'},
+    new int[]{'\u0085', '\u0085'}, new int[]{'\u2028', '\u2029'})).complement();
+
+  private final String regex;
+  private final CharacterRunAutomaton automaton;
+
+  private LinearRegex(String regex, CharacterRunAutomaton automaton) {
+    this.regex = regex;
+    this.automaton = automaton;
+  }
+
+  /**
+   * @return whether the whole string matches
+   */
+  boolean matches(String s) {
+    return automaton.run(s);
+  }
+
+  /**
+   * @return the compiled expression, or {@code null} if it uses unsupported syntax or the automaton would get too large
+   */
+  @Nullable
+  static LinearRegex compile(String regex, boolean caseSensitive) {
+    Node node = parse(regex, caseSensitive);
+    return node == null ? null : toLinearRegex(regex, node);
+  }
+
+  /**
+   * @return the compiled expression if it's prone to catastrophic backtracking with {@link java.util.regex.Pattern}
+   * and can be compiled, {@code null} otherwise
+   */
+  @Nullable
+  static LinearRegex compileIfRisky(String regex, boolean caseSensitive) {
+    Node node = parse(regex, caseSensitive);
+    return node == null || !node.isRisky() ? null : toLinearRegex(regex, node);
+  }
+
+  /**
+   * @return whether the expression contains constructs that can make backtracking take exponential
+   * or high polynomial time: nested quantifiers, repetitions of alternatives that can start with the
+   * same character, or many unbounded quantifiers in a row
+   */
+  static boolean isRisky(String regex) {
+    Node node = parse(regex, true);
+    return node != null && node.isRisky();
+  }
+
+  @Nullable
+  private static Node parse(String regex, boolean caseSensitive) {
+    try {
+      return new Parser(regex, caseSensitive).parse();
+    } catch (UnsupportedRegexException e) {
+      return null;
+    }
+  }
+
+  @Nullable
+  private static LinearRegex toLinearRegex(String regex, Node node) {
+    try {
+      return new LinearRegex(regex, new CharacterRunAutomaton(node.toAutomaton(), MAX_DETERMINIZED_STATES));
+    } catch (TooComplexToDeterminizeException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return regex;
+  }
+
+  private static class UnsupportedRegexException extends Exception {
+    UnsupportedRegexException(String message) {
+      super(message, null, false, false);
+    }
+  }
+
+  private static final class Parser {
+    private final String regex;
+    private final boolean caseSensitive;
+    private int pos;
+
+    Parser(String regex, boolean caseSensitive) {
+      this.regex = regex;
+      this.caseSensitive = caseSensitive;
+    }
+
+    Node parse() throws UnsupportedRegexException {
+      Node node = parseAlternatives();
+      if (pos < regex.length()) {
+        throw unsupported();
+      }
+      return node;
+    }
+
+    private Node parseAlternatives() throws UnsupportedRegexException {
+      List<Node> branches = new ArrayList<>();
+      branches.add(parseSequence());
+      while (pos < regex.length() && regex.charAt(pos) == '|') {
+        pos++;
+        branches.add(parseSequence());
+      }
+      return branches.size() == 1 ? branches.get(0) : new Alternatives(branches);
+    }
+
+    private Node parseSequence() throws UnsupportedRegexException {
+      List<Node> items = new ArrayList<>();
+      while (pos < regex.length() && regex.charAt(pos) != '|' && regex.charAt(pos) != ')') {
+        Node atom = parseAtom();
+        if (atom != null) {
+          items.add(parseQuantifier(atom));
+        }
+      }
+      return items.size() == 1 ? items.get(0) : new Sequence(items);
+    }
+
+    @Nullable
+    private Node parseAtom() throws UnsupportedRegexException {
+      int c = nextCodePoint();
+      switch (c) {
+        case '(':
+          if (regex.startsWith("?:", pos)) {
+            pos += 2;
+          } else if (regex.startsWith("?", pos)) {
+            throw unsupported();  // lookaround, flags, named groups
+          }
+          Node group = parseAlternatives();
+          if (pos >= regex.length() || regex.charAt(pos) != ')') {
+            throw unsupported();
+          }
+          pos++;
+          return group;
+        case '[':
+          return new Chars(parseClass());
+        case '.':
+          return new Chars(DOT);
+        case '\\':
+          CharSet predefined = parsePredefinedClass();
+          return new Chars(predefined != null ? predefined : literal(parseCharEscape()));
+        case '^':
+          if (pos == 1) {
+            return null;  // we only match whole strings anyway
+          }
+          throw unsupported();
+        case '$':
+          if (pos == regex.length()) {
+            return null;
+          }
+          throw unsupported();
+        case ')': case '*': case '+': case '?': case '{':
+          throw unsupported();
+        default:
+          return new Chars(literal(c));
+      }
+    }
+
+    private Node parseQuantifier(Node atom) throws UnsupportedRegexException {
+      if (pos >= regex.length()) {
+        return atom;
+      }
+      int min, max;
+      char c = regex.charAt(pos);
+      if (c == '*') {
+        min = 0;
+        max = -1;
+      } else if (c == '+') {
+        min = 1;
+        max = -1;
+      } else if (c == '?') {
+        min = 0;
+        max = 1;
+      } else if (c == '{') {
+        int end = regex.indexOf('}', pos);
+        if (end == -1) {
+          throw unsupported();
+        }
+        String[] bounds = regex.substring(pos + 1, end).split(",", -1);
+        try {
+          min = Integer.parseInt(bounds[0]);
+          max = bounds.length == 1 ? min : bounds[1].isEmpty() ? -1 : Integer.parseInt(bounds[1]);
+        } catch (NumberFormatException e) {
+          throw unsupported();
+        }
+        if (bounds.length > 2 || min > MAX_REPETITIONS || max > MAX_REPETITIONS) {
+          throw unsupported();
+        }
+        pos = end;
+      } else {
+        return atom;
+      }
+      pos++;
+      if (pos < regex.length()) {
+        char modifier = regex.charAt(pos);
+        if (modifier == '?') {
+          pos++;  // lazy quantifiers match the same strings as greedy ones
+        } else if (modifier == '+') {
+          throw unsupported();  // possessive quantifiers can make matches fail
+        }
+      }
+      if (pos < regex.length() && "*+?{".indexOf(regex.charAt(pos)) != -1) {
+        throw unsupported();
+      }
+      return new Repeat(atom, min, max);
+    }
+
+    private CharSet parseClass() throws UnsupportedRegexException {
+      boolean negated = pos < regex.length() && regex.charAt(pos) == '^';
+      if (negated) {
+        pos++;
+      }
+      if (pos < regex.length() && regex.charAt(pos) == ']') {
+        throw unsupported();
+      }
+      List<int[]> ranges = new ArrayList<>();
+      CharSet result = CharSet.EMPTY;
+      while (true) {
+        if (pos >= regex.length()) {
+          throw unsupported();
+        }
+        int c = nextCodePoint();
+        if (c == ']') {
+          break;
+        }
+        if (c == '[' || c == '&' && regex.startsWith("&", pos)) {
+          throw unsupported();
+        }
+        int from = c;
+        if (c == '\\') {
+          CharSet predefined = parsePredefinedClass();
+          if (predefined != null) {
+            result = result.union(predefined);
+            continue;
+          }
+          from = parseCharEscape();
+        }
+        if (pos + 1 < regex.length() && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']') {
+          pos++;
+          int to = nextCodePoint();
+          if (to == '[') {
+            throw unsupported();
+          }
+          if (to == '\\') {
+            to = parseCharEscape();
+          }
+          if (to < from) {
+            throw unsupported();
+          }
+          ranges.add(new int[]{from, to});
+          if (!caseSensitive) {
+            result = result.union(CaseFolding.rangeVariants(from, to));
+          }
+        } else {
+          result = result.union(literal(from));
+        }
+      }
+      result = result.union(CharSet.of(ranges));
+      return negated ? result.complement() : result;
+    }
+
+    @Nullable
+    private CharSet parsePredefinedClass() throws UnsupportedRegexException {
+      if (pos >= regex.length()) {
+        throw unsupported();
+      }
+      CharSet result;
+      switch (regex.charAt(pos)) {
+        case 'd': result = DIGIT; break;
+        case 'D': result = DIGIT.complement(); break;
+        case 's': result = SPACE; break;
+        case 'S': result = SPACE.complement(); break;
+        case 'w': result = WORD; break;
+        case 'W': result = WORD.complement(); break;
+        default: return null;
+      }
+      pos++;
+      return result;
+    }
+
+    private int parseCharEscape() throws UnsupportedRegexException {
+      if (pos >= regex.length()) {
+        throw unsupported();
+      }
+      int c = nextCodePoint();
+      switch (c) {
+        case 't': return '\t';
+        case 'n': return '\n';
+        case 'r': return '\r';
+        case 'f': return '\f';
+        case 'a': return '\u0007';
+        case 'e': return '\u001B';
+        case 'u': return parseHex(4);
+        case 'x': return parseHex(2);
+        default:
+          if (Character.isLetterOrDigit(c)) {
+            throw unsupported();  // back references, \b, \p{...} etc.
+          }
+          return c;
+      }
+    }
+
+    private int parseHex(int digits) throws UnsupportedRegexException {
+      if (pos + digits > regex.length()) {
+        throw unsupported();
+      }
+      try {
+        int result = Integer.parseInt(regex.substring(pos, pos + digits), 16);
+        pos += digits;
+        return result;
+      } catch (NumberFormatException e) {
+        throw unsupported();
+      }
+    }
+
+    private CharSet literal(int c) throws UnsupportedRegexException {
+      if (caseSensitive) {
+        return CharSet.range(c, c);
+      }
+      return CaseFolding.literalVariants(c);
+    }
+
+    private int nextCodePoint() {
+      int c = regex.codePointAt(pos);
+      pos += Character.charCount(c);
+      return c;
+    }
+
+    private UnsupportedRegexException unsupported() {
+      return new UnsupportedRegexException(regex);
+    }
+  }
+
+  /**
+   * The characters that case-insensitive literals and ranges match, like in {@link java.util.regex.Pattern}
+   * with {@code UNICODE_CASE}: a literal matches characters whose upper case variant's lower case variant is
+   * the same as the literal's, a range matches characters whose upper or lower case variant is in the range.
+   */
+  private static final class CaseFolding {
+    // character -> the characters whose upper case variant is that character:
+    private static final Map<Integer, List<Integer>> withUpperCase = new HashMap<>();
+    // character -> the characters whose lower case variant of the upper case variant is that character:
+    private static final Map<Integer, List<Integer>> withFolding = new HashMap<>();
+
+    static {
+      for (int c = 0; c <= Character.MAX_VALUE; c++) {
+        int upper = Character.toUpperCase(c);
+        if (upper != c) {
+          withUpperCase.computeIfAbsent(upper, k -> new ArrayList<>(2)).add(c);
+        }
+        int folded = Character.toLowerCase(upper);
+        if (folded != c) {
+          withFolding.computeIfAbsent(folded, k -> new ArrayList<>(2)).add(c);
+        }
+      }
+    }
+
+    static CharSet literalVariants(int c) throws UnsupportedRegexException {
+      checkBmp(c);
+      int folded = Character.toLowerCase(Character.toUpperCase(c));
+      List<int[]> ranges = new ArrayList<>();
+      ranges.add(new int[]{c, c});
+      ranges.add(new int[]{folded, folded});
+      for (int variant : withFolding.getOrDefault(folded, Collections.emptyList())) {
+        ranges.add(new int[]{variant, variant});
+      }
+      return CharSet.of(ranges);
+    }
+
+    static CharSet rangeVariants(int from, int to) throws UnsupportedRegexException {
+      checkBmp(to);
+      List<int[]> ranges = new ArrayList<>();
+      for (int c = from; c <= to; c++) {
+        for (int variant : withUpperCase.getOrDefault(c, Collections.emptyList())) {
+          ranges.add(new int[]{variant, variant});
+        }
+        for (int variant : withFolding.getOrDefault(c, Collections.emptyList())) {
+          ranges.add(new int[]{variant, variant});
+        }
+      }
+      return CharSet.of(ranges);
+    }
+
+    private static void checkBmp(int c) throws UnsupportedRegexException {
+      if (c > Character.MAX_VALUE) {
+        throw new UnsupportedRegexException("Case-insensitive supplementary character: " + c);
+      }
+    }
+  }
+
+  /**
+   * A set of code points, stored as sorted, non-overlapping ranges.
+   */
+  private static final class CharSet {
+    static final CharSet EMPTY = new CharSet(new int[0]);
+
+    private final int[] bounds;  // start and end (inclusive) of each range
+
+    private CharSet(int[] bounds) {
+      this.bounds = bounds;
+    }
+
+    static CharSet range(int from, int to) {
+      return new CharSet(new int[]{from, to});
+    }
+
+    static CharSet of(List<int[]> ranges) {
+      List<int[]> sorted = new ArrayList<>(ranges);
+      sorted.sort(Comparator.comparingInt(r -> r[0]));
+      int[] bounds = new int[sorted.size() * 2];
+      int count = 0;
+      for (int[] range : sorted) {
+        if (count > 0 && range[0] <= bounds[count - 1] + 1) {
+          bounds[count - 1] = Math.max(bounds[count - 1], range[1]);
+        } else {
+          bounds[count++] = range[0];
+          bounds[count++] = range[1];
+        }
+      }
+      return new CharSet(Arrays.copyOf(bounds, count));
+    }
+
+    CharSet union(CharSet other) {
+      if (other.bounds.length == 0) return this;
+      if (bounds.length == 0) return other;
+      List<int[]> ranges = new ArrayList<>();
+      addRanges(ranges);
+      other.addRanges(ranges);
+      return of(ranges);
+    }
+
+    CharSet complement() {
+      List<int[]> ranges = new ArrayList<>();
+      int start = 0;
+      for (int i = 0; i < bounds.length; i += 2) {
+        if (bounds[i] > start) {
+          ranges.add(new int[]{start, bounds[i] - 1});
+        }
+        start = bounds[i + 1] + 1;
+      }
+      if (start <= Character.MAX_CODE_POINT) {
+        ranges.add(new int[]{start, Character.MAX_CODE_POINT});
+      }
+      return of(ranges);
+    }
+
+    boolean intersects(CharSet other) {
+      int i = 0, j = 0;
+      while (i < bounds.length && j < other.bounds.length) {
+        if (bounds[i + 1] < other.bounds[j]) {
+          i += 2;
+        } else if (other.bounds[j + 1] < bounds[i]) {
+          j += 2;
+        } else {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void addRanges(List<int[]> ranges) {
+      for (int i = 0; i < bounds.length; i += 2) {
+        ranges.add(new int[]{bounds[i], bounds[i + 1]});
+      }
+    }
+
+    Automaton toAutomaton() {
+      Automaton a = new Automaton();
+      int start = a.createState();
+      int end = a.createState();
+      a.setAccept(end, true);
+      for (int i = 0; i < bounds.length; i += 2) {
+        a.addTransition(start, end, bounds[i], bounds[i + 1]);
+      }
+      a.finishState();
+      return a;
+    }
+  }
+
+  private abstract static class Node {
+    abstract Automaton toAutomaton();
+
+    /** whether the node can match the empty string */
+    abstract boolean isNullable();
+
+    /** the characters a non-empty match can start with */
+    abstract CharSet getFirstChars();
+
+    /** whether the node contains a quantifier that allows more than one repetition */
+    abstract boolean isRepeating();
+
+    /** whether the node contains alternatives that can start with the same character */
+    abstract boolean hasAmbiguousAlternatives();
+
+    abstract boolean isRisky();
+  }
+
+  private static final class Chars extends Node {
+    private final CharSet chars;
+
+    Chars(CharSet chars) {
+      this.chars = chars;
+    }
+
+    @Override Automaton toAutomaton() { return chars.toAutomaton(); }
+    @Override boolean isNullable() { return false; }
+    @Override CharSet getFirstChars() { return chars; }
+    @Override boolean isRepeating() { return false; }
+    @Override boolean hasAmbiguousAlternatives() { return false; }
+    @Override boolean isRisky() { return false; }
+  }
+
+  private static final class Sequence extends Node {
+    private static final int MAX_SAFE_UNBOUNDED_ITEMS = 2;
+
+    private final List<Node> items;
+
+    Sequence(List<Node> items) {
+      this.items = items;
+    }
+
+    @Override
+    Automaton toAutomaton() {
+      if (items.isEmpty()) {
+        return Automata.makeEmptyString();
+      }
+      List<Automaton> automata = new ArrayList<>();
+      for (Node item : items) {
+        automata.add(item.toAutomaton());
+      }
+      return Operations.concatenate(automata);
+    }
+
+    @Override
+    boolean isNullable() {
+      return items.stream().allMatch(Node::isNullable);
+    }
+
+    @Override
+    CharSet getFirstChars() {
+      CharSet result = CharSet.EMPTY;
+      for (Node item : items) {
+        result = result.union(item.getFirstChars());
+        if (!item.isNullable()) {
+          break;
+        }
+      }
+      return result;
+    }
+
+    @Override
+    boolean isRepeating() {
+      return items.stream().anyMatch(Node::isRepeating);
+    }
+
+    @Override
+    boolean hasAmbiguousAlternatives() {
+      return items.stream().anyMatch(Node::hasAmbiguousAlternatives);
+    }
+
+    @Override
+    boolean isRisky() {
+      long unbounded = items.stream().filter(item -> item instanceof Repeat && ((Repeat) item).max == -1).count();
+      return unbounded > MAX_SAFE_UNBOUNDED_ITEMS || items.stream().anyMatch(Node::isRisky);
+    }
+  }
+
+  private static final class Alternatives extends Node {
+    private final List<Node> branches;
+
+    Alternatives(List<Node> branches) {
+      this.branches = branches;
+    }
+
+    @Override
+    Automaton toAutomaton() {
+      List<Automaton> automata = new ArrayList<>();
+      for (Node branch : branches) {
+        automata.add(branch.toAutomaton());
+      }
+      return Operations.union(automata);
+    }
+
+    @Override
+    boolean isNullable() {
+      return branches.stream().anyMatch(Node::isNullable);
+    }
+
+    @Override
+    CharSet getFirstChars() {
+      CharSet result = CharSet.EMPTY;
+      for (Node branch : branches) {
+        result = result.union(branch.getFirstChars());
+      }
+      return result;
+    }
+
+    @Override
+    boolean isRepeating() {
+      return branches.stream().anyMatch(Node::isRepeating);
+    }
+
+    @Override
+    boolean hasAmbiguousAlternatives() {
+      for (int i = 0; i < branches.size(); i++) {
+        if (branches.get(i).hasAmbiguousAlternatives()) {
+          return true;
+        }
+        for (int j = i + 1; j < branches.size(); j++) {
+          if (branches.get(i).getFirstChars().intersects(branches.get(j).getFirstChars())) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean isRisky() {
+      return branches.stream().anyMatch(Node::isRisky);
+    }
+  }
+
+  private static final class Repeat extends Node {
+    private final Node child;
+    private final int min;
+    private final int max;  // -1 for unbounded
+
+    Repeat(Node child, int min, int max) {
+      this.child = child;
+      this.min = min;
+      this.max = max;
+    }
+
+    @Override
+    Automaton toAutomaton() {
+      Automaton a = child.toAutomaton();
+      return max == -1 ? Operations.repeat(a, min) : Operations.repeat(a, min, max);
+    }
+
+    @Override
+    boolean isNullable() {
+      return min == 0 || child.isNullable();
+    }
+
+    @Override
+    CharSet getFirstChars() {
+      return max == 0 ? CharSet.EMPTY : child.getFirstChars();
+    }
+
+    @Override
+    boolean isRepeating() {
+      return max == -1 || max > 1 || child.isRepeating();
+    }
+
+    @Override
+    boolean hasAmbiguousAlternatives() {
+      return child.hasAmbiguousAlternatives();
+    }
+
+    @Override
+    boolean isRisky() {
+      boolean repeatsOften = max == -1 || max > 2;
+      return child.isRisky() || repeatsOften && (child.isRepeating() || child.hasAmbiguousAlternatives()) || max == -1 && child.isNullable();
+    }
+  }
+
+}
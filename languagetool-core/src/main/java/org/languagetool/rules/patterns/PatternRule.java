@@ -172,6 +172,7 @@ public class PatternRule extends AbstractTokenBasedRule {
    * sentence *before* disambiguation.
    * @since 4.5
    */
+  @Override
   boolean isInterpretPosTagsPreDisambiguation() {
     return interpretPosTagsPreDisambiguation;
   }
@@ -90,6 +90,9 @@ public class PatternRuleHandler extends XMLRuleHandler {
   
   private String idPrefix;
 
+  // set for lazy loading, see LazyPatternRule:
+  private LazyPatternRule.Source lazySource;
+
   public PatternRuleHandler() {
     this.sourceFile = null;
   }
@@ -113,6 +116,23 @@ public class PatternRuleHandler extends XMLRuleHandler {
     this.relaxedMode = relaxedMode;
   }
 
+  /**
+   * Create {@link LazyPatternRule}s instead of {@link PatternRule}s. The events must come from the source's
+   * {@link RulePack}.
+   * @since 6.4
+   */
+  void setLazySource(LazyPatternRule.Source lazySource) {
+    this.lazySource = lazySource;
+  }
+
+  /**
+   * Continue the numbering of anti-patterns, used when only a part of a rule file is replayed.
+   * @since 6.4
+   */
+  void setAntiPatternCounter(int antiPatternCounter) {
+    this.antiPatternCounter = antiPatternCounter;
+  }
+
   // ===========================================================
   // SAX DocumentHandler methods
   // ===========================================================
@@ -120,6 +140,9 @@ public class PatternRuleHandler extends XMLRuleHandler {
   @Override
   public void startElement(String namespaceURI, String lName,
                            String qName, Attributes attrs) throws SAXException {
+    if (lazySource != null) {
+      lazySource.startElement(qName, (RulePack.ReplayLocator) pLocator, antiPatternCounter);
+    }
     switch (qName) {
       case "category":
         String catName = attrs.getValue(NAME);
@@ -723,6 +746,9 @@ public class PatternRuleHandler extends XMLRuleHandler {
         inUnificationNeutral = false;
         break;
     }
+    if (lazySource != null) {
+      lazySource.endElement(qName, (RulePack.ReplayLocator) pLocator);
+    }
   }
 
   /**
@@ -748,10 +774,17 @@ public class PatternRuleHandler extends XMLRuleHandler {
     }
     if (numElement >= elemList.size()) {
       AbstractPatternRule rule;
+      LazyPatternRule.Unit lazyUnit = lazySource != null ? lazySource.getCurrentUnit() : null;
       if (tmpPatternTokens.size() > 0) {
-        rule = new PatternRule(id, language, tmpPatternTokens, name,
-                internString(message.toString()), internString(shortMessage),
-                internString(suggestionsOutMsg.toString()), phrasePatternTokens.size() > 1, interpretPosTagsPreDisambiguation);
+        // tokens from <phraseref>s are shared between rules, so they can only be created in the original order:
+        if (lazyUnit != null && phrasePatternTokens.isEmpty()) {
+          rule = new LazyPatternRule(id, language, tmpPatternTokens, name, internString(message.toString()),
+                  internString(shortMessage), interpretPosTagsPreDisambiguation, lazyUnit);
+        } else {
+          rule = new PatternRule(id, language, tmpPatternTokens, name,
+                  internString(message.toString()), internString(shortMessage),
+                  internString(suggestionsOutMsg.toString()), phrasePatternTokens.size() > 1, interpretPosTagsPreDisambiguation);
+        }
         rule.addTags(ruleTags);
         rule.addTags(ruleGroupTags);
         rule.addTags(categoryTags);
@@ -776,9 +809,14 @@ public class PatternRuleHandler extends XMLRuleHandler {
       } else {
         throw new IllegalStateException("Neither '<pattern>' tokens nor '<regexp>' is set in rule '" + id + "'");
       }
-      setRuleFilter(filterClassName, filterArgs, rule);
+      if (!(rule instanceof LazyPatternRule)) {
+        setRuleFilter(filterClassName, filterArgs, rule);
+      }
       prepareRule(rule);
       rules.add(rule);
+      if (lazyUnit != null) {
+        lazyUnit.addRule(rule);
+      }
     } else {
       PatternToken patternToken = elemList.get(numElement);
       if (patternToken.hasOrGroup()) {
@@ -835,25 +873,29 @@ public class PatternRuleHandler extends XMLRuleHandler {
     }
     startPos = -1;
     endPos = -1;
+    // a lazy rule gets its examples, anti-patterns and suggestions only when it's materialized:
+    boolean lazy = rule instanceof LazyPatternRule;
     List<CorrectExample> allCorrectExamples = new ArrayList<>();
     allCorrectExamples.addAll(correctExamples);
     allCorrectExamples.addAll(antipatternExamples);
     allCorrectExamples.addAll(antipatternForRuleGroupsExamples);
-    if (!allCorrectExamples.isEmpty()) {
+    if (!allCorrectExamples.isEmpty() && !lazy) {
       rule.setCorrectExamples(allCorrectExamples);
     }
-    if (!incorrectExamples.isEmpty()) {
+    if (!incorrectExamples.isEmpty() && !lazy) {
       rule.setIncorrectExamples(incorrectExamples);
     }
-    if (!errorTriggeringExamples.isEmpty()) {
+    if (!errorTriggeringExamples.isEmpty() && !lazy) {
       rule.setErrorTriggeringExamples(errorTriggeringExamples);
     }
     rule.setCategory(category);
-    if (!rulegroupAntiPatterns.isEmpty()) {
+    if (!rulegroupAntiPatterns.isEmpty() && !lazy) {
       rule.setAntiPatterns(rulegroupAntiPatterns);
     }
     if (!ruleAntiPatterns.isEmpty()) {
-      rule.setAntiPatterns(ruleAntiPatterns);
+      if (!lazy) {
+        rule.setAntiPatterns(ruleAntiPatterns);
+      }
       ruleAntiPatterns.clear();
     }
     rule.addTags(ruleTags);
@@ -869,14 +911,18 @@ public class PatternRuleHandler extends XMLRuleHandler {
       rule.setSubId("1");
     }
     caseSensitive = false;
-    for (Match m : suggestionMatches) {
-      rule.addSuggestionMatch(m);
+    if (!lazy) {
+      for (Match m : suggestionMatches) {
+        rule.addSuggestionMatch(m);
+      }
     }
     if (phrasePatternTokens.size() <= 1) {
       suggestionMatches.clear();
     }
-    for (Match m : suggestionMatchesOutMsg) {
-      rule.addSuggestionMatchOutMsg(m);
+    if (!lazy) {
+      for (Match m : suggestionMatchesOutMsg) {
+        rule.addSuggestionMatchOutMsg(m);
+      }
     }
     suggestionMatchesOutMsg.clear();
     if (category == null) {
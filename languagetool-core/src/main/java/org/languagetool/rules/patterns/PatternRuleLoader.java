@@ -18,6 +18,7 @@
  */
 package org.languagetool.rules.patterns;
 
+import com.google.common.io.ByteStreams;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.tools.Tools;
@@ -25,6 +26,7 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -39,6 +41,7 @@ import java.util.List;
 public class PatternRuleLoader extends DefaultHandler {
 
   private boolean relaxedMode = false;
+  private boolean lazyMode = System.getProperty("lazyPatternRules") != null;
 
   /**
    * @param file XML file with pattern rules
@@ -46,6 +49,7 @@ public class PatternRuleLoader extends DefaultHandler {
   public final List<AbstractPatternRule> getRules(File file, Language lang) throws IOException {
     try (InputStream inputStream = Files.newInputStream(file.toPath())) {
       PatternRuleLoader ruleLoader = new PatternRuleLoader();
+      ruleLoader.setLazyMode(lazyMode);
       return ruleLoader.getRules(inputStream, file.getAbsolutePath(), lang);
     }
   }
@@ -59,6 +63,16 @@ public class PatternRuleLoader extends DefaultHandler {
     this.relaxedMode = relaxedMode;
   }
 
+  /**
+   * If set to true, load the pattern rules as {@link LazyPatternRule}s, which are only completely created
+   * when they're needed. The default is {@code false} unless the system property {@code lazyPatternRules}
+   * is set.
+   * @since 6.4
+   */
+  public void setLazyMode(boolean lazyMode) {
+    this.lazyMode = lazyMode;
+  }
+
   /**
    * @param is stream with the XML rules
    * @param filename used only for verbose exception message - should refer to where the stream comes from
@@ -67,6 +81,17 @@ public class PatternRuleLoader extends DefaultHandler {
     try {
       PatternRuleHandler handler = new PatternRuleHandler(filename, lang);
       handler.setRelaxedMode(relaxedMode);
+      if (lazyMode && !relaxedMode && lang != null) {
+        // the rules will be re-created from parts of the file, so its events are kept:
+        byte[] xml = ByteStreams.toByteArray(is);
+        RulePack pack = RulePack.create(xml, filename);
+        if (pack != null) {
+          handler.setLazySource(new LazyPatternRule.Source(pack, filename, handler.language));
+          pack.replay(handler);
+          return handler.getRules();
+        }
+        is = new ByteArrayInputStream(xml);
+      }
       SAXParserFactory factory = SAXParserFactory.newInstance();
       SAXParser saxParser = factory.newSAXParser();
       if (JLanguageTool.isCustomPasswordAuthenticatorUsed()) {
@@ -749,6 +749,34 @@ public class PatternToken implements Cloneable {
     return result.isEmpty() ? null : result;
   }
 
+  /**
+   * @return all POS tags one of which a token must have to be matched by this token pattern,
+   * or {@code null} if such set is unknown/unbounded.
+   * This is used internally for performance optimizations.
+   */
+  @Nullable
+  Set<String> calcPosHints() {
+    PosToken pos = posToken;
+    if (pos == null || pos.posTag == null || pos.negation || pos.posUnknown ||
+        isReferenceElement() || hasFlag(MAY_BE_OMITTED_MASK)) {
+      return null;
+    }
+    Set<String> result = pos.posPattern != null ? pos.posPattern.getPossibleValues() : Collections.singleton(pos.posTag);
+    if (result == null) return null;
+
+    List<PatternToken> orGroupList = rareFields == null ? null : rareFields.orGroupList;
+    if (orGroupList != null) {
+      result = new HashSet<>(result);
+      for (PatternToken token : orGroupList) {
+        Set<String> hints = token.calcPosHints();
+        if (hints == null) return null;
+
+        result.addAll(hints);
+      }
+    }
+    return result.isEmpty() ? null : result;
+  }
+
   @Nullable
   private Set<String> calcOwnPossibleStringValues() {
     if (getNegation() || !hasStringThatMustMatch()) {
@@ -0,0 +1,325 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.RuleEntityResolver;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A rule XML file in a pre-parsed binary form, kept in memory so that {@link LazyPatternRule}s can
+ * re-create their rules later from parts of the file. The pack contains the SAX events of the XML file,
+ * with entities expanded and all strings (element names, attribute values, texts) de-duplicated in a string
+ * table, and these events are replayed into the same handler that would otherwise get them from the XML
+ * parser. Thus, the resulting rules are the same as those parsed from the XML file.
+ * @since 6.4
+ */
+final class RulePack {
+
+  static final byte START_ELEMENT = 1;
+  static final byte END_ELEMENT = 2;
+  static final byte CHARACTERS = 3;
+
+  private static final int HEADER_INTS = 3;
+
+  private final ByteBuffer buffer;
+  private final int stringDataStart;
+  private final int eventsStart;
+  private final int eventsEnd;
+  private final int stringCount;
+
+  private RulePack(ByteBuffer buffer) {
+    this.buffer = buffer;
+    stringCount = buffer.getInt(0);
+    int stringDataLength = buffer.getInt(4);
+    int eventsLength = buffer.getInt(2 * 4);
+    stringDataStart = HEADER_INTS * 4 + (stringCount + 1) * 4;
+    eventsStart = stringDataStart + stringDataLength;
+    eventsEnd = eventsStart + eventsLength;
+  }
+
+  /**
+   * Parses the given XML file into a pack.
+   * @param filename used only for error messages
+   * @return the pack, or {@code null} if the XML isn't a rule file, i.e. it has no {@code rules}
+   * root element with a {@code lang} attribute
+   */
+  @Nullable
+  static RulePack create(byte[] xml, String filename) throws IOException {
+    Recorder recorder = new Recorder();
+    try {
+      SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
+      saxParser.getXMLReader().setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+      saxParser.parse(new ByteArrayInputStream(xml), recorder);
+    } catch (Exception e) {
+      throw new IOException("Cannot parse '" + filename + "'", e);
+    }
+    if (!recorder.ruleFile) {
+      return null;
+    }
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(result);
+    out.writeInt(recorder.strings.size());
+    ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+    List<Integer> offsets = new ArrayList<>();
+    for (String string : recorder.strings) {
+      offsets.add(stringData.size());
+      stringData.write(string.getBytes(StandardCharsets.UTF_8));
+    }
+    offsets.add(stringData.size());
+    out.writeInt(stringData.size());
+    out.writeInt(recorder.events.size());
+    for (int offset : offsets) {
+      out.writeInt(offset);
+    }
+    stringData.writeTo(out);
+    recorder.events.writeTo(out);
+    out.flush();
+    return new RulePack(ByteBuffer.wrap(result.toByteArray()));
+  }
+
+  /**
+   * Send the events of the XML file to the handler, as a non-namespace-aware SAX parser would do.
+   */
+  void replay(DefaultHandler handler) throws SAXException {
+    replay(handler, Collections.singletonList(new int[]{eventsStart, eventsEnd}), new String[stringCount]);
+  }
+
+  /**
+   * Send only the events in the given ranges to the handler. The ranges are event positions
+   * as reported by {@link ReplayLocator} during an earlier replay. Strings decoded for this
+   * are not cached.
+   */
+  void replay(DefaultHandler handler, List<int[]> ranges) throws SAXException {
+    replay(handler, ranges, null);
+  }
+
+  private void replay(DefaultHandler handler, List<int[]> ranges, @Nullable String[] cache) throws SAXException {
+    ReplayLocator locator = new ReplayLocator();
+    AttributesImpl attributes = new AttributesImpl();
+    ByteBuffer events = buffer.duplicate();
+    handler.setDocumentLocator(locator);
+    handler.startDocument();
+    for (int[] range : ranges) {
+      events.position(range[0]);
+      while (events.position() < range[1]) {
+        locator.eventStart = events.position();
+        byte type = events.get();
+        if (type == CHARACTERS) {
+          char[] chars = getString(readVarInt(events), cache).toCharArray();
+          locator.eventEnd = events.position();
+          handler.characters(chars, 0, chars.length);
+          continue;
+        }
+        String name = getString(readVarInt(events), cache);
+        locator.line = readVarInt(events);
+        locator.column = readVarInt(events);
+        if (type == START_ELEMENT) {
+          attributes.clear();
+          for (int i = readVarInt(events); i > 0; i--) {
+            String attributeName = getString(readVarInt(events), cache);
+            attributes.addAttribute("", "", attributeName, "CDATA", getString(readVarInt(events), cache));
+          }
+          locator.eventEnd = events.position();
+          handler.startElement("", "", name, attributes);
+        } else if (type == END_ELEMENT) {
+          locator.eventEnd = events.position();
+          handler.endElement("", "", name);
+        } else {
+          throw new SAXException("Invalid event type " + type + " at position " + (events.position() - 1));
+        }
+      }
+    }
+    handler.endDocument();
+  }
+
+  private String getString(int index, @Nullable String[] cache) {
+    String string = cache != null ? cache[index] : null;
+    if (string == null) {
+      int offsetTable = HEADER_INTS * 4;
+      int start = buffer.getInt(offsetTable + index * 4);
+      int end = buffer.getInt(offsetTable + (index + 1) * 4);
+      byte[] bytes = new byte[end - start];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = buffer.get(stringDataStart + start + i);
+      }
+      string = new String(bytes, StandardCharsets.UTF_8);
+      if (cache != null) {
+        cache[index] = string;
+      }
+    }
+    return string;
+  }
+
+  private static int readVarInt(ByteBuffer buffer) {
+    int result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      result |= (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return result;
+  }
+
+  /**
+   * Besides line and column, reports the position of the current event in the pack.
+   */
+  static class ReplayLocator implements Locator {
+    private int line;
+    private int column;
+    private int eventStart;
+    private int eventEnd;
+
+    /** The position of the current event. */
+    int getEventStart() {
+      return eventStart;
+    }
+
+    /** The position after the current event. */
+    int getEventEnd() {
+      return eventEnd;
+    }
+
+    @Override
+    public String getPublicId() {
+      return null;
+    }
+
+    @Override
+    public String getSystemId() {
+      return null;
+    }
+
+    @Override
+    public int getLineNumber() {
+      return line;
+    }
+
+    @Override
+    public int getColumnNumber() {
+      return column;
+    }
+  }
+
+
+  /**
+   * Records the SAX events of an XML file in the format read by {@link #replay(DefaultHandler)}.
+   */
+  private static class Recorder extends DefaultHandler {
+
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final ByteArrayOutputStream events = new ByteArrayOutputStream();
+    private final StringBuilder characters = new StringBuilder();
+    private Locator locator;
+    private boolean rootSeen;
+    private boolean ruleFile;
+
+    @Override
+    public InputSource resolveEntity(String publicId, String systemId) throws IOException, SAXException {
+      return new RuleEntityResolver().resolveEntity(publicId, systemId);
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+      this.locator = locator;
+    }
+
+    @Override
+    public void startElement(String namespaceURI, String lName, String qName, Attributes attrs) {
+      if (!rootSeen) {
+        rootSeen = true;
+        ruleFile = "rules".equals(qName) && attrs.getValue("lang") != null;
+      }
+      flushCharacters();
+      events.write(START_ELEMENT);
+      writeElement(qName);
+      writeVarInt(attrs.getLength());
+      for (int i = 0; i < attrs.getLength(); i++) {
+        writeVarInt(getIndex(attrs.getQName(i)));
+        writeVarInt(getIndex(attrs.getValue(i)));
+      }
+    }
+
+    @Override
+    public void endElement(String namespaceURI, String sName, String qName) {
+      flushCharacters();
+      events.write(END_ELEMENT);
+      writeElement(qName);
+    }
+
+    @Override
+    public void characters(char[] buf, int offset, int len) {
+      // the XML parser may split texts, replaying them in one piece is equivalent:
+      characters.append(buf, offset, len);
+    }
+
+    @Override
+    public void endDocument() {
+      flushCharacters();
+    }
+
+    private void writeElement(String qName) {
+      writeVarInt(getIndex(qName));
+      writeVarInt(locator.getLineNumber());
+      writeVarInt(locator.getColumnNumber());
+    }
+
+    private void flushCharacters() {
+      if (characters.length() > 0) {
+        events.write(CHARACTERS);
+        writeVarInt(getIndex(characters.toString()));
+        characters.setLength(0);
+      }
+    }
+
+    private int getIndex(String string) {
+      return stringIndexes.computeIfAbsent(string, k -> {
+        strings.add(k);
+        return strings.size() - 1;
+      });
+    }
+
+    private void writeVarInt(int value) {
+      while ((value & ~0x7F) != 0) {
+        events.write((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      events.write(value);
+    }
+  }
+
+}
@@ -0,0 +1,391 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.AnalyzedToken;
+import org.languagetool.AnalyzedTokenReadings;
+import org.languagetool.rules.Rule;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * All token, lemma and POS tag hints of a list of rules compiled into a single keyword automaton.
+ * Each {@link AbstractTokenBasedRule.TokenHint} and each POS requirement of a rule becomes a "clause"
+ * (a disjunction of hint strings), and a rule is a candidate for a sentence only if all its clauses
+ * are satisfied by the sentence's tokens, lemmas and POS tags.
+ * <p>
+ * Hints always describe complete tokens, so the automaton is a trie (the goto function of an Aho-Corasick automaton,
+ * failure links aren't needed). It's stored in flat arrays and has three roots: one for lowercase token texts,
+ * one for lowercase lemmas and one for POS tags.
+ * <p>
+ * Only the hints of {@link AbstractTokenBasedRule}s are used, all other rules are always candidates. As the
+ * pattern rules of a language are shared by all {@link org.languagetool.JLanguageTool} instances, instances with
+ * the same active rules share the compiled automaton, see {@link #get}.
+ */
+final class RulePrefilter {
+  private static final int FORM = 0;
+  private static final int LEMMA = 1;
+  private static final int POS = 2;
+
+  // weak values: kept as long as a rule set uses it
+  private static final Cache<Key, RulePrefilter> cache = CacheBuilder.newBuilder().weakValues().build();
+
+  // trie: outgoing edges of state s are edgeChars/edgeTargets[edgeStart[s] .. edgeStart[s + 1]), sorted by char
+  private final int[] edgeStart;
+  private final char[] edgeChars;
+  private final int[] edgeTargets;
+  private final int[] stateHint;  // hint id accepted in a state, or -1
+
+  private final int[][] hintClauses;  // hint id -> clauses satisfied by it
+  private final int[][] clauseRules;  // clause id -> rules requiring it
+  private final int[] ruleClauseCount;
+  private final BitSet unconditional;  // rules without any clauses
+  private final boolean hasLemmaHints;
+  private final boolean hasPosHints;
+
+  private final ThreadLocal<Scratch> scratch;
+
+  private RulePrefilter(TrieBuilder trie, List<int[]> hintClauses, List<int[]> clauseRules, int[] ruleClauseCount,
+                        BitSet unconditional, boolean hasLemmaHints, boolean hasPosHints) {
+    int stateCount = trie.states.size();
+    edgeStart = new int[stateCount + 1];
+    int edgeCount = 0;
+    for (int i = 0; i < stateCount; i++) {
+      edgeStart[i] = edgeCount;
+      edgeCount += trie.states.get(i).children.size();
+    }
+    edgeStart[stateCount] = edgeCount;
+    edgeChars = new char[edgeCount];
+    edgeTargets = new int[edgeCount];
+    stateHint = new int[stateCount];
+    for (int i = 0; i < stateCount; i++) {
+      TrieBuilder.State state = trie.states.get(i);
+      stateHint[i] = state.hint;
+      int e = edgeStart[i];
+      for (Map.Entry<Character, Integer> entry : state.children.entrySet()) {
+        edgeChars[e] = entry.getKey();
+        edgeTargets[e] = entry.getValue();
+        e++;
+      }
+    }
+    this.hintClauses = hintClauses.toArray(new int[0][]);
+    this.clauseRules = clauseRules.toArray(new int[0][]);
+    this.ruleClauseCount = ruleClauseCount;
+    this.unconditional = unconditional;
+    this.hasLemmaHints = hasLemmaHints;
+    this.hasPosHints = hasPosHints;
+    int clauseCount = this.clauseRules.length;
+    int hintCount = this.hintClauses.length;
+    scratch = ThreadLocal.withInitial(() -> new Scratch(hintCount, clauseCount, ruleClauseCount.length));
+  }
+
+  /**
+   * Like {@link #compile}, but returns the already compiled automaton for the same token-based rules
+   * at the same positions, if there is one.
+   */
+  static RulePrefilter get(List<? extends Rule> rules, boolean withLemmaHints) {
+    try {
+      return cache.get(new Key(rules, withLemmaHints), () -> compile(rules, withLemmaHints));
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Could not compile the rule prefilter", e.getCause());
+    }
+  }
+
+  /**
+   * @param withLemmaHints whether lemma and POS tag hints should be used, which is only valid if the sentences
+   *                       passed to {@link #getCandidates} aren't going to be changed by the rules
+   *                       (i.e. it's invalid for disambiguation rules)
+   */
+  static RulePrefilter compile(List<? extends Rule> rules, boolean withLemmaHints) {
+    TrieBuilder trie = new TrieBuilder();
+    List<List<Integer>> hintClauses = new ArrayList<>();
+    List<List<Integer>> clauseRules = new ArrayList<>();
+    Map<List<Object>, Integer> clauseIds = new HashMap<>();
+    int[] ruleClauseCount = new int[rules.size()];
+    BitSet unconditional = new BitSet();
+    boolean hasLemmaHints = false;
+    boolean hasPosHints = false;
+    for (int i = 0; i < rules.size(); i++) {
+      Set<Integer> clauses = new LinkedHashSet<>();
+      Rule rule = rules.get(i);
+      if (rule instanceof AbstractTokenBasedRule) {
+        AbstractTokenBasedRule tokenRule = (AbstractTokenBasedRule) rule;
+        if (tokenRule.tokenHints != null) {
+          for (AbstractTokenBasedRule.TokenHint th : tokenRule.tokenHints) {
+            if (th.inflected && !withLemmaHints) continue;
+            hasLemmaHints |= th.inflected;
+            clauses.add(clauseId(th.inflected ? LEMMA : FORM, th.lowerCaseValues, trie, hintClauses, clauseRules, clauseIds));
+          }
+        }
+        if (tokenRule.posHints != null && withLemmaHints && !interpretsPosTagsPreDisambiguation(rule)) {
+          for (String[] posTags : tokenRule.posHints) {
+            hasPosHints = true;
+            clauses.add(clauseId(POS, posTags, trie, hintClauses, clauseRules, clauseIds));
+          }
+        }
+      }
+      if (clauses.isEmpty()) {
+        unconditional.set(i);
+      }
+      for (int clause : clauses) {
+        clauseRules.get(clause).add(i);
+      }
+      ruleClauseCount[i] = clauses.size();
+    }
+    return new RulePrefilter(trie, toArrays(hintClauses), toArrays(clauseRules), ruleClauseCount,
+      unconditional, hasLemmaHints, hasPosHints);
+  }
+
+  private static boolean interpretsPosTagsPreDisambiguation(Rule rule) {
+    return rule instanceof AbstractTokenBasedRule && ((AbstractTokenBasedRule) rule).isInterpretPosTagsPreDisambiguation();
+  }
+
+  private static int clauseId(int kind, String[] values, TrieBuilder trie,
+                              List<List<Integer>> hintClauses, List<List<Integer>> clauseRules, Map<List<Object>, Integer> clauseIds) {
+    String[] sorted = values.clone();
+    Arrays.sort(sorted);
+    List<Object> key = new ArrayList<>(sorted.length + 1);
+    key.add(kind);
+    key.addAll(Arrays.asList(sorted));
+    Integer existing = clauseIds.get(key);
+    if (existing != null) {
+      return existing;
+    }
+    int clause = clauseRules.size();
+    clauseIds.put(key, clause);
+    clauseRules.add(new ArrayList<>());
+    for (String value : sorted) {
+      int hint = trie.add(kind, value, hintClauses.size());
+      if (hint == hintClauses.size()) {
+        hintClauses.add(new ArrayList<>());
+      }
+      hintClauses.get(hint).add(clause);
+    }
+    return clause;
+  }
+
+  private static List<int[]> toArrays(List<List<Integer>> lists) {
+    List<int[]> result = new ArrayList<>(lists.size());
+    for (List<Integer> list : lists) {
+      result.add(list.stream().mapToInt(Integer::intValue).toArray());
+    }
+    return result;
+  }
+
+  /**
+   * @return the indices of the rules that might match the given sentence
+   */
+  BitSet getCandidates(AnalyzedSentence sentence) {
+    BitSet result = (BitSet) unconditional.clone();
+    Scratch s = scratch.get();
+    int epoch = s.nextEpoch();
+    for (String token : sentence.getTokenSet()) {
+      hit(lookup(FORM, token), s, epoch, result);
+    }
+    if (hasLemmaHints) {
+      for (String lemma : sentence.getLemmaSet()) {
+        hit(lookup(LEMMA, lemma), s, epoch, result);
+      }
+    }
+    if (hasPosHints) {
+      for (AnalyzedTokenReadings readings : sentence.getTokens()) {
+        for (AnalyzedToken reading : readings) {
+          String posTag = reading.getPOSTag();
+          if (posTag != null) {
+            hit(lookup(POS, posTag), s, epoch, result);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private void hit(int hint, Scratch s, int epoch, BitSet result) {
+    if (hint < 0 || s.hintEpoch[hint] == epoch) {
+      return;
+    }
+    s.hintEpoch[hint] = epoch;
+    for (int clause : hintClauses[hint]) {
+      if (s.clauseEpoch[clause] == epoch) {
+        continue;
+      }
+      s.clauseEpoch[clause] = epoch;
+      for (int rule : clauseRules[clause]) {
+        if (s.ruleEpoch[rule] != epoch) {
+          s.ruleEpoch[rule] = epoch;
+          s.ruleSatisfied[rule] = 0;
+        }
+        if (++s.ruleSatisfied[rule] == ruleClauseCount[rule]) {
+          result.set(rule);
+        }
+      }
+    }
+  }
+
+  private int lookup(int root, String s) {
+    int state = root;
+    for (int i = 0; i < s.length(); i++) {
+      state = transition(state, s.charAt(i));
+      if (state < 0) {
+        return -1;
+      }
+    }
+    return stateHint[state];
+  }
+
+  private int transition(int state, char c) {
+    int low = edgeStart[state];
+    int high = edgeStart[state + 1] - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      char midChar = edgeChars[mid];
+      if (midChar < c) low = mid + 1;
+      else if (midChar > c) high = mid - 1;
+      else return edgeTargets[mid];
+    }
+    return -1;
+  }
+
+  int getStateCount() {
+    return stateHint.length;
+  }
+
+  int getHintCount() {
+    return hintClauses.length;
+  }
+
+  int getClauseCount() {
+    return clauseRules.length;
+  }
+
+  int getUnconditionalRuleCount() {
+    return unconditional.cardinality();
+  }
+
+  /** Per-thread mutable state, reset lazily via epochs so that nothing needs to be cleared or allocated per sentence. */
+  /**
+   * The token-based rules by identity, with {@code null} for the other rules, as only their positions matter.
+   */
+  private static final class Key {
+    private final Rule[] tokenRules;
+    private final boolean withLemmaHints;
+    private final int hashCode;
+
+    private Key(List<? extends Rule> rules, boolean withLemmaHints) {
+      tokenRules = new Rule[rules.size()];
+      int hash = Boolean.hashCode(withLemmaHints);
+      for (int i = 0; i < tokenRules.length; i++) {
+        Rule rule = rules.get(i);
+        if (rule instanceof AbstractTokenBasedRule) {
+          tokenRules[i] = rule;
+        }
+        hash = 31 * hash + System.identityHashCode(tokenRules[i]);
+      }
+      this.withLemmaHints = withLemmaHints;
+      this.hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key that = (Key) o;
+      if (withLemmaHints != that.withLemmaHints || tokenRules.length != that.tokenRules.length) {
+        return false;
+      }
+      for (int i = 0; i < tokenRules.length; i++) {
+        if (tokenRules[i] != that.tokenRules[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private static class Scratch {
+    final int[] hintEpoch;
+    final int[] clauseEpoch;
+    final int[] ruleEpoch;
+    final int[] ruleSatisfied;
+    int epoch;
+
+    Scratch(int hintCount, int clauseCount, int ruleCount) {
+      hintEpoch = new int[hintCount];
+      clauseEpoch = new int[clauseCount];
+      ruleEpoch = new int[ruleCount];
+      ruleSatisfied = new int[ruleCount];
+    }
+
+    int nextEpoch() {
+      if (++epoch == 0) {
+        Arrays.fill(hintEpoch, 0);
+        Arrays.fill(clauseEpoch, 0);
+        Arrays.fill(ruleEpoch, 0);
+        epoch = 1;
+      }
+      return epoch;
+    }
+  }
+
+  private static class TrieBuilder {
+    private final List<State> states = new ArrayList<>();
+
+    TrieBuilder() {
+      states.add(new State());  // FORM root
+      states.add(new State());  // LEMMA root
+      states.add(new State());  // POS root
+    }
+
+    /**
+     * @return the id of the hint accepted by the state for the given string, {@code newHint} if there wasn't any
+     */
+    int add(int root, String s, int newHint) {
+      int state = root;
+      for (int i = 0; i < s.length(); i++) {
+        Integer next = states.get(state).children.get(s.charAt(i));
+        if (next == null) {
+          next = states.size();
+          states.add(new State());
+          states.get(state).children.put(s.charAt(i), next);
+        }
+        state = next;
+      }
+      State target = states.get(state);
+      if (target.hint < 0) {
+        target.hint = newHint;
+      }
+      return target.hint;
+    }
+
+    private static class State {
+      final TreeMap<Character, Integer> children = new TreeMap<>();
+      int hint = -1;
+    }
+  }
+
+}
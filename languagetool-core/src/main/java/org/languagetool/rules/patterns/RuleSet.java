@@ -35,6 +35,7 @@ import java.util.stream.Collectors;
 @ApiStatus.Internal
 public abstract class RuleSet {
   private volatile Set<String> ruleIds;
+  private volatile AntiPatternMatcher antiPatternMatcher;
 
   /**
    * @return all rules in this set, not filtered
@@ -58,6 +59,18 @@ public abstract class RuleSet {
     return result;
   }
 
+  /**
+   * @return the anti-patterns of the Java rules of {@link #allRules()}, to be evaluated once per sentence
+   * @since 6.4
+   */
+  public AntiPatternMatcher getAntiPatternMatcher() {
+    AntiPatternMatcher result = antiPatternMatcher;
+    if (result == null) {
+      antiPatternMatcher = result = new AntiPatternMatcher(allRules());
+    }
+    return result;
+  }
+
   /**
    * @return a simple RuleSet that returns all the rules from {@link #rulesForSentence}
    */
@@ -77,7 +90,7 @@ public abstract class RuleSet {
   }
 
   /**
-   * @return a RuleSet whose {@link #rulesForSentence} excludes rules requiring token texts or lemmas
+   * @return a RuleSet whose {@link #rulesForSentence} excludes rules requiring token texts, lemmas or POS tags
    * that don't occur in the given sentence
    */
   public static RuleSet textLemmaHinted(List<? extends Rule> rules) {
@@ -94,30 +107,7 @@ public abstract class RuleSet {
 
   private static RuleSet hinted(List<? extends Rule> rules, boolean withLemmaHints) {
     List<Rule> allRules = Collections.unmodifiableList(rules);
-    Map<String, BitSet> byToken = new HashMap<>();
-    Map<String, BitSet> byLemma = new HashMap<>();
-    BitSet unclassified = new BitSet();
-    for (int i = 0; i < allRules.size(); i++) {
-      Rule rule = allRules.get(i);
-      boolean classified = false;
-      if (rule instanceof AbstractTokenBasedRule) {
-        AbstractTokenBasedRule.TokenHint[] tokenHints = ((AbstractTokenBasedRule) rule).tokenHints;
-        AbstractTokenBasedRule.TokenHint firstHint =
-          tokenHints == null ? null :
-          withLemmaHints ? tokenHints[0] :
-          Arrays.stream(tokenHints).filter(th -> !th.inflected).findFirst().orElse(null);
-        if (firstHint != null) {
-          classified = true;
-          Map<String, BitSet> map = firstHint.inflected ? byLemma : byToken;
-          for (String hint : firstHint.lowerCaseValues) {
-            map.computeIfAbsent(hint, __ -> new BitSet()).set(i);
-          }
-        }
-      }
-      if (!classified) {
-        unclassified.set(i);
-      }
-    }
+    RulePrefilter prefilter = RulePrefilter.get(allRules, withLemmaHints);
     return new RuleSet() {
       @Override
       public List<Rule> allRules() {
@@ -126,23 +116,7 @@ public abstract class RuleSet {
 
       @Override
       public List<Rule> rulesForSentence(AnalyzedSentence sentence) {
-        BitSet included = new BitSet();
-        included.or(unclassified);
-        if (!byLemma.isEmpty()) {
-          for (String lemma : sentence.getLemmaSet()) {
-            BitSet set = byLemma.get(lemma);
-            if (set != null) {
-              included.or(set);
-            }
-          }
-        }
-        for (String token : sentence.getTokenSet()) {
-          BitSet set = byToken.get(token);
-          if (set != null) {
-            included.or(set);
-          }
-        }
-        return filterList(included, allRules);
+        return filterList(prefilter.getCandidates(sentence), allRules);
       }
     };
   }
@@ -125,6 +125,8 @@ public abstract class StringMatcher {
     Substrings exhaustive = required == null ? null : required.checkCanReplaceRegex(pattern);
     boolean substringsAreSufficient = exhaustive != null;
     Substrings substrings = substringsAreSufficient ? exhaustive : required;
+    // expressions like "(a+)+b" can take exponential time with java.util.regex on some input, so use an automaton:
+    LinearRegex linearRegex = substringsAreSufficient ? null : LinearRegex.compileIfRisky(pattern, caseSensitive);
 
     return new StringMatcher(pattern, true, caseSensitive) {
       @Nullable
@@ -140,6 +142,7 @@ public abstract class StringMatcher {
         }
         if (substrings != null && !substrings.matches(s, caseSensitive)) return false;
         if (substringsAreSufficient) return true;
+        if (linearRegex != null) return linearRegex.matches(s);
         return compiled.matcher(new InterruptibleCharSequence(s)).matches();
       }
     };
@@ -62,6 +62,9 @@ public class MorfologikSpeller {
   private final Dictionary dictionary;
   private final Speller speller;
   private final int maxEditDistance;
+  // Speller isn't thread-safe, so each thread uses its own instance instead of all threads
+  // synchronizing on a single instance:
+  private final ThreadLocal<Speller> threadSpeller;
 
   /**
    * Creates a speller with the given maximum edit distance.
@@ -87,6 +90,7 @@ public class MorfologikSpeller {
     this.dictionary = dictionary;
     this.maxEditDistance = maxEditDistance;
     speller = new Speller(dictionary, maxEditDistance);
+    threadSpeller = ThreadLocal.withInitial(() -> new Speller(dictionary, maxEditDistance));
   }
 
   /**
@@ -101,21 +105,20 @@ public class MorfologikSpeller {
     if (word.isEmpty() || SpellingCheckRule.LANGUAGETOOL.equals(word) || SpellingCheckRule.LANGUAGETOOLER.equals(word)) {
       return false;
     }
-    synchronized (this) {
-      return speller.isMisspelled(word);
-    }
+    return threadSpeller.get().isMisspelled(word);
   }
 
-  public synchronized List<String> findReplacements(String word) {
-    return speller.findReplacements(word);
+  public List<String> findReplacements(String word) {
+    return threadSpeller.get().findReplacements(word);
   }
   
-  public synchronized List<String> findSimilarWords(String word) {
-    return speller.findSimilarWords(word);
+  public List<String> findSimilarWords(String word) {
+    return threadSpeller.get().findSimilarWords(word);
   }
 
   /**
-   * @deprecated use (or introduce) other methods to this class which would take care of the necessary synchronization
+   * @deprecated use (or introduce) other methods to this class which would take care of the necessary synchronization,
+   * the speller returned here is not used by the other methods of this class
    */
   @Deprecated
   public Speller getSpeller() {
@@ -214,7 +217,8 @@ public class MorfologikSpeller {
     return "dist=" + maxEditDistance;
   }
 
-  public synchronized int getFrequency(String word) {
+  public int getFrequency(String word) {
+    Speller speller = threadSpeller.get();
     int freq = speller.getFrequency(word);
     if (freq == 0 && !word.equals(word.toLowerCase())) {
       freq = speller.getFrequency(word.toLowerCase());
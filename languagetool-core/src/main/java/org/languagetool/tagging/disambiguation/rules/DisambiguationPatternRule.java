@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.IntConsumer;
 
 /**
  * A Rule that describes a pattern of words or part-of-speech tags used for
@@ -102,6 +103,21 @@ public class DisambiguationPatternRule extends AbstractTokenBasedRule {
     return canBeIgnoredFor(sentence) ? sentence : new DisambiguationPatternRuleReplacer(this).replace(sentence);
   }
 
+  /**
+   * For a rule with the {@link DisambiguatorAction#IMMUNIZE} action: report the positions (in
+   * {@link AnalyzedSentence#getTokens()}) of the tokens that {@link #replace(AnalyzedSentence)} would immunize,
+   * without creating a new sentence.
+   * @since 6.4
+   */
+  public final void findImmunizedTokens(AnalyzedSentence sentence, IntConsumer immunizedPositions) throws IOException {
+    if (disAction != DisambiguatorAction.IMMUNIZE) {
+      throw new IllegalStateException("Not an IMMUNIZE rule: " + getFullId() + ", action: " + disAction);
+    }
+    if (!canBeIgnoredFor(sentence)) {
+      new DisambiguationPatternRuleReplacer(this).findImmunizedTokens(sentence, immunizedPositions);
+    }
+  }
+
   public void setExamples(List<DisambiguatedExample> examples) {
     this.examples = Objects.requireNonNull(examples);
   }
@@ -19,6 +19,7 @@
  */
 package org.languagetool.tagging.disambiguation.rules;
 
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.AnalyzedToken;
 import org.languagetool.AnalyzedTokenReadings;
@@ -32,6 +33,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.function.IntConsumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -47,8 +49,18 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
   }
 
   AnalyzedSentence replace(AnalyzedSentence sentence) throws IOException {
+    return apply(sentence, null);
+  }
+
+  /**
+   * Report the positions of the tokens that an {@code IMMUNIZE} rule would immunize, without changing anything.
+   */
+  void findImmunizedTokens(AnalyzedSentence sentence, IntConsumer immunizedPositions) throws IOException {
+    apply(sentence, immunizedPositions);
+  }
+
+  private AnalyzedSentence apply(AnalyzedSentence sentence, @Nullable IntConsumer immunizedPositions) throws IOException {
     AnalyzedTokenReadings[] tokens = sentence.getTokensWithoutWhitespace();
-    AnalyzedTokenReadings[] preDisambigTokens = sentence.getTokens();
     AnalyzedTokenReadings[][] whTokens = {sentence.getTokens()};
     boolean[] changed = {false};
 
@@ -67,12 +79,16 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
       }
       int matchingTokens = (int)Arrays.stream(tokenPositions).filter(i -> i != 0).count();
       if (keepDespiteFilter(tokens, tokenPositions, firstMatchToken, lastMatchToken) && keepByDisambig(sentence, ruleMatchFromPos, ruleMatchToPos)) {
-        whTokens[0] = executeAction(sentence, whTokens[0], unifiedTokens, firstMatchToken, lastMarkerMatchToken, matchingTokens, tokenPositions);
-        changed[0] = true;
+        if (!changed[0]) {
+          // copied once per rule, further matches of the rule change the copy:
+          whTokens[0] = whTokens[0].clone();
+          changed[0] = true;
+        }
+        executeAction(sentence, whTokens[0], unifiedTokens, firstMatchToken, lastMarkerMatchToken, matchingTokens, tokenPositions, immunizedPositions);
       }
     });
     if (changed[0]) {
-      return new AnalyzedSentence(whTokens[0], preDisambigTokens);
+      return sentence.withDisambiguatedTokens(whTokens[0]);
     }
     return sentence;
   }
@@ -107,12 +123,13 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
     return true;
   }
 
-  private AnalyzedTokenReadings[] executeAction(AnalyzedSentence sentence,
-                                                AnalyzedTokenReadings[] whiteTokens,
-                                                AnalyzedTokenReadings[] unifiedTokens,
-                                                int firstMatchToken, int lastMatchToken,
-                                                int matchingTokens, int[] tokenPositions) {
-    AnalyzedTokenReadings[] whTokens = whiteTokens.clone();
+  // changes whTokens in place:
+  private void executeAction(AnalyzedSentence sentence,
+                             AnalyzedTokenReadings[] whTokens,
+                             AnalyzedTokenReadings[] unifiedTokens,
+                             int firstMatchToken, int lastMatchToken,
+                             int matchingTokens, int[] tokenPositions,
+                             @Nullable IntConsumer immunizedPositions) {
     DisambiguationPatternRule rule = (DisambiguationPatternRule) this.rule;
 
     int correctedStPos = 0;
@@ -258,7 +275,12 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
       break;
     case IMMUNIZE:
       for (int i = 0; i < matchingTokensWithCorrection - startPositionCorrection + endPositionCorrection; i++) {
-        whTokens[sentence.getOriginalPosition(firstMatchToken + correctedStPos + i)].immunize(rule.getXmlLineNumber());
+        int position = sentence.getOriginalPosition(firstMatchToken + correctedStPos + i);
+        if (immunizedPositions != null) {
+          immunizedPositions.accept(position);
+        } else {
+          whTokens[position].immunize(rule.getXmlLineNumber());
+        }
       }
       break;
     case IGNORE_SPELLING:
@@ -339,8 +361,6 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
           matchElementState.filterReadings();
         }
       }
-
-    return whTokens;
   }
 
 }
@@ -0,0 +1,76 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time at which a check must be finished. The deadline of the check that's currently
+ * running on a thread is set with {@link #setCurrent(CheckDeadline)}, so that long-running code deep
+ * in the rules, like the evaluation of a regular expression via {@link InterruptibleCharSequence}, can
+ * give up with a {@link RegexTimeoutException} once it has passed.
+ * @since 6.4
+ */
+public final class CheckDeadline {
+
+  private static final ThreadLocal<CheckDeadline> current = new ThreadLocal<>();
+
+  private final long endNanos;
+
+  private CheckDeadline(long endNanos) {
+    this.endNanos = endNanos;
+  }
+
+  /**
+   * @return a deadline that's the given number of milliseconds from now
+   */
+  public static CheckDeadline afterMillis(long millis) {
+    return new CheckDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  /**
+   * @return the deadline of the check running on the current thread, or {@code null} if there's none
+   */
+  @Nullable
+  public static CheckDeadline getCurrent() {
+    return current.get();
+  }
+
+  /**
+   * Set the deadline of the check running on the current thread, {@code null} to remove it.
+   */
+  public static void setCurrent(@Nullable CheckDeadline deadline) {
+    if (deadline == null) {
+      current.remove();
+    } else {
+      current.set(deadline);
+    }
+  }
+
+  public boolean isExceeded() {
+    return System.nanoTime() - endNanos > 0;
+  }
+
+  @Override
+  public String toString() {
+    return "CheckDeadline{remainingMillis=" + TimeUnit.NANOSECONDS.toMillis(endNanos - System.nanoTime()) + "}";
+  }
+}
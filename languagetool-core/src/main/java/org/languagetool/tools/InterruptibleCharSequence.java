@@ -25,26 +25,44 @@
 package org.languagetool.tools;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * CharSequence that noticed thread interrupts -- as might be necessary 
  * to recover from a loose regex on unexpected challenging input. 
+ * Also notices when the {@link CheckDeadline} of the current thread's check
+ * (as set when the sequence is created) has passed, and then throws a
+ * {@link RegexTimeoutException}.
  *
  * @author gojomo
  */
 public class InterruptibleCharSequence implements CharSequence {
 
+  // checking the time on every access would be too slow:
+  private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
   private final CharSequence inner;
+  @Nullable
+  private final CheckDeadline deadline;
+  private int accessCount;
 
   public InterruptibleCharSequence(CharSequence inner) {
+    this(inner, CheckDeadline.getCurrent());
+  }
+
+  private InterruptibleCharSequence(CharSequence inner, @Nullable CheckDeadline deadline) {
     super();
     this.inner = inner;
+    this.deadline = deadline;
   }
 
   public char charAt(int index) {
     if (Thread.interrupted()) {
       throw new RuntimeException(new InterruptedException());
     }
+    if (deadline != null && ++accessCount % DEADLINE_CHECK_INTERVAL == 0 && deadline.isExceeded()) {
+      throw new RegexTimeoutException("Regular expression evaluation aborted because the check deadline has passed, input length: " + inner.length());
+    }
     return inner.charAt(index);
   }
 
@@ -53,7 +71,7 @@ public class InterruptibleCharSequence implements CharSequence {
   }
 
   public CharSequence subSequence(int start, int end) {
-    return new InterruptibleCharSequence(inner.subSequence(start, end));
+    return new InterruptibleCharSequence(inner.subSequence(start, end), deadline);
   }
 
   @NotNull
@@ -37,10 +37,12 @@ public final class LtThreadPoolFactory {
   public static final String SERVER_POOL = "lt-server-thread";
   public static final String TEXT_CHECKER_POOL = "lt-text-checker-thread";
   public static final String REMOTE_RULE_EXECUTING_POOL = "remote-rule-executing-thread";
+  public static final String SENTENCE_CHECK_POOL = "lt-sentence-check-thread";
   public static final int REMOTE_RULE_POOL_SIZE_FACTOR = 4;
   // we need more maximum threads for timed out requests that haven't been interrupted/cancelled (or reacted to that) yet
 
   private static final ConcurrentMap<String, ThreadPoolExecutor> executorServices = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<String, ForkJoinPool> forkJoinPools = new ConcurrentHashMap<>();
 
   private static final Counter rejectedTasks = Counter.build("languagetool_threadpool_rejected_tasks",
     "Rejected tasks by threadpool").labelNames("pool").register();
@@ -61,7 +63,7 @@ public final class LtThreadPoolFactory {
   static {
     Timer timer = new Timer("LtThreadPoolMonitor", true);
     TimerTask timedAction = new TimerTask() {
-      final String[] poolNames = new String[]{SERVER_POOL, TEXT_CHECKER_POOL, REMOTE_RULE_EXECUTING_POOL};
+      final String[] poolNames = new String[]{SERVER_POOL, TEXT_CHECKER_POOL, REMOTE_RULE_EXECUTING_POOL, SENTENCE_CHECK_POOL};
 
       @Override
       public void run() {
@@ -166,5 +168,24 @@ public final class LtThreadPoolFactory {
     }
   }
 
+  /**
+   * @param identifier  Name of the pool, will be used as name of the threads in the pool
+   * @param parallelism Maximum number of threads working on tasks of this pool at the same time
+   * @return a work-stealing pool of daemon threads, shared by all callers using the same identifier
+   * (the parallelism of the first call applies)
+   */
+  public static ForkJoinPool getForkJoinPool(@NotNull String identifier, int parallelism) {
+    return forkJoinPools.computeIfAbsent(identifier, id -> {
+      log.debug(LoggingTools.SYSTEM, String.format("Create new ForkJoinPool with parallelism: %d identifier: %s", parallelism, identifier));
+      ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName(identifier + "-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+      };
+      return new ForkJoinPool(parallelism, threadFactory, null, false);
+    });
+  }
+
   static final ThreadPoolExecutor defaultPool = new ThreadPoolExecutor(12, 64, 60, SECONDS, new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat("default-lt-pool-%d").build(), new ThreadPoolExecutor.AbortPolicy());
 }
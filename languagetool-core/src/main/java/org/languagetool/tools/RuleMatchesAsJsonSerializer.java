@@ -103,10 +103,7 @@ public class RuleMatchesAsJsonSerializer {
      */
   public String ruleMatchesToJson2(List<CheckResults> res, List<RuleMatch> hiddenMatches, AnnotatedText text, int contextSize,
                                    DetectedLanguage detectedLang, String incompleteResultsReason, boolean showPremiumHint, JLanguageTool.Mode mode) {
-    ContextTools contextTools = new ContextTools();
-    contextTools.setEscapeHtml(false);
-    contextTools.setContextSize(contextSize);
-    contextTools.setErrorMarker(START_MARKER, "");
+    ContextTools contextTools = getContextTools(contextSize);
     StringWriter sw = new StringWriter();
     try {
       try (JsonGenerator g = factory.createGenerator(sw)) {
@@ -129,6 +126,35 @@ public class RuleMatchesAsJsonSerializer {
     return sw.toString();
   }
 
+  /**
+   * Serialize some of the matches of a check that isn't complete yet, as used for streaming the results.
+   * @return a JSON object with {@code "partial": true} and a 'matches' section like the one of {@link #ruleMatchesToJson2}
+   * @since 6.4
+   */
+  public String partialRuleMatchesToJson(List<RuleMatch> matches, AnnotatedText text, int contextSize) {
+    ContextTools contextTools = getContextTools(contextSize);
+    StringWriter sw = new StringWriter();
+    try {
+      try (JsonGenerator g = factory.createGenerator(sw)) {
+        g.writeStartObject();
+        g.writeBooleanField("partial", true);
+        writeMatchesSection("matches", g, Collections.singletonList(new CheckResults(matches, Collections.emptyList())), text, contextTools);
+        g.writeEndObject();
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return sw.toString();
+  }
+
+  private ContextTools getContextTools(int contextSize) {
+    ContextTools contextTools = new ContextTools();
+    contextTools.setEscapeHtml(false);
+    contextTools.setContextSize(contextSize);
+    contextTools.setErrorMarker(START_MARKER, "");
+    return contextTools;
+  }
+
   private void writeSoftwareSection(JsonGenerator g, boolean showPremiumHint) throws IOException {
     if (compactMode == 1) {
       return;
@@ -22,7 +22,11 @@ package org.languagetool;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class AnalyzedSentenceTest {
 
@@ -53,4 +57,71 @@ public class AnalyzedSentenceTest {
     assertNotEquals(sentence, copySentence);
   }
 
+  @Test
+  public void testEstimatedRetainedBytes() {
+    AnalyzedTokenReadings[] words = new AnalyzedTokenReadings[3];
+    words[0] = new AnalyzedTokenReadings(new AnalyzedToken("", "SENT_START", null));
+    words[1] = new AnalyzedTokenReadings(new AnalyzedToken("word", "POS", "lemma"));
+    words[2] = new AnalyzedTokenReadings(new AnalyzedToken(".", "INTERP", null));
+    AnalyzedSentence sentence = new AnalyzedSentence(words);
+    AnalyzedTokenReadings[] preDisambigWords = new AnalyzedTokenReadings[3];
+    for (int i = 0; i < words.length; i++) {
+      preDisambigWords[i] = new AnalyzedTokenReadings(words[i], words[i].getReadings(), "");
+    }
+    AnalyzedSentence sentenceWithPreDisambigCopy = new AnalyzedSentence(words, preDisambigWords);
+    int bytes = sentence.getEstimatedRetainedBytes();
+    assertTrue(bytes > 0);
+    assertEquals(bytes, sentence.getEstimatedRetainedBytes());
+    // the readings are shared, only the token readings objects are copies:
+    assertTrue(sentenceWithPreDisambigCopy.getEstimatedRetainedBytes() > bytes);
+    assertTrue(sentenceWithPreDisambigCopy.getEstimatedRetainedBytes() < 2 * bytes);
+    // the indexes are estimated, not built, so the estimate is the same if they exist already:
+    AnalyzedSentence indexedSentence = new AnalyzedSentence(words);
+    assertFalse(indexedSentence.getTokenSet().isEmpty());
+    assertFalse(indexedSentence.getLemmaSet().isEmpty());
+    assertEquals(bytes, indexedSentence.getEstimatedRetainedBytes());
+  }
+
+  @Test
+  public void testWithDisambiguatedTokens() {
+    AnalyzedTokenReadings[] words = new AnalyzedTokenReadings[5];
+    words[0] = new AnalyzedTokenReadings(new AnalyzedToken("", "SENT_START", null));
+    words[1] = new AnalyzedTokenReadings(new AnalyzedToken("Foo", "POS", "foo"));
+    words[2] = new AnalyzedTokenReadings(new AnalyzedToken(" ", null, null));
+    words[3] = new AnalyzedTokenReadings(new AnalyzedToken("bar", "POS1", "bar"));
+    words[3].addReading(new AnalyzedToken("bar", "POS2", "baz"), "");
+    words[4] = new AnalyzedTokenReadings(new AnalyzedToken(".", "SENT_END", null));
+    AnalyzedSentence sentence = new AnalyzedSentence(words);
+    assertEquals("[1]", String.valueOf(sentence.getTokenOffsets("foo")));
+    assertEquals("[2]", String.valueOf(sentence.getLemmaOffsets("baz")));
+
+    // a disambiguation step that removes a reading:
+    AnalyzedTokenReadings[] disambiguated = words.clone();
+    disambiguated[3] = new AnalyzedTokenReadings(words[3], words[3].getReadings().subList(0, 1), "TEST_RULE");
+    AnalyzedSentence derived = sentence.withDisambiguatedTokens(disambiguated);
+    AnalyzedSentence expected = new AnalyzedSentence(disambiguated, words);
+    assertEquals(expected, derived);
+    assertSame(disambiguated, derived.getTokens());
+    assertEquals(expected.getPreDisambigTokensWithoutWhitespace().length, derived.getPreDisambigTokensWithoutWhitespace().length);
+    assertEquals(expected.getTokenSet(), derived.getTokenSet());
+    assertSame(sentence.getTokenSet(), derived.getTokenSet());  // the token index is re-used
+    assertEquals(expected.getLemmaSet(), derived.getLemmaSet());
+    assertNotSame(sentence.getLemmaSet(), derived.getLemmaSet());  // the lemma index is not, as the readings have changed
+    assertEquals(expected.getLemmaOffsets("bar"), derived.getLemmaOffsets("bar"));
+    assertEquals(null, derived.getLemmaOffsets("baz"));
+
+    // a step that changes the readings in place:
+    AnalyzedTokenReadings[] disambiguated2 = disambiguated.clone();
+    disambiguated2[1].removeReading(disambiguated2[1].getAnalyzedToken(0), "TEST_RULE");
+    AnalyzedSentence derived2 = derived.withDisambiguatedTokens(disambiguated2);
+    assertEquals(new AnalyzedSentence(disambiguated2, disambiguated).getLemmaSet(), derived2.getLemmaSet());
+
+    // a step that changes the whitespace falls back to computing everything:
+    AnalyzedTokenReadings[] disambiguated3 = disambiguated2.clone();
+    disambiguated3[3] = new AnalyzedTokenReadings(new AnalyzedToken(" ", null, null));
+    AnalyzedSentence derived3 = derived2.withDisambiguatedTokens(disambiguated3);
+    assertEquals(new AnalyzedSentence(disambiguated3, disambiguated2), derived3);
+    assertEquals(3, derived3.getTokensWithoutWhitespace().length);
+  }
+
 }
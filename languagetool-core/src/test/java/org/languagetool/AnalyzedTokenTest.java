@@ -49,5 +49,15 @@ public class AnalyzedTokenTest {
     assertTrue(testToken1.matches(new AnalyzedToken("", "POS", "lemma")));
     assertTrue(testToken1.matches(new AnalyzedToken("", null, "lemma")));
   }
-  
+
+  @Test
+  public void testSharedStrings() {
+    AnalyzedToken token1 = new AnalyzedToken("word", new String("POS"), "lemma");
+    AnalyzedToken token2 = new AnalyzedToken("other", new String("POS "), "lemma");
+    assertSame(token1.getPOSTag(), token2.getPOSTag());
+    String word = "word";
+    AnalyzedToken token3 = new AnalyzedToken(word, "POS", new String(word));
+    assertSame(word, token3.getLemma());
+  }
+
 }
@@ -0,0 +1,158 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.rules.*;
+import org.languagetool.tools.Tools;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class DocumentSessionTest {
+
+  private static final String PARA1 = "This is the first paragraph. It has (two sentences.\n\n";
+  private static final String PARA2 = "This is the second one.\n\n";
+  private static final String PARA3 = "Here comes a third paragraph).\n\n";
+  private static final String PARA4 = "Here is the (end.";
+
+  @Test
+  public void testSameResultsAsWithoutSession() throws IOException {
+    DocumentSession session = new DocumentSession();
+    JLanguageTool lt = getLanguageTool(new CountingRule());
+    List<String> versions = Arrays.asList(
+      PARA1 + PARA2 + PARA3 + PARA4,
+      PARA1 + PARA2 + PARA3 + PARA4,                 // unchanged
+      PARA1 + "This is the second one!\n\n" + PARA3 + PARA4,
+      PARA1 + "Here is a new one.\n\n" + PARA2 + PARA3 + PARA4,  // inserted
+      PARA1 + PARA3 + PARA4,                         // deleted
+      PARA2 + PARA1 + PARA3 + PARA4 + "\n\n" + PARA1,
+      "");
+    for (String version : versions) {
+      List<String> expected = toStrings(check(getLanguageTool(new CountingRule()), version, null));
+      assertEquals("Version: " + version, expected, toStrings(check(lt, version, session)));
+    }
+  }
+
+  @Test
+  public void testReuse() throws IOException {
+    DocumentSession session = new DocumentSession();
+    CountingRule countingRule = new CountingRule();
+    JLanguageTool lt = getLanguageTool(countingRule);
+    check(lt, PARA1 + PARA2 + PARA3 + PARA4, session);
+    assertEquals(0, session.getReusedSentenceCount());
+    assertEquals(0, session.getReusedParagraphCount());
+    assertEquals(5, countingRule.sentenceCount);
+
+    countingRule.sentenceCount = 0;
+    check(lt, PARA1 + PARA2 + PARA3 + PARA4, session);
+    assertEquals(5, session.getReusedSentenceCount());
+    assertEquals(0, countingRule.sentenceCount);
+
+    countingRule.sentenceCount = 0;
+    List<RuleMatch> matches = check(lt, PARA1 + PARA2 + "Here comes a fourth paragraph).\n\n" + PARA4, session);
+    assertEquals(4, session.getReusedSentenceCount());
+    assertEquals(1, countingRule.sentenceCount);  // only the changed paragraph
+    // the unpaired bracket rule needs the whole text, the paragraph repeat rule the paragraphs around the change:
+    assertEquals(3 + 1, session.getReusedParagraphCount());
+    assertTrue(matches.stream().anyMatch(m -> m.getRule().getId().equals("TEST_UNPAIRED_BRACKETS")));
+  }
+
+  @Test
+  public void testSettingsChangeResetsSession() throws IOException {
+    DocumentSession session = new DocumentSession();
+    JLanguageTool lt = getLanguageTool(new CountingRule());
+    check(lt, PARA1 + PARA2, session);
+    lt.check2(new AnnotatedTextBuilder().addText(PARA1 + PARA2).build(), true, JLanguageTool.ParagraphHandling.NORMAL,
+      null, JLanguageTool.Mode.ALL, JLanguageTool.Level.PICKY, Collections.emptySet(), null, session);
+    assertEquals(0, session.getReusedSentenceCount());
+  }
+
+  private static JLanguageTool getLanguageTool(CountingRule countingRule) {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    lt.setCleanOverlappingMatches(false);
+    ResourceBundle messages = JLanguageTool.getMessageBundle();
+    lt.addRule(new ParagraphRepeatBeginningRule(messages, lt.getLanguage()));
+    lt.enableRule("PARAGRAPH_REPEAT_BEGINNING_RULE");
+    lt.addRule(new GenericUnpairedBracketsRule("TEST_UNPAIRED_BRACKETS", messages,
+      Collections.singletonList("("), Collections.singletonList(")")));
+    lt.addRule(countingRule);
+    return lt;
+  }
+
+  private static List<RuleMatch> check(JLanguageTool lt, String text, DocumentSession session) throws IOException {
+    AnnotatedText annotatedText = new AnnotatedTextBuilder().addText(text).build();
+    return lt.check2(annotatedText, true, JLanguageTool.ParagraphHandling.NORMAL, null,
+      JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, Collections.emptySet(), null, session).getRuleMatches();
+  }
+
+  private static List<String> toStrings(List<RuleMatch> matches) {
+    return matches.stream()
+      .map(m -> m.getRule().getId() + ":" + m.getFromPos() + "-" + m.getToPos() + ":" + m.getLine() + "/" + m.getColumn())
+      .sorted()
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Marks the first word of each paragraph and counts the sentences it has been run on.
+   */
+  static class CountingRule extends TextLevelRule {
+    private int sentenceCount;
+
+    @Override
+    public RuleMatch[] match(List<AnalyzedSentence> sentences) {
+      List<RuleMatch> matches = new ArrayList<>();
+      int pos = 0;
+      boolean paragraphStart = true;
+      for (int i = 0; i < sentences.size(); i++) {
+        AnalyzedSentence sentence = sentences.get(i);
+        AnalyzedTokenReadings[] tokens = sentence.getTokensWithoutWhitespace();
+        if (paragraphStart && tokens.length > 1) {
+          matches.add(new RuleMatch(this, sentence, pos + tokens[1].getStartPos(), pos + tokens[1].getEndPos(), "Paragraph start"));
+        }
+        paragraphStart = Tools.isParagraphEnd(sentences, i, new Demo());
+        pos += sentence.getText().length();
+        sentenceCount++;
+      }
+      return toRuleMatchArray(matches);
+    }
+
+    @Override
+    public int minToCheckParagraph() {
+      return 0;
+    }
+
+    @Override
+    public String getId() {
+      return "COUNTING_RULE";
+    }
+
+    @Override
+    public String getDescription() {
+      return "Test rule";
+    }
+  }
+
+}
@@ -21,10 +21,7 @@ package org.languagetool;
 import org.junit.Test;
 import org.languagetool.rules.CategoryId;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
+import java.util.*;
 
 import static org.junit.Assert.*;
 
@@ -72,4 +69,31 @@ public class InputSentenceTest {
     assertNotEquals(inputSentence1a, inputSentence1aOtherAltLang);
   }
 
+  @Test
+  public void testStableKey() {
+    Language lang = Languages.getLanguageForShortCode("xx-XX");
+    JLanguageTool.Mode mode = JLanguageTool.Mode.ALL;
+    JLanguageTool.Level level = JLanguageTool.Level.DEFAULT;
+    InputSentence sentence1 = new InputSentence("foo", lang, null,
+            new HashSet<>(Arrays.asList("ID1", "ID2")), new HashSet<>(), new HashSet<>(), new HashSet<>(),
+            new UserConfig(Arrays.asList("foo1", "foo2")), new ArrayList<>(), mode, level);
+    InputSentence sentence2 = new InputSentence("foo", lang, null,
+            new LinkedHashSet<>(Arrays.asList("ID2", "ID1")), new HashSet<>(), new HashSet<>(), new HashSet<>(),
+            new UserConfig(Arrays.asList("foo1", "foo2")), new ArrayList<>(), mode, level);
+    assertEquals(sentence1, sentence2);
+    assertEquals(sentence1.getStableKey(), sentence2.getStableKey());
+    InputSentence otherWords = new InputSentence("foo", lang, null,
+            new HashSet<>(Arrays.asList("ID1", "ID2")), new HashSet<>(), new HashSet<>(), new HashSet<>(),
+            new UserConfig(Arrays.asList("foo1", "foo3")), new ArrayList<>(), mode, level);
+    assertNotEquals(sentence1.getStableKey(), otherWords.getStableKey());
+    InputSentence otherMode = new InputSentence("foo", lang, null,
+            new HashSet<>(Arrays.asList("ID1", "ID2")), new HashSet<>(), new HashSet<>(), new HashSet<>(),
+            new UserConfig(Arrays.asList("foo1", "foo2")), new ArrayList<>(), JLanguageTool.Mode.TEXTLEVEL_ONLY, level);
+    assertNotEquals(sentence1.getStableKey(), otherMode.getStableKey());
+    InputSentence otherText = new InputSentence("fo", lang, null,
+            new HashSet<>(Arrays.asList("oID1", "ID2")), new HashSet<>(), new HashSet<>(), new HashSet<>(),
+            new UserConfig(Arrays.asList("foo1", "foo2")), new ArrayList<>(), mode, level);
+    assertNotEquals(sentence1.getStableKey(), otherText.getStableKey());
+  }
+
 }
@@ -18,18 +18,24 @@
  */
 package org.languagetool;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.junit.Test;
+import org.languagetool.language.Demo;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
 import org.languagetool.rules.patterns.PatternRule;
 import org.languagetool.rules.patterns.PatternRuleBuilderHelper;
 import org.languagetool.rules.patterns.PatternToken;
+import org.languagetool.tools.CheckDeadline;
+import org.languagetool.tools.CheckDeadlineExceededException;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 
 public class JLanguageToolTest {
 
@@ -52,4 +58,103 @@ public class JLanguageToolTest {
     assertThat(matches2.size(), is(1));
   }
 
+  @Test
+  public void testSentenceCheckPool() throws IOException {
+    String input = "A small toast. No error here. Foo go bar. First goes last there, please! " +
+      "And a small toast again. Foo go bar, said he.";
+    JLanguageTool lt1 = new JLanguageTool(new Demo());
+    lt1.setCleanOverlappingMatches(false);
+    List<RuleMatch> matches1 = lt1.check(input);
+    assertThat(matches1.isEmpty(), is(false));
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      JLanguageTool lt2 = new JLanguageTool(new Demo());
+      lt2.setCleanOverlappingMatches(false);
+      lt2.setSentenceCheckPool(pool);
+      for (int i = 0; i < 5; i++) {
+        List<RuleMatch> matches2 = lt2.check(input);
+        assertThat(matches2.toString(), is(matches1.toString()));
+      }
+      assertThat(lt2.analyzeText(input).toString(), is(lt1.analyzeText(input).toString()));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testSentenceCheckPoolRunsOtherRulesOnCheckThread() throws IOException {
+    String input = "A small toast. Foo go bar. First goes last there, please! And a small toast again.";
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      JLanguageTool lt = new JLanguageTool(new Demo());
+      Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+      lt.addRule(new Rule() {
+        @Override
+        public String getId() {
+          return "THREAD_RECORDING_RULE";
+        }
+        @Override
+        public String getDescription() {
+          return "Records the threads it's used by";
+        }
+        @Override
+        public RuleMatch[] match(AnalyzedSentence sentence) {
+          threads.add(Thread.currentThread());
+          return RuleMatch.EMPTY_ARRAY;
+        }
+      });
+      lt.setSentenceCheckPool(pool);
+      lt.check(input);
+      assertThat(threads, is(Collections.singleton(Thread.currentThread())));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testSentenceCheckPoolCancellation() throws IOException {
+    String input = "A small toast. Foo go bar. First goes last there, please!";
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      JLanguageTool lt = new JLanguageTool(new Demo());
+      lt.setSentenceCheckPool(pool);
+      CheckDeadline.setCurrent(CheckDeadline.afterMillis(-1));
+      try {
+        lt.check(input);
+        fail();
+      } catch (RuntimeException e) {
+        assertThat(ExceptionUtils.indexOfType(e, CheckDeadlineExceededException.class) >= 0, is(true));  // not an incomplete result
+      } finally {
+        CheckDeadline.setCurrent(null);
+      }
+      Thread.currentThread().interrupt();
+      try {
+        lt.check(input);
+        fail();
+      } catch (RuntimeException e) {
+        assertThat(e.getCause() instanceof InterruptedException, is(true));
+        assertThat(Thread.interrupted(), is(true));
+      }
+      assertThat(lt.check(input).isEmpty(), is(false));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testStreamingListener() throws IOException {
+    String input = "A small toast. Foo go bar.\n\nNo error here.\n\nFirst goes last there, please!";
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    List<RuleMatch> matches = lt.check(input);
+    assertThat(matches.size() > 1, is(true));
+    List<List<RuleMatch>> batches = new ArrayList<>();
+    List<RuleMatch> streamed = lt.check(input, (StreamingRuleMatchListener) batches::add);
+    assertThat(streamed.toString(), is(matches.toString()));
+    assertThat(batches.size(), is(3));  // one per paragraph
+    List<RuleMatch> allBatches = new ArrayList<>();
+    batches.forEach(allBatches::addAll);
+    assertThat(allBatches.toString(), is(matches.toString()));
+  }
+
 }
@@ -0,0 +1,80 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LongLongMapTest {
+
+  @Test
+  public void testGetPutRemove() {
+    LongLongMap map = new LongLongMap();
+    assertEquals(LongLongMap.NO_VALUE, map.get(0));
+    assertEquals(LongLongMap.NO_VALUE, map.put(0, 1));
+    assertEquals(LongLongMap.NO_VALUE, map.put(-1, 0));
+    assertEquals(1, map.put(0, 2));
+    assertEquals(2, map.get(0));
+    assertEquals(0, map.get(-1));
+    assertEquals(2, map.size());
+    assertEquals(2, map.remove(0));
+    assertEquals(LongLongMap.NO_VALUE, map.remove(0));
+    assertEquals(LongLongMap.NO_VALUE, map.get(0));
+    assertEquals(1, map.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeValue() {
+    new LongLongMap().put(1, -1);
+  }
+
+  @Test
+  public void testSameAsHashMap() {
+    // few distinct keys, so that there are many collisions and removals in the middle of probe sequences:
+    Random random = new Random(42);
+    LongLongMap map = new LongLongMap(2);
+    Map<Long, Long> expected = new HashMap<>();
+    for (int i = 0; i < 100_000; i++) {
+      long key = random.nextInt(500) * 0x100000000L;
+      long value = random.nextInt(1000);
+      switch (random.nextInt(3)) {
+        case 0:
+          assertEquals((long) expected.getOrDefault(key, LongLongMap.NO_VALUE), map.put(key, value));
+          expected.put(key, value);
+          break;
+        case 1:
+          Long removed = expected.remove(key);
+          assertEquals(removed == null ? LongLongMap.NO_VALUE : removed, map.remove(key));
+          break;
+        default:
+          assertEquals((long) expected.getOrDefault(key, LongLongMap.NO_VALUE), map.get(key));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+      assertEquals((long) entry.getValue(), map.get(entry.getKey()));
+    }
+  }
+
+}
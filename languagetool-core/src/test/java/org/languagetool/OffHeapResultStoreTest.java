@@ -0,0 +1,143 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OffHeapResultStoreTest {
+
+  @Test
+  public void testGetAndPut() {
+    OffHeapResultStore store = new OffHeapResultStore(1024, 256);
+    assertNull(store.get("a"));
+    store.put("a", new byte[]{1, 2, 3});
+    store.put("b", new byte[0]);
+    assertArrayEquals(new byte[]{1, 2, 3}, store.get("a"));
+    assertArrayEquals(new byte[0], store.get("b"));
+    store.put("a", new byte[]{4});
+    assertArrayEquals(new byte[]{4}, store.get("a"));
+    assertEquals(2, store.getEntryCount());
+    assertEquals(3, store.getHitCount());
+    assertEquals(1, store.getMissCount());
+    assertEquals(16 + 1 + 1 + 16 + 1, store.getUsedBytes());  // header, key, value
+    assertEquals(256, store.getAllocatedBytes());
+    assertEquals(1024, store.getCapacityBytes());
+  }
+
+  @Test
+  public void testEviction() {
+    // 4 segments with 2 entries of 50 bytes each:
+    OffHeapResultStore store = new OffHeapResultStore(400, 100);
+    for (int i = 0; i < 8; i++) {
+      store.put("key" + i, new byte[30]);
+    }
+    assertEquals(8, store.getEntryCount());
+    assertEquals(0, store.getEvictionCount());
+    store.put("key8", new byte[30]);  // clears the first segment
+    assertEquals(7, store.getEntryCount());
+    assertEquals(2, store.getEvictionCount());
+    assertNull(store.get("key0"));
+    assertNull(store.get("key1"));
+    assertNotNull(store.get("key2"));
+    assertEquals(400, store.getAllocatedBytes());
+    assertEquals(7 * 50, store.getUsedBytes());
+  }
+
+  @Test
+  public void testFrequentlyUsedEntriesSurvive() {
+    OffHeapResultStore store = new OffHeapResultStore(400, 100);
+    for (int i = 0; i < 100; i++) {
+      store.put("key" + i, new byte[30]);
+      assertNotNull(store.get("key0"));
+    }
+    assertNull(store.get("key1"));
+    assertTrue(store.getEvictionCount() > 80);
+  }
+
+  @Test
+  public void testTooLargeEntry() {
+    OffHeapResultStore store = new OffHeapResultStore(400, 100);
+    store.put("key", new byte[100]);
+    assertNull(store.get("key"));
+    assertEquals(1, store.getRejectedCount());
+    assertEquals(0, store.getAllocatedBytes());
+  }
+
+  @Test
+  public void testPartitions() throws Exception {
+    // 4 partitions with 4 segments of 100 bytes each:
+    OffHeapResultStore store = new OffHeapResultStore(1600, 100, 4);
+    assertEquals(4, store.getPartitionCount());
+    assertEquals(1600, store.getCapacityBytes());
+    int threadCount = 4;
+    AtomicInteger wrongValues = new AtomicInteger();
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      int offset = t * 1000;
+      threads[t] = new Thread(() -> {
+        for (int i = offset; i < offset + 1000; i++) {
+          store.put("key" + i, new byte[]{(byte) i});
+          byte[] value = store.get("key" + i);
+          if (value != null && value[0] != (byte) i) {
+            wrongValues.incrementAndGet();
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, wrongValues.get());
+    assertEquals(1600, store.getAllocatedBytes());
+    assertTrue(store.getEntryCount() > 0);
+    assertEquals(4000, store.getHitCount() + store.getMissCount());
+    // an entry that is written again after a hit can be evicted from its old segment by that write, so it's counted twice:
+    assertTrue(store.getEntryCount() + store.getEvictionCount() >= 4000);
+  }
+
+  @Test
+  public void testPartitionCount() {
+    assertEquals(1, new OffHeapResultStore(1024 * 1024).getPartitionCount());
+    assertEquals(16, new OffHeapResultStore(1024 * 1024 * 1024).getPartitionCount());
+  }
+
+  @Test
+  public void testAsSecondLevelCache() throws Exception {
+    String text = "A small toast. Foo go bar. First goes last there, please!";
+    OffHeapResultStore store = new OffHeapResultStore(1024 * 1024);
+    ResultCache cache1 = new ResultCache(1000);
+    cache1.setSecondLevelCache(store, "");
+    String matches = new JLanguageTool(new Demo(), null, cache1).check(text).toString();
+    for (int i = 0; i < 100 && store.getEntryCount() < 3; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(3, store.getEntryCount());
+    ResultCache cache2 = new ResultCache(1000);
+    cache2.setSecondLevelCache(store, "");
+    assertEquals(matches, new JLanguageTool(new Demo(), null, cache2).check(text).toString());
+    assertEquals(3, store.getHitCount());
+  }
+
+}
@@ -0,0 +1,122 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+  @Test
+  public void testSentenceCacheBytes() throws IOException {
+    ResultCache cache = new ResultCache(1000);
+    JLanguageTool lt = new JLanguageTool(new Demo(), null, cache);
+    assertEquals(0, cache.getSentenceCacheBytes());
+    lt.check("A short sentence. And another one.");
+    assertEquals(2, cache.getSentenceCache().size());
+    long bytes = cache.getSentenceCacheBytes();
+    assertTrue(bytes > 0);
+    long expected = 0;
+    for (AnalyzedSentence sentence : cache.getSentenceCache().asMap().values()) {
+      expected += sentence.getEstimatedRetainedBytes();
+    }
+    assertEquals(expected, bytes);
+    lt.check("A short sentence. And another one.");  // cache hits, nothing added
+    assertEquals(bytes, cache.getSentenceCacheBytes());
+    cache.getSentenceCache().invalidateAll();
+    assertEquals(0, cache.getSentenceCacheBytes());
+  }
+
+  @Test
+  public void testShortSentencesHaveWeight() {
+    AnalyzedSentence sentence = new AnalyzedSentence(new AnalyzedTokenReadings[]{
+      new AnalyzedTokenReadings(new AnalyzedToken("", "SENT_START", null))});
+    ResultCache.SentenceWeigher weigher = new ResultCache.SentenceWeigher(new LongAdder());
+    assertEquals(1, weigher.weigh(new SimpleInputSentence("", new Demo()), sentence));
+  }
+
+  @Test
+  public void testSecondLevelCache() throws IOException, InterruptedException {
+    String text = "A small toast. Foo go bar. First goes last there, please!";
+    Map<String, byte[]> storage = new ConcurrentHashMap<>();
+    AtomicInteger requests = new AtomicInteger();
+    SecondLevelResultCache secondLevelCache = new SecondLevelResultCache() {
+      @Override
+      public byte[] get(String key) {
+        requests.incrementAndGet();
+        return storage.get(key);
+      }
+      @Override
+      public List<byte[]> getAll(List<String> keys) {
+        requests.incrementAndGet();
+        List<byte[]> values = new ArrayList<>();
+        for (String key : keys) {
+          values.add(storage.get(key));
+        }
+        return values;
+      }
+      @Override
+      public void put(String key, byte[] value) {
+        storage.put(key, value);
+      }
+    };
+    ResultCache cache1 = new ResultCache(1000);
+    cache1.setSecondLevelCache(secondLevelCache, "test");
+    List<RuleMatch> matches = new JLanguageTool(new Demo(), null, cache1).check(text);
+    assertTrue(matches.size() > 1);
+    for (int i = 0; i < 100 && cache1.getSecondLevelWriteCount() < 3; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(3, cache1.getSecondLevelWriteCount());
+    assertEquals(3, storage.size());
+
+    ResultCache cache2 = new ResultCache(1000);
+    cache2.setSecondLevelCache(secondLevelCache, "test");
+    requests.set(0);
+    List<RuleMatch> matches2 = new JLanguageTool(new Demo(), null, cache2).check(text);
+    assertEquals(1, requests.get());  // all sentences are looked up at once
+    assertEquals(matches.toString(), matches2.toString());
+    for (int i = 0; i < matches.size(); i++) {
+      assertEquals(matches.get(i).getSuggestedReplacements(), matches2.get(i).getSuggestedReplacements());
+      assertEquals(matches.get(i).getRule().getFullId(), matches2.get(i).getRule().getFullId());
+    }
+    assertEquals(3, cache2.getSecondLevelHitCount());
+    assertEquals(0, cache2.getSecondLevelMissCount());
+    assertTrue(cache2.getSecondLevelDeserializationNanos() > 0);
+
+    ResultCache cache3 = new ResultCache(1000);
+    cache3.setSecondLevelCache(secondLevelCache, "other");
+    new JLanguageTool(new Demo(), null, cache3).check(text);  // different namespace, no hits
+    assertEquals(0, cache3.getSecondLevelHitCount());
+    assertEquals(3, cache3.getSecondLevelMissCount());
+  }
+
+}
@@ -0,0 +1,134 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SuggestedReplacement;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class RuleMatchListSerializerTest {
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    AnalyzedSentence sentence = lt.getAnalyzedSentence("This is foo bar.");
+    Rule rule = lt.getAllRules().get(0);
+    RuleMatchListSerializer.Rules rules = new RuleMatchListSerializer.Rules(lt.getAllRules());
+
+    RuleMatch match1 = new RuleMatch(rule, sentence, 8, 11, 5, 15, "Did you mean <suggestion>bar</suggestion>?", "Short");
+    match1.setSentencePosition(8, 11);
+    match1.setUrl(new URL("https://example.com/rule"));
+    match1.setType(RuleMatch.Type.UnknownWord);
+    match1.setAutoCorrect(true);
+    match1.setSpecificRuleId("SPECIFIC_ID");
+    match1.setOriginalErrorStr("foo");
+    match1.setFeatures(new TreeMap<>(Collections.singletonMap("f", 0.5f)));
+    Map<String, Float> languages = new LinkedHashMap<>();
+    languages.put("de", 0.9f);
+    languages.put("en", 0.1f);
+    match1.setNewLanguageMatches(languages);
+    SuggestedReplacement suggestion = new SuggestedReplacement("bar", "a word", "!");
+    suggestion.setConfidence(0.75f);
+    suggestion.setType(SuggestedReplacement.SuggestionType.Curated);
+    suggestion.setFeatures(new TreeMap<>(Collections.singletonMap("g", 2f)));
+    match1.setSuggestedReplacementObjects(Arrays.asList(suggestion, new SuggestedReplacement("baz")));
+    RuleMatch match2 = new RuleMatch(rule, sentence, 0, 4, "Message");
+    match2.setLazySuggestedReplacements(() -> Collections.singletonList(new SuggestedReplacement("That")));
+
+    List<RuleMatch> matches = Arrays.asList(match1, match2);
+    assertTrue(RuleMatchListSerializer.canSerialize(matches, rules));
+    List<RuleMatch> result = RuleMatchListSerializer.deserialize(RuleMatchListSerializer.serialize(matches, rules), sentence, rules);
+    assertNotNull(result);
+    assertEquals(2, result.size());
+    for (int i = 0; i < matches.size(); i++) {
+      RuleMatch expected = matches.get(i);
+      RuleMatch actual = result.get(i);
+      assertSame(rule, actual.getRule());
+      assertSame(sentence, actual.getSentence());
+      assertEquals(expected.toString(), actual.toString());
+      assertEquals(expected.getShortMessage(), actual.getShortMessage());
+      assertEquals(expected.getPatternFromPos(), actual.getPatternFromPos());
+      assertEquals(expected.getPatternToPos(), actual.getPatternToPos());
+      assertEquals(expected.getFromPosSentence(), actual.getFromPosSentence());
+      assertEquals(expected.getToPosSentence(), actual.getToPosSentence());
+      assertEquals(expected.getUrl(), actual.getUrl());
+      assertEquals(expected.getType(), actual.getType());
+      assertEquals(expected.isAutoCorrect(), actual.isAutoCorrect());
+      assertEquals(expected.getSpecificRuleId(), actual.getSpecificRuleId());
+      assertEquals(expected.getOriginalErrorStr(), actual.getOriginalErrorStr());
+      assertEquals(expected.getFeatures(), actual.getFeatures());
+      assertEquals(new ArrayList<>(expected.getNewLanguageMatches().entrySet()), new ArrayList<>(actual.getNewLanguageMatches().entrySet()));
+      List<SuggestedReplacement> expectedSuggestions = expected.getSuggestedReplacementObjects();
+      List<SuggestedReplacement> actualSuggestions = actual.getSuggestedReplacementObjects();
+      assertEquals(expectedSuggestions, actualSuggestions);
+      for (int j = 0; j < expectedSuggestions.size(); j++) {
+        assertEquals(expectedSuggestions.get(j).getConfidence(), actualSuggestions.get(j).getConfidence());
+        assertEquals(expectedSuggestions.get(j).getType(), actualSuggestions.get(j).getType());
+        assertEquals(expectedSuggestions.get(j).getFeatures(), actualSuggestions.get(j).getFeatures());
+      }
+    }
+    assertEquals(Collections.emptyList(), RuleMatchListSerializer.deserialize(RuleMatchListSerializer.serialize(Collections.emptyList(), rules), sentence, rules));
+  }
+
+  @Test
+  public void testRulesWithSameId() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    List<Rule> allRules = lt.getAllRules();
+    RuleMatchListSerializer.Rules rules = new RuleMatchListSerializer.Rules(allRules);
+    List<Rule> phraseRules = new ArrayList<>();
+    for (Rule rule : allRules) {
+      if (rule.getFullId().equals("TEST_PHRASES1[1]")) {
+        phraseRules.add(rule);
+      }
+    }
+    assertTrue(phraseRules.size() > 1);
+    Set<String> keys = new HashSet<>();
+    for (Rule rule : phraseRules) {
+      String key = rules.getKey(rule);
+      assertTrue(keys.add(key));
+      assertSame(rule, rules.getRule(key));
+    }
+    assertEquals(keys, phraseRules.stream().map(new RuleMatchListSerializer.Rules(lt.getAllRules())::getKey).collect(Collectors.toSet()));
+  }
+
+  @Test
+  public void testUnknownRulesAndInvalidData() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    AnalyzedSentence sentence = lt.getAnalyzedSentence("This is a test.");
+    Rule rule = lt.getAllRules().get(0);
+    RuleMatchListSerializer.Rules rules = new RuleMatchListSerializer.Rules(lt.getAllRules());
+    RuleMatchListSerializer.Rules otherRules = new RuleMatchListSerializer.Rules(Collections.emptyList());
+    List<RuleMatch> matches = Collections.singletonList(new RuleMatch(rule, sentence, 0, 4, "Message"));
+    assertFalse(RuleMatchListSerializer.canSerialize(matches, otherRules));
+    byte[] data = RuleMatchListSerializer.serialize(matches, rules);
+    assertNull(RuleMatchListSerializer.deserialize(data, sentence, otherRules));
+    assertNull(RuleMatchListSerializer.deserialize(Arrays.copyOf(data, data.length / 2), sentence, rules));
+    assertNull(RuleMatchListSerializer.deserialize(new byte[]{99}, sentence, rules));
+  }
+
+}
@@ -0,0 +1,100 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TokenOffsetIndexTest {
+
+  @Test
+  public void testSentence() {
+    AnalyzedTokenReadings[] words = new AnalyzedTokenReadings[7];
+    words[0] = new AnalyzedTokenReadings(new AnalyzedToken("", "SENT_START", null));
+    words[1] = new AnalyzedTokenReadings(new AnalyzedToken("The", "DT", "the"));
+    words[2] = new AnalyzedTokenReadings(new AnalyzedToken(" ", null, null));
+    words[3] = new AnalyzedTokenReadings(new AnalyzedToken("houses", "NNS", "house"));
+    words[3].addReading(new AnalyzedToken("houses", "VBZ", "house"), "");
+    words[4] = new AnalyzedTokenReadings(new AnalyzedToken(" ", null, null));
+    words[5] = new AnalyzedTokenReadings(new AnalyzedToken("the", "DT", "the"));
+    words[6] = new AnalyzedTokenReadings(new AnalyzedToken(".", "SENT_END", null));
+    AnalyzedSentence sentence = new AnalyzedSentence(words);
+    assertEquals(new HashSet<>(Arrays.asList("", "the", "houses", ".")), sentence.getTokenSet());
+    assertEquals(new HashSet<>(Arrays.asList("", "the", "house", ".")), sentence.getLemmaSet());
+    assertEquals(Arrays.asList(1, 3), sentence.getTokenOffsets("the"));
+    assertEquals(Collections.singletonList(2), sentence.getTokenOffsets("houses"));
+    assertNull(sentence.getTokenOffsets("The"));
+    assertNull(sentence.getTokenOffsets("house"));
+    assertEquals(Collections.singletonList(2), sentence.getLemmaOffsets("house"));
+    assertEquals(Arrays.asList(1, 3), sentence.getLemmaOffsets("the"));
+    assertNull(sentence.getLemmaOffsets("houses"));
+    try {
+      sentence.getTokenSet().add("foo");
+      fail();
+    } catch (UnsupportedOperationException expected) {}
+  }
+
+  @Test
+  public void testAgainstHashMap() {
+    Random random = new Random(42);
+    for (int run = 0; run < 200; run++) {
+      AnalyzedTokenReadings[] tokens = new AnalyzedTokenReadings[random.nextInt(300)];
+      for (int i = 0; i < tokens.length; i++) {
+        String token = "w" + random.nextInt(50);
+        List<AnalyzedToken> readings = new ArrayList<>();
+        for (int j = random.nextInt(4); j >= 0; j--) {
+          readings.add(new AnalyzedToken(token, "POS", random.nextBoolean() ? null : "L" + random.nextInt(20)));
+        }
+        tokens[i] = new AnalyzedTokenReadings(readings, 0);
+      }
+      assertIndex(index(tokens, false), TokenOffsetIndex.ofTokens(tokens));
+      assertIndex(index(tokens, true), TokenOffsetIndex.ofLemmas(tokens));
+    }
+  }
+
+  private static void assertIndex(Map<String, List<Integer>> expected, TokenOffsetIndex index) {
+    assertEquals(expected.keySet(), index.keySet());
+    assertEquals(expected.size(), index.keySet().size());
+    for (Map.Entry<String, List<Integer>> entry : expected.entrySet()) {
+      assertTrue(index.contains(entry.getKey()));
+      assertEquals(entry.getValue(), index.getOffsets(entry.getKey()));
+    }
+    assertFalse(index.contains("not-there"));
+    assertNull(index.getOffsets("not-there"));
+  }
+
+  // the way AnalyzedSentence indexed tokens before TokenOffsetIndex:
+  private static Map<String, List<Integer>> index(AnalyzedTokenReadings[] tokens, boolean lemmas) {
+    Map<String, List<Integer>> result = new HashMap<>();
+    for (int i = 0; i < tokens.length; i++) {
+      for (AnalyzedToken reading : tokens[i]) {
+        String key = (lemmas && reading.getLemma() != null ? reading.getLemma() : reading.getToken()).toLowerCase();
+        List<Integer> list = result.computeIfAbsent(key, k -> new ArrayList<>());
+        if (list.isEmpty() || list.get(list.size() - 1) != i) {
+          list.add(i);
+        }
+      }
+    }
+    return result;
+  }
+
+}
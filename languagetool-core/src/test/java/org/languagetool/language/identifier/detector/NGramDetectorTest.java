@@ -0,0 +1,96 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.language.identifier.detector;
+
+import org.junit.Test;
+import org.languagetool.noop.NoopLanguage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class NGramDetectorTest {
+
+  private static final List<String> LANGUAGES = Arrays.asList("aa", "bb");
+
+  @Test
+  public void testDetectLanguages() throws IOException {
+    File zip = File.createTempFile("ngram-model", ".zip");
+    try {
+      writeModel(zip);
+      NGramDetector detector = new NGramDetector(zip, 10);
+      // "▁" + "ab" -> start token, "▁", "ab"
+      Map<String, Double> result = detector.detectLanguages("AB", LANGUAGES);
+      assertEquals(2, result.size());
+      double aa = 0.5 * 0.25;
+      double bb = 0.5 * 1e-4;  // unknown bigram
+      assertEquals(aa / (aa + bb), result.get("aa"), 1e-9);
+      assertEquals(bb / (aa + bb), result.get("bb"), 1e-9);
+      assertEquals(Collections.singleton("aa"), detector.detectLanguages("AB", Collections.singletonList("aa")).keySet());
+      // all scores are below the thresholds for texts with at least 3 characters:
+      assertEquals(Collections.singletonMap(NoopLanguage.SHORT_CODE, 100.0), detector.detectLanguages("ab ab", LANGUAGES));
+    } finally {
+      zip.delete();
+    }
+  }
+
+  @Test
+  public void testBigramTable() {
+    BigramTable table = new BigramTable(1000, -1);
+    for (int i = 0; i < 1000; i++) {
+      table.put(i % 10, i / 10, i);
+    }
+    table.put(0, 0, 42);
+    assertEquals(1000, table.size());
+    assertEquals(42, table.get(0, 0), 0);
+    assertEquals(999, table.get(9, 99), 0);
+    assertEquals(-1, table.get(99, 9), 0);
+    assertEquals(-1, table.get(10, 0), 0);
+  }
+
+  private static void writeModel(File zip) throws IOException {
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+      addEntry(out, "iso_codes.tsv", "Language A\taa\taaa\t1\nLanguage B\tNULL\tbb\t1\nLanguage C\tcc\tccc\t0\n");
+      addEntry(out, "vocab.txt", "<unk>\n<s>\n▁\na\nb\nab\n");
+      StringBuilder thresholds = new StringBuilder("3\n");
+      for (int length = 3; length <= 10; length++) {
+        thresholds.append("0 0\n");
+      }
+      addEntry(out, "thresholds.txt", thresholds.toString());
+      addEntry(out, "00.txt", "1 2 0.5\n2 5 0.25\n");
+      addEntry(out, "01.txt", "1 2 0.5\n");
+    }
+  }
+
+  private static void addEntry(ZipOutputStream out, String name, String content) throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+
+}
@@ -18,19 +18,28 @@
  */
 package org.languagetool.languagemodel;
 
+import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.languagetool.JLanguageTool;
+import org.languagetool.rules.ngrams.Probability;
 
 import java.io.File;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 public class LuceneSingleIndexLanguageModelTest extends LanguageModelTest {
 
+  @Before
+  public void setUp() {
+    LuceneSingleIndexLanguageModel.clearCaches();  // closing a model closes its cached searchers
+  }
+
   @Test
   public void testLanguageModel() throws Exception {
     URL ngramUrl = JLanguageTool.getDataBroker().getFromResourceDirAsUrl("/yy/ngram-index");
@@ -43,6 +52,27 @@ public class LuceneSingleIndexLanguageModelTest extends LanguageModelTest {
     }
   }
 
+  @Test
+  public void testBatchLookup() throws Exception {
+    URL ngramUrl = JLanguageTool.getDataBroker().getFromResourceDirAsUrl("/yy/ngram-index");
+    try (LuceneLanguageModel model = new LuceneLanguageModel(new File(ngramUrl.toURI()))) {
+      List<List<String>> ngrams = Arrays.asList(
+        Arrays.asList("the", "nice", "building"), Collections.singletonList("the"), Collections.singletonList("not-in-here"),
+        Arrays.asList("the", "nice"), Collections.singletonList("the"));
+      assertThat(model.getCounts(ngrams), is(new long[]{1, 55, 0, 3, 55}));
+      List<List<String>> contexts = Arrays.asList(
+        Arrays.asList("the", "nice", "building"), Arrays.asList("the", "nice", "house"), Arrays.asList("nice", "building"));
+      List<Probability> probabilities = model.getPseudoProbabilities(contexts);
+      assertThat(probabilities.size(), is(3));
+      for (int i = 0; i < contexts.size(); i++) {
+        Probability expected = model.getPseudoProbability(contexts.get(i));
+        assertThat(probabilities.get(i).getProb(), is(expected.getProb()));
+        assertThat(probabilities.get(i).getCoverage(), is(expected.getCoverage()));
+        assertThat(probabilities.get(i).getOccurrences(), is(expected.getOccurrences()));
+      }
+    }
+  }
+
   /**
    * Some values for average time per lookup on 2grams on a 3.7GB Lucene 4.8.1 index with 118,941,740 docs:
    * -no data in OS cache, index on external USB disk: 17626µs = 17ms
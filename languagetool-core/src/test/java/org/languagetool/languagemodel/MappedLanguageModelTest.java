@@ -0,0 +1,98 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedLanguageModelTest {
+
+  @Test
+  public void testLanguageModel() throws IOException {
+    File dir = Files.createTempDirectory("ngram-test").toFile();
+    try {
+      testLanguageModel(dir);
+    } finally {
+      new File(dir, MappedLanguageModel.FILE_NAME).delete();
+      dir.delete();
+    }
+  }
+
+  private void testLanguageModel(File dir) throws IOException {
+    assertThat(MappedLanguageModel.existsIn(dir), is(false));
+    MappedLanguageModelWriter writer = new MappedLanguageModelWriter();
+    writer.add(Collections.singletonList("the"), 55);
+    writer.add(Arrays.asList("the", "nice"), 2);
+    writer.add(Arrays.asList("the", "nice"), 1);  // counts of duplicates are summed up
+    writer.add(Arrays.asList("the", "nice", "building"), 1);
+    writer.add(Collections.singletonList("the nice"), 7);  // not the same as the 2gram
+    writer.add(Collections.singletonList("many"), 123_456_789L);
+    for (int i = 0; i < 10_000; i++) {
+      writer.add(Arrays.asList("word" + i, "x"), i);
+    }
+    writer.setTotalTokenCount(3);
+    writer.write(dir);
+    assertThat(MappedLanguageModel.existsIn(dir), is(true));
+
+    try (MappedLanguageModel model = new MappedLanguageModel(dir)) {
+      assertThat(model.getCount("the"), is(55L));
+      assertThat(model.getCount(Arrays.asList("the", "nice")), is(3L));
+      assertThat(model.getCount(Arrays.asList("the", "nice", "building")), is(1L));
+      assertThat(model.getCount("the nice"), is(7L));
+      assertThat(model.getCount("not-in-here"), is(0L));
+      assertThat(model.getCount(Arrays.asList("nice", "the")), is(0L));
+      assertThat(model.getCount(Arrays.asList("word1234", "x")), is(1234L));
+      assertThat(model.getCount(Arrays.asList("word2047", "x")), is(2047L));
+      assertThat(model.getCount(Arrays.asList("word9999", "x")), is(10000L));  // quantized
+      assertTrue(Math.abs(model.getCount("many") - 123_456_789L) < 123_456_789L * 0.0005);
+      assertThat(model.getTotalTokenCount(), is(3L));
+      assertThat(model.getMaxNgram(), is(3));
+      assertThat(model.getEntryCount(), is(10_005L));
+      try {
+        model.getCount(Arrays.asList("a", "b", "c", "d"));
+        fail();
+      } catch (RuntimeException expected) {}
+    }
+  }
+
+  @Test
+  public void testCountQuantization() {
+    for (long count = 0; count < 2048; count++) {
+      assertThat(MappedLanguageModel.decodeCount(MappedLanguageModel.encodeCount(count)), is(count));
+    }
+    for (long count = 2048; count > 0 && count < Long.MAX_VALUE / 3; count = count * 3 + 1) {
+      int code = MappedLanguageModel.encodeCount(count);
+      assertTrue(code >= 0 && code <= 0xffff);
+      long decoded = MappedLanguageModel.decodeCount(code);
+      assertTrue(count + " -> " + decoded, Math.abs(decoded - count) <= count / 2048.0);
+    }
+    assertThat(MappedLanguageModel.decodeCount(MappedLanguageModel.encodeCount(4095)), is(4096L));
+  }
+
+}
@@ -0,0 +1,135 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.languagetool.rules.ml.MLServerGrpc;
+import org.languagetool.rules.ml.MLServerProto.Match;
+import org.languagetool.rules.ml.MLServerProto.MatchList;
+import org.languagetool.rules.ml.MLServerProto.MatchRequest;
+import org.languagetool.rules.ml.MLServerProto.MatchResponse;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MatchRequestBatcherTest {
+
+  private final List<MatchRequest> calls = new CopyOnWriteArrayList<>();
+  private Server server;
+  private ManagedChannel channel;
+  private MLServerGrpc.MLServerFutureStub stub;
+
+  @Before
+  public void setUp() throws Exception {
+    String name = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(name).directExecutor().addService(new MLServerGrpc.MLServerImplBase() {
+      @Override
+      public void match(MatchRequest request, StreamObserver<MatchResponse> responseObserver) {
+        calls.add(request);
+        if (request.getSentencesList().contains("fail")) {
+          responseObserver.onError(Status.INTERNAL.asRuntimeException());
+          return;
+        }
+        // one match per sentence, with the sentence as its id:
+        MatchResponse.Builder response = MatchResponse.newBuilder();
+        for (String sentence : request.getSentencesList()) {
+          response.addSentenceMatches(MatchList.newBuilder().addMatches(Match.newBuilder().setId(sentence)));
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+      }
+    }).build().start();
+    channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    stub = MLServerGrpc.newFutureStub(channel);
+  }
+
+  @After
+  public void tearDown() {
+    channel.shutdownNow();
+    server.shutdownNow();
+  }
+
+  @Test
+  public void testCombineRequests() throws Exception {
+    MatchRequestBatcher batcher = new MatchRequestBatcher(stub, 3, 10_000);
+    ListenableFuture<MatchResponse> r1 = batcher.match(request("a", "b"), 0);
+    ListenableFuture<MatchResponse> r2 = batcher.match(request("c"), 1000);  // the batch is full now
+    ListenableFuture<MatchResponse> r3 = batcher.match(request("d", "e", "f"), 1000);  // large enough on its own
+    assertEquals(Arrays.asList("a", "b"), ids(r1.get(5, TimeUnit.SECONDS)));
+    assertEquals(Collections.singletonList("c"), ids(r2.get(5, TimeUnit.SECONDS)));
+    assertEquals(Arrays.asList("d", "e", "f"), ids(r3.get(5, TimeUnit.SECONDS)));
+    assertEquals(2, calls.size());
+    assertEquals(Arrays.asList("a", "b", "c"), calls.get(0).getSentencesList());
+    assertEquals(3, batcher.getRequestCount());
+    assertEquals(2, batcher.getCallCount());
+  }
+
+  @Test
+  public void testWindow() throws Exception {
+    MatchRequestBatcher batcher = new MatchRequestBatcher(stub, 100, 20);
+    ListenableFuture<MatchResponse> r1 = batcher.match(request("a"), 0);
+    ListenableFuture<MatchResponse> r2 = batcher.match(request("b").toBuilder().setInputLogging(true).build(), 0);  // not combined
+    assertEquals(Collections.singletonList("a"), ids(r1.get(5, TimeUnit.SECONDS)));
+    assertEquals(Collections.singletonList("b"), ids(r2.get(5, TimeUnit.SECONDS)));
+    assertEquals(2, calls.size());
+    assertTrue(calls.get(1).getInputLogging());
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    MatchRequestBatcher batcher = new MatchRequestBatcher(stub, 2, 10_000);
+    ListenableFuture<MatchResponse> r1 = batcher.match(request("a"), 0);
+    ListenableFuture<MatchResponse> r2 = batcher.match(request("fail"), 0);
+    for (ListenableFuture<MatchResponse> response : Arrays.asList(r1, r2)) {
+      try {
+        response.get(5, TimeUnit.SECONDS);
+        fail();
+      } catch (ExecutionException e) {
+        assertEquals(Status.Code.INTERNAL, Status.fromThrowable(e.getCause()).getCode());
+      }
+    }
+    assertEquals(1, calls.size());
+  }
+
+  private static MatchRequest request(String... sentences) {
+    return MatchRequest.newBuilder().addAllSentences(Arrays.asList(sentences)).build();
+  }
+
+  private static List<String> ids(MatchResponse response) {
+    List<String> ids = new ArrayList<>();
+    for (MatchList matches : response.getSentenceMatchesList()) {
+      ids.add(matches.getMatches(0).getId());
+    }
+    return ids;
+  }
+
+}
@@ -0,0 +1,173 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.JLanguageTool;
+import org.languagetool.language.Demo;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RemoteRuleLatencyTest {
+
+  private static List<AnalyzedSentence> sentences;
+
+  static class SleepingRemoteRule extends RemoteRule {
+    volatile long primaryMillis;
+    volatile long hedgeMillis;
+    volatile boolean fail;
+
+    SleepingRemoteRule(RemoteRuleConfig config) {
+      super(new Demo(), JLanguageTool.getMessageBundle(), config, false);
+    }
+
+    static class SleepingRequest extends RemoteRequest {
+      private final List<AnalyzedSentence> sentences;
+
+      SleepingRequest(List<AnalyzedSentence> sentences) {
+        this.sentences = sentences;
+      }
+    }
+
+    @Override
+    protected RemoteRequest prepareRequest(List<AnalyzedSentence> sentences, Long textSessionId) {
+      return new SleepingRequest(sentences);
+    }
+
+    @Override
+    protected Callable<RemoteRuleResult> executeRequest(RemoteRequest request, long timeoutMilliseconds) {
+      return () -> respond((SleepingRequest) request, primaryMillis, "primary");
+    }
+
+    @Override
+    protected Callable<RemoteRuleResult> executeHedgedRequest(RemoteRequest request, long timeoutMilliseconds) {
+      return () -> respond((SleepingRequest) request, hedgeMillis, "hedge");
+    }
+
+    private RemoteRuleResult respond(SleepingRequest request, long millis, String endpoint) throws Exception {
+      Thread.sleep(millis);
+      if (fail) {
+        throw new IOException("Request failed");
+      }
+      List<RuleMatch> matches = request.sentences.stream()
+        .map(s -> new RuleMatch(this, s, 0, 1, endpoint))
+        .collect(Collectors.toList());
+      return new RemoteRuleResult(true, true, matches, request.sentences);
+    }
+
+    @Override
+    protected RemoteRuleResult fallbackResults(RemoteRequest request) {
+      return new RemoteRuleResult(false, false, Collections.emptyList(), ((SleepingRequest) request).sentences);
+    }
+
+    @Override
+    public String getDescription() {
+      return "Test rule";
+    }
+  }
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    sentences = Collections.singletonList(lt.getAnalyzedSentence("This is a test."));
+  }
+
+  private static RemoteRuleConfig getConfig(String ruleId) {
+    RemoteRuleConfig config = new RemoteRuleConfig();
+    config.ruleId = ruleId;
+    config.url = "localhost";
+    config.baseTimeoutMilliseconds = 10_000;
+    config.timeoutPerCharacterMilliseconds = 1;
+    return config;
+  }
+
+  private static RemoteRuleResult run(RemoteRule rule) throws Exception {
+    FutureTask<RemoteRuleResult> task = rule.run(sentences);
+    task.run();
+    return task.get();
+  }
+
+  @Test
+  public void testAdaptiveTimeout() throws Exception {
+    RemoteRuleConfig config = getConfig("TEST_ADAPTIVE_TIMEOUT");
+    config.adaptiveTimeoutPercentile = 0.99f;
+    config.minimumTimeoutMilliseconds = 200;
+    SleepingRemoteRule rule = new SleepingRemoteRule(config);
+    assertEquals(10_050, rule.getTimeout(50));
+    for (int i = 0; i < RollingLatencyHistogram.MIN_SAMPLES; i++) {
+      run(rule);
+    }
+    // the requests were fast, so the timeout is the minimum:
+    assertEquals(200, rule.getTimeout(50));
+    config.adaptiveTimeoutPercentile = 0;
+    assertEquals(10_050, rule.getTimeout(50));
+  }
+
+  @Test
+  public void testFailedRequestsAreNotMeasured() throws Exception {
+    RemoteRuleConfig config = getConfig("TEST_FAILED_REQUESTS");
+    config.adaptiveTimeoutPercentile = 0.99f;
+    config.minimumTimeoutMilliseconds = 200;
+    SleepingRemoteRule rule = new SleepingRemoteRule(config);
+    rule.fail = true;
+    for (int i = 0; i < RollingLatencyHistogram.MIN_SAMPLES; i++) {
+      try {
+        run(rule);
+        fail();
+      } catch (ExecutionException expected) {
+      }
+    }
+    assertEquals(10_050, rule.getTimeout(50));
+  }
+
+  @Test
+  public void testHedging() throws Exception {
+    RemoteRuleConfig config = getConfig("TEST_HEDGING");
+    config.hedgeUrl = "localhost2";
+    config.hedgeDelayPercentile = 0.5f;
+    SleepingRemoteRule rule = new SleepingRemoteRule(config);
+    for (int i = 0; i < RollingLatencyHistogram.MIN_SAMPLES; i++) {
+      assertEquals("primary", run(rule).getMatches().get(0).getMessage());
+    }
+    rule.primaryMillis = 5_000;
+    long startNanos = System.nanoTime();
+    assertEquals("hedge", run(rule).getMatches().get(0).getMessage());
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) < 2_000);
+    // a slow second endpoint doesn't make things worse:
+    rule.primaryMillis = 100;
+    rule.hedgeMillis = 5_000;
+    startNanos = System.nanoTime();
+    assertEquals("primary", run(rule).getMatches().get(0).getMessage());
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) < 2_000);
+  }
+
+}
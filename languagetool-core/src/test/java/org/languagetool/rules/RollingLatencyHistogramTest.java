@@ -0,0 +1,68 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RollingLatencyHistogramTest {
+
+  @Test
+  public void testPercentiles() {
+    RollingLatencyHistogram histogram = new RollingLatencyHistogram();
+    for (int i = 0; i < RollingLatencyHistogram.MIN_SAMPLES - 1; i++) {
+      histogram.record(10);
+    }
+    assertEquals(-1, histogram.getPercentile(0.5));  // not enough samples
+    histogram.record(1000);
+    assertEquals(10, histogram.getPercentile(0.5));
+    assertEquals(10, histogram.getPercentile(0.99));
+    long max = histogram.getPercentile(1);
+    assertTrue(max >= 1000 && max < 1100);
+    assertEquals(100, histogram.getCount());
+  }
+
+  @Test
+  public void testWindow() {
+    AtomicLong nanos = new AtomicLong();
+    RollingLatencyHistogram histogram = new RollingLatencyHistogram(nanos::get);
+    for (int i = 0; i < 200; i++) {
+      histogram.record(100);
+    }
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    for (int i = 0; i < 200; i++) {
+      histogram.record(5);
+    }
+    long p50 = histogram.getPercentile(0.5);
+    assertTrue(p50 >= 5 && p50 < 6);
+    assertTrue(histogram.getPercentile(0.75) >= 100);
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(40));  // the first 200 are older than a minute now
+    assertEquals(200, histogram.getCount());
+    assertTrue(histogram.getPercentile(0.99) < 6);
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(60));
+    assertEquals(0, histogram.getCount());
+    assertEquals(-1, histogram.getPercentile(0.5));
+  }
+
+}
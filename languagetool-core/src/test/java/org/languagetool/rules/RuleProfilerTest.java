@@ -0,0 +1,102 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.JLanguageTool;
+import org.languagetool.language.Demo;
+import org.languagetool.tools.RegexTimeoutException;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RuleProfilerTest {
+
+  @After
+  public void tearDown() {
+    RuleProfiler.setSampleRate(0);
+    RuleProfiler.reset();
+  }
+
+  @Test
+  public void testProfiling() throws IOException {
+    RuleProfiler.reset();
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    lt.check("This is foo bar. Another sentence.");
+    assertTrue(RuleProfiler.getTopRules("xx", 10).isEmpty());
+
+    RuleProfiler.setSampleRate(1);
+    lt.check("This is foo bar. Another sentence.");
+    assertTrue(RuleProfiler.getLanguages().contains("xx"));
+    List<RuleProfiler.RuleStats> top = RuleProfiler.getTopRules("xx", 1000);
+    assertTrue(top.size() > 1);
+    for (int i = 1; i < top.size(); i++) {
+      assertTrue(top.get(i - 1).getTotalNanos() >= top.get(i).getTotalNanos());
+    }
+    RuleProfiler.RuleStats demoRule = top.stream().filter(s -> s.getRuleId().equals("DEMO_RULE[1]")).findFirst().get();
+    assertEquals(1, demoRule.getCalls());  // not a candidate for the second sentence
+    assertEquals(1, demoRule.getMatches());
+    assertEquals(1.0, demoRule.getMatchRate(), 0.0001);
+    assertTrue(demoRule.getMaxNanos() <= demoRule.getTotalNanos());
+    assertEquals(2, RuleProfiler.getTopRules(null, 2).size());
+    assertTrue(RuleProfiler.getTopRules("de", 10).isEmpty());
+  }
+
+  @Test
+  public void testTimeouts() throws IOException {
+    RuleProfiler.reset();
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    lt.addRule(new Rule() {
+      @Override
+      public String getId() {
+        return "TIMEOUT_RULE";
+      }
+      @Override
+      public String getDescription() {
+        return "A rule whose regex takes too long";
+      }
+      @Override
+      public RuleMatch[] match(AnalyzedSentence sentence) {
+        throw new RegexTimeoutException("test");
+      }
+    });
+    try {
+      lt.check("This is a test.");
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.toString(), ExceptionUtils.getRootCause(e) instanceof RegexTimeoutException);
+    }
+    List<RuleProfiler.RuleStats> timeouts = RuleProfiler.getRulesWithTimeouts();
+    assertEquals(1, timeouts.size());
+    assertEquals("TIMEOUT_RULE", timeouts.get(0).getRuleId());
+    assertEquals(1, timeouts.get(0).getTimeouts());
+    assertEquals(0, timeouts.get(0).getCalls());  // sampling is off
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSampleRate() {
+    RuleProfiler.setSampleRate(2);
+  }
+
+}
@@ -0,0 +1,158 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Test;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.AnalyzedTokenReadings;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.languagetool.rules.patterns.PatternRuleBuilderHelper.*;
+
+public class AntiPatternMatcherTest {
+
+  private final Language language = new Demo();
+
+  @Test
+  public void testCheck() throws IOException {
+    JLanguageTool lt = new JLanguageTool(language);
+    FooBarRule rule = new FooBarRule(language);
+    lt.addRule(rule);
+    for (Rule otherRule : lt.getAllRules()) {
+      if (otherRule != rule) {
+        lt.disableRule(otherRule.getId());
+      }
+    }
+    String text = "This is foo bar. A foo here. This foo bar.";
+    List<Integer> positions = new ArrayList<>();
+    for (RuleMatch match : lt.check(text)) {
+      positions.add(match.getFromPos());
+    }
+    assertEquals(Collections.singletonList(19), positions);
+    // the same without the AntiPatternMatcher, i.e. with the rule immunizing the sentences itself:
+    List<Integer> expected = new ArrayList<>();
+    int offset = 0;
+    for (AnalyzedSentence sentence : lt.analyzeText(text)) {
+      for (RuleMatch match : rule.match(sentence)) {
+        expected.add(offset + match.getFromPos());
+      }
+      offset += sentence.getText().length();
+    }
+    assertEquals(expected, positions);
+  }
+
+  @Test
+  public void testImmunizations() throws IOException {
+    JLanguageTool lt = new JLanguageTool(language);
+    FooBarRule rule = new FooBarRule(language);
+    Rule otherRule = new FooBarRule(language);
+    AntiPatternMatcher matcher = RuleSet.plain(Arrays.asList(rule, otherRule)).getAntiPatternMatcher();
+    assertEquals(2, matcher.getRuleCount());
+
+    AnalyzedSentence sentence = lt.getAnalyzedSentence("This foo is foo bar.");
+    AntiPatternMatcher.Immunizations immunizations = matcher.forSentence(sentence, Collections.singletonList(rule));
+    AnalyzedSentence immunized = immunizations.getSentenceWithImmunization(rule, sentence);
+    AnalyzedSentence expected = rule.immunize(sentence);
+    assertEquals(immunizedTokens(expected), immunizedTokens(immunized));
+    assertEquals("[This, foo, foo, bar]", immunizedTokens(immunized).toString());
+    assertFalse(Arrays.stream(sentence.getTokens()).anyMatch(AnalyzedTokenReadings::isImmunized));
+    assertSame(sentence.getPreDisambigTokens(), immunized.getPreDisambigTokens());
+    // not one of the rules used for the sentence, or a different sentence:
+    assertNull(immunizations.getSentenceWithImmunization(otherRule, sentence));
+    assertNull(immunizations.getSentenceWithImmunization(rule, lt.getAnalyzedSentence("This foo is foo bar.")));
+
+    // nothing immunized, but still a copy, as the rule may change it:
+    AnalyzedSentence sentence2 = lt.getAnalyzedSentence("A foo here.");
+    AnalyzedSentence copy = matcher.forSentence(sentence2, Collections.singletonList(rule)).getSentenceWithImmunization(rule, sentence2);
+    assertNotSame(sentence2, copy);
+    assertNotSame(sentence2.getTokens()[1], copy.getTokens()[1]);
+    assertEquals(sentence2.toString(), copy.toString());
+  }
+
+  @Test
+  public void testPatternRulesAreNotIncluded() {
+    PatternRule patternRule = new PatternRule("ID", language, Collections.singletonList(token("foo")), "desc", "msg", "short");
+    patternRule.setAntiPatterns(new FooBarRule(language).getAntiPatterns());
+    assertEquals(0, RuleSet.plain(Collections.singletonList(patternRule)).getAntiPatternMatcher().getRuleCount());
+  }
+
+  private static List<String> immunizedTokens(AnalyzedSentence sentence) {
+    List<String> result = new ArrayList<>();
+    for (AnalyzedTokenReadings token : sentence.getTokensWithoutWhitespace()) {
+      if (token.isImmunized()) {
+        result.add(token.getToken());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Finds "foo" and "bar", except in "foo bar" and after "this".
+   */
+  static class FooBarRule extends Rule {
+    private final List<DisambiguationPatternRule> antiPatterns;
+
+    FooBarRule(Language language) {
+      antiPatterns = makeAntiPatterns(Arrays.asList(
+        Arrays.asList(token("foo"), token("bar")),
+        Arrays.asList(token("this"), token("foo"))
+      ), language);
+    }
+
+    @Override
+    public String getId() {
+      return "FOO_BAR";
+    }
+
+    @Override
+    public String getDescription() {
+      return "foo and bar";
+    }
+
+    @Override
+    public List<DisambiguationPatternRule> getAntiPatterns() {
+      return antiPatterns;
+    }
+
+    AnalyzedSentence immunize(AnalyzedSentence sentence) {
+      return getSentenceWithImmunization(sentence);
+    }
+
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) {
+      List<RuleMatch> matches = new ArrayList<>();
+      for (AnalyzedTokenReadings token : getSentenceWithImmunization(sentence).getTokensWithoutWhitespace()) {
+        if (!token.isImmunized() && (token.getToken().equals("foo") || token.getToken().equals("bar"))) {
+          matches.add(new RuleMatch(this, sentence, token.getStartPos(), token.getEndPos(), "foo or bar"));
+        }
+      }
+      return matches.toArray(RuleMatch.EMPTY_ARRAY);
+    }
+  }
+
+}
@@ -0,0 +1,168 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Test;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.Tag;
+import org.languagetool.ToneTag;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.Category;
+import org.languagetool.rules.CategoryId;
+import org.languagetool.rules.CorrectExample;
+import org.languagetool.rules.ITSIssueType;
+import org.languagetool.rules.IncorrectExample;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LazyPatternRuleTest {
+
+  private static final String RULE_FILE = "/org/languagetool/rules/xx/grammar.xml";
+
+  private final Language language = new Demo();
+
+  @Test
+  public void testMaterializedRulesEqualLoadedRules() throws IOException {
+    List<AbstractPatternRule> rules = load(false);
+    List<AbstractPatternRule> lazyRules = load(true);
+    assertEquals(rules.size(), lazyRules.size());
+    assertTrue(lazyRules.stream().noneMatch(r -> r instanceof LazyPatternRule && ((LazyPatternRule) r).isMaterialized()));
+    int lazyCount = 0;
+    for (int i = 0; i < rules.size(); i++) {
+      AbstractPatternRule rule = rules.get(i);
+      AbstractPatternRule lazyRule = lazyRules.get(i);
+      assertEquals(rule.getFullId(), lazyRule.getFullId());
+      assertEquals(rule.getMessage(), lazyRule.getMessage());
+      assertEquals(rule.getCategory().getId(), lazyRule.getCategory().getId());
+      assertEquals(rule.isDefaultOff(), lazyRule.isDefaultOff());
+      assertEquals(rule.getTags(), lazyRule.getTags());
+      if (lazyRule instanceof LazyPatternRule) {
+        lazyCount++;
+        assertTrue(lazyRule.getIncorrectExamples().isEmpty());
+        lazyRule = ((LazyPatternRule) lazyRule).getRule();
+      }
+      assertEquals(rule.toString(), lazyRule.toString());
+      assertEquals(rule.getXmlLineNumber(), lazyRule.getXmlLineNumber());
+      assertEquals(rule.getSuggestionMatches().size(), lazyRule.getSuggestionMatches().size());
+      assertEquals(rule.getAntiPatterns().toString(), lazyRule.getAntiPatterns().toString());
+      assertEquals(rule.getIncorrectExamples().toString(), lazyRule.getIncorrectExamples().toString());
+      assertEquals(rule.getCorrectExamples().toString(), lazyRule.getCorrectExamples().toString());
+      assertEquals(rule.getFilterArguments(), lazyRule.getFilterArguments());
+    }
+    assertTrue(lazyCount > rules.size() / 2);
+  }
+
+  @Test
+  public void testMatchesAreTheSame() throws IOException {
+    JLanguageTool lt = new JLanguageTool(language);
+    List<AbstractPatternRule> rules = load(false);
+    List<AbstractPatternRule> lazyRules = load(true);
+    List<String> sentences = new ArrayList<>();
+    for (AbstractPatternRule rule : rules) {
+      for (IncorrectExample example : rule.getIncorrectExamples()) {
+        sentences.add(example.getExample().replaceAll("</?marker>", ""));
+      }
+      for (CorrectExample example : rule.getCorrectExamples()) {
+        sentences.add(example.getExample().replaceAll("</?marker>", ""));
+      }
+    }
+    int matchCount = 0;
+    for (String sentence : sentences) {
+      AnalyzedSentence analyzedSentence = lt.getAnalyzedSentence(sentence);
+      for (int i = 0; i < rules.size(); i++) {
+        String expected = toString(rules.get(i).match(analyzedSentence));
+        assertEquals(rules.get(i).getFullId() + ": " + sentence, expected, toString(lazyRules.get(i).match(analyzedSentence)));
+        matchCount += expected.isEmpty() ? 0 : 1;
+      }
+    }
+    assertTrue(matchCount > 50);
+  }
+
+  @Test
+  public void testMaterializedOnlyWhenNeeded() throws IOException {
+    JLanguageTool lt = new JLanguageTool(language);
+    List<AbstractPatternRule> lazyRules = load(true);
+    LazyPatternRule rule = (LazyPatternRule) lazyRules.stream()
+      .filter(r -> r.getId().equals("DEMO_RULE")).findFirst().get();
+    int materialized = LazyPatternRule.getMaterializedRuleCount(language);
+    assertEquals(0, rule.match(lt.getAnalyzedSentence("This is a test.")).length);
+    assertFalse(rule.isMaterialized());
+    assertEquals(1, rule.match(lt.getAnalyzedSentence("This is foo bar.")).length);
+    assertTrue(rule.isMaterialized());
+    assertEquals(materialized + 1, LazyPatternRule.getMaterializedRuleCount(language));
+    assertTrue(LazyPatternRule.getLazyRuleCount(language) >= lazyRules.size() / 2);
+  }
+
+  @Test
+  public void testSettingsAreCopiedToCompleteRule() throws IOException {
+    LazyPatternRule rule = (LazyPatternRule) load(true).stream()
+      .filter(r -> r.getId().equals("DEMO_RULE")).findFirst().get();
+    Category category = new Category(new CategoryId("OTHER_CATEGORY"), "Other");
+    URL url = new URL("https://example.com/rule");
+    rule.setDefaultOff();
+    rule.setCategory(category);
+    rule.setUrl(url);
+    rule.setLocQualityIssueType(ITSIssueType.Style);
+    rule.setTags(Collections.singletonList(Tag.picky));
+    rule.setToneTags(Collections.singletonList(ToneTag.formal));
+    rule.setPremium(true);
+    rule.setMessage("Changed message");
+    rule.setType(RuleMatch.Type.Hint);
+    PatternRule completeRule = rule.getRule();
+    assertTrue(completeRule.isDefaultOff());
+    assertSame(category, completeRule.getCategory());
+    assertEquals(url, completeRule.getUrl());
+    assertEquals(ITSIssueType.Style, completeRule.getLocQualityIssueType());
+    assertEquals(Collections.singletonList(Tag.picky), completeRule.getTags());
+    assertEquals(Collections.singletonList(ToneTag.formal), completeRule.getToneTags());
+    assertTrue(completeRule.isPremium());
+    assertEquals("Changed message", completeRule.getMessage());
+    assertEquals(RuleMatch.Type.Hint, completeRule.getType());
+    assertSame(completeRule, LazyPatternRule.completeRule(rule));
+    assertSame(completeRule, LazyPatternRule.completeRule(completeRule));
+  }
+
+  private List<AbstractPatternRule> load(boolean lazyMode) throws IOException {
+    PatternRuleLoader loader = new PatternRuleLoader();
+    loader.setLazyMode(lazyMode);
+    try (InputStream stream = JLanguageTool.getDataBroker().getAsStream(RULE_FILE)) {
+      return loader.getRules(stream, RULE_FILE, language);
+    }
+  }
+
+  private static String toString(RuleMatch[] matches) {
+    StringBuilder sb = new StringBuilder();
+    for (RuleMatch match : matches) {
+      sb.append(match.getRule().getFullId()).append(' ').append(match.getFromPos()).append('-').append(match.getToPos())
+        .append(' ').append(match.getMessage()).append(' ').append(match.getSuggestedReplacements()).append('\n');
+    }
+    return sb.toString();
+  }
+
+}
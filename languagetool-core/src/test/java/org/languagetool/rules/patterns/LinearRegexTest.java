@@ -0,0 +1,106 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Test;
+import org.languagetool.tools.CheckDeadline;
+import org.languagetool.tools.InterruptibleCharSequence;
+import org.languagetool.tools.RegexTimeoutException;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class LinearRegexTest {
+
+  private static final String ALPHABET = "aAbBcCkKKsSſ1_ -.\näÄßİıéÉΣσς";
+
+  @Test
+  public void testSameMatchesAsJavaRegex() {
+    String[] regexes = {
+      "a", "ab|c", "a*b", "(a+)+b", "(?:ab|a)*", "[a-c]+", "[^a-c]*", "[abk]{2,3}", "a{2}", "a{1,}b?", ".*",
+      "^a.b$", "\\d+", "\\D\\s\\S", "\\w+", "[\\w-]+", "[^\\W_]", "\\.-?", "a+?b", "ä|ß+", "[à-ÿ]+",
+      "[s-u]", "k+", "σ", "[Α-Ω]", "\\u00e4\\x41", "(a|b|)*c", "[-a]", "[a-]", "[.*+]"
+    };
+    Random random = new Random(42);
+    for (String regex : regexes) {
+      for (boolean caseSensitive : new boolean[]{true, false}) {
+        Pattern pattern = Pattern.compile(regex, caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        LinearRegex linearRegex = LinearRegex.compile(regex, caseSensitive);
+        assertNotNull(regex, linearRegex);
+        for (int i = 0; i < 3000; i++) {
+          StringBuilder sb = new StringBuilder();
+          int length = random.nextInt(6);
+          for (int j = 0; j < length; j++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+          }
+          String s = sb.toString();
+          assertEquals("'" + regex + "' (case-sensitive: " + caseSensitive + ") on '" + s + "'",
+            pattern.matcher(s).matches(), linearRegex.matches(s));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testUnsupported() {
+    for (String regex : new String[]{"(?i)a", "(?=a)a", "(a)\\1", "\\bfoo", "\\p{Lu}", "a++", "[a[b]]", "[a&&b]", "a$b"}) {
+      assertNull(regex, LinearRegex.compile(regex, true));
+    }
+  }
+
+  @Test
+  public void testIsRisky() {
+    assertTrue(LinearRegex.isRisky("(a+)+b"));
+    assertTrue(LinearRegex.isRisky("(\\w+\\s?)*x"));
+    assertTrue(LinearRegex.isRisky("(a|ab)*c"));
+    assertTrue(LinearRegex.isRisky("(a?)*b"));
+    assertTrue(LinearRegex.isRisky(".*a.*b.*c"));
+    assertTrue(LinearRegex.isRisky("(.*a){12}b"));
+    assertFalse(LinearRegex.isRisky("a+b"));
+    assertFalse(LinearRegex.isRisky("(foo|bar)+"));
+    assertFalse(LinearRegex.isRisky("[a-z]+-[a-z]+"));
+    assertFalse(LinearRegex.isRisky("(?=a)"));
+  }
+
+  @Test(timeout = 10_000)
+  public void testNoCatastrophicBacktracking() {
+    String text = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+    StringMatcher matcher = StringMatcher.regexp("(a+)+b");
+    assertFalse(matcher.matches(text));
+    assertTrue(matcher.matches(text + "b"));
+  }
+
+  @Test(timeout = 10_000)
+  public void testDeadline() {
+    // back references aren't supported by LinearRegex:
+    Pattern pattern = Pattern.compile("(?:(a+)\\1?)*b");
+    String text = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+    CheckDeadline.setCurrent(CheckDeadline.afterMillis(50));
+    try {
+      pattern.matcher(new InterruptibleCharSequence(text)).matches();
+      fail();
+    } catch (RegexTimeoutException expected) {
+    } finally {
+      CheckDeadline.setCurrent(null);
+    }
+  }
+
+}
@@ -0,0 +1,117 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.languagetool.JLanguageTool;
+import org.languagetool.RuleEntityResolver;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RulePackTest {
+
+  @Test
+  public void testReplayEqualsParsing() throws Exception {
+    for (String file : new String[]{"/org/languagetool/rules/xx/grammar.xml", "/org/languagetool/resource/xx/disambiguation.xml"}) {
+      byte[] xml = read(file);
+      EventLog parsed = new EventLog();
+      SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
+      saxParser.getXMLReader().setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+      saxParser.parse(new ByteArrayInputStream(xml), parsed);
+      EventLog replayed = new EventLog();
+      getPack(xml).replay(replayed);
+      assertTrue(parsed.events.size() > 100);
+      assertEquals(file, parsed.events, replayed.events);
+    }
+  }
+
+  @Test
+  public void testNoRuleFile() throws IOException {
+    assertNull(RulePack.create("<rules><foo/></rules>".getBytes(), "test.xml"));
+    assertNotNull(RulePack.create("<rules lang='xx'></rules>".getBytes(), "test.xml"));
+  }
+
+  private static RulePack getPack(byte[] xml) throws IOException {
+    RulePack pack = RulePack.create(xml, "test.xml");
+    assertNotNull(pack);
+    return pack;
+  }
+
+  private static byte[] read(String path) throws IOException {
+    try (InputStream stream = JLanguageTool.getDataBroker().getAsStream(path)) {
+      return ByteStreams.toByteArray(stream);
+    }
+  }
+
+  private static class EventLog extends DefaultHandler {
+    private final List<String> events = new ArrayList<>();
+    private final StringBuilder characters = new StringBuilder();
+    private Locator locator;
+
+    @Override
+    public InputSource resolveEntity(String publicId, String systemId) throws IOException, SAXException {
+      return new RuleEntityResolver().resolveEntity(publicId, systemId);
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+      this.locator = locator;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+      StringBuilder event = new StringBuilder(getCharacters() + "<" + qName);
+      for (int i = 0; i < attributes.getLength(); i++) {
+        event.append(' ').append(attributes.getQName(i)).append("='").append(attributes.getValue(i)).append("'");
+      }
+      events.add(event + "> " + uri + localName + "@" + locator.getLineNumber() + ":" + locator.getColumnNumber());
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+      events.add(getCharacters() + "</" + qName + "> " + uri + localName + "@" + locator.getLineNumber() + ":" + locator.getColumnNumber());
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+      characters.append(ch, start, length);
+    }
+
+    private String getCharacters() {
+      String result = characters.toString();
+      characters.setLength(0);
+      return result;
+    }
+  }
+
+}
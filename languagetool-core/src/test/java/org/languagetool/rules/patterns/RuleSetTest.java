@@ -23,11 +23,16 @@ import org.languagetool.AnalyzedSentence;
 import org.languagetool.AnalyzedToken;
 import org.languagetool.AnalyzedTokenReadings;
 import org.languagetool.FakeLanguage;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.languagetool.rules.patterns.PatternRuleBuilderHelper.*;
 import static org.languagetool.rules.patterns.RuleSet.textLemmaHinted;
 
@@ -64,15 +69,78 @@ public class RuleSetTest {
     PatternToken unsuitable = new PatternTokenBuilder().csToken("unsuitable").matchInflectedForms().build();
     assertRulesForSentence(textLemmaHinted(Collections.singletonList(ruleOf(unsuitable))));
 
-    PatternRule unrelated = ruleOf(pos("somePos"));
+    PatternRule unrelated = ruleOf(posRegex("some.*"));
     assertRulesForSentence(textLemmaHinted(Arrays.asList(ruleOf(unsuitable), unrelated)), unrelated);
   }
 
+  @Test
+  public void posHintsAreHonored() {
+    PatternRule suitable = ruleOf(pos("pos"));
+    assertRulesForSentence(textLemmaHinted(Collections.singletonList(suitable)), suitable);
+
+    suitable = ruleOf(posRegex("pos|other"));
+    assertRulesForSentence(textLemmaHinted(Collections.singletonList(suitable)), suitable);
+
+    assertRulesForSentence(textLemmaHinted(Collections.singletonList(ruleOf(pos("somePos")))));
+    assertRulesForSentence(textLemmaHinted(Collections.singletonList(ruleOf(posRegex("somePos|other")))));
+
+    // POS tags can change during disambiguation, so they're not used there
+    PatternRule unsuitableForCheck = ruleOf(pos("somePos"));
+    assertRulesForSentence(RuleSet.textHinted(Collections.singletonList(unsuitableForCheck)), unsuitableForCheck);
+  }
+
+  @Test
+  public void allHintsOfARuleAreHonored() {
+    PatternRule suitable = ruleOf(csToken("token"), pos("pos"));
+    assertRulesForSentence(textLemmaHinted(Collections.singletonList(suitable)), suitable);
+
+    PatternRule unsuitable = ruleOf(csToken("token"), csToken("unsuitable"));
+    assertRulesForSentence(textLemmaHinted(Arrays.asList(unsuitable, suitable)), suitable);
+
+    unsuitable = ruleOf(csToken("token"), new PatternTokenBuilder().token("unsuitable").matchInflectedForms().build());
+    assertRulesForSentence(textLemmaHinted(Arrays.asList(suitable, unsuitable)), suitable);
+    assertRulesForSentence(RuleSet.textHinted(Arrays.asList(suitable, unsuitable)), suitable, unsuitable);
+
+    unsuitable = ruleOf(csToken("token"), pos("somePos"));
+    assertRulesForSentence(textLemmaHinted(Arrays.asList(suitable, unsuitable)), suitable);
+  }
+
+  @Test
+  public void prefilterIsSharedForSameTokenRules() {
+    PatternRule patternRule = ruleOf(csToken("token"));
+    List<Rule> rules1 = Arrays.asList(patternRule, new JavaRule());
+    List<Rule> rules2 = Arrays.asList(patternRule, new JavaRule());
+    RulePrefilter prefilter = RulePrefilter.get(rules1, true);
+    // other objects of the Java rules don't matter, as only the pattern rules have hints:
+    assertSame(prefilter, RulePrefilter.get(rules2, true));
+    assertNotSame(prefilter, RulePrefilter.get(rules2, false));
+    assertNotSame(prefilter, RulePrefilter.get(Arrays.asList(ruleOf(csToken("token")), new JavaRule()), true));
+    assertNotSame(prefilter, RulePrefilter.get(Arrays.asList(new JavaRule(), patternRule), true));
+
+    JavaRule javaRule = new JavaRule();
+    assertEquals(Arrays.asList(patternRule, javaRule), RuleSet.textLemmaHinted(Arrays.asList(patternRule, javaRule)).rulesForSentence(sampleSentence));
+  }
+
+  private static class JavaRule extends Rule {
+    @Override
+    public String getId() {
+      return "JAVA_RULE";
+    }
+    @Override
+    public String getDescription() {
+      return "A rule without hints";
+    }
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) {
+      return new RuleMatch[0];
+    }
+  }
+
   private static void assertRulesForSentence(RuleSet ruleSet, PatternRule... expected) {
     assertEquals(Arrays.asList(expected), ruleSet.rulesForSentence(sampleSentence));
   }
 
-  private static PatternRule ruleOf(PatternToken token) {
-    return new PatternRule("", new FakeLanguage(), Collections.singletonList(token), "", "", "");
+  private static PatternRule ruleOf(PatternToken... tokens) {
+    return new PatternRule("", new FakeLanguage(), Arrays.asList(tokens), "", "", "");
   }
 }
@@ -21,6 +21,11 @@ package org.languagetool.rules.spelling.morfologik;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
@@ -59,4 +64,37 @@ public class MorfologikSpellerTest {
 
     assertThat(spellerDist2.getSuggestions("wordoxix").toString(), is("[]"));
   }
+
+  @Test
+  public void testConcurrentUse() throws Exception {
+    MorfologikSpeller speller = new MorfologikSpeller("/xx/spelling/test.dict", 2);
+    String[] words = {"wordone", "wordonex", "Wordtwo", "wordonix", "nosuchword", "Häuser", "Hauser"};
+    List<String> expected = new ArrayList<>();
+    for (String word : words) {
+      expected.add(getResults(speller, word));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 500; j++) {
+            int index = j % words.length;
+            assertEquals(expected.get(index), getResults(speller, words[index]));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static String getResults(MorfologikSpeller speller, String word) {
+    return speller.isMisspelled(word) + " " + speller.findReplacements(word) + " " +
+      speller.findSimilarWords(word) + " " + speller.getFrequency(word);
+  }
 }
@@ -26,6 +26,7 @@ import org.languagetool.rules.IncorrectExample;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
 import org.languagetool.rules.patterns.AbstractPatternRule;
+import org.languagetool.rules.patterns.LazyPatternRule;
 import org.languagetool.rules.patterns.PatternRule;
 
 import java.io.File;
@@ -53,7 +54,8 @@ final class ExampleSentenceCorrectionCreator {
     File xml = new File(basePath, "/" + langCode + "/src/main/resources/org/languagetool/rules/" + langCode + "/grammar.xml");
     List<String> xmlLines = IOUtils.readLines(new FileReader(xml));
     JLanguageTool tool = new JLanguageTool(lang);
-    for (Rule rule : tool.getAllRules()) {
+    for (Rule lazyOrCompleteRule : tool.getAllRules()) {
+      Rule rule = LazyPatternRule.completeRule(lazyOrCompleteRule);
       if (!(rule instanceof PatternRule)) {
         continue;
       }
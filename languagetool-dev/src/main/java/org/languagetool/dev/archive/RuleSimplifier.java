@@ -25,6 +25,7 @@ import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.Languages;
 import org.languagetool.rules.Rule;
+import org.languagetool.rules.patterns.LazyPatternRule;
 import org.languagetool.rules.patterns.PatternRule;
 import org.languagetool.rules.patterns.PatternToken;
 
@@ -55,7 +56,8 @@ final class RuleSimplifier {
     List<String> xmlLines = IOUtils.readLines(new FileReader(xml));
     JLanguageTool tool = new JLanguageTool(lang);
     int totalRules = 0;
-    for (Rule rule : tool.getAllActiveRules()) {
+    for (Rule lazyOrCompleteRule : tool.getAllActiveRules()) {
+      Rule rule = LazyPatternRule.completeRule(lazyOrCompleteRule);
       if (!(rule instanceof PatternRule)) {
         continue;
       }
@@ -23,6 +23,7 @@ import org.languagetool.Language;
 import org.languagetool.Languages;
 //import org.languagetool.language.English;
 import org.languagetool.rules.Rule;
+import org.languagetool.rules.patterns.LazyPatternRule;
 import org.languagetool.rules.patterns.PatternRule;
 import org.languagetool.rules.patterns.PatternToken;
 
@@ -53,7 +54,8 @@ public class SimpleRuleCounter {
 
     private void countForLanguage(List<Rule> allRules, Language language) {
         int simpleCount = 0;
-        for (Rule rule : allRules) {
+        for (Rule lazyOrCompleteRule : allRules) {
+            Rule rule = LazyPatternRule.completeRule(lazyOrCompleteRule);
             boolean isSimple = true;
             if (rule instanceof PatternRule) {
                 PatternRule patternRule = (PatternRule) rule;
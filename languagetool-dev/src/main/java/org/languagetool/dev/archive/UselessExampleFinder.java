@@ -26,6 +26,7 @@ import org.languagetool.rules.CorrectExample;
 import org.languagetool.rules.IncorrectExample;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.patterns.AbstractPatternRule;
+import org.languagetool.rules.patterns.LazyPatternRule;
 import org.languagetool.rules.patterns.PatternRule;
 
 import java.io.File;
@@ -59,7 +60,8 @@ final class UselessExampleFinder {
     File xml = new File(basePath, "/" + langCode + "/src/main/resources/org/languagetool/rules/" + langCode + "/grammar.xml");
     List<String> xmlLines = IOUtils.readLines(new FileReader(xml));
     JLanguageTool tool = new JLanguageTool(lang);
-    for (Rule rule : tool.getAllActiveRules()) {
+    for (Rule lazyOrCompleteRule : tool.getAllActiveRules()) {
+      Rule rule = LazyPatternRule.completeRule(lazyOrCompleteRule);
       if (!(rule instanceof PatternRule)) {
         continue;
       }
@@ -0,0 +1,102 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.bigdata;
+
+import org.languagetool.languagemodel.BaseLanguageModel;
+import org.languagetool.languagemodel.LuceneLanguageModel;
+import org.languagetool.languagemodel.MappedLanguageModel;
+import org.languagetool.tokenizers.WordTokenizer;
+import org.languagetool.tools.StringTools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares {@link LuceneLanguageModel} and {@link MappedLanguageModel} for the same ngram data:
+ * checks that the counts agree (within the quantization error of the mapped model) and
+ * measures the time per {@code getCount(List)} call for the ngrams of a text.
+ * @since 6.4
+ */
+final class LanguageModelComparison {
+
+  private static final int RUNS = 5;
+  private static final double MAX_RELATIVE_ERROR = 0.0005;
+
+  private LanguageModelComparison() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.out.println("Usage: " + LanguageModelComparison.class.getSimpleName() + " <ngramIndexDir> <textFile> [ngramSize]");
+      System.out.println("  <ngramIndexDir> must contain both the Lucene indexes and " + MappedLanguageModel.FILE_NAME);
+      System.exit(1);
+    }
+    File indexDir = new File(args[0]);
+    int ngramSize = args.length == 3 ? Integer.parseInt(args[2]) : 3;
+    List<List<String>> ngrams = getNgrams(new File(args[1]), ngramSize);
+    System.out.println(ngrams.size() + " " + ngramSize + "grams");
+    try (LuceneLanguageModel lucene = new LuceneLanguageModel(indexDir);
+         MappedLanguageModel mapped = new MappedLanguageModel(indexDir)) {
+      int mismatches = 0;
+      for (List<String> ngram : ngrams) {
+        long luceneCount = lucene.getCount(ngram);
+        long mappedCount = mapped.getCount(ngram);
+        if (Math.abs(luceneCount - mappedCount) > luceneCount * MAX_RELATIVE_ERROR) {
+          if (mismatches++ < 20) {
+            System.out.println("Mismatch for " + ngram + ": Lucene " + luceneCount + ", mapped " + mappedCount);
+          }
+        }
+      }
+      System.out.println("Mismatches: " + mismatches);
+      for (int i = 0; i < RUNS; i++) {
+        time("Lucene", lucene, ngrams);
+        time("Mapped", mapped, ngrams);
+      }
+    }
+  }
+
+  private static void time(String name, BaseLanguageModel lm, List<List<String>> ngrams) {
+    long startTime = System.nanoTime();
+    long sum = 0;
+    for (List<String> ngram : ngrams) {
+      sum += lm.getCount(ngram);
+    }
+    long runTime = System.nanoTime() - startTime;
+    System.out.printf("%s: %.2fµs per lookup (sum of counts: %d)\n", name, runTime / 1000.0 / ngrams.size(), sum);
+  }
+
+  private static List<List<String>> getNgrams(File textFile, int ngramSize) throws IOException {
+    String text = StringTools.readStream(new FileInputStream(textFile), "utf-8");
+    List<String> words = new ArrayList<>();
+    for (String token : new WordTokenizer().tokenize(text)) {
+      if (!token.trim().isEmpty()) {
+        words.add(token);
+      }
+    }
+    List<List<String>> ngrams = new ArrayList<>();
+    for (int i = 0; i + ngramSize <= words.size(); i++) {
+      ngrams.add(new ArrayList<>(words.subList(i, i + ngramSize)));
+    }
+    return ngrams;
+  }
+
+}
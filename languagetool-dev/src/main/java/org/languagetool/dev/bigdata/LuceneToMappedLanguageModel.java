@@ -0,0 +1,131 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.bigdata;
+
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.languagetool.languagemodel.LuceneSingleIndexLanguageModel;
+import org.languagetool.languagemodel.MappedLanguageModel;
+import org.languagetool.languagemodel.MappedLanguageModelWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Converts a Lucene ngram index as used by {@link org.languagetool.languagemodel.LuceneLanguageModel}
+ * (a directory with {@code 1grams}, {@code 2grams}, ... or with {@code index-1}, {@code index-2}, ... sub directories)
+ * to the file used by {@link MappedLanguageModel}. Needs about 16 bytes of heap per ngram.
+ * @since 6.4
+ */
+final class LuceneToMappedLanguageModel {
+
+  private static final int MAX_NGRAM = 4;
+
+  private final MappedLanguageModelWriter writer = new MappedLanguageModelWriter();
+  private long ngramCount;
+  private long skipCount;
+
+  private LuceneToMappedLanguageModel() {
+  }
+
+  private void convert(File topIndexDir, File outputDir) throws IOException {
+    File[] subDirs = topIndexDir.listFiles((file, name) -> name.matches("index-\\d+"));
+    long totalTokenCount = 0;
+    if (subDirs != null && subDirs.length > 0) {
+      for (File subDir : subDirs) {
+        totalTokenCount += convertSingleIndex(subDir);
+      }
+    } else {
+      totalTokenCount = convertSingleIndex(topIndexDir);
+    }
+    writer.setTotalTokenCount(totalTokenCount);
+    System.out.println("Writing " + ngramCount + " ngrams to " + new File(outputDir, MappedLanguageModel.FILE_NAME) +
+      " (skipped " + skipCount + " ngrams with unexpected number of tokens)...");
+    writer.write(outputDir);
+  }
+
+  private long convertSingleIndex(File topIndexDir) throws IOException {
+    LuceneSingleIndexLanguageModel.validateDirectory(topIndexDir);
+    for (int ngramSize = 1; ngramSize <= MAX_NGRAM; ngramSize++) {
+      File indexDir = new File(topIndexDir, ngramSize + "grams");
+      if (indexDir.isDirectory()) {
+        convertNgrams(indexDir, ngramSize);
+      }
+    }
+    try (LuceneSingleIndexLanguageModel lm = new LuceneSingleIndexLanguageModel(topIndexDir)) {
+      return lm.getTotalTokenCount();
+    }
+  }
+
+  private void convertNgrams(File indexDir, int ngramSize) throws IOException {
+    System.out.println("Converting " + indexDir + "...");
+    try (FSDirectory directory = FSDirectory.open(indexDir.getCanonicalFile().toPath());
+         DirectoryReader reader = DirectoryReader.open(directory)) {
+      Terms terms = MultiFields.getTerms(reader, "ngram");
+      if (terms == null) {
+        System.out.println("No 'ngram' field found in " + indexDir + ", skipping");
+        return;
+      }
+      Bits liveDocs = MultiFields.getLiveDocs(reader);
+      TermsEnum termsEnum = terms.iterator();
+      PostingsEnum postings = null;
+      BytesRef term;
+      while ((term = termsEnum.next()) != null) {
+        String ngram = term.utf8ToString();
+        // like LuceneSingleIndexLanguageModel, which looks up the tokens joined by a space:
+        String[] tokens = ngram.split(" ", ngramSize);
+        if (tokens.length != ngramSize) {
+          skipCount++;
+          continue;
+        }
+        long count = 0;
+        postings = termsEnum.postings(postings, PostingsEnum.NONE);
+        int doc;
+        while ((doc = postings.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+          if (liveDocs == null || liveDocs.get(doc)) {
+            count += Long.parseLong(reader.document(doc).get("count"));
+          }
+        }
+        writer.add(Arrays.asList(tokens), count);
+        if (++ngramCount % 1_000_000 == 0) {
+          System.out.println(ngramCount + " ngrams...");
+        }
+      }
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.out.println("Usage: " + LuceneToMappedLanguageModel.class.getSimpleName() + " <ngramIndexDir> [outputDir]");
+      System.out.println("  <ngramIndexDir> is the ngram directory of one language, e.g. /data/ngram-index/en");
+      System.out.println("  [outputDir] is where " + MappedLanguageModel.FILE_NAME + " will be written, defaults to <ngramIndexDir>");
+      System.exit(1);
+    }
+    File topIndexDir = new File(args[0]);
+    File outputDir = args.length == 2 ? new File(args[1]) : topIndexDir;
+    long startTime = System.currentTimeMillis();
+    new LuceneToMappedLanguageModel().convert(topIndexDir, outputDir);
+    System.out.println("Done in " + (System.currentTimeMillis() - startTime) / 1000 + "s");
+  }
+
+}
@@ -0,0 +1,98 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tokenizers.de;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size cache of compound splits that can be used by many threads without locking. Every word
+ * has exactly one slot (determined by its hash), a new entry simply replaces the entry in its slot,
+ * so the cache never grows and needs no eviction bookkeeping. Words that are checked again and again,
+ * like the long compounds of a text, stay in the cache unless another frequent word has the same slot.
+ * @since 6.4
+ */
+final class CompoundSplitCache {
+
+  private final AtomicReferenceArray<Entry> entries;
+  private final int mask;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param size the number of entries, rounded up to a power of 2
+   */
+  CompoundSplitCache(int size) {
+    if (size < 1 || size > 1 << 30) {
+      throw new IllegalArgumentException("Invalid cache size: " + size);
+    }
+    int capacity = Integer.highestOneBit(size - 1) << 1;
+    entries = new AtomicReferenceArray<>(Math.max(1, capacity));
+    mask = entries.length() - 1;
+  }
+
+  /**
+   * @return the cached parts of the word, or {@code null}
+   */
+  List<String> get(String word) {
+    Entry entry = entries.get(slot(word));
+    if (entry != null && entry.word.equals(word)) {
+      hits.increment();
+      return entry.parts;
+    }
+    misses.increment();
+    return null;
+  }
+
+  /**
+   * @param parts an unmodifiable list
+   */
+  void put(String word, List<String> parts) {
+    entries.lazySet(slot(word), new Entry(word, parts));
+  }
+
+  private int slot(String word) {
+    int h = word.hashCode();
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  int size() {
+    return entries.length();
+  }
+
+  long getHitCount() {
+    return hits.sum();
+  }
+
+  long getMissCount() {
+    return misses.sum();
+  }
+
+  private static final class Entry {
+    private final String word;
+    private final List<String> parts;
+
+    private Entry(String word, List<String> parts) {
+      this.word = word;
+      this.parts = parts;
+    }
+  }
+
+}
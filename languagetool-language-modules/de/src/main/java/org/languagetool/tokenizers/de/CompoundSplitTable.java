@@ -0,0 +1,242 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tokenizers.de;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Precomputed splits of frequent compounds, read from a memory-mapped file so that the table
+ * doesn't use heap memory except for the start positions of its lines. The file is UTF-8. Its first line
+ * is the version of the splitter that computed the splits, so that a table isn't used with a different
+ * dictionary or different exceptions. Then there's one compound per line: the word, the parts in strict
+ * mode and the parts in non-strict mode, separated by tabs, the parts separated by {@code U+001F}. These
+ * lines are sorted by the UTF-8 bytes of the word, so words are looked up by binary search.
+ * Use {@link #write(Collection, Function, Function, String, Path)} (or {@link GermanCompoundTokenizer#main(String[])})
+ * to create the file.
+ * @since 6.4
+ */
+final class CompoundSplitTable {
+
+  private static final byte TAB = '\t';
+  private static final byte NEWLINE = '\n';
+  private static final char PART_SEPARATOR = '\u001F';
+
+  private final MappedByteBuffer buffer;
+  private final int[] lineStarts;  // plus the end of the last line
+
+  private CompoundSplitTable(MappedByteBuffer buffer, int[] lineStarts) {
+    this.buffer = buffer;
+    this.lineStarts = lineStarts;
+  }
+
+  /**
+   * @param version the version of the splitter that will use the table
+   * @return the table, or {@code null} if it was created by a different version of the splitter
+   */
+  @Nullable
+  static CompoundSplitTable load(Path file, String version) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Compound split table too large: " + file);
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    int limit = buffer.limit();
+    int start = 0;
+    while (start < limit && buffer.get(start) != NEWLINE) {
+      start++;
+    }
+    if (start == limit) {
+      throw new IOException("Compound split table has no version line: " + file);
+    }
+    String tableVersion = new String(getBytes(buffer, 0, start), StandardCharsets.UTF_8);
+    if (!tableVersion.equals(version)) {
+      return null;
+    }
+    start++;
+    int lines = 0;
+    for (int i = start; i < limit; i++) {
+      if (buffer.get(i) == NEWLINE) {
+        lines++;
+      }
+    }
+    if (limit > 0 && buffer.get(limit - 1) != NEWLINE) {
+      throw new IOException("Compound split table must end with a line break: " + file);
+    }
+    int[] lineStarts = new int[lines + 1];
+    lineStarts[0] = start;
+    int line = 1;
+    for (int i = start; i < limit; i++) {
+      if (buffer.get(i) == NEWLINE) {
+        lineStarts[line++] = i + 1;
+      }
+    }
+    CompoundSplitTable table = new CompoundSplitTable(buffer, lineStarts);
+    for (int i = 1; i < lines; i++) {
+      if (table.compareWord(i, table.getWord(i - 1)) <= 0) {
+        throw new IOException("Compound split table is not sorted or has duplicates at line " + (i + 2) + ": " + file);
+      }
+    }
+    return table;
+  }
+
+  /**
+   * @return the parts of the word, or {@code null} if the word isn't in the table
+   */
+  @Nullable
+  List<String> get(String word, boolean strictMode) {
+    byte[] key = word.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compareWord(mid, key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return getParts(mid, strictMode);
+      }
+    }
+    return null;
+  }
+
+  int size() {
+    return lineStarts.length - 1;
+  }
+
+  // compares the word of the given line with the key, like String.compareTo() but for unsigned bytes:
+  private int compareWord(int line, byte[] key) {
+    int pos = lineStarts[line];
+    for (int i = 0; ; i++, pos++) {
+      byte b = buffer.get(pos);
+      boolean wordEnd = b == TAB;
+      if (i == key.length) {
+        return wordEnd ? 0 : 1;
+      }
+      if (wordEnd) {
+        return -1;
+      }
+      int diff = (b & 0xff) - (key[i] & 0xff);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+  }
+
+  private byte[] getWord(int line) {
+    int start = lineStarts[line];
+    int end = start;
+    while (buffer.get(end) != TAB) {
+      end++;
+    }
+    return getBytes(start, end);
+  }
+
+  private List<String> getParts(int line, boolean strictMode) {
+    int pos = lineStarts[line];
+    int end = lineStarts[line + 1] - 1;  // without the line break
+    int column = 0;
+    int start = pos;
+    String[] columns = new String[3];
+    for (; pos <= end; pos++) {
+      if (pos == end || buffer.get(pos) == TAB) {
+        if (column < columns.length) {
+          columns[column] = new String(getBytes(start, pos), StandardCharsets.UTF_8);
+        }
+        column++;
+        start = pos + 1;
+      }
+    }
+    String parts = columns[strictMode ? 1 : 2];
+    if (parts == null) {
+      throw new IllegalStateException("Invalid line " + (line + 2) + " in compound split table");
+    }
+    if (parts.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(Arrays.asList(parts.split(String.valueOf(PART_SEPARATOR), -1)));
+  }
+
+  private byte[] getBytes(int start, int end) {
+    return getBytes(buffer, start, end);
+  }
+
+  private static byte[] getBytes(MappedByteBuffer buffer, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    for (int i = start; i < end; i++) {
+      bytes[i - start] = buffer.get(i);
+    }
+    return bytes;
+  }
+
+  /**
+   * Write a table for the given words, which can then be loaded with {@link #load(Path, String)}.
+   * @param version the version of the splitter, must not contain line breaks
+   */
+  static void write(Collection<String> words, Function<String, List<String>> strictSplitter,
+                    Function<String, List<String>> nonStrictSplitter, String version, Path file) throws IOException {
+    if (version.indexOf('\n') != -1) {
+      throw new IllegalArgumentException("Version must not contain line breaks: " + version);
+    }
+    SortedMap<byte[], String> sorted = new TreeMap<>(CompoundSplitTable::compareBytes);
+    for (String word : words) {
+      if (!word.isEmpty() && word.indexOf('\t') == -1 && word.indexOf('\n') == -1) {
+        sorted.put(word.getBytes(StandardCharsets.UTF_8), word);
+      }
+    }
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.write(version);
+      writer.write('\n');
+      for (String word : sorted.values()) {
+        writer.write(word);
+        writer.write('\t');
+        writer.write(String.join(String.valueOf(PART_SEPARATOR), strictSplitter.apply(word)));
+        writer.write('\t');
+        writer.write(String.join(String.valueOf(PART_SEPARATOR), nonStrictSplitter.apply(word)));
+        writer.write('\n');
+      }
+    }
+  }
+
+  private static int compareBytes(byte[] a, byte[] b) {
+    int length = Math.min(a.length, b.length);
+    for (int i = 0; i < length; i++) {
+      int diff = (a[i] & 0xff) - (b[i] & 0xff);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return a.length - b.length;
+  }
+
+}
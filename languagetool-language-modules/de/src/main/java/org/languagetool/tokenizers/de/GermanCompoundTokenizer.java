@@ -23,25 +23,48 @@ import de.danielnaber.jwordsplitter.EmbeddedGermanDictionary;
 import de.danielnaber.jwordsplitter.GermanWordSplitter;
 import de.danielnaber.jwordsplitter.InputTooLongException;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.tokenizers.Tokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 import static java.util.Arrays.asList;
 
 /**
  * Split German nouns using the jWordSplitter library.
+ * <p>
+ * As the same compounds are split many times (by the tagger, the speller and several rules, often
+ * for the same sentence), every tokenizer keeps the splits of recently seen words in a cache. Splits
+ * of frequent compounds can also be precomputed: if the system property {@code germanCompoundSplitTable}
+ * points to a file created with {@code GermanCompoundTokenizer --write-table}, words in that file
+ * aren't split by jWordSplitter at all. The table is ignored if it was created with a different
+ * version of jWordSplitter, a different dictionary or different exceptions.
  *
  * @author Daniel Naber
  */
 public class GermanCompoundTokenizer implements Tokenizer {
+
+  private static final Logger logger = LoggerFactory.getLogger(GermanCompoundTokenizer.class);
+  private static final int CACHE_SIZE = 32768;
+
+  private static final int MIN_WORD_LENGTH = 3;
+
+  // loaded by the first tokenizer, as the version of its splitter is needed:
+  @Nullable
+  private static CompoundSplitTable splitTable;
+  private static boolean splitTableLoaded;
+
   private static final Supplier<GermanCompoundTokenizer> strictInstance = Suppliers.memoize(() -> {
     try {
       return new GermanCompoundTokenizer(true);
@@ -58,14 +81,57 @@ public class GermanCompoundTokenizer implements Tokenizer {
   });
 
   private final ExtendedGermanWordSplitter wordSplitter;
+  private final boolean strictMode;
+  private final CompoundSplitCache cache = new CompoundSplitCache(CACHE_SIZE);
+  @Nullable
+  private final CompoundSplitTable table;
+  private final LongAdder tableHits = new LongAdder();
 
   public GermanCompoundTokenizer() throws IOException {
     this(true);
   }
 
   static class ExtendedGermanWordSplitter extends GermanWordSplitter {
+    private final boolean hideInterfixCharacters;
+    private int minimumWordLength;
+    private long hash;  // of the words and the exceptions, see getVersion()
+
     ExtendedGermanWordSplitter(boolean hideInterfixCharacters) throws IOException {
-      super(hideInterfixCharacters, extendedList());
+      this(hideInterfixCharacters, extendedList());
+    }
+
+    private ExtendedGermanWordSplitter(boolean hideInterfixCharacters, Set<String> words) throws IOException {
+      super(hideInterfixCharacters, words);
+      this.hideInterfixCharacters = hideInterfixCharacters;
+      for (String word : words) {
+        hash += mix(word.hashCode());  // a sum, as the order of the set isn't defined
+      }
+    }
+
+    @Override
+    public void setMinimumWordLength(int minimumWordLength) {
+      super.setMinimumWordLength(minimumWordLength);
+      this.minimumWordLength = minimumWordLength;
+    }
+
+    @Override
+    public void addException(String completeWord, List<String> wordParts) {
+      super.addException(completeWord, wordParts);
+      hash += mix((completeWord + "=" + String.join("|", wordParts)).hashCode());
+    }
+
+    /**
+     * @return a version that changes with jWordSplitter, the dictionary, the exceptions and the settings
+     * (except strict mode), so that a {@link CompoundSplitTable} isn't used with different splits
+     */
+    String getVersion() {
+      return GermanWordSplitter.class.getPackage().getImplementationVersion() + "/" + hideInterfixCharacters + "/" +
+        minimumWordLength + "/" + Long.toHexString(hash);
+    }
+
+    private static long mix(int value) {
+      long h = value * 0x9E3779B97F4A7C15L;
+      return h ^ (h >>> 32);
     }
     static Set<String> extendedList() {
       ObjectOpenHashSet<String> words = new ObjectOpenHashSet<>(EmbeddedGermanDictionary.getWords());
@@ -92,9 +158,10 @@ public class GermanCompoundTokenizer implements Tokenizer {
   }
 
   public GermanCompoundTokenizer(boolean strictMode) throws IOException {
+    this.strictMode = strictMode;
     wordSplitter = new ExtendedGermanWordSplitter(false);
     wordSplitter.setStrictMode(strictMode);
-    wordSplitter.setMinimumWordLength(3);
+    wordSplitter.setMinimumWordLength(MIN_WORD_LENGTH);
     // add exceptions here so we don't need to update JWordSplitter for every exception we find:
     //wordSplitter.addException("Maskerade", Collections.singletonList("Maskerade"));
     //wordSplitter.addException("Sportshorts", asList("Sport", "shorts"));
@@ -144,17 +211,94 @@ public class GermanCompoundTokenizer implements Tokenizer {
     wordSplitter.addException("Aufkohlung", asList("Aufkohlung"));
     wordSplitter.addException("Festigung", asList("Festigung"));
     wordSplitter.addException("Allerheiligen", asList("Allerheiligen"));
+    this.table = getSplitTable(wordSplitter.getVersion());
+  }
+
+  @Nullable
+  private static synchronized CompoundSplitTable getSplitTable(String version) {
+    if (!splitTableLoaded) {
+      splitTableLoaded = true;
+      String file = System.getProperty("germanCompoundSplitTable");
+      if (file != null) {
+        try {
+          splitTable = CompoundSplitTable.load(Paths.get(file), version);
+        } catch (IOException e) {
+          throw new RuntimeException("Could not load compound split table from " + file, e);
+        }
+        if (splitTable != null) {
+          logger.info("Loaded {} compound splits from {}", splitTable.size(), file);
+        } else {
+          logger.warn("Ignoring compound split table {}, it was created with a different version of the splitter, " +
+            "its dictionary or its exceptions - please create it again with --write-table", file);
+        }
+      }
+    }
+    return splitTable;
   }
 
+  /**
+   * @return the parts of the word, as an unmodifiable list
+   */
   @Override
   public List<String> tokenize(String word) {
+    if (word == null) {
+      return split(null);
+    }
+    List<String> parts = cache.get(word);
+    if (parts == null) {
+      parts = table != null ? table.get(word, strictMode) : null;
+      if (parts != null) {
+        tableHits.increment();
+      } else {
+        parts = split(word);
+      }
+      cache.put(word, parts);
+    }
+    return parts;
+  }
+
+  private List<String> split(String word) {
     try {
-      return wordSplitter.splitWord(word);
+      return Collections.unmodifiableList(new ArrayList<>(wordSplitter.splitWord(word)));
     } catch (InputTooLongException e) {
       return Collections.singletonList(word);
     }
   }
 
+  /**
+   * @return how often {@link #tokenize(String)} found the word in the cache
+   * @since 6.4
+   */
+  public long getCacheHitCount() {
+    return cache.getHitCount();
+  }
+
+  /**
+   * @return how often {@link #tokenize(String)} didn't find the word in the cache
+   * @since 6.4
+   */
+  public long getCacheMissCount() {
+    return cache.getMissCount();
+  }
+
+  /**
+   * @return the share of {@link #tokenize(String)} calls answered from the cache, between 0 and 1
+   * @since 6.4
+   */
+  public double getCacheHitRate() {
+    long hits = getCacheHitCount();
+    long total = hits + getCacheMissCount();
+    return total > 0 ? (double) hits / total : 0;
+  }
+
+  /**
+   * @return how often a word that wasn't in the cache was found in the precomputed split table
+   * @since 6.4
+   */
+  public long getTableHitCount() {
+    return tableHits.sum();
+  }
+
   public static GermanCompoundTokenizer getStrictInstance() {
     return strictInstance.get();
   }
@@ -166,8 +310,17 @@ public class GermanCompoundTokenizer implements Tokenizer {
   public static void main(String[] args) throws IOException {
     if (args.length == 0) {
       System.out.println("Usage: " + GermanCompoundTokenizer.class.getSimpleName() + " <wordsToSplit... or file>");
+      System.out.println("       " + GermanCompoundTokenizer.class.getSimpleName() + " --write-table <file with one word per line> <table file>");
       System.exit(1);
     }
+    if (args[0].equals("--write-table") && args.length == 3) {
+      List<String> words = Files.readAllLines(Paths.get(args[1]));
+      GermanCompoundTokenizer strict = new GermanCompoundTokenizer(true);
+      GermanCompoundTokenizer nonStrict = new GermanCompoundTokenizer(false);
+      CompoundSplitTable.write(words, strict::split, nonStrict::split, strict.wordSplitter.getVersion(), Paths.get(args[2]));
+      System.out.println("Wrote splits of " + words.size() + " words to " + args[2]);
+      return;
+    }
     GermanCompoundTokenizer tokenizer = new GermanCompoundTokenizer();
     if (new File(args[0]).exists()) {
       System.out.println("Working on lines from " + args[0] + ":");
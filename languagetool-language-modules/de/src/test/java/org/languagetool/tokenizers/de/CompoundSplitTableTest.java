@@ -0,0 +1,110 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tokenizers.de;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompoundSplitTableTest {
+
+  @Test
+  public void testWriteAndLoad() throws IOException {
+    Path file = Files.createTempFile("compoundSplitTest", ".txt");
+    try {
+      List<String> words = Arrays.asList("Haustür", "Bahnhofsuhr", "Übermut", "Zaun", "Firefox-Add-on", "Bahn");
+      CompoundSplitTable.write(words, CompoundSplitTableTest::split, word -> Collections.singletonList(word), "v1", file);
+      CompoundSplitTable table = CompoundSplitTable.load(file, "v1");
+      assertEquals(6, table.size());
+      for (String word : words) {
+        assertEquals(split(word), table.get(word, true));
+        assertEquals(Collections.singletonList(word), table.get(word, false));
+      }
+      assertEquals(Arrays.asList("Firefox", "", "Add-on"), table.get("Firefox-Add-on", true));
+      assertNull(table.get("Bahnhof", true));
+      assertNull(table.get("Aal", true));
+      assertNull(table.get("Zaunkönig", true));
+      assertNull(table.get("", true));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    Path file = Files.createTempFile("compoundSplitTest", ".txt");
+    try {
+      CompoundSplitTable.write(Collections.emptyList(), CompoundSplitTableTest::split, CompoundSplitTableTest::split, "v1", file);
+      CompoundSplitTable table = CompoundSplitTable.load(file, "v1");
+      assertEquals(0, table.size());
+      assertNull(table.get("Haustür", true));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testOtherVersion() throws IOException {
+    Path file = Files.createTempFile("compoundSplitTest", ".txt");
+    try {
+      CompoundSplitTable.write(Arrays.asList("Haustür"), CompoundSplitTableTest::split, CompoundSplitTableTest::split, "v1", file);
+      assertNull(CompoundSplitTable.load(file, "v2"));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testNoVersion() throws IOException {
+    Path file = Files.createTempFile("compoundSplitTest", ".txt");
+    try {
+      CompoundSplitTable.load(file, "v1");
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnsorted() throws IOException {
+    Path file = Files.createTempFile("compoundSplitTest", ".txt");
+    try {
+      Files.write(file, "v1\nZaun\tZaun\tZaun\nHaus\tHaus\tHaus\n".getBytes(StandardCharsets.UTF_8));
+      CompoundSplitTable.load(file, "v1");
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static List<String> split(String word) {
+    if (word.equals("Firefox-Add-on")) {
+      return Arrays.asList("Firefox", "", "Add-on");
+    }
+    int mid = word.length() / 2;
+    return Arrays.asList(word.substring(0, mid), word.substring(mid));
+  }
+
+}
@@ -22,9 +22,13 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 public class GermanCompoundTokenizerTest {
@@ -38,6 +42,27 @@ public class GermanCompoundTokenizerTest {
     assertThat(tokenizer.tokenize("Firefox-Add-on").toString(), is("[Firefox, , Add-on]"));  // why the space?
   }
 
+  @Test
+  public void testCache() throws IOException {
+    GermanCompoundTokenizer tokenizer = new GermanCompoundTokenizer(true);
+    List<String> parts = tokenizer.tokenize("Bahnhofsuhr");
+    assertEquals(0, tokenizer.getCacheHitCount());
+    assertEquals(1, tokenizer.getCacheMissCount());
+    assertSame(parts, tokenizer.tokenize("Bahnhofsuhr"));
+    assertEquals(1, tokenizer.getCacheHitCount());
+    assertEquals(0.5, tokenizer.getCacheHitRate(), 0.0001);
+    assertEquals(0, tokenizer.getTableHitCount());
+  }
+
+  @Test
+  public void testSplitterVersion() throws IOException {
+    GermanCompoundTokenizer.ExtendedGermanWordSplitter splitter = new GermanCompoundTokenizer.ExtendedGermanWordSplitter(false);
+    String version = splitter.getVersion();
+    assertEquals(version, new GermanCompoundTokenizer.ExtendedGermanWordSplitter(false).getVersion());
+    splitter.addException("Haustür", Arrays.asList("Haus", "tür"));
+    assertNotEquals(version, splitter.getVersion());
+  }
+
   @Test
   @Ignore("for interactive use only")
   public void testInteractively() throws IOException {
@@ -35,6 +35,7 @@ import org.languagetool.markup.AnnotatedTextBuilder;
 import org.languagetool.rules.CorrectExample;
 import org.languagetool.rules.IncorrectExample;
 import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleProfiler;
 import org.languagetool.rules.TextLevelRule;
 import org.languagetool.tools.TelemetryProvider;
 import org.slf4j.Logger;
@@ -96,6 +97,9 @@ class ApiV2 {
     } else if (path.equals("admin/refreshUser")) {
       // private (i.e. undocumented) API for our own use only
       TelemetryProvider.INSTANCE.createSpan(spanName, Attributes.empty(), () -> handleRefreshUserInfoRequest(httpExchange, parameters, config));
+    } else if (path.equals("admin/rules/top")) {
+      // private (i.e. undocumented) API for our own use only
+      TelemetryProvider.INSTANCE.createSpan(spanName, Attributes.empty(), () -> handleTopRulesRequest(httpExchange, parameters));
     } else if (path.equals("users/me")) {
       // private (i.e. undocumented) API for our own use only
       TelemetryProvider.INSTANCE.createSpan(spanName, Attributes.empty(), () -> 
@@ -321,6 +325,68 @@ class ApiV2 {
     }
   }
 
+  /*
+   * The rules that took the most time in the sentences sampled by the RuleProfiler, to find slow rules
+   * on real traffic -> for internal use, so only answered for requests from the local machine
+   */
+  private void handleTopRulesRequest(HttpExchange httpExchange, Map<String, String> params) throws IOException {
+    ensureGetMethod(httpExchange, "/admin/rules/top");
+    // requests that went through a proxy on the same machine are not local, even if they come from localhost:
+    if (!httpExchange.getRemoteAddress().getAddress().isLoopbackAddress() || httpExchange.getRequestHeaders().containsKey("X-forwarded-for")) {
+      throw new AuthException("Access to /admin/rules/top is only allowed from localhost");
+    }
+    if (RuleProfiler.getSampleRate() == 0) {
+      throw new PathNotFoundException("Rule profiling is not enabled, see the 'ruleProfilingSampleRate' option");
+    }
+    String langCode = params.get("language");
+    if (langCode != null) {
+      langCode = TextChecker.parseLanguage(langCode).getShortCode();
+    }
+    String limitParam = params.getOrDefault("limit", "50");
+    int limit;
+    try {
+      limit = Integer.parseInt(limitParam);
+    } catch (NumberFormatException e) {
+      throw new BadRequestException("Invalid value for 'limit': '" + limitParam + "', expected a positive number");
+    }
+    if (limit <= 0) {
+      throw new BadRequestException("Invalid value for 'limit': '" + limitParam + "', expected a positive number");
+    }
+    Comparator<RuleProfiler.RuleStats> order;
+    String sort = params.getOrDefault("sort", "total");
+    switch (sort) {
+      case "total": order = Comparator.comparingLong(RuleProfiler.RuleStats::getTotalNanos); break;
+      case "mean": order = Comparator.comparingLong(RuleProfiler.RuleStats::getMeanNanos); break;
+      case "max": order = Comparator.comparingLong(RuleProfiler.RuleStats::getMaxNanos); break;
+      case "matchRate": order = Comparator.comparingDouble(RuleProfiler.RuleStats::getMatchRate); break;
+      case "timeouts": order = Comparator.comparingLong(RuleProfiler.RuleStats::getTimeouts); break;
+      default: throw new BadRequestException("Unknown value for 'sort': '" + sort + "', use one of: total, mean, max, matchRate, timeouts");
+    }
+    StringWriter sw = new StringWriter();
+    try (JsonGenerator g = factory.createGenerator(sw)) {
+      g.writeStartObject();
+      g.writeStringField("warning", "*** This is not a public API - it may change anytime ***");
+      g.writeNumberField("sampleRate", RuleProfiler.getSampleRate());
+      g.writeArrayFieldStart("rules");
+      for (RuleProfiler.RuleStats stats : RuleProfiler.getTopRules(langCode, limit, order)) {
+        g.writeStartObject();
+        g.writeStringField("language", stats.getLanguageCode());
+        g.writeStringField("ruleId", stats.getRuleId());
+        g.writeNumberField("calls", stats.getCalls());
+        g.writeNumberField("totalMillis", stats.getTotalNanos() / 1_000_000.0);
+        g.writeNumberField("meanMicros", stats.getMeanNanos() / 1_000.0);
+        g.writeNumberField("maxMillis", stats.getMaxNanos() / 1_000_000.0);
+        g.writeNumberField("matches", stats.getMatches());
+        g.writeNumberField("matchRate", stats.getMatchRate());
+        g.writeNumberField("timeouts", stats.getTimeouts());
+        g.writeEndObject();
+      }
+      g.writeEndArray();
+      g.writeEndObject();
+    }
+    sendJson(httpExchange, sw);
+  }
+
   /*
    * Provide information on user that requests this, e.g. for add-on to acquire token + other information
    * Expects user + password via HTTP Basic Auth
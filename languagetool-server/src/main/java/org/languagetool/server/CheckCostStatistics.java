@@ -0,0 +1,95 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Online statistics of how long checks take, per language, mode and level, used to predict the
+ * cost of a check before it runs. The cost is modelled as a fixed overhead (expressed as a number
+ * of characters) plus a time per character, the latter being a moving average of recent checks.
+ * @since 6.4
+ */
+class CheckCostStatistics {
+
+  // per-request work like language detection and result serialization, in characters of text:
+  static final int OVERHEAD_CHARS = 500;
+  // used until the first check for a language/mode/level has finished:
+  static final double DEFAULT_MILLIS_PER_CHAR = 0.02;
+  private static final double SMOOTHING = 0.05;
+
+  private final ConcurrentMap<String, Average> averages = new ConcurrentHashMap<>();
+  private final Average overall = new Average(DEFAULT_MILLIS_PER_CHAR);
+
+  void record(Language language, JLanguageTool.Mode mode, JLanguageTool.Level level, int textLength, long millis) {
+    double millisPerChar = (double) millis / (textLength + OVERHEAD_CHARS);
+    averages.computeIfAbsent(getKey(language, mode, level), k -> new Average(overall.get())).add(millisPerChar);
+    overall.add(millisPerChar);
+  }
+
+  /**
+   * Record a check that timed out or failed after the given time, which is thus only a lower bound
+   * of its cost: it raises the prediction if it's higher, but never lowers it.
+   */
+  void recordLowerBound(Language language, JLanguageTool.Mode mode, JLanguageTool.Level level, int textLength, long millis) {
+    double millisPerChar = (double) millis / (textLength + OVERHEAD_CHARS);
+    averages.computeIfAbsent(getKey(language, mode, level), k -> new Average(overall.get())).addLowerBound(millisPerChar);
+    overall.addLowerBound(millisPerChar);
+  }
+
+  /**
+   * @return the expected time to check a text of the given length in milliseconds
+   */
+  long predictMillis(Language language, JLanguageTool.Mode mode, JLanguageTool.Level level, int textLength) {
+    Average average = averages.get(getKey(language, mode, level));
+    double millisPerChar = average != null ? average.get() : overall.get();
+    return Math.round(millisPerChar * (textLength + OVERHEAD_CHARS));
+  }
+
+  private static String getKey(Language language, JLanguageTool.Mode mode, JLanguageTool.Level level) {
+    return language.getShortCodeWithCountryAndVariant() + "/" + mode + "/" + level;
+  }
+
+  private static class Average {
+    private double value;
+
+    Average(double initialValue) {
+      value = initialValue;
+    }
+
+    synchronized void add(double sample) {
+      value += SMOOTHING * (sample - value);
+    }
+
+    synchronized void addLowerBound(double sample) {
+      if (sample > value) {
+        add(sample);
+      }
+    }
+
+    synchronized double get() {
+      return value;
+    }
+  }
+
+}
@@ -0,0 +1,211 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import java.util.TreeSet;
+import java.util.concurrent.*;
+
+/**
+ * Orders pending checks by their predicted cost instead of first-come-first-served, so that a short
+ * check doesn't have to wait for long checks that arrived shortly before it. A check's priority is
+ * its arrival time plus its predicted cost, so long checks are delayed but not starved. Checks are
+ * rejected with a {@link RejectedExecutionException} if the checks ahead of them would make them miss
+ * their deadline, or if there are too many pending checks - in that case the check with the lowest
+ * priority is rejected, which is not necessarily the new one.
+ * <p>
+ * A check is only handed to the executor when a thread is free, so the executor never queues checks.
+ * A check that is cancelled while it runs (e.g. because it timed out) may keep its thread until it
+ * notices the interrupt. With {@code timedOutThreads > 0}, such checks stop counting against the
+ * number of checks that run at the same time, but they still count against the number of threads,
+ * so the executor never needs more than {@code threads + timedOutThreads} threads.
+ * @since 6.4
+ */
+class CheckScheduler {
+
+  // premium users' checks are scheduled as if they were cheaper:
+  private static final double PREMIUM_COST_FACTOR = 0.5;
+
+  private final Executor executor;
+  private final int threads;
+  private final int maxThreads;
+  private final int maxPending;
+  private final TreeSet<ScheduledCheck<?>> pending = new TreeSet<>();
+  private long sequence;
+  private int runningChecks;  // started, and neither finished nor cancelled
+  private int busyThreads;    // running a check, including the cancelled ones that haven't stopped yet
+
+  /**
+   * @param threads the number of threads of the executor
+   * @param maxPending the maximum number of checks waiting to be run, 0 for no limit
+   */
+  CheckScheduler(Executor executor, int threads, int maxPending) {
+    this(executor, threads, 0, maxPending);
+  }
+
+  /**
+   * @param threads the number of checks that run at the same time
+   * @param timedOutThreads the number of additional threads that checks which have been cancelled while
+   *                        running may keep using, so that they don't delay the next checks
+   * @param maxPending the maximum number of checks waiting to be run, 0 for no limit
+   */
+  CheckScheduler(Executor executor, int threads, int timedOutThreads, int maxPending) {
+    if (threads <= 0 || timedOutThreads < 0) {
+      throw new IllegalArgumentException("Invalid number of threads: " + threads + ", " + timedOutThreads);
+    }
+    this.executor = executor;
+    this.threads = threads;
+    this.maxThreads = threads + timedOutThreads;
+    this.maxPending = maxPending > 0 ? maxPending : Integer.MAX_VALUE;
+  }
+
+  /**
+   * @param predictedMillis the expected run time of the check
+   * @param deadlineMillis the time (as in {@link System#currentTimeMillis()}) when the check's result is not needed
+   *                       anymore, or a negative value for no deadline
+   * @throws RejectedExecutionException if the check is rejected because of the load
+   */
+  <T> Future<T> submit(Callable<T> callable, long predictedMillis, long deadlineMillis, boolean premium) {
+    long now = System.currentTimeMillis();
+    long priority = now + (long) (predictedMillis * (premium ? PREMIUM_COST_FACTOR : 1));
+    ScheduledCheck<T> check;
+    ScheduledCheck<?> evicted = null;
+    synchronized (this) {
+      check = new ScheduledCheck<>(callable, priority, predictedMillis, sequence++);
+      if (deadlineMillis >= 0) {
+        long millisAhead = 0;
+        for (ScheduledCheck<?> other : pending.headSet(check)) {
+          millisAhead += other.predictedMillis;
+        }
+        if (millisAhead > 0 && now + millisAhead / threads + predictedMillis > deadlineMillis) {
+          throw new RejectedExecutionException("Check would not finish in time: " + pending.size() +
+            " pending checks, about " + millisAhead / threads + "ms ahead, " + predictedMillis + "ms predicted for this check");
+        }
+      }
+      if (pending.size() >= maxPending) {
+        if (pending.last().compareTo(check) < 0) {
+          throw new RejectedExecutionException("Too many pending checks: " + pending.size());
+        }
+        evicted = pending.pollLast();
+      }
+      pending.add(check);
+    }
+    if (evicted != null) {
+      evicted.reject(new RejectedExecutionException("Check was replaced by a check with higher priority"));
+    }
+    startChecks();
+    return check;
+  }
+
+  synchronized int getPendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * @return the number of threads used by checks, including the cancelled ones that are still running
+   */
+  synchronized int getBusyThreadCount() {
+    return busyThreads;
+  }
+
+  private void startChecks() {
+    while (true) {
+      ScheduledCheck<?> next;
+      synchronized (this) {
+        if (pending.isEmpty() || runningChecks >= threads || busyThreads >= maxThreads) {
+          return;
+        }
+        next = pending.pollFirst();
+        next.started = true;
+        runningChecks++;
+        busyThreads++;
+      }
+      try {
+        executor.execute(next::runAndRelease);
+      } catch (RejectedExecutionException e) {
+        // the executor has been shut down
+        finished(next);
+        next.reject(e);
+        return;
+      }
+    }
+  }
+
+  private void finished(ScheduledCheck<?> check) {
+    synchronized (this) {
+      busyThreads--;
+      check.release();
+    }
+    startChecks();
+  }
+
+  private class ScheduledCheck<T> extends FutureTask<T> implements Comparable<ScheduledCheck<?>> {
+    private final long priority;
+    private final long predictedMillis;
+    private final long sequence;
+    // guarded by CheckScheduler.this:
+    private boolean started;
+    private boolean released;
+
+    ScheduledCheck(Callable<T> callable, long priority, long predictedMillis, long sequence) {
+      super(callable);
+      this.priority = priority;
+      this.predictedMillis = predictedMillis;
+      this.sequence = sequence;
+    }
+
+    void reject(RejectedExecutionException e) {
+      setException(e);
+    }
+
+    void runAndRelease() {
+      try {
+        run();
+      } finally {
+        finished(this);
+      }
+    }
+
+    // the check doesn't count as running anymore, even if its thread hasn't stopped yet:
+    void release() {
+      if (started && !released) {
+        released = true;
+        runningChecks--;
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      // e.g. timed out while waiting or running, don't count it as pending or running anymore:
+      synchronized (CheckScheduler.this) {
+        pending.remove(this);
+        release();
+      }
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      startChecks();
+      return cancelled;
+    }
+
+    @Override
+    public int compareTo(ScheduledCheck<?> other) {
+      int result = Long.compare(priority, other.priority);
+      return result != 0 ? result : Long.compare(sequence, other.sequence);
+    }
+  }
+
+}
@@ -70,6 +70,8 @@ public class HTTPServerConfig {
   protected long maxCheckTimeMillisPremium = -1;
   protected int maxCheckThreads = 10;
   protected int maxTextCheckerThreads; // default to same value as maxCheckThreads
+  protected int sentenceCheckThreads = 0; // 0 = check the sentences of a request sequentially
+  protected int timedOutCheckThreads = 0;
   protected int textCheckerQueueSize = 8;
   protected Mode mode;
   protected File languageModelDir = null;
@@ -93,6 +95,15 @@ public class HTTPServerConfig {
   protected File remoteRulesConfigFile = null;
   protected int cacheSize = 0;
   protected long cacheTTLSeconds = 300;
+  @Nullable
+  protected String resultCacheServer = null;
+  @Nullable
+  protected String resultCachePassword = null;
+  protected String resultCacheNamespace = "";
+  protected int resultCacheTimeoutMillis = 20;
+  protected long resultCacheTTLSeconds = 3600;
+  protected int offHeapCacheSizeMB = 0;
+  protected int maxDocumentSessions = 0;
   protected float maxErrorsPerWordRate = 0;
   protected int maxSpellingSuggestions = 0;
   protected List<String> blockedReferrers = new ArrayList<>();
@@ -135,6 +146,7 @@ public class HTTPServerConfig {
   protected boolean dbLogging;
   protected boolean prometheusMonitoring = false;
   protected int prometheusPort = 9301;
+  protected double ruleProfilingSampleRate = 0.01;
   protected GlobalConfig globalConfig = new GlobalConfig();
   protected List<String> disabledRuleIds = new ArrayList<>();
   protected boolean stoppable = false;
@@ -185,12 +197,14 @@ public class HTTPServerConfig {
   
   
   private static final List<String> KNOWN_OPTION_KEYS = Arrays.asList("abTest", "abTestClients", "abTestRollout",
-    "beolingusFile", "blockedReferrers", "cacheSize", "cacheTTLSeconds",
+    "beolingusFile", "blockedReferrers", "cacheSize", "cacheTTLSeconds", "maxDocumentSessions",
+    "resultCacheServer", "resultCachePassword", "resultCacheNamespace", "resultCacheTimeoutMilliseconds", "resultCacheTTLSeconds",
+    "offHeapCacheSizeMB",
     "dbDriver", "dbPassword", "dbUrl", "dbUsername", "disabledRuleIds", "fasttextBinary", "fasttextModel", "grammalectePassword",
-    "grammalecteServer", "grammalecteUser", "ipFingerprintFactor", "languageModel", "maxCheckThreads", "maxTextCheckerThreads", "textCheckerQueueSize", "maxCheckTimeMillis",
+    "grammalecteServer", "grammalecteUser", "ipFingerprintFactor", "languageModel", "maxCheckThreads", "maxTextCheckerThreads", "sentenceCheckThreads", "timedOutCheckThreads", "textCheckerQueueSize", "maxCheckTimeMillis",
     "maxCheckTimeWithApiKeyMillis", "maxErrorsPerWordRate", "maxPipelinePoolSize", "maxSpellingSuggestions", "maxTextHardLength",
     "maxTextLength", "maxTextLengthWithApiKey", "maxWorkQueueSize", "pipelineCaching",
-    "pipelineExpireTimeInSeconds", "pipelinePrewarming", "prometheusMonitoring", "prometheusPort", "remoteRulesFile",
+    "pipelineExpireTimeInSeconds", "pipelinePrewarming", "prometheusMonitoring", "prometheusPort", "ruleProfilingSampleRate", "remoteRulesFile",
     "requestLimit", "requestLimitInBytes", "requestLimitPeriodInSeconds", "requestLimitWhitelistUsers", "requestLimitWhitelistLimit",
     "rulesFile", "serverURL",
     "skipLoggingChecks", "skipLoggingRuleMatches", "timeoutRequestLimit", "trustXForwardForHeader",
@@ -355,6 +369,14 @@ public class HTTPServerConfig {
         if (maxTextCheckerThreads < 0) {
           throw new IllegalArgumentException("Invalid value for maxTextCheckerThreads, must be >= 1: " + maxTextCheckerThreads);
         }
+        sentenceCheckThreads = Integer.parseInt(getOptionalProperty(props, "sentenceCheckThreads", "0"));
+        if (sentenceCheckThreads < 0) {
+          throw new IllegalArgumentException("Invalid value for sentenceCheckThreads, must be >= 0: " + sentenceCheckThreads);
+        }
+        timedOutCheckThreads = Integer.parseInt(getOptionalProperty(props, "timedOutCheckThreads", "0"));
+        if (timedOutCheckThreads < 0) {
+          throw new IllegalArgumentException("Invalid value for timedOutCheckThreads, must be >= 0: " + timedOutCheckThreads);
+        }
         textCheckerQueueSize = Integer.parseInt(getOptionalProperty(props, "textCheckerQueueSize", "8"));
         if (textCheckerQueueSize < 0) {
           throw new IllegalArgumentException("Invalid value for textCheckerQueueSize, must be >= 1: " + textCheckerQueueSize);
@@ -386,6 +408,28 @@ public class HTTPServerConfig {
           throw new IllegalArgumentException("Use of cacheTTLSeconds without also setting cacheSize has no effect.");
         }
         cacheTTLSeconds = Integer.parseInt(getOptionalProperty(props, "cacheTTLSeconds", "300"));
+        resultCacheServer = getOptionalProperty(props, "resultCacheServer", null);
+        if (resultCacheServer != null && cacheSize == 0) {
+          throw new IllegalArgumentException("Use of resultCacheServer without also setting cacheSize has no effect.");
+        }
+        resultCachePassword = getOptionalProperty(props, "resultCachePassword", null);
+        resultCacheNamespace = getOptionalProperty(props, "resultCacheNamespace", "");
+        resultCacheTimeoutMillis = Integer.parseInt(getOptionalProperty(props, "resultCacheTimeoutMilliseconds", "20"));
+        resultCacheTTLSeconds = Long.parseLong(getOptionalProperty(props, "resultCacheTTLSeconds", "3600"));
+        offHeapCacheSizeMB = Integer.parseInt(getOptionalProperty(props, "offHeapCacheSizeMB", "0"));
+        if (offHeapCacheSizeMB < 0) {
+          throw new IllegalArgumentException("Invalid value for offHeapCacheSizeMB: " + offHeapCacheSizeMB + ", use 0 to deactivate off-heap cache");
+        }
+        if (offHeapCacheSizeMB > 0 && cacheSize == 0) {
+          throw new IllegalArgumentException("Use of offHeapCacheSizeMB without also setting cacheSize has no effect.");
+        }
+        if (offHeapCacheSizeMB > 0 && resultCacheServer != null) {
+          throw new IllegalArgumentException("offHeapCacheSizeMB and resultCacheServer cannot be used together.");
+        }
+        maxDocumentSessions = Integer.parseInt(getOptionalProperty(props, "maxDocumentSessions", "0"));
+        if (maxDocumentSessions < 0) {
+          throw new IllegalArgumentException("Invalid value for maxDocumentSessions: " + maxDocumentSessions + ", use 0 to deactivate document sessions");
+        }
         maxErrorsPerWordRate = Float.parseFloat(getOptionalProperty(props, "maxErrorsPerWordRate", "0"));
         maxSpellingSuggestions = Integer.parseInt(getOptionalProperty(props, "maxSpellingSuggestions", "0"));
         blockedReferrers = Arrays.asList(getOptionalProperty(props, "blockedReferrers", "").split(",\\s*"));
@@ -441,6 +485,10 @@ public class HTTPServerConfig {
         passwortLoginAccessListPath = getOptionalProperty(props, "passwortLoginAccessListPath", "");
         prometheusMonitoring = Boolean.valueOf(getOptionalProperty(props, "prometheusMonitoring", "false").trim());
         prometheusPort = Integer.parseInt(getOptionalProperty(props, "prometheusPort", "9301"));
+        ruleProfilingSampleRate = Double.parseDouble(getOptionalProperty(props, "ruleProfilingSampleRate", "0.01"));
+        if (ruleProfilingSampleRate < 0 || ruleProfilingSampleRate > 1) {
+          throw new IllegalArgumentException("Invalid value for ruleProfilingSampleRate, must be between 0 and 1: " + ruleProfilingSampleRate);
+        }
         skipLoggingRuleMatches = Boolean.valueOf(getOptionalProperty(props, "skipLoggingRuleMatches", "false").trim());
         skipLoggingChecks = Boolean.valueOf(getOptionalProperty(props, "skipLoggingChecks", "false").trim());
         if (dbLogging && (dbDriver == null || dbUrl == null || dbUsername == null || dbPassword == null)) {
@@ -856,6 +904,35 @@ public class HTTPServerConfig {
     return maxTextCheckerThreads != 0 ? maxTextCheckerThreads : maxCheckThreads;
   }
 
+  /**
+   * @param sentenceCheckThreads The number of threads in the pool shared by all requests for checking the sentences
+   *                             of a single request in parallel, 0 to check them sequentially.
+   * @since 6.4
+   */
+  void setSentenceCheckThreads(int sentenceCheckThreads) {
+    this.sentenceCheckThreads = sentenceCheckThreads;
+  }
+
+  /** @since 6.4 */
+  int getSentenceCheckThreads() {
+    return sentenceCheckThreads;
+  }
+
+  /**
+   * @param timedOutCheckThreads the number of additional text checker threads that checks may keep using after
+   *                             their timeout until they notice that they have been cancelled, so that they don't
+   *                             delay the next checks; 0 to let them block a text checker thread until they stop
+   * @since 6.4
+   */
+  void setTimedOutCheckThreads(int timedOutCheckThreads) {
+    this.timedOutCheckThreads = timedOutCheckThreads;
+  }
+
+  /** @since 6.4 */
+  int getTimedOutCheckThreads() {
+    return timedOutCheckThreads;
+  }
+
   public int getTextCheckerQueueSize() {
     return textCheckerQueueSize;
   }
@@ -973,6 +1050,22 @@ public class HTTPServerConfig {
     this.cacheTTLSeconds = cacheTTLSeconds;
   }
 
+  /**
+   * Maximum number of documents whose state is kept so that re-checks of the document
+   * (requests with the same {@code documentId}) only need to check what has changed, 0 to disable.
+   * @since 6.4
+   */
+  int getMaxDocumentSessions() {
+    return maxDocumentSessions;
+  }
+
+  /**
+   * @since 6.4
+   */
+  void setMaxDocumentSessions(int maxDocumentSessions) {
+    this.maxDocumentSessions = maxDocumentSessions;
+  }
+
   /**
    * Maximum errors per word rate, checking will stop if the rate is higher.
    * For example, with a rate of 0.33, the checking would stop if the user's
@@ -1194,6 +1287,68 @@ public class HTTPServerConfig {
     return prometheusPort;
   }
 
+  /**
+   * @param ruleProfilingSampleRate the share of sentences for which the time of each rule is measured,
+   *                                0 to disable rule profiling
+   * @since 6.4
+   */
+  void setRuleProfilingSampleRate(double ruleProfilingSampleRate) {
+    this.ruleProfilingSampleRate = ruleProfilingSampleRate;
+  }
+
+  /** @since 6.4 */
+  double getRuleProfilingSampleRate() {
+    return ruleProfilingSampleRate;
+  }
+
+  /**
+   * @return host and port of a Redis-compatible server that keeps the results of all servers of a cluster,
+   * or {@code null} if results aren't shared
+   * @since 6.4
+   */
+  @Nullable
+  String getResultCacheServer() {
+    return resultCacheServer;
+  }
+
+  /** @since 6.4 */
+  void setResultCacheServer(@Nullable String resultCacheServer) {
+    this.resultCacheServer = resultCacheServer;
+  }
+
+  /** @since 6.4 */
+  @Nullable
+  String getResultCachePassword() {
+    return resultCachePassword;
+  }
+
+  /**
+   * @return a prefix for the shared results, needs to be different for servers with different rules or settings
+   * @since 6.4
+   */
+  String getResultCacheNamespace() {
+    return resultCacheNamespace;
+  }
+
+  /** @since 6.4 */
+  int getResultCacheTimeoutMillis() {
+    return resultCacheTimeoutMillis;
+  }
+
+  /** @since 6.4 */
+  long getResultCacheTTLSeconds() {
+    return resultCacheTTLSeconds;
+  }
+
+  /**
+   * @return the size of the memory outside of the Java heap used to keep sentence results, in megabytes,
+   * or {@code 0} if results are only kept on the heap
+   * @since 6.4
+   */
+  int getOffHeapCacheSizeMB() {
+    return offHeapCacheSizeMB;
+  }
+
 
   @Nullable
   public String getRedisHost() {
@@ -428,6 +428,11 @@ class LanguageToolHttpHandler implements HttpHandler {
   }
 
   private void sendError(HttpExchange httpExchange, int httpReturnCode, String response) throws IOException {
+    StreamingCheckResponse streamingResponse = StreamingCheckResponse.get(httpExchange);
+    if (streamingResponse != null && streamingResponse.fail(httpReturnCode, response)) {
+      ServerMetricsCollector.getInstance().logResponse(httpReturnCode);
+      return;
+    }
     ServerTools.setAllowOrigin(httpExchange, config.getAllowOriginUrl());
     httpExchange.sendResponseHeaders(httpReturnCode, response.getBytes(ENCODING).length);
     httpExchange.getResponseBody().write(response.getBytes(ENCODING));
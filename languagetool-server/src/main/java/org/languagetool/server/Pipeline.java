@@ -20,6 +20,7 @@
 package org.languagetool.server;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.*;
 import org.languagetool.markup.AnnotatedText;
 import org.languagetool.markup.AnnotatedTextBuilder;
@@ -35,6 +36,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -82,6 +84,12 @@ class Pipeline extends JLanguageTool {
     super.setMaxErrorsPerWordRate(maxErrorsPerWordRate);
   }
 
+  @Override
+  public void setSentenceCheckPool(@Nullable ForkJoinPool pool) {
+    preventModificationAfterSetup();
+    super.setSentenceCheckPool(pool);
+  }
+
   @Override
   public void setOutput(PrintStream printStream) {
     preventModificationAfterSetup();
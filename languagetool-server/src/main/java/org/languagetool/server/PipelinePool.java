@@ -31,6 +31,7 @@ import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
 import org.languagetool.*;
 import org.languagetool.gui.Configuration;
 import org.languagetool.rules.*;
+import org.languagetool.tools.LtThreadPoolFactory;
 import org.languagetool.tools.TelemetryProvider;
 import org.languagetool.tools.Tools;
 import org.slf4j.Logger;
@@ -125,6 +126,9 @@ class PipelinePool implements KeyedPooledObjectFactory<PipelineSettings, Pipelin
     return TelemetryProvider.INSTANCE.createSpan("createPipeline", attributes, () -> {
       Pipeline lt = new Pipeline(lang, params.altLanguages, motherTongue, cache, globalConfig, userConfig, params.inputLogging);
       lt.setMaxErrorsPerWordRate(config.getMaxErrorsPerWordRate());
+      if (config.getSentenceCheckThreads() > 0) {
+        lt.setSentenceCheckPool(LtThreadPoolFactory.getForkJoinPool(LtThreadPoolFactory.SENTENCE_CHECK_POOL, config.getSentenceCheckThreads()));
+      }
       lt.disableRules(disabledRuleIds);
       if (config.getLanguageModelDir() != null) {
         lt.activateLanguageModelRules(config.getLanguageModelDir());
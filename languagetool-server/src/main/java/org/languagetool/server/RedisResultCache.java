@@ -0,0 +1,258 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.SecondLevelResultCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A {@link SecondLevelResultCache} that keeps the results in a server that speaks the Redis protocol
+ * (RESP), e.g. Redis, Valkey or KeyDB, so that all LanguageTool servers of a cluster can share their results.
+ * Only {@code AUTH}, {@code GET}, {@code MGET} and {@code SET} are used, over plain TCP, so the cache server is meant
+ * to run in the same trusted network. As a slow cache would slow down every check, requests give up
+ * after a short timeout, and the cache server isn't asked at all for a while after a request has failed.
+ * @since 6.4
+ */
+class RedisResultCache implements SecondLevelResultCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(RedisResultCache.class);
+
+  private static final int MAX_IDLE_CONNECTIONS = 16;
+  private static final long RETRY_AFTER_FAILURE_MILLIS = 10_000;
+
+  private final String host;
+  private final int port;
+  private final int timeoutMillis;
+  private final long ttlSeconds;
+  @Nullable
+  private final String password;
+  private final BlockingQueue<Connection> idleConnections = new ArrayBlockingQueue<>(MAX_IDLE_CONNECTIONS);
+
+  private volatile long failedAt = -1;
+
+  /**
+   * @param server host and port, separated by a colon
+   * @param timeoutMillis timeout for connecting and for each request
+   * @param ttlSeconds how long results are kept by the cache server
+   */
+  RedisResultCache(String server, int timeoutMillis, long ttlSeconds, @Nullable String password) {
+    int colon = server.lastIndexOf(':');
+    if (colon <= 0) {
+      throw new IllegalArgumentException("Cache server must be given as 'host:port': " + server);
+    }
+    this.host = server.substring(0, colon);
+    this.port = Integer.parseInt(server.substring(colon + 1));
+    this.timeoutMillis = timeoutMillis;
+    this.ttlSeconds = ttlSeconds;
+    this.password = password;
+  }
+
+  @Nullable
+  @Override
+  public byte[] get(String key) {
+    return request(connection -> {
+      connection.send("GET".getBytes(StandardCharsets.US_ASCII), key.getBytes(StandardCharsets.UTF_8));
+      return connection.readBulkString();
+    });
+  }
+
+  @Override
+  public List<byte[]> getAll(List<String> keys) {
+    if (keys.isEmpty()) {
+      return Collections.emptyList();
+    }
+    byte[][] args = new byte[keys.size() + 1][];
+    args[0] = "MGET".getBytes(StandardCharsets.US_ASCII);
+    for (int i = 0; i < keys.size(); i++) {
+      args[i + 1] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+    }
+    List<byte[]> values = request(connection -> {
+      connection.send(args);
+      return connection.readBulkStrings(keys.size());
+    });
+    return values != null ? values : Collections.nCopies(keys.size(), null);
+  }
+
+  @Override
+  public void put(String key, byte[] value) {
+    request(connection -> {
+      connection.send("SET".getBytes(StandardCharsets.US_ASCII), key.getBytes(StandardCharsets.UTF_8), value,
+        "EX".getBytes(StandardCharsets.US_ASCII), Long.toString(ttlSeconds).getBytes(StandardCharsets.US_ASCII));
+      connection.readSimpleString();
+      return null;
+    });
+  }
+
+  /**
+   * Run the command on an idle connection or a new one.
+   * @return the result of the command, or {@code null} if the cache server failed
+   */
+  @Nullable
+  private <T> T request(Command<T> command) {
+    long failed = failedAt;
+    if (failed >= 0 && System.currentTimeMillis() - failed < RETRY_AFTER_FAILURE_MILLIS) {
+      return null;
+    }
+    Connection connection = null;
+    try {
+      connection = idleConnections.poll();
+      if (connection == null) {
+        connection = new Connection();
+      }
+      T result = command.execute(connection);
+      if (!idleConnections.offer(connection)) {
+        connection.close();
+      }
+      failedAt = -1;
+      return result;
+    } catch (IOException | RuntimeException e) {
+      if (connection != null) {
+        connection.close();
+      }
+      if (failedAt < 0) {
+        logger.warn("Result cache server " + host + ":" + port + " failed, not using it for " + RETRY_AFTER_FAILURE_MILLIS + "ms", e);
+      }
+      failedAt = System.currentTimeMillis();
+      return null;
+    }
+  }
+
+  private interface Command<T> {
+    T execute(Connection connection) throws IOException;
+  }
+
+  private class Connection {
+    private final Socket socket = new Socket();
+    private final InputStream in;
+    private final OutputStream out;
+
+    Connection() throws IOException {
+      try {
+        socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+        socket.setSoTimeout(timeoutMillis);
+        socket.setTcpNoDelay(true);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+        if (password != null) {
+          send("AUTH".getBytes(StandardCharsets.US_ASCII), password.getBytes(StandardCharsets.UTF_8));
+          readSimpleString();
+        }
+      } catch (IOException e) {
+        close();
+        throw e;
+      }
+    }
+
+    void send(byte[]... args) throws IOException {
+      writeLine('*', args.length);
+      for (byte[] arg : args) {
+        writeLine('$', arg.length);
+        out.write(arg);
+        out.write('\r');
+        out.write('\n');
+      }
+      out.flush();
+    }
+
+    private void writeLine(char type, int number) throws IOException {
+      out.write(type);
+      out.write(Integer.toString(number).getBytes(StandardCharsets.US_ASCII));
+      out.write('\r');
+      out.write('\n');
+    }
+
+    void readSimpleString() throws IOException {
+      String line = readLine();
+      if (!line.startsWith("+")) {
+        throw new IOException("Unexpected reply: " + line);
+      }
+    }
+
+    @Nullable
+    byte[] readBulkString() throws IOException {
+      String line = readLine();
+      if (!line.startsWith("$")) {
+        throw new IOException("Unexpected reply: " + line);
+      }
+      int length = Integer.parseInt(line.substring(1));
+      if (length < 0) {
+        return null;
+      }
+      byte[] data = new byte[length + 2];  // including CRLF
+      int read = 0;
+      while (read < data.length) {
+        int n = in.read(data, read, data.length - read);
+        if (n < 0) {
+          throw new EOFException();
+        }
+        read += n;
+      }
+      byte[] value = new byte[length];
+      System.arraycopy(data, 0, value, 0, length);
+      return value;
+    }
+
+    List<byte[]> readBulkStrings(int count) throws IOException {
+      String line = readLine();
+      if (!line.equals("*" + count)) {
+        throw new IOException("Unexpected reply: " + line);
+      }
+      List<byte[]> values = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        values.add(readBulkString());
+      }
+      return values;
+    }
+
+    private String readLine() throws IOException {
+      StringBuilder sb = new StringBuilder();
+      int c;
+      while ((c = in.read()) != '\r') {
+        if (c < 0) {
+          throw new EOFException();
+        }
+        sb.append((char) c);
+      }
+      if (in.read() != '\n') {
+        throw new IOException("Invalid reply: " + sb);
+      }
+      return sb.toString();
+    }
+
+    void close() {
+      try {
+        socket.close();
+      } catch (IOException ignored) {
+      }
+    }
+  }
+
+}
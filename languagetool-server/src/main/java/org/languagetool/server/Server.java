@@ -22,6 +22,7 @@ import com.sun.net.httpserver.HttpServer;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.JLanguageTool;
+import org.languagetool.languagemodel.MappedLanguageModel;
 import org.languagetool.tools.LtThreadPoolFactory;
 
 import java.util.Arrays;
@@ -127,14 +128,33 @@ abstract class Server {
     System.out.println("                 'maxSpellingSuggestions' - only this many spelling errors will have suggestions for performance reasons (optional,\n" +
                        "                                            affects Hunspell-based languages only)");
     System.out.println("                 'maxCheckThreads' - maximum number of threads working in parallel (optional)");
+    System.out.println("                 'sentenceCheckThreads' - size of a thread pool shared by all requests to check the sentences of a long text in parallel");
+    System.out.println("                                          (optional, default: 0 = check sentences of a request sequentially)");
+    System.out.println("                 'timedOutCheckThreads' - additional text checker threads for checks that still run after their timeout,");
+    System.out.println("                                          so they don't delay the next checks (optional, default: 0)");
+    System.out.println("                 'ruleProfilingSampleRate' - share of sentences for which the time of each rule is measured, see /v2/admin/rules/top (only");
+    System.out.println("                                             answered for requests from localhost) and the Prometheus metrics (optional, default: 0.01, 0 = off)");
     System.out.println("                 'cacheSize' - size of internal cache in number of sentences (optional, default: 0)");
     System.out.println("                 'cacheTTLSeconds' - how many seconds sentences are kept in cache (optional, default: 300 if 'cacheSize' is set)");
+    System.out.println("                 'resultCacheServer' - 'host:port' of a Redis-compatible server that keeps the results of all servers of a cluster,");
+    System.out.println("                                       asked for sentences not in the internal cache (optional, requires 'cacheSize')");
+    System.out.println("                 'resultCacheNamespace' - prefix for the shared results, needs to be different for servers with different");
+    System.out.println("                                          rules or settings (optional)");
+    System.out.println("                 'resultCachePassword', 'resultCacheTimeoutMilliseconds' (default: 20), 'resultCacheTTLSeconds' (default: 3600) -");
+    System.out.println("                                          settings for 'resultCacheServer' (optional)");
+    System.out.println("                 'offHeapCacheSizeMB' - memory outside of the Java heap that keeps sentence results not in the internal cache,");
+    System.out.println("                                        so that 'cacheSize' can be small and garbage collection fast (optional, default: 0,");
+    System.out.println("                                        requires 'cacheSize', cannot be combined with 'resultCacheServer')");
+    System.out.println("                 'maxDocumentSessions' - number of documents whose analysis and matches are kept, so that a re-check of a document");
+    System.out.println("                                         sent with the same 'documentId' only checks what has changed (optional, default: 0)");
     System.out.println("                 'requestLimit' - maximum number of requests per requestLimitPeriodInSeconds (optional)");
     System.out.println("                 'requestLimitInBytes' - maximum aggregated size of requests per requestLimitPeriodInSeconds (optional)");
     System.out.println("                 'timeoutRequestLimit' - maximum number of timeout request (optional)");
     System.out.println("                 'requestLimitPeriodInSeconds' - time period to which requestLimit and timeoutRequestLimit applies (optional)");
     System.out.println("                 'languageModel' - a directory with '1grams', '2grams', '3grams' sub directories per language which contain a Lucene index");
     System.out.println("                                   each with ngram occurrence counts; activates the confusion rule if supported (optional)");
+    System.out.println("                                   Instead of the Lucene indexes, a language directory can contain a '" + MappedLanguageModel.FILE_NAME + "' file,");
+    System.out.println("                                   converted with LuceneToMappedLanguageModel, which needs less memory and is faster");
     System.out.println("                 'fasttextModel' - a model file for better language detection (optional), see");
     System.out.println("                                   https://fasttext.cc/docs/en/language-identification.html");
     System.out.println("                 'fasttextBinary' - compiled fasttext executable for language detection (optional), see");
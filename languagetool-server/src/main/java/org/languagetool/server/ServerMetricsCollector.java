@@ -19,8 +19,11 @@
 package org.languagetool.server;
 
 import com.google.common.cache.Cache;
+import io.prometheus.client.Collector;
 import io.prometheus.client.Counter;
+import io.prometheus.client.CounterMetricFamily;
 import io.prometheus.client.Gauge;
+import io.prometheus.client.GaugeMetricFamily;
 import io.prometheus.client.Histogram;
 import io.prometheus.client.Info;
 import io.prometheus.client.exporter.HTTPServer;
@@ -28,10 +31,17 @@ import io.prometheus.client.guava.cache.CacheMetricsCollector;
 import io.prometheus.client.hotspot.DefaultExports;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
+import org.languagetool.OffHeapResultStore;
 import org.languagetool.Premium;
+import org.languagetool.ResultCache;
+import org.languagetool.rules.RuleProfiler;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.LongSupplier;
 
 public class ServerMetricsCollector {
 
@@ -58,6 +68,9 @@ public class ServerMetricsCollector {
     10, 100, 500, 1000, 2500, 5000, 7500, 10000, 20000, 50000
   };
 
+  // only the most expensive rules per language are exported, to limit the number of time series
+  private static final int PROFILED_RULES_PER_LANGUAGE = 25;
+
   private static final ServerMetricsCollector collector = new ServerMetricsCollector();
   
   private static HTTPServer server;
@@ -114,6 +127,11 @@ public class ServerMetricsCollector {
 
   private final CacheMetricsCollector cacheMetrics = new CacheMetricsCollector().register();
 
+  private final CheckCostStatistics checkCosts = new CheckCostStatistics();
+
+  private final Gauge cacheBytes = Gauge
+    .build("languagetool_cache_estimated_bytes", "Estimated heap memory used by cache entries").labelNames("cache").register();
+
 
   public static void init(HTTPServerConfig config) throws IOException {
     DefaultExports.initialize();
@@ -153,6 +171,7 @@ public class ServerMetricsCollector {
             "premiumBuildDate",Objects.toString(Premium.get().getBuildDate()),
             "premiumRevision",Objects.toString(Premium.get().getShortGitId())
     );
+    new RuleProfileCollector().register();
   }
 
 
@@ -160,6 +179,42 @@ public class ServerMetricsCollector {
     cacheMetrics.addCache(name, cache);
   }
 
+  /**
+   * @since 6.4
+   */
+  public void monitorCacheBytes(String name, LongSupplier bytes) {
+    cacheBytes.setChild(new Gauge.Child() {
+      @Override
+      public double get() {
+        return bytes.getAsLong();
+      }
+    }, name);
+  }
+
+  /**
+   * Export the number of hits, misses and writes of the cache's second-level cache.
+   * @since 6.4
+   */
+  public void monitorSecondLevelCache(ResultCache cache) {
+    new SecondLevelCacheCollector(cache).register();
+  }
+
+  /**
+   * Export the memory use and evictions of the store that keeps sentence results outside of the Java heap.
+   * @since 6.4
+   */
+  public void monitorOffHeapStore(OffHeapResultStore store) {
+    new OffHeapStoreCollector(store).register();
+  }
+
+  /**
+   * The statistics used to predict the cost of checks. Only the time of the checks themselves should
+   * be recorded there, not the time a request waited in the queue.
+   */
+  CheckCostStatistics getCheckCostStatistics() {
+    return checkCosts;
+  }
+
   public void logCheck(Language language, long milliseconds, int textSize, int matchCount,
                        JLanguageTool.Mode mode) {
     String langLabel = language != null ? language.getShortCode() : UNKNOWN;
@@ -202,4 +257,84 @@ public class ServerMetricsCollector {
     failedHealthcheckCounter.inc();
   }
 
+  private static class SecondLevelCacheCollector extends Collector {
+    private final ResultCache cache;
+
+    SecondLevelCacheCollector(ResultCache cache) {
+      this.cache = cache;
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+      CounterMetricFamily requests = new CounterMetricFamily("languagetool_second_level_cache_requests",
+        "Sentence results looked up in the second-level cache", Collections.singletonList("result"));
+      requests.addMetric(Collections.singletonList("hit"), cache.getSecondLevelHitCount());
+      requests.addMetric(Collections.singletonList("miss"), cache.getSecondLevelMissCount());
+      CounterMetricFamily writes = new CounterMetricFamily("languagetool_second_level_cache_writes",
+        "Sentence results written to the second-level cache", Collections.singletonList("result"));
+      writes.addMetric(Collections.singletonList("written"), cache.getSecondLevelWriteCount());
+      writes.addMetric(Collections.singletonList("dropped"), cache.getSecondLevelDroppedWriteCount());
+      CounterMetricFamily deserializationTime = new CounterMetricFamily("languagetool_second_level_cache_deserialization_seconds",
+        "Time spent deserializing sentence results found in the second-level cache, in seconds", Collections.emptyList());
+      deserializationTime.addMetric(Collections.emptyList(), cache.getSecondLevelDeserializationNanos() / 1e9);
+      return Arrays.asList(requests, writes, deserializationTime);
+    }
+  }
+
+  private static class OffHeapStoreCollector extends Collector {
+    private final OffHeapResultStore store;
+
+    OffHeapStoreCollector(OffHeapResultStore store) {
+      this.store = store;
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+      GaugeMetricFamily bytes = new GaugeMetricFamily("languagetool_off_heap_cache_bytes",
+        "Memory outside of the Java heap used for sentence results, in bytes", Collections.singletonList("type"));
+      bytes.addMetric(Collections.singletonList("used"), store.getUsedBytes());
+      bytes.addMetric(Collections.singletonList("allocated"), store.getAllocatedBytes());
+      bytes.addMetric(Collections.singletonList("capacity"), store.getCapacityBytes());
+      GaugeMetricFamily entries = new GaugeMetricFamily("languagetool_off_heap_cache_entries",
+        "Number of sentence results kept outside of the Java heap", store.getEntryCount());
+      CounterMetricFamily evictions = new CounterMetricFamily("languagetool_off_heap_cache_evictions",
+        "Sentence results removed from the off-heap cache to make room for new ones", store.getEvictionCount());
+      return Arrays.asList(bytes, entries, evictions);
+    }
+  }
+
+  /**
+   * Exports the measurements of the {@link RuleProfiler} for the rules that took the most time,
+   * and the number of regular expression timeouts of all rules that had any.
+   */
+  private static class RuleProfileCollector extends Collector {
+    @Override
+    public List<MetricFamilySamples> collect() {
+      List<String> labels = Arrays.asList("language", "rule");
+      CounterMetricFamily time = new CounterMetricFamily("languagetool_rule_match_seconds",
+        "Time spent matching a rule in the sampled sentences, in seconds", labels);
+      CounterMetricFamily calls = new CounterMetricFamily("languagetool_rule_match_calls",
+        "Number of sampled sentences a rule was matched against", labels);
+      CounterMetricFamily matches = new CounterMetricFamily("languagetool_rule_matches",
+        "Number of matches of a rule in the sampled sentences", labels);
+      GaugeMetricFamily maxTime = new GaugeMetricFamily("languagetool_rule_match_max_seconds",
+        "Longest time spent matching a rule against a sampled sentence, in seconds", labels);
+      for (String langCode : RuleProfiler.getLanguages()) {
+        for (RuleProfiler.RuleStats stats : RuleProfiler.getTopRules(langCode, PROFILED_RULES_PER_LANGUAGE)) {
+          List<String> values = Arrays.asList(langCode, stats.getRuleId());
+          time.addMetric(values, stats.getTotalNanos() / 1e9);
+          calls.addMetric(values, stats.getCalls());
+          matches.addMetric(values, stats.getMatches());
+          maxTime.addMetric(values, stats.getMaxNanos() / 1e9);
+        }
+      }
+      CounterMetricFamily timeouts = new CounterMetricFamily("languagetool_rule_regex_timeouts",
+        "Number of times matching a rule was aborted because a regular expression exceeded the check's deadline", labels);
+      for (RuleProfiler.RuleStats stats : RuleProfiler.getRulesWithTimeouts()) {
+        timeouts.addMetric(Arrays.asList(stats.getLanguageCode(), stats.getRuleId()), stats.getTimeouts());
+      }
+      return Arrays.asList(time, calls, matches, maxTime, timeouts);
+    }
+  }
+
 }
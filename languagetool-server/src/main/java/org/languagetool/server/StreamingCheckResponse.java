@@ -0,0 +1,159 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.RuleMatchListener;
+import org.languagetool.StreamingRuleMatchListener;
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.tools.RuleMatchesAsJsonSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The response of a check with {@code stream=true}, written as newline-delimited JSON (NDJSON) while
+ * the check is running: one line with {@code "partial": true} and the matches of each paragraph as soon as
+ * it has been checked, then the matches of text-level and remote rules the same way, and finally the regular
+ * response of the check. Only the final line is authoritative, as the partial results are filtered per
+ * paragraph (see {@link StreamingRuleMatchListener}). If the check fails after the response has been started,
+ * the last line is {@code {"error": {"code": ..., "message": ...}}} instead.
+ * @since 6.4
+ */
+class StreamingCheckResponse implements StreamingRuleMatchListener {
+
+  static final String CONTENT_TYPE = "application/x-ndjson";
+
+  private static final String ATTRIBUTE_NAME = StreamingCheckResponse.class.getName();
+  private static final JsonFactory factory = new JsonFactory();
+
+  private final HttpExchange httpExchange;
+  private final String allowOriginUrl;
+  private final RuleMatchesAsJsonSerializer serializer;
+  private final AnnotatedText text;
+  private final int contextSize;
+  private final Predicate<RuleMatch> visible;
+  private final RuleMatchListener listener;
+
+  private boolean started;
+  private boolean closed;
+
+  /**
+   * @param visible filter for the matches that may be sent to the user (e.g. not the premium ones for other users)
+   * @param listener gets every single match, see {@link RuleMatchListener}
+   */
+  StreamingCheckResponse(HttpExchange httpExchange, String allowOriginUrl, RuleMatchesAsJsonSerializer serializer,
+                         AnnotatedText text, int contextSize, Predicate<RuleMatch> visible, RuleMatchListener listener) {
+    this.httpExchange = httpExchange;
+    this.allowOriginUrl = allowOriginUrl;
+    this.serializer = serializer;
+    this.text = text;
+    this.contextSize = contextSize;
+    this.visible = visible;
+    this.listener = listener;
+    httpExchange.setAttribute(ATTRIBUTE_NAME, this);
+  }
+
+  /**
+   * @return the streaming response of the request, or {@code null} if it's not a streaming check
+   */
+  @Nullable
+  static StreamingCheckResponse get(HttpExchange httpExchange) {
+    return (StreamingCheckResponse) httpExchange.getAttribute(ATTRIBUTE_NAME);
+  }
+
+  @Override
+  public void matchFound(RuleMatch ruleMatch) {
+    listener.matchFound(ruleMatch);
+  }
+
+  @Override
+  public synchronized void matchesFound(List<RuleMatch> ruleMatches) {
+    List<RuleMatch> visibleMatches = ruleMatches.stream().filter(visible).collect(Collectors.toList());
+    if (closed || visibleMatches.isEmpty()) {
+      return;
+    }
+    try {
+      writeLine(serializer.partialRuleMatchesToJson(visibleMatches, text, contextSize));
+    } catch (IOException e) {
+      closed = true;  // the client is disconnected, nothing more to do
+    }
+  }
+
+  /**
+   * Write the regular response of the check as the last line.
+   */
+  synchronized void finish(String response) throws IOException {
+    if (closed) {
+      throw new IOException("Response has already been closed");
+    }
+    closed = true;
+    writeLine(response);
+  }
+
+  /**
+   * Write an error as the last line if the response has already been started, as it's too late for
+   * an HTTP error code then.
+   * @return {@code false} if the response hasn't been started, so that a regular error response
+   * needs to be sent (nothing will be written by this object from now on), {@code true} if the error
+   * has been written or the response has already been finished, so no headers may be sent anymore
+   */
+  synchronized boolean fail(int httpCode, String message) throws IOException {
+    if (!started) {
+      closed = true;
+      return false;
+    }
+    if (!closed) {
+      closed = true;
+      StringWriter sw = new StringWriter();
+      try (JsonGenerator g = factory.createGenerator(sw)) {
+        g.writeStartObject();
+        g.writeObjectFieldStart("error");
+        g.writeNumberField("code", httpCode);
+        g.writeStringField("message", message);
+        g.writeEndObject();
+        g.writeEndObject();
+      }
+      writeLine(sw.toString());
+    }
+    return true;
+  }
+
+  private void writeLine(String line) throws IOException {
+    if (!started) {
+      ServerTools.setCommonHeaders(httpExchange, CONTENT_TYPE, allowOriginUrl);
+      httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);  // 0 = chunked
+      started = true;
+    }
+    OutputStream out = httpExchange.getResponseBody();
+    out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+}
@@ -18,6 +18,8 @@
  */
 package org.languagetool.server;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.sun.net.httpserver.HttpExchange;
 import io.opentelemetry.api.common.Attributes;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +38,9 @@ import org.languagetool.markup.AnnotatedTextBuilder;
 import org.languagetool.rules.*;
 import org.languagetool.rules.bitext.BitextRule;
 import org.languagetool.rules.spelling.morfologik.suggestions_ordering.SuggestionsOrdererConfig;
+import org.languagetool.tools.CheckDeadline;
+import org.languagetool.tools.CheckDeadlineExceededException;
+import org.languagetool.tools.RuleMatchesAsJsonSerializer;
 import org.languagetool.tools.TelemetryProvider;
 import org.languagetool.tools.LtThreadPoolFactory;
 import org.languagetool.tools.Tools;
@@ -87,13 +92,19 @@ abstract class TextChecker {
 
   private static final String ENCODING = "UTF-8";
   private static final int CACHE_STATS_PRINT = 500; // print cache stats every n cache requests
+  private static final int DOCUMENT_SESSION_TTL_MINUTES = 10;
   
   private final Map<String,Integer> languageCheckCounts = new HashMap<>();
   private final Queue<Runnable> workQueue;
   private final RequestCounter reqCounter;
   private final LanguageIdentifier languageIdentifier;
   private final ExecutorService executorService;
+  private final CheckScheduler scheduler;
   private final ResultCache cache;
+  @Nullable
+  private final OffHeapResultStore offHeapStore;
+  @Nullable
+  private final Cache<DocumentSessionKey, DocumentSession> documentSessions;
   private final DatabaseLogger databaseLogger;
   private final Long logServerId;
   private final Random random = new Random();
@@ -115,14 +126,19 @@ abstract class TextChecker {
               config.getFasttextBinary(),
               config.getFasttextModel());
     }
+    // the queue of the pool is not limited, the scheduler limits the number of pending checks and only
+    // hands a check to the pool when a thread is free:
+    int textCheckerThreads = config.getMaxTextCheckerThreads() + config.getTimedOutCheckThreads();
     this.executorService = LtThreadPoolFactory.createFixedThreadPoolExecutor(
       LtThreadPoolFactory.TEXT_CHECKER_POOL,
-      config.getMaxTextCheckerThreads(), config.getMaxTextCheckerThreads(),
-      config.getTextCheckerQueueSize(),
+      textCheckerThreads, textCheckerThreads,
+      0,
       60L, false, (thread, throwable) -> {
         log.error("Thread: " + thread.getName() + " failed with: " + throwable.getMessage());
       },
       false);
+    this.scheduler = new CheckScheduler(executorService, config.getMaxTextCheckerThreads(), config.getTimedOutCheckThreads(),
+      config.getTextCheckerQueueSize());
 
     // set up other pools used by text checker and remote rule
     //Need to use own thread pool, otherwise the text-checker thread-pool will be full very soon
@@ -149,6 +165,21 @@ abstract class TextChecker {
 
     this.cache = config.getCacheSize() > 0 ? new ResultCache(
       config.getCacheSize(), config.getCacheTTLSeconds(), TimeUnit.SECONDS) : null;
+    if (cache != null && config.getResultCacheServer() != null) {
+      cache.setSecondLevelCache(new RedisResultCache(config.getResultCacheServer(), config.getResultCacheTimeoutMillis(),
+        config.getResultCacheTTLSeconds(), config.getResultCachePassword()), config.getResultCacheNamespace());
+    }
+    if (cache != null && config.getOffHeapCacheSizeMB() > 0) {
+      offHeapStore = new OffHeapResultStore(config.getOffHeapCacheSizeMB() * 1024L * 1024L);
+      cache.setSecondLevelCache(offHeapStore, "");
+    } else {
+      offHeapStore = null;
+    }
+    this.documentSessions = config.getMaxDocumentSessions() > 0 ? CacheBuilder.newBuilder()
+      .maximumSize(config.getMaxDocumentSessions())
+      .expireAfterAccess(DOCUMENT_SESSION_TTL_MINUTES, TimeUnit.MINUTES)
+      .recordStats()
+      .build() : null;
     this.databaseLogger = DatabaseLogger.getInstance();
     if (databaseLogger.isLogging()) {
       this.logServerId = DatabaseAccess.getInstance().getOrCreateServerId();
@@ -160,9 +191,19 @@ abstract class TextChecker {
       ServerMetricsCollector.getInstance().monitorCache("languagetool_matches_cache", cache.getMatchesCache());
       ServerMetricsCollector.getInstance().monitorCache("languagetool_remote_matches_cache", cache.getRemoteMatchesCache());
       ServerMetricsCollector.getInstance().monitorCache("languagetool_sentences_cache", cache.getSentenceCache());
-      ServerMetricsCollector.getInstance().monitorCache("languagetool_remote_matches_cache", cache.getRemoteMatchesCache());
+      ServerMetricsCollector.getInstance().monitorCacheBytes("languagetool_sentences_cache", cache::getSentenceCacheBytes);
+      if (config.getResultCacheServer() != null || offHeapStore != null) {
+        ServerMetricsCollector.getInstance().monitorSecondLevelCache(cache);
+      }
+      if (offHeapStore != null) {
+        ServerMetricsCollector.getInstance().monitorOffHeapStore(offHeapStore);
+      }
+    }
+    if (documentSessions != null && !config.isLocalApiMode()) {
+      ServerMetricsCollector.getInstance().monitorCache("languagetool_document_sessions", documentSessions);
     }
 
+    RuleProfiler.setSampleRate(config.getRuleProfilingSampleRate());
     pipelinePool = new PipelinePool(config, cache, internalServer);
     if (config.isPipelinePrewarmingEnabled()) {
       log.info("Prewarming pipelines...");
@@ -502,6 +543,11 @@ abstract class TextChecker {
       toneTags.add(ToneTag.ALL_WITHOUT_GOAL_SPECIFIC); //No toneTags param in request
     }
     String callback = params.get("callback");
+    boolean stream = "true".equals(params.get("stream"));
+    if (stream && callback != null) {
+      ServerMetricsCollector.getInstance().logRequestError(ServerMetricsCollector.RequestErrorType.INVALID_REQUEST);
+      throw new BadRequestException("You cannot use 'stream=true' together with 'callback'");
+    }
     // allowed to log input on errors?
     boolean inputLogging = !params.getOrDefault("inputLogging", "").equals("no");
     QueryParams qParams = new QueryParams(altLanguages, enabledRules, disabledRules,
@@ -509,23 +555,50 @@ abstract class TextChecker {
       useQuerySettings, allowIncompleteResults, enableHiddenRules, limits.getPremiumUid() != null && limits.hasPremium(), enableTempOffRules, mode, level, toneTags, callback, inputLogging);
 
     int textSize = length;
+    int compactMode = Integer.parseInt(params.getOrDefault("c", "0"));
     List<CheckResults> ruleMatchesSoFar = Collections.synchronizedList(new ArrayList<>());
+    RuleMatchListener matchCollector = f -> ruleMatchesSoFar.add(new CheckResults(Collections.singletonList(f), Collections.emptyList()));
+    StreamingCheckResponse streamingResponse = stream ?
+      new StreamingCheckResponse(httpExchange, config.allowOriginUrl, new RuleMatchesAsJsonSerializer(compactMode, lang), aText, CONTEXT_SIZE,
+        match -> qParams.premium || !qParams.enableHiddenRules || !Premium.get().isPremiumRule(match.getRule()) || Premium.isTempNotPremium(match.getRule()),
+        matchCollector) : null;
+    RuleMatchListener listener = streamingResponse != null ? streamingResponse : matchCollector;
+    // lets regular expressions give up when the check has taken too long, see InterruptibleCharSequence:
+    CheckDeadline checkDeadline = limits.getMaxCheckTimeMillis() < 0 ? null : CheckDeadline.afterMillis(limits.getMaxCheckTimeMillis());
+    Callable<List<CheckResults>> check = () -> {
+      CheckDeadline.setCurrent(checkDeadline);
+      long checkStart = System.currentTimeMillis();
+      boolean completed = false;
+      try (MDC.MDCCloseable c = MDC.putCloseable("rID", LanguageToolHttpHandler.getRequestId(httpExchange))) {
+        log.debug("Starting text check on {} chars; params: {}", length, qParams);
+        long time = checkStart;
+        List<CheckResults> results = getRuleMatches(aText, lang, motherTongue, params, qParams, userConfig, listener);
+        log.debug("Finished text check in {}ms. Starting suggestion generation.", System.currentTimeMillis() - time);
+        time = System.currentTimeMillis();
+        // generate suggestions, otherwise this is not part of the timeout logic and not properly measured in the metrics
+        results.stream().flatMap(r -> r.getRuleMatches().stream()).forEach(RuleMatch::computeLazySuggestedReplacements);
+        log.debug("Finished suggestion generation in {}ms, returning results.", System.currentTimeMillis() - time);
+        if (!Premium.isPremiumStatusCheck(aText)) {
+          // the runtime only, as the time spent waiting in the queue depends on the load, not on the check:
+          ServerMetricsCollector.getInstance().getCheckCostStatistics().record(lang, mode, level, length, System.currentTimeMillis() - checkStart);
+        }
+        completed = true;
+        return results;
+      } finally {
+        CheckDeadline.setCurrent(null);
+        if (!completed && !Premium.isPremiumStatusCheck(aText)) {
+          // timed out or failed, so the complete check would have taken at least this long:
+          ServerMetricsCollector.getInstance().getCheckCostStatistics().recordLowerBound(lang, mode, level, length, System.currentTimeMillis() - checkStart);
+        }
+      }
+    };
     Future<List<CheckResults>> future;
+    long predictedMillis = ServerMetricsCollector.getInstance().getCheckCostStatistics().predictMillis(lang, mode, level, length);
+    long deadline = limits.getMaxCheckTimeMillis() < 0 ? -1 : System.currentTimeMillis() + limits.getMaxCheckTimeMillis();
     try {
-      future = executorService.submit(() -> {
-        try (MDC.MDCCloseable c = MDC.putCloseable("rID", LanguageToolHttpHandler.getRequestId(httpExchange))) {
-          log.debug("Starting text check on {} chars; params: {}", length, qParams);
-          long time = System.currentTimeMillis();
-          List<CheckResults> results = getRuleMatches(aText, lang, motherTongue, params, qParams, userConfig, f -> ruleMatchesSoFar.add(new CheckResults(Collections.singletonList(f), Collections.emptyList())));
-          log.debug("Finished text check in {}ms. Starting suggestion generation.", System.currentTimeMillis() - time);
-          time = System.currentTimeMillis();
-          // generate suggestions, otherwise this is not part of the timeout logic and not properly measured in the metrics
-          results.stream().flatMap(r -> r.getRuleMatches().stream()).forEach(RuleMatch::computeLazySuggestedReplacements);
-          log.debug("Finished suggestion generation in {}ms, returning results.", System.currentTimeMillis() - time);
-          return results;
-        }
-      });
+      future = scheduler.submit(check, predictedMillis, deadline, qParams.premium);
     } catch (RejectedExecutionException e) {
+      ServerMetricsCollector.getInstance().logRequestError(ServerMetricsCollector.RequestErrorType.QUEUE_FULL);
       throw new UnavailableException("Server overloaded, please try again later", e);
     }
     String incompleteResultReason = null;
@@ -544,10 +617,15 @@ abstract class TextChecker {
           if (limits.getMaxCheckTimeMillis() < 0) {
             localRes = future.get();
           } else {
-            localRes = future.get(limits.getMaxCheckTimeMillis(), TimeUnit.MILLISECONDS);
+            localRes = getBeforeDeadline(future, limits.getMaxCheckTimeMillis());
           }
         } catch (ExecutionException e) {
           future.cancel(true);
+          if (e.getCause() instanceof RejectedExecutionException) {
+            // replaced by a check with higher priority while waiting
+            ServerMetricsCollector.getInstance().logRequestError(ServerMetricsCollector.RequestErrorType.QUEUE_FULL);
+            throw new UnavailableException("Server overloaded, please try again later", (RejectedExecutionException) e.getCause());
+          }
           if (ExceptionUtils.getRootCause(e) instanceof ErrorRateTooHighException) {
             ServerMetricsCollector.getInstance().logRequestError(ServerMetricsCollector.RequestErrorType.TOO_MANY_ERRORS);
           }
@@ -600,7 +678,9 @@ abstract class TextChecker {
     // e.g. ruleMatchesSoFar can have matches without computeLazySuggestedReplacements called yet
     res.forEach(checkResults -> checkResults.getRuleMatches().forEach(RuleMatch::discardLazySuggestedReplacements));
 
-    setHeaders(httpExchange);
+    if (streamingResponse == null) {
+      setHeaders(httpExchange);
+    }
 
     List<RuleMatch> hiddenMatches = new ArrayList<>();
     boolean temporaryPremiumDisabledRuleMatch = false;
@@ -633,7 +713,6 @@ abstract class TextChecker {
       hiddenMatches.addAll(ResultExtender.getAsHiddenMatches(allMatches, premiumMatches));
     }
 
-    int compactMode = Integer.parseInt(params.getOrDefault("c", "0"));
     String response = getResponse(aText, lang, detLang, motherTongue, res, hiddenMatches, incompleteResultReason, compactMode,
       limits.getPremiumUid() == null, qParams.mode);
     if (qParams.callback != null) {
@@ -644,8 +723,12 @@ abstract class TextChecker {
     String messageSent = "sent";
     String languageMessage = lang.getShortCodeWithCountryAndVariant();
     try {
-      httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.getBytes(ENCODING).length);
-      httpExchange.getResponseBody().write(response.getBytes(ENCODING));
+      if (streamingResponse != null) {
+        streamingResponse.finish(response);
+      } else {
+        httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.getBytes(ENCODING).length);
+        httpExchange.getResponseBody().write(response.getBytes(ENCODING));
+      }
       ServerMetricsCollector.getInstance().logResponse(HttpURLConnection.HTTP_OK);
     } catch (IOException exception) {
       // the client is disconnected
@@ -736,7 +819,7 @@ abstract class TextChecker {
     if (this.executorService instanceof ThreadPoolExecutor) {
       ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) this.executorService;
       int maxQueueSize = config.getTextCheckerQueueSize();
-      int queuesize = threadPoolExecutor.getQueue().size();
+      int queuesize = scheduler.getPendingCount();
       if (queuesize > maxQueueSize/2) { //should not happen in normal cases (workQueue.size() == config.getTextCheckerQueueSize())
         log.warn("TextChecker queue is almost full requests in queue: {} active request: {}", queuesize, threadPoolExecutor.getActiveCount());
         return true;
@@ -745,6 +828,24 @@ abstract class TextChecker {
     return false;
   }
 
+  /**
+   * Like {@link Future#get(long, TimeUnit)}, but a check that was aborted because e.g. a regular expression
+   * noticed that the check's deadline has passed also counts as a timeout.
+   */
+  private static <T> T getBeforeDeadline(Future<T> future, long maxMillis) throws InterruptedException, ExecutionException, TimeoutException {
+    try {
+      return future.get(maxMillis, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      Throwable rootCause = ExceptionUtils.getRootCause(e);
+      if (rootCause instanceof CheckDeadlineExceededException) {
+        TimeoutException timeout = new TimeoutException(rootCause.getMessage());
+        timeout.initCause(e);
+        throw timeout;
+      }
+      throw e;
+    }
+  }
+
   @NotNull
   private Map<String, Integer> getRuleMatchCount(List<CheckResults> res) {
     Map<String, Integer> ruleMatchCount = new HashMap<>();
@@ -820,7 +921,7 @@ abstract class TextChecker {
       );
     } else {
       List<CheckResults> res = new ArrayList<>();
-      res.addAll(getPipelineResults(aText, lang, motherTongue, params, userConfig, listener));
+      res.addAll(getPipelineResults(aText, lang, motherTongue, params, userConfig, parameters.get("documentId"), listener));
       return res;
     }
   }
@@ -834,9 +935,12 @@ abstract class TextChecker {
     return parseLanguage(langCode);
   }
 
-  private List<CheckResults> getPipelineResults(AnnotatedText aText, Language lang, Language motherTongue, QueryParams params, UserConfig userConfig, RuleMatchListener listener) throws Exception {
+  private List<CheckResults> getPipelineResults(AnnotatedText aText, Language lang, Language motherTongue, QueryParams params, UserConfig userConfig,
+                                                @Nullable String documentId, RuleMatchListener listener) throws Exception {
     PipelineSettings settings = null;
     Pipeline lt = null;
+    DocumentSessionKey sessionKey = null;
+    DocumentSession session = null;
     List<CheckResults> res = new ArrayList<>();
     try {
       settings = new PipelineSettings(lang, motherTongue, params, config.globalConfig, userConfig);
@@ -845,12 +949,23 @@ abstract class TextChecker {
       if (params.regressionTestMode) {
         textSessionId = -2L; // magic value for remote rule roll-out - includes all results, even from disabled models
       }
+      if (documentSessions != null && documentId != null && !documentId.isEmpty()) {
+        sessionKey = new DocumentSessionKey(documentId, settings);
+        // taken out of the cache while in use, so that concurrent checks of the same document don't share it:
+        session = documentSessions.asMap().remove(sessionKey);
+        if (session == null) {
+          session = new DocumentSession();
+        }
+      }
       res.add(lt.check2(aText, true, JLanguageTool.ParagraphHandling.NORMAL, listener,
-        params.mode, params.level, params.toneTags, textSessionId));
+        params.mode, params.level, params.toneTags, textSessionId, session));
     } finally {
       if (lt != null) {
         pipelinePool.returnPipeline(settings, lt);
       }
+      if (session != null) {
+        documentSessions.put(sessionKey, session);
+      }
     }
     return res;
   }
@@ -1069,4 +1184,35 @@ abstract class TextChecker {
     }
   }
 
+  private static class DocumentSessionKey {
+    private final String documentId;
+    private final PipelineSettings settings;
+
+    DocumentSessionKey(String documentId, PipelineSettings settings) {
+      this.documentId = documentId;
+      this.settings = settings;
+    }
+
+    @Override
+    public int hashCode() {
+      return new HashCodeBuilder()
+        .append(documentId)
+        .append(settings)
+        .toHashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) return true;
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      DocumentSessionKey other = (DocumentSessionKey) obj;
+      return new EqualsBuilder()
+        .append(documentId, other.documentId)
+        .append(settings, other.settings)
+        .isEquals();
+    }
+  }
+
 }
@@ -0,0 +1,60 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.language.Demo;
+
+import static org.junit.Assert.*;
+
+public class CheckCostStatisticsTest {
+
+  @Test
+  public void testPrediction() {
+    CheckCostStatistics stats = new CheckCostStatistics();
+    Language lang = new Demo();
+    long defaultPrediction = stats.predictMillis(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, 1000);
+    assertEquals(Math.round(CheckCostStatistics.DEFAULT_MILLIS_PER_CHAR * (1000 + CheckCostStatistics.OVERHEAD_CHARS)), defaultPrediction);
+    for (int i = 0; i < 200; i++) {
+      stats.record(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.PICKY, 9500, 1000);  // 0.1ms per char
+    }
+    assertEquals(200, stats.predictMillis(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.PICKY, 1500), 5);
+    // no statistics for this level yet, falls back to the average of all checks:
+    long otherLevel = stats.predictMillis(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, 1500);
+    assertTrue(otherLevel > defaultPrediction);
+    assertTrue(stats.predictMillis(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.PICKY, 100_000) >
+               stats.predictMillis(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.PICKY, 1000));
+  }
+
+  @Test
+  public void testLowerBound() {
+    CheckCostStatistics stats = new CheckCostStatistics();
+    Language lang = new Demo();
+    long defaultPrediction = stats.predictMillis(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, 1000);
+    // a check that failed quickly doesn't tell us anything about the cost:
+    stats.recordLowerBound(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, 1000, 0);
+    assertEquals(defaultPrediction, stats.predictMillis(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, 1000));
+    // a check that timed out took at least that long:
+    stats.recordLowerBound(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, 1000, 100_000);
+    assertTrue(stats.predictMillis(lang, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, 1000) > defaultPrediction);
+  }
+
+}
@@ -0,0 +1,161 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class CheckSchedulerTest {
+
+  private final CountDownLatch started = new CountDownLatch(1);
+  private final CountDownLatch blocker = new CountDownLatch(1);
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    blocker.countDown();
+    executor.shutdownNow();
+  }
+
+  // keeps the executor's only thread busy so that the checks submitted afterwards have to wait:
+  private void submitBlocking(CheckScheduler scheduler) throws InterruptedException {
+    scheduler.submit(() -> {
+      started.countDown();
+      return blocker.await(60, TimeUnit.SECONDS);
+    }, 10, -1, false);
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testCheapChecksFirst() throws Exception {
+    CheckScheduler scheduler = new CheckScheduler(executor, 1, 0);
+    List<String> order = Collections.synchronizedList(new ArrayList<>());
+    submitBlocking(scheduler);
+    Future<?> expensive = scheduler.submit(() -> order.add("expensive"), 5000, -1, false);
+    Future<?> cheap = scheduler.submit(() -> order.add("cheap"), 10, -1, false);
+    Future<?> premium = scheduler.submit(() -> order.add("premium"), 8000, -1, true);
+    assertEquals(3, scheduler.getPendingCount());
+    blocker.countDown();
+    expensive.get(10, TimeUnit.SECONDS);
+    cheap.get(10, TimeUnit.SECONDS);
+    premium.get(10, TimeUnit.SECONDS);
+    assertEquals("[cheap, premium, expensive]", order.toString());
+    assertEquals(0, scheduler.getPendingCount());
+  }
+
+  @Test
+  public void testMaxPending() throws Exception {
+    CheckScheduler scheduler = new CheckScheduler(executor, 1, 2);
+    submitBlocking(scheduler);
+    Future<String> cheap1 = scheduler.submit(() -> "cheap1", 10, -1, false);
+    Future<String> expensive = scheduler.submit(() -> "expensive", 5000, -1, false);
+    try {
+      scheduler.submit(() -> "more expensive", 10_000, -1, false);
+      fail();
+    } catch (RejectedExecutionException expected) {}
+    Future<String> cheap2 = scheduler.submit(() -> "cheap2", 10, -1, false);
+    assertEquals(2, scheduler.getPendingCount());
+    blocker.countDown();
+    assertEquals("cheap1", cheap1.get(10, TimeUnit.SECONDS));
+    assertEquals("cheap2", cheap2.get(10, TimeUnit.SECONDS));
+    try {
+      expensive.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+  }
+
+  @Test
+  public void testDeadline() throws Exception {
+    CheckScheduler scheduler = new CheckScheduler(executor, 1, 0);
+    submitBlocking(scheduler);
+    scheduler.submit(() -> "expensive", 5000, -1, false);
+    long now = System.currentTimeMillis();
+    try {
+      scheduler.submit(() -> "too late", 6000, now + 10_000, false);
+      fail();
+    } catch (RejectedExecutionException expected) {}
+    Future<String> inTime = scheduler.submit(() -> "in time", 6000, now + 60_000, false);
+    blocker.countDown();
+    assertEquals("in time", inTime.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testTimedOutThreads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      CheckScheduler scheduler = new CheckScheduler(executor, 1, 1, 0);
+      CountDownLatch running = new CountDownLatch(2);
+      CountDownLatch stop = new CountDownLatch(1);
+      // checks that ignore being cancelled:
+      Callable<Boolean> stubbornCheck = () -> {
+        running.countDown();
+        while (true) {
+          try {
+            return stop.await(60, TimeUnit.SECONDS);
+          } catch (InterruptedException ignored) {}
+        }
+      };
+      Future<Boolean> timedOut1 = scheduler.submit(stubbornCheck, 10, -1, false);
+      Future<String> waiting = scheduler.submit(() -> "waiting", 10, -1, false);
+      Thread.sleep(100);
+      assertFalse(waiting.isDone());  // only one check runs at a time
+      timedOut1.cancel(true);
+      assertEquals("waiting", waiting.get(10, TimeUnit.SECONDS));  // runs in the additional thread
+      Future<Boolean> timedOut2 = scheduler.submit(stubbornCheck, 10, -1, false);
+      assertTrue(running.await(10, TimeUnit.SECONDS));
+      timedOut2.cancel(true);
+      assertEquals(2, scheduler.getBusyThreadCount());
+      Future<String> blocked = scheduler.submit(() -> "blocked", 10, -1, false);
+      Thread.sleep(100);
+      assertFalse(blocked.isDone());  // all threads are used by timed out checks
+      stop.countDown();
+      assertEquals("blocked", blocked.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCancelledChecksAreNotPending() throws Exception {
+    CheckScheduler scheduler = new CheckScheduler(executor, 1, 1);
+    submitBlocking(scheduler);
+    Future<String> cancelled = scheduler.submit(() -> "cancelled", 10, -1, false);
+    cancelled.cancel(true);
+    assertEquals(0, scheduler.getPendingCount());
+    Future<String> next = scheduler.submit(() -> "next", 5000, -1, false);
+    blocker.countDown();
+    assertEquals("next", next.get(10, TimeUnit.SECONDS));
+  }
+
+}
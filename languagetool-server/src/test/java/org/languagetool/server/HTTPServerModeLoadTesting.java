@@ -0,0 +1,132 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares throughput and latency of the default server setup (a check that times out blocks its text checker
+ * thread until it stops) with {@code timedOutCheckThreads} (such checks use additional threads). Starts the server
+ * itself, once per setting, and sends requests from more client threads than there are check threads, so that
+ * requests have to queue. Some of the texts are long enough to time out.
+ */
+public class HTTPServerModeLoadTesting {
+
+  private static final int CHECK_THREADS = 4;
+  private static final int CLIENT_THREADS = 16;
+  private static final int WARMUP_SECONDS = 10;
+  private static final int RUN_SECONDS = 30;
+  private static final int MAX_CHECK_MILLIS = 500;
+  private static final String[] SENTENCES = {
+    "This is a example sentence with a error.",
+    "He go to school every day, isn't it?",
+    "The the quick brown fox jumps over the lazy dog.",
+    "Their going to the cinema tonight, and they're car is parked outside.",
+    "I could of done it better if I would have had more time.",
+    "Less people came to the meeting then we expected.",
+  };
+
+  @Ignore("For interactive load testing, thus ignored for unit tests")
+  @Test
+  public void compareModes() throws Exception {
+    for (int timedOutCheckThreads : new int[]{0, CHECK_THREADS}) {
+      HTTPServerConfig config = new HTTPServerConfig(HTTPTestTools.getDefaultPort());
+      config.setMaxCheckThreads(CHECK_THREADS);
+      config.setMaxCheckTimeMillisAnonymous(MAX_CHECK_MILLIS);
+      config.setTimedOutCheckThreads(timedOutCheckThreads);
+      HTTPServer server = new HTTPServer(config);
+      try {
+        server.run();
+        run(WARMUP_SECONDS);
+        List<Long> latencies = run(RUN_SECONDS);
+        print("timedOutCheckThreads=" + timedOutCheckThreads, latencies);
+      } finally {
+        server.stop();
+      }
+    }
+  }
+
+  private List<Long> run(int seconds) throws Exception {
+    URL url = new URL("http://localhost:" + HTTPTestTools.getDefaultPort() + "/v2/check");
+    long endTime = System.currentTimeMillis() + seconds * 1000L;
+    List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger errors = new AtomicInteger();
+    ExecutorService executorService = Executors.newFixedThreadPool(CLIENT_THREADS);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < CLIENT_THREADS; i++) {
+      Random rnd = new Random(i);
+      futures.add(executorService.submit(() -> {
+        while (System.currentTimeMillis() < endTime) {
+          long startTime = System.nanoTime();
+          try {
+            HTTPTestTools.checkAtUrlByPost(url, getData(rnd));
+            latencies.add(System.nanoTime() - startTime);
+          } catch (IOException e) {
+            errors.incrementAndGet();
+          }
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executorService.shutdown();
+    if (errors.get() > 0) {
+      System.out.println(errors.get() + " requests failed");
+    }
+    return latencies;
+  }
+
+  private static String getData(Random rnd) throws IOException {
+    StringBuilder text = new StringBuilder();
+    // every 20th text is long enough to time out:
+    int sentences = rnd.nextInt(20) == 0 ? 2000 : rnd.nextInt(10);
+    for (int i = sentences; i >= 0; i--) {
+      text.append(SENTENCES[rnd.nextInt(SENTENCES.length)]).append(' ');
+    }
+    return "language=en-US&text=" + URLEncoder.encode(text.toString(), "utf-8");
+  }
+
+  private static void print(String name, List<Long> latencies) {
+    List<Long> sorted = new ArrayList<>(latencies);
+    Collections.sort(sorted);
+    System.out.printf(Locale.ENGLISH, "%s: %.1f requests/s, latency p50: %.1fms, p95: %.1fms, p99: %.1fms, max: %.1fms%n",
+      name, (double) sorted.size() / RUN_SECONDS, percentile(sorted, 50), percentile(sorted, 95),
+      percentile(sorted, 99), percentile(sorted, 100));
+  }
+
+  private static double percentile(List<Long> sorted, int percentile) {
+    if (sorted.isEmpty()) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+    return sorted.get(Math.max(0, index)) / 1_000_000.0;
+  }
+
+}
@@ -0,0 +1,194 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class RedisResultCacheTest {
+
+  private final Map<String, byte[]> storage = new ConcurrentHashMap<>();
+  private final List<String> commands = new ArrayList<>();
+  private ServerSocket serverSocket;
+
+  @Before
+  public void setUp() throws IOException {
+    serverSocket = new ServerSocket(0);
+    Thread thread = new Thread(this::serve);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    serverSocket.close();
+  }
+
+  @Test
+  public void testGetAndPut() {
+    RedisResultCache cache = new RedisResultCache("localhost:" + serverSocket.getLocalPort(), 1000, 60, "secret");
+    assertNull(cache.get("key1"));
+    byte[] value = {0, 1, 2, '\r', '\n', (byte) 255};
+    cache.put("key1", value);
+    assertArrayEquals(value, cache.get("key1"));
+    cache.put("key2", new byte[0]);
+    assertArrayEquals(new byte[0], cache.get("key2"));
+    synchronized (commands) {
+      assertEquals("[AUTH secret, GET key1, SET key1 EX 60, GET key1, SET key2 EX 60, GET key2]", commands.toString());  // one connection is reused
+    }
+  }
+
+  @Test
+  public void testGetAll() {
+    RedisResultCache cache = new RedisResultCache("localhost:" + serverSocket.getLocalPort(), 1000, 60, null);
+    assertEquals(0, cache.getAll(Collections.emptyList()).size());
+    cache.put("key1", new byte[]{1});
+    cache.put("key3", new byte[]{3});
+    List<byte[]> values = cache.getAll(Arrays.asList("key1", "key2", "key3"));
+    assertEquals(3, values.size());
+    assertArrayEquals(new byte[]{1}, values.get(0));
+    assertNull(values.get(1));
+    assertArrayEquals(new byte[]{3}, values.get(2));
+    synchronized (commands) {
+      assertEquals("[SET key1 EX 60, SET key3 EX 60, MGET key1 key2 key3]", commands.toString());  // one request for all keys
+    }
+  }
+
+  @Test
+  public void testServerNotAvailable() throws IOException {
+    int port = serverSocket.getLocalPort();
+    serverSocket.close();
+    RedisResultCache cache = new RedisResultCache("localhost:" + port, 100, 60, null);
+    assertNull(cache.get("key1"));
+    cache.put("key1", new byte[]{1});
+    assertNull(cache.get("key1"));
+    assertEquals(Arrays.asList(null, null), cache.getAll(Arrays.asList("key1", "key2")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidServer() {
+    new RedisResultCache("localhost", 100, 60, null);
+  }
+
+  // a minimal stand-in for a Redis server, handling one connection at a time:
+  private void serve() {
+    try {
+      while (true) {
+        try (Socket socket = serverSocket.accept()) {
+          DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+          OutputStream out = socket.getOutputStream();
+          while (true) {
+            List<byte[]> args = readCommand(in);
+            if (args == null) {
+              break;
+            }
+            String command = new String(args.get(0), StandardCharsets.US_ASCII);
+            String key = new String(args.get(1), StandardCharsets.UTF_8);
+            synchronized (commands) {
+              if (command.equals("SET")) {
+                commands.add(command + " " + key + " " + new String(args.get(3), StandardCharsets.US_ASCII) + " " +
+                  new String(args.get(4), StandardCharsets.US_ASCII));
+              } else {
+                StringBuilder sb = new StringBuilder(command);
+                for (byte[] arg : args.subList(1, args.size())) {
+                  sb.append(' ').append(new String(arg, StandardCharsets.UTF_8));
+                }
+                commands.add(sb.toString());
+              }
+            }
+            if (command.equals("GET")) {
+              writeBulkString(out, storage.get(key));
+            } else if (command.equals("MGET")) {
+              out.write(("*" + (args.size() - 1) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+              for (byte[] arg : args.subList(1, args.size())) {
+                writeBulkString(out, storage.get(new String(arg, StandardCharsets.UTF_8)));
+              }
+            } else {
+              if (command.equals("SET")) {
+                storage.put(key, args.get(2));
+              }
+              out.write("+OK\r\n".getBytes(StandardCharsets.US_ASCII));
+            }
+            out.flush();
+          }
+        }
+      }
+    } catch (SocketException e) {
+      // server socket closed
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeBulkString(OutputStream out, byte[] value) throws IOException {
+    if (value == null) {
+      out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+    } else {
+      out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+      out.write(value);
+      out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+  }
+
+  private static List<byte[]> readCommand(DataInputStream in) throws IOException {
+    String line = readLine(in);
+    if (line == null) {
+      return null;
+    }
+    int count = Integer.parseInt(line.substring(1));
+    List<byte[]> args = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      int length = Integer.parseInt(readLine(in).substring(1));
+      byte[] arg = new byte[length];
+      in.readFully(arg);
+      in.readFully(new byte[2]);
+      args.add(arg);
+    }
+    return args;
+  }
+
+  private static String readLine(DataInputStream in) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    int c;
+    while ((c = in.read()) != '\r') {
+      if (c < 0) {
+        return null;
+      }
+      sb.append((char) c);
+    }
+    in.read();
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,63 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.tools.RuleMatchesAsJsonSerializer;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class StreamingCheckResponseTest {
+
+  @Test
+  public void testFailBeforeStart() throws IOException {
+    CountingHttpExchange httpExchange = new CountingHttpExchange();
+    StreamingCheckResponse response = newResponse(httpExchange);
+    assertFalse(response.fail(500, "error"));
+    assertEquals(0, httpExchange.headersSent);
+    assertEquals("", httpExchange.getOutput());
+  }
+
+  @Test
+  public void testFailAfterFinish() throws IOException {
+    CountingHttpExchange httpExchange = new CountingHttpExchange();
+    StreamingCheckResponse response = newResponse(httpExchange);
+    response.finish("{}");
+    assertTrue(response.fail(500, "error"));  // headers have been sent already, nothing else to do
+    assertEquals(1, httpExchange.headersSent);
+    assertEquals("{}\n", httpExchange.getOutput());
+  }
+
+  private StreamingCheckResponse newResponse(CountingHttpExchange httpExchange) {
+    return new StreamingCheckResponse(httpExchange, null, new RuleMatchesAsJsonSerializer(),
+      new AnnotatedTextBuilder().addText("Hello.").build(), 40, match -> true, match -> {});
+  }
+
+  static class CountingHttpExchange extends FakeHttpExchange {
+    int headersSent;
+    @Override
+    public void sendResponseHeaders(int i, long l) {
+      headersSent++;
+    }
+  }
+
+}
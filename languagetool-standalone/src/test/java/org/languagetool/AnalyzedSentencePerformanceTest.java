@@ -0,0 +1,126 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.languagetool.tools.StringTools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Measures the time and memory allocated for building the token and lemma indexes of {@link AnalyzedSentence}
+ * (see {@link TokenOffsetIndex}) and for looking up tokens, compared to the {@code HashMap} with lists
+ * of {@code Integer} used before. Not a unit test, for interactive use only.
+ */
+final class AnalyzedSentencePerformanceTest {
+
+  private static final int RUNS = 10;
+  private static final int ITERATIONS = 20;
+
+  private final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private AnalyzedSentencePerformanceTest() {
+  }
+
+  private void run(JLanguageTool lt, File textFile) throws IOException {
+    String text = StringTools.readStream(new FileInputStream(textFile), "utf-8");
+    List<AnalyzedSentence> sentences = lt.analyzeText(text);
+    List<AnalyzedTokenReadings[]> tokens = new ArrayList<>();
+    List<String> lookups = new ArrayList<>();
+    for (AnalyzedSentence sentence : sentences) {
+      tokens.add(sentence.getTokens());
+      for (AnalyzedTokenReadings token : sentence.getTokensWithoutWhitespace()) {
+        lookups.add(token.getToken().toLowerCase());
+        lookups.add(token.getToken() + "x");  // a miss
+      }
+    }
+    System.out.println(sentences.size() + " sentences, " + lookups.size() + " lookups per run");
+    for (int i = 0; i < RUNS; i++) {
+      measure("build, TokenOffsetIndex", sentences.size(), () -> {
+        for (AnalyzedTokenReadings[] sentenceTokens : tokens) {
+          AnalyzedSentence sentence = new AnalyzedSentence(sentenceTokens);
+          sentence.getTokenSet();
+          sentence.getLemmaSet();
+        }
+      });
+      measure("build, HashMap        ", sentences.size(), () -> {
+        for (AnalyzedTokenReadings[] sentenceTokens : tokens) {
+          AnalyzedTokenReadings[] nonBlank = new AnalyzedSentence(sentenceTokens).getTokensWithoutWhitespace();
+          indexWithHashMap(nonBlank, false);
+          indexWithHashMap(nonBlank, true);
+        }
+      });
+      measure("lookup, TokenOffsetIndex", lookups.size(), () -> {
+        for (AnalyzedSentence sentence : sentences) {
+          for (AnalyzedTokenReadings token : sentence.getTokensWithoutWhitespace()) {
+            sentence.getTokenOffsets(token.getToken().toLowerCase());
+            sentence.getTokenSet().contains(token.getToken() + "x");
+          }
+        }
+      });
+    }
+  }
+
+  private void measure(String name, int count, Runnable runnable) {
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+    long startTime = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      runnable.run();
+    }
+    long runTime = System.nanoTime() - startTime;
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    System.out.printf(Locale.ENGLISH, "%s: %.3fµs, %d bytes allocated per item\n", name,
+      runTime / 1000.0 / count / ITERATIONS, allocated / count / ITERATIONS);
+  }
+
+  // how AnalyzedSentence indexed the tokens before TokenOffsetIndex, for comparison:
+  private static Map<String, List<Integer>> indexWithHashMap(AnalyzedTokenReadings[] tokens, boolean lemmas) {
+    Map<String, List<Integer>> result = new HashMap<>(tokens.length);
+    for (int i = 0; i < tokens.length; i++) {
+      for (AnalyzedToken reading : tokens[i]) {
+        if (!lemmas && reading != tokens[i].getAnalyzedToken(0)) {
+          break;
+        }
+        String key = (lemmas && reading.getLemma() != null ? reading.getLemma() : reading.getToken()).toLowerCase();
+        List<Integer> list = result.computeIfAbsent(key, __ -> new ArrayList<>(1));
+        if (list.isEmpty() || list.get(list.size() - 1) != i) {
+          list.add(i);
+        }
+      }
+    }
+    for (Map.Entry<String, List<Integer>> entry : result.entrySet()) {
+      entry.setValue(Collections.unmodifiableList(entry.getValue()));
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Usage: " + AnalyzedSentencePerformanceTest.class.getSimpleName() + " <languageCode> <text_file>");
+      System.exit(1);
+    }
+    JLanguageTool lt = new JLanguageTool(Languages.getLanguageForShortCode(args[0]));
+    new AnalyzedSentencePerformanceTest().run(lt, new File(args[1]));
+  }
+
+}
@@ -0,0 +1,108 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Languages;
+import org.languagetool.rules.Rule;
+import org.languagetool.tools.StringTools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Shows how many rules {@link RuleSet#textLemmaHinted(List)} skips per sentence, compared to
+ * filtering by the first token hint of each rule only (the approach used before the rules' hints were compiled
+ * into {@link RulePrefilter}). Not a unit test, for interactive use only.
+ */
+final class RuleSetPerformanceTest {
+
+  private static final int RUNS = 10;
+
+  private RuleSetPerformanceTest() {
+  }
+
+  private void run(JLanguageTool lt, File textFile) throws IOException {
+    String text = StringTools.readStream(new FileInputStream(textFile), "utf-8");
+    List<AnalyzedSentence> sentences = lt.analyzeText(text);
+    List<Rule> rules = lt.getAllActiveRules();
+    long startTime = System.currentTimeMillis();
+    RuleSet ruleSet = RuleSet.textLemmaHinted(rules);
+    long compileTime = System.currentTimeMillis() - startTime;
+    RulePrefilter prefilter = RulePrefilter.compile(rules, true);
+    System.out.println("Language: " + lt.getLanguage() + ", " + sentences.size() + " sentences, " + rules.size() + " active rules");
+    System.out.println("Compiled in " + compileTime + "ms: " + prefilter.getStateCount() + " automaton states, " +
+      prefilter.getHintCount() + " hints, " + prefilter.getClauseCount() + " clauses, " +
+      prefilter.getUnconditionalRuleCount() + " rules without hints");
+
+    long firstHintCandidates = 0;
+    long candidates = 0;
+    long matchingRules = 0;
+    for (AnalyzedSentence sentence : sentences) {
+      firstHintCandidates += rules.stream().filter(rule -> isFirstHintCandidate(rule, sentence)).count();
+      List<Rule> sentenceRules = ruleSet.rulesForSentence(sentence);
+      candidates += sentenceRules.size();
+      for (Rule rule : sentenceRules) {
+        if (rule.match(sentence).length > 0) {
+          matchingRules++;
+        }
+      }
+    }
+    System.out.printf("Candidates per sentence, first hint only: %.1f (%.1f skipped)\n",
+      (float) firstHintCandidates / sentences.size(), rules.size() - (float) firstHintCandidates / sentences.size());
+    System.out.printf("Candidates per sentence, all hints:       %.1f (%.1f skipped)\n",
+      (float) candidates / sentences.size(), rules.size() - (float) candidates / sentences.size());
+    System.out.printf("Rules with matches per sentence:          %.1f\n", (float) matchingRules / sentences.size());
+
+    for (int i = 0; i < RUNS; i++) {
+      long startTime2 = System.nanoTime();
+      for (AnalyzedSentence sentence : sentences) {
+        ruleSet.rulesForSentence(sentence);
+      }
+      long runTime = System.nanoTime() - startTime2;
+      System.out.printf("rulesForSentence: %.1fµs per sentence\n", runTime / 1000.0f / sentences.size());
+    }
+  }
+
+  private static boolean isFirstHintCandidate(Rule rule, AnalyzedSentence sentence) {
+    if (!(rule instanceof AbstractTokenBasedRule) || ((AbstractTokenBasedRule) rule).tokenHints == null) {
+      return true;
+    }
+    AbstractTokenBasedRule.TokenHint hint = ((AbstractTokenBasedRule) rule).tokenHints[0];
+    for (String value : hint.lowerCaseValues) {
+      if ((hint.inflected ? sentence.getLemmaSet() : sentence.getTokenSet()).contains(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Usage: " + RuleSetPerformanceTest.class.getSimpleName() + " <languageCode> <text_file>");
+      System.exit(1);
+    }
+    JLanguageTool lt = new JLanguageTool(Languages.getLanguageForShortCode(args[0]));
+    new RuleSetPerformanceTest().run(lt, new File(args[1]));
+  }
+
+}
@@ -0,0 +1,115 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.spelling.morfologik;
+
+import morfologik.speller.Speller;
+import morfologik.stemming.Dictionary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Measures the throughput of {@link MorfologikSpeller} when used by many threads at once, compared to
+ * synchronizing all threads on a single morfologik {@link Speller} (as {@code MorfologikSpeller} did before).
+ * Each operation checks a word and gets replacements if it's misspelled. Not a unit test, for interactive use only.
+ */
+final class MorfologikSpellerPerformanceTest {
+
+  private static final int[] THREAD_COUNTS = {1, 16, 32, 64};
+  private static final int SECONDS_PER_RUN = 5;
+
+  private MorfologikSpellerPerformanceTest() {
+  }
+
+  private void run(String dictPath, List<String> words) throws Exception {
+    Dictionary dictionary = MorfologikSpeller.getDictionaryWithCaching(dictPath);
+    System.out.println(words.size() + " words, " + Runtime.getRuntime().availableProcessors() + " processors");
+    MorfologikSpeller speller = new MorfologikSpeller(dictPath, 1);
+    Speller sharedSpeller = new Speller(dictionary, 1);
+    for (int threads : THREAD_COUNTS) {
+      measure("synchronized Speller", threads, words, word -> {
+        synchronized (sharedSpeller) {
+          if (sharedSpeller.isMisspelled(word)) {
+            sharedSpeller.findReplacements(word);
+          }
+        }
+      });
+      measure("MorfologikSpeller   ", threads, words, word -> {
+        if (speller.isMisspelled(word)) {
+          speller.findReplacements(word);
+        }
+      });
+    }
+  }
+
+  private void measure(String name, int threads, List<String> words, Consumer<String> operation) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      int offset = i * words.size() / threads;
+      futures.add(executor.submit(() -> {
+        start.await();
+        long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS_PER_RUN);
+        long count = 0;
+        while (System.nanoTime() < endTime) {
+          operation.accept(words.get((int) ((offset + count) % words.size())));
+          count++;
+        }
+        return count;
+      }));
+    }
+    start.countDown();
+    long total = 0;
+    for (Future<Long> future : futures) {
+      total += future.get();
+    }
+    executor.shutdown();
+    System.out.printf(Locale.ENGLISH, "%s, %2d threads: %,.0f words/s\n", name, threads, (double) total / SECONDS_PER_RUN);
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length != 2) {
+      System.out.println("Usage: " + MorfologikSpellerPerformanceTest.class.getSimpleName() + " <dictionary> <word_file>");
+      System.out.println("  <dictionary> is a morfologik speller dictionary in the classpath or file system, e.g. /en/hunspell/en_US.dict");
+      System.out.println("  <word_file> is a text file with one word per line, should include misspellings");
+      System.exit(1);
+    }
+    List<String> words = readWords(args[1]);
+    new MorfologikSpellerPerformanceTest().run(args[0], words);
+  }
+
+  private static List<String> readWords(String file) throws IOException {
+    List<String> words = new ArrayList<>();
+    for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+      if (!line.trim().isEmpty()) {
+        words.add(line.trim());
+      }
+    }
+    return words;
+  }
+
+}
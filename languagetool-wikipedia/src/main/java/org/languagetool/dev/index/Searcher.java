@@ -43,6 +43,7 @@ import org.languagetool.Language;
 import org.languagetool.Languages;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.patterns.LazyPatternRule;
 import org.languagetool.rules.patterns.PatternRule;
 import org.languagetool.tools.ContextTools;
 
@@ -241,8 +242,9 @@ public class Searcher {
     List<PatternRule> rules = new ArrayList<>();
     JLanguageTool lt = new JLanguageTool(language);
     for (Rule rule : lt.getAllRules()) {
-      if (rule.getId().equals(ruleId) && rule instanceof PatternRule) {
-        rules.add((PatternRule) rule);
+      Rule completeRule = LazyPatternRule.completeRule(rule);
+      if (completeRule.getId().equals(ruleId) && completeRule instanceof PatternRule) {
+        rules.add((PatternRule) completeRule);
       }
     }
     if (rules.size() > 0) {